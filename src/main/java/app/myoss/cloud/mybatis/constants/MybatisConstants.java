@@ -44,4 +44,8 @@ public class MybatisConstants {
      * 未匹配到相应的记录
      */
     public static final String NOT_MATCH_RECORDS          = "notMatchRecords";
+    /**
+     * 乐观锁的版本号不匹配，记录已经被其它操作修改
+     */
+    public static final String VERSION_CONFLICT           = "versionConflict";
 }
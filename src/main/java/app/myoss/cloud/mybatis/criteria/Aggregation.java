@@ -0,0 +1,576 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.criteria;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.ClassUtils;
+
+import app.myoss.cloud.core.exception.BizRuntimeException;
+import app.myoss.cloud.mybatis.table.TableColumnInfo;
+import app.myoss.cloud.mybatis.table.TableInfo;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+
+/**
+ * 聚合查询（sum/min/max/avg/count，可以按字段分组），聚合计算在数据库中执行，不需要把所有的记录查询到内存中再计算。
+ * <p>
+ * 属性名只能是实体类中可以查询的数据库字段，防止SQL注入；sql 语句中使用内部生成的字段别名，查询结果通过
+ * {@link #convert(List)} 转换为 {@link AggregateRow}，分组字段按属性名获取，聚合字段按指定的别名获取
+ *
+ * <pre>
+ * Aggregation&lt;UserOrder&gt; aggregation = Aggregation.of(UserOrder.class)
+ *         .groupBy(UserOrder::getUserId)
+ *         .count(&quot;orderCount&quot;)
+ *         .sum(UserOrder::getAmount, &quot;totalAmount&quot;);
+ * // SELECT user_id AS g0, COUNT(1) AS a0, SUM(amount) AS a1 FROM t_user_order WHERE ... GROUP BY user_id
+ * List&lt;AggregateRow&gt; rows = aggregation.convert(userOrderMapper.selectAggregate(condition, aggregation));
+ * Long userId = rows.get(0).getLong(&quot;userId&quot;);
+ * BigDecimal totalAmount = rows.get(0).getBigDecimal(&quot;totalAmount&quot;);
+ * </pre>
+ *
+ * @param <T> 实体类
+ * @author Jerry.Chen
+ * @since 2019年6月28日 下午3:16:52
+ */
+public class Aggregation<T> {
+    private static final Pattern        ALIAS_PATTERN  = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private final TableInfo             tableInfo;
+    private final List<TableColumnInfo> groupByColumns = new ArrayList<>();
+    private final List<Item>            items          = new ArrayList<>();
+    private String                      selectSql;
+    private String                      groupBySql;
+
+    private Aggregation(TableInfo tableInfo) {
+        this.tableInfo = tableInfo;
+    }
+
+    /**
+     * 创建实体类的聚合查询
+     *
+     * @param entityClass 实体类class
+     * @param <T> 实体类
+     * @return 聚合查询
+     */
+    public static <T> Aggregation<T> of(Class<T> entityClass) {
+        TableInfo tableInfo = TableMetaObject.getTableInfo(entityClass);
+        if (tableInfo == null) {
+            throw new BizRuntimeException("[" + entityClass.getName() + "] is not a registered table entity");
+        }
+        return new Aggregation<>(tableInfo);
+    }
+
+    /**
+     * 按字段分组，查询结果中使用属性名获取分组字段的值
+     *
+     * @param properties 分组的属性 getter 方法引用
+     * @return 当前对象
+     */
+    @SafeVarargs
+    public final Aggregation<T> groupBy(PropertyGetter<T, ?>... properties) {
+        for (PropertyGetter<T, ?> property : properties) {
+            groupByProperty(Criteria.getPropertyName(property));
+        }
+        return this;
+    }
+
+    /**
+     * 按字段分组，用于属性名是动态传入的场景，属性名不是实体类中可以查询的数据库字段时抛出异常
+     *
+     * @param property 分组的属性名
+     * @return 当前对象
+     */
+    public Aggregation<T> groupByProperty(String property) {
+        TableColumnInfo columnInfo = getColumnInfo(property, false);
+        checkName(columnInfo.getProperty());
+        groupByColumns.add(columnInfo);
+        selectSql = null;
+        groupBySql = null;
+        return this;
+    }
+
+    /**
+     * 统计记录数：{@code COUNT(1)}
+     *
+     * @param alias 查询结果中的别名
+     * @return 当前对象
+     */
+    public Aggregation<T> count(String alias) {
+        return addItem(Function.COUNT, null, alias);
+    }
+
+    /**
+     * 统计字段不重复的值的数量：{@code COUNT(DISTINCT column)}
+     *
+     * @param property 属性 getter 方法引用
+     * @param alias 查询结果中的别名
+     * @return 当前对象
+     */
+    public Aggregation<T> countDistinct(PropertyGetter<T, ?> property, String alias) {
+        return aggregate(Function.COUNT_DISTINCT, Criteria.getPropertyName(property), alias);
+    }
+
+    /**
+     * 字段求和：{@code SUM(column)}
+     *
+     * @param property 属性 getter 方法引用，必须是数字类型
+     * @param alias 查询结果中的别名
+     * @return 当前对象
+     */
+    public Aggregation<T> sum(PropertyGetter<T, ? extends Number> property, String alias) {
+        return aggregate(Function.SUM, Criteria.getPropertyName(property), alias);
+    }
+
+    /**
+     * 字段平均值，使用 {@code SUM(column)} 和 {@code COUNT(column)} 计算，分表查询时也能准确合并
+     *
+     * @param property 属性 getter 方法引用，必须是数字类型
+     * @param alias 查询结果中的别名
+     * @return 当前对象
+     */
+    public Aggregation<T> avg(PropertyGetter<T, ? extends Number> property, String alias) {
+        return aggregate(Function.AVG, Criteria.getPropertyName(property), alias);
+    }
+
+    /**
+     * 字段最小值：{@code MIN(column)}
+     *
+     * @param property 属性 getter 方法引用
+     * @param alias 查询结果中的别名
+     * @return 当前对象
+     */
+    public Aggregation<T> min(PropertyGetter<T, ?> property, String alias) {
+        return aggregate(Function.MIN, Criteria.getPropertyName(property), alias);
+    }
+
+    /**
+     * 字段最大值：{@code MAX(column)}
+     *
+     * @param property 属性 getter 方法引用
+     * @param alias 查询结果中的别名
+     * @return 当前对象
+     */
+    public Aggregation<T> max(PropertyGetter<T, ?> property, String alias) {
+        return aggregate(Function.MAX, Criteria.getPropertyName(property), alias);
+    }
+
+    /**
+     * 聚合字段，用于属性名是动态传入的场景，属性名不是实体类中可以查询的数据库字段时抛出异常
+     *
+     * @param function 聚合函数
+     * @param property 属性名，{@link Function#COUNT} 时忽略
+     * @param alias 查询结果中的别名
+     * @return 当前对象
+     */
+    public Aggregation<T> aggregate(Function function, String property, String alias) {
+        if (function == Function.COUNT) {
+            return addItem(function, null, alias);
+        }
+        boolean numeric = (function == Function.SUM || function == Function.AVG);
+        return addItem(function, getColumnInfo(property, numeric), alias);
+    }
+
+    private Aggregation<T> addItem(Function function, TableColumnInfo columnInfo, String alias) {
+        checkName(alias);
+        items.add(new Item(function, columnInfo, alias));
+        selectSql = null;
+        return this;
+    }
+
+    private TableColumnInfo getColumnInfo(String property, boolean numeric) {
+        TableColumnInfo columnInfo = Criteria.getColumnInfo(tableInfo, property);
+        if (columnInfo == null || !columnInfo.isSelectable()) {
+            // 校验字段名，防止SQL注入
+            throw new BizRuntimeException(
+                    "[" + tableInfo.getEntityClass().getName() + "] invalid aggregation field: " + property);
+        }
+        if (numeric && !Number.class.isAssignableFrom(ClassUtils.primitiveToWrapper(columnInfo.getJavaType()))) {
+            throw new BizRuntimeException(
+                    "[" + tableInfo.getEntityClass().getName() + "] aggregation field is not a number: " + property);
+        }
+        return columnInfo;
+    }
+
+    private void checkName(String name) {
+        if (name == null || !ALIAS_PATTERN.matcher(name).matches()) {
+            throw new BizRuntimeException("[" + tableInfo.getEntityClass().getName() + "] invalid alias: " + name);
+        }
+        boolean duplicate = groupByColumns.stream().anyMatch(item -> item.getProperty().equals(name))
+                || items.stream().anyMatch(item -> item.alias.equals(name));
+        if (duplicate) {
+            throw new BizRuntimeException("[" + tableInfo.getEntityClass().getName() + "] duplicate alias: " + name);
+        }
+    }
+
+    /**
+     * 获取实体类class
+     *
+     * @return 实体类class
+     */
+    public Class<?> getEntityClass() {
+        return tableInfo.getEntityClass();
+    }
+
+    /**
+     * 获取 select 查询的字段sql语句，比如：{@code user_id AS g0, SUM(amount) AS a0}
+     *
+     * @return sql语句
+     */
+    public String getSelectSql() {
+        if (items.isEmpty()) {
+            throw new BizRuntimeException("[" + tableInfo.getEntityClass().getName() + "] aggregation is empty");
+        }
+        String sql = selectSql;
+        if (sql == null) {
+            StringBuilder builder = new StringBuilder(128);
+            for (int i = 0; i < groupByColumns.size(); i++) {
+                builder.append(groupByColumns.get(i).getActualColumn()).append(" AS g").append(i).append(", ");
+            }
+            for (int i = 0; i < items.size(); i++) {
+                items.get(i).appendSql(builder, i);
+                builder.append(", ");
+            }
+            builder.setLength(builder.length() - 2);
+            sql = builder.toString();
+            selectSql = sql;
+        }
+        return sql;
+    }
+
+    /**
+     * 获取 group by 的字段sql语句，比如：{@code user_id}
+     *
+     * @return sql语句，没有分组字段时为 null
+     */
+    public String getGroupBySql() {
+        if (groupByColumns.isEmpty()) {
+            return null;
+        }
+        String sql = groupBySql;
+        if (sql == null) {
+            StringBuilder builder = new StringBuilder(64);
+            for (TableColumnInfo columnInfo : groupByColumns) {
+                builder.append(builder.length() > 0 ? ", " : "").append(columnInfo.getActualColumn());
+            }
+            sql = builder.toString();
+            groupBySql = sql;
+        }
+        return sql;
+    }
+
+    /**
+     * 将聚合查询的结果转换为 {@link AggregateRow}。分组字段、{@link Function#MIN}、{@link Function#MAX}
+     * 是数字时转换为实体类字段的类型，其它类型保持数据库返回的值；{@link Function#SUM}、{@link Function#AVG} 转换为
+     * {@link BigDecimal}；{@link Function#COUNT}、{@link Function#COUNT_DISTINCT} 转换为 {@link Long}
+     *
+     * @param rows 聚合查询的结果
+     * @return 聚合查询的结果
+     */
+    public List<AggregateRow> convert(List<Map<String, Object>> rows) {
+        if (rows == null) {
+            return null;
+        }
+        List<AggregateRow> result = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (int i = 0; i < groupByColumns.size(); i++) {
+                TableColumnInfo columnInfo = groupByColumns.get(i);
+                values.put(columnInfo.getProperty(), toJavaType(getValue(row, "g" + i), columnInfo.getJavaType()));
+            }
+            for (int i = 0; i < items.size(); i++) {
+                Item item = items.get(i);
+                values.put(item.alias, item.convert(row, i));
+            }
+            result.add(new AggregateRow(values));
+        }
+        return result;
+    }
+
+    /**
+     * 合并多张物理表（分表）的聚合查询结果，按分组字段合并，{@link Function#COUNT_DISTINCT} 不能准确合并，会抛出异常
+     *
+     * @param results 每张物理表的聚合查询结果
+     * @return 合并之后的聚合查询结果
+     */
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> merge(List<? extends List<?>> results) {
+        if (results.size() > 1 && items.stream().anyMatch(item -> item.function == Function.COUNT_DISTINCT)) {
+            throw new BizRuntimeException("[" + tableInfo.getEntityClass().getName()
+                    + "] count distinct can not be merged from multiple sharding tables");
+        }
+        Map<List<Object>, Map<String, Object>> merged = new LinkedHashMap<>();
+        for (List<?> result : results) {
+            for (Object item : result) {
+                Map<String, Object> row = (Map<String, Object>) item;
+                List<Object> key = new ArrayList<>(groupByColumns.size());
+                for (int i = 0; i < groupByColumns.size(); i++) {
+                    key.add(getValue(row, "g" + i));
+                }
+                Map<String, Object> target = merged.get(key);
+                if (target == null) {
+                    target = new HashMap<>();
+                    for (int i = 0; i < key.size(); i++) {
+                        target.put("g" + i, key.get(i));
+                    }
+                    merged.put(key, target);
+                }
+                for (int i = 0; i < items.size(); i++) {
+                    items.get(i).merge(target, row, i);
+                }
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * 获取数据库返回的字段值，不同的数据库返回的字段别名大小写不一样，忽略大小写匹配
+     */
+    private static Object getValue(Map<String, Object> row, String alias) {
+        Object value = row.get(alias);
+        if (value != null || row.containsKey(alias)) {
+            return value;
+        }
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            if (alias.equalsIgnoreCase(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value == null || value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        return new BigDecimal(value.toString());
+    }
+
+    private static Object toJavaType(Object value, Class<?> javaType) {
+        Class<?> type = ClassUtils.primitiveToWrapper(javaType);
+        if (!(value instanceof Number) || type.isInstance(value)) {
+            return value;
+        }
+        Number number = (Number) value;
+        if (type == Long.class) {
+            return number.longValue();
+        } else if (type == Integer.class) {
+            return number.intValue();
+        } else if (type == Short.class) {
+            return number.shortValue();
+        } else if (type == Byte.class) {
+            return number.byteValue();
+        } else if (type == Double.class) {
+            return number.doubleValue();
+        } else if (type == Float.class) {
+            return number.floatValue();
+        } else if (type == BigDecimal.class) {
+            return toBigDecimal(number);
+        } else if (type == BigInteger.class) {
+            return toBigDecimal(number).toBigInteger();
+        }
+        return value;
+    }
+
+    /**
+     * 聚合函数
+     */
+    public enum Function {
+        /**
+         * 统计记录数：{@code COUNT(1)}
+         */
+        COUNT,
+        /**
+         * 统计字段不重复的值的数量：{@code COUNT(DISTINCT column)}
+         */
+        COUNT_DISTINCT,
+        /**
+         * 字段求和：{@code SUM(column)}
+         */
+        SUM,
+        /**
+         * 字段平均值：{@code SUM(column) / COUNT(column)}
+         */
+        AVG,
+        /**
+         * 字段最小值：{@code MIN(column)}
+         */
+        MIN,
+        /**
+         * 字段最大值：{@code MAX(column)}
+         */
+        MAX
+    }
+
+    private static class Item {
+        private final Function        function;
+        private final TableColumnInfo columnInfo;
+        private final String          alias;
+
+        Item(Function function, TableColumnInfo columnInfo, String alias) {
+            this.function = function;
+            this.columnInfo = columnInfo;
+            this.alias = alias;
+        }
+
+        void appendSql(StringBuilder builder, int index) {
+            switch (function) {
+                case COUNT:
+                    builder.append("COUNT(1)");
+                    break;
+                case COUNT_DISTINCT:
+                    builder.append("COUNT(DISTINCT ").append(columnInfo.getActualColumn()).append(")");
+                    break;
+                case AVG:
+                    // 平均值使用总和、记录数计算，分表查询时才能准确合并
+                    builder.append("SUM(").append(columnInfo.getActualColumn()).append(") AS a").append(index);
+                    builder.append(", COUNT(").append(columnInfo.getActualColumn()).append(") AS n").append(index);
+                    return;
+                default:
+                    builder.append(function.name()).append("(").append(columnInfo.getActualColumn()).append(")");
+                    break;
+            }
+            builder.append(" AS a").append(index);
+        }
+
+        Object convert(Map<String, Object> row, int index) {
+            Object value = getValue(row, "a" + index);
+            switch (function) {
+                case COUNT:
+                case COUNT_DISTINCT:
+                    return (value != null ? ((Number) value).longValue() : 0L);
+                case SUM:
+                    return toBigDecimal(value);
+                case AVG:
+                    BigDecimal count = toBigDecimal(getValue(row, "n" + index));
+                    if (value == null || count == null || count.signum() == 0) {
+                        return null;
+                    }
+                    return toBigDecimal(value).divide(count, MathContext.DECIMAL64);
+                default:
+                    return toJavaType(value, columnInfo.getJavaType());
+            }
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        void merge(Map<String, Object> target, Map<String, Object> row, int index) {
+            String key = "a" + index;
+            Object value = getValue(row, key);
+            Object current = target.get(key);
+            switch (function) {
+                case MIN:
+                case MAX:
+                    if (current == null || (value != null && (function == Function.MIN
+                            ? ((Comparable) value).compareTo(current) < 0
+                            : ((Comparable) value).compareTo(current) > 0))) {
+                        target.put(key, value);
+                    }
+                    break;
+                case AVG:
+                    String countKey = "n" + index;
+                    target.put(countKey, add(target.get(countKey), getValue(row, countKey)));
+                    target.put(key, add(current, value));
+                    break;
+                default:
+                    target.put(key, add(current, value));
+                    break;
+            }
+        }
+
+        private static BigDecimal add(Object current, Object value) {
+            if (current == null) {
+                return toBigDecimal(value);
+            }
+            return (value != null ? toBigDecimal(current).add(toBigDecimal(value)) : toBigDecimal(current));
+        }
+    }
+
+    /**
+     * 聚合查询结果的一行记录
+     */
+    public static class AggregateRow {
+        private final Map<String, Object> values;
+
+        AggregateRow(Map<String, Object> values) {
+            this.values = Collections.unmodifiableMap(values);
+        }
+
+        /**
+         * 获取分组字段（属性名）或者聚合字段（别名）的值
+         *
+         * @param name 属性名或者别名
+         * @return 字段的值
+         */
+        public Object get(String name) {
+            return values.get(name);
+        }
+
+        /**
+         * 获取分组字段（属性名）或者聚合字段（别名）的值
+         *
+         * @param name 属性名或者别名
+         * @param type 字段值的类型
+         * @param <V> 字段值的类型
+         * @return 字段的值
+         */
+        public <V> V get(String name, Class<V> type) {
+            return type.cast(values.get(name));
+        }
+
+        /**
+         * 获取字段的值，数字类型转换为 {@link Long}
+         *
+         * @param name 属性名或者别名
+         * @return 字段的值
+         */
+        public Long getLong(String name) {
+            return (Long) toJavaType(values.get(name), Long.class);
+        }
+
+        /**
+         * 获取字段的值，数字类型转换为 {@link BigDecimal}
+         *
+         * @param name 属性名或者别名
+         * @return 字段的值
+         */
+        public BigDecimal getBigDecimal(String name) {
+            return (BigDecimal) toJavaType(values.get(name), BigDecimal.class);
+        }
+
+        /**
+         * 获取所有字段的值，分组字段在前，聚合字段在后
+         *
+         * @return 属性名或者别名 =&gt; 字段的值
+         */
+        public Map<String, Object> getValues() {
+            return values;
+        }
+
+        @Override
+        public String toString() {
+            return values.toString();
+        }
+    }
+}
@@ -0,0 +1,608 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.criteria;
+
+import java.beans.Introspector;
+import java.lang.invoke.SerializedLambda;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.util.CollectionUtils;
+
+import app.myoss.cloud.core.exception.BizRuntimeException;
+import app.myoss.cloud.core.lang.dto.Direction;
+import app.myoss.cloud.core.lang.dto.Order;
+import app.myoss.cloud.core.lang.dto.Sort;
+import app.myoss.cloud.mybatis.table.TableColumnInfo;
+import app.myoss.cloud.mybatis.table.TableInfo;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 类型安全的查询条件，绑定到实体类的"数据库表结构信息"，支持：比较、between、in、like、is null、and/or 分组、order by。
+ * <p>
+ * 属性名只能是实体类中的数据库字段，防止SQL注入；所有的值都通过 {@code ?} 占位符传递，相同结构的查询条件会复用同一条 sql 语句
+ *
+ * <pre>
+ * Criteria&lt;User&gt; criteria = Criteria.of(User.class)
+ *         .eq(User::getStatus, UserStatusEnum.NORMAL)
+ *         .between(User::getGmtCreated, start, end)
+ *         .or(c -&gt; c.like(User::getName, "Jerry%").isNull(User::getAccount))
+ *         .orderByDesc(User::getId);
+ * // WHERE status = ? AND gmt_created BETWEEN ? AND ? AND (name LIKE ? OR account IS NULL) ORDER BY id DESC
+ * </pre>
+ *
+ * @param <T> 实体类
+ * @author Jerry.Chen
+ * @since 2019年6月18日 上午10:05:21
+ * @see CriteriaSqlSource
+ */
+@Slf4j
+public class Criteria<T> {
+    /**
+     * getter 方法引用的 class => 属性名
+     */
+    private static final Map<Class<?>, String> PROPERTY_NAME_CACHE = new ConcurrentHashMap<>();
+    private final TableInfo                    tableInfo;
+    /**
+     * true: 条件之间使用 OR 连接；false: 使用 AND 连接
+     */
+    private final boolean                      or;
+    /**
+     * 查询条件，{@link Criterion} 或者分组的 {@link Criteria}
+     */
+    private final List<Object>                 conditions = new ArrayList<>();
+    /**
+     * 排序字段，{@link Order#getProperty()} 为数据库字段名，分组的查询条件为 null
+     */
+    private final List<Order>                  orders;
+
+    private Criteria(TableInfo tableInfo, boolean or, List<Order> orders) {
+        this.tableInfo = tableInfo;
+        this.or = or;
+        this.orders = orders;
+    }
+
+    /**
+     * 创建实体类的查询条件
+     *
+     * @param entityClass 实体类class
+     * @param <T> 实体类
+     * @return 查询条件
+     */
+    public static <T> Criteria<T> of(Class<T> entityClass) {
+        TableInfo tableInfo = TableMetaObject.getTableInfo(entityClass);
+        if (tableInfo == null) {
+            throw new BizRuntimeException("[" + entityClass.getName() + "] is not a registered table entity");
+        }
+        return new Criteria<>(tableInfo, false, new ArrayList<>());
+    }
+
+    /**
+     * 等于：{@code column = ?}
+     *
+     * @param property 实体类属性
+     * @param value 属性值
+     * @param <R> 属性类型
+     * @return 当前对象
+     */
+    public <R> Criteria<T> eq(PropertyGetter<T, R> property, R value) {
+        return add(getPropertyName(property), Operator.EQ, value);
+    }
+
+    /**
+     * 不等于：{@code column <> ?}
+     *
+     * @param property 实体类属性
+     * @param value 属性值
+     * @param <R> 属性类型
+     * @return 当前对象
+     */
+    public <R> Criteria<T> ne(PropertyGetter<T, R> property, R value) {
+        return add(getPropertyName(property), Operator.NE, value);
+    }
+
+    /**
+     * 大于：{@code column > ?}
+     *
+     * @param property 实体类属性
+     * @param value 属性值
+     * @param <R> 属性类型
+     * @return 当前对象
+     */
+    public <R> Criteria<T> gt(PropertyGetter<T, R> property, R value) {
+        return add(getPropertyName(property), Operator.GT, value);
+    }
+
+    /**
+     * 大于等于：{@code column >= ?}
+     *
+     * @param property 实体类属性
+     * @param value 属性值
+     * @param <R> 属性类型
+     * @return 当前对象
+     */
+    public <R> Criteria<T> ge(PropertyGetter<T, R> property, R value) {
+        return add(getPropertyName(property), Operator.GE, value);
+    }
+
+    /**
+     * 小于：{@code column < ?}
+     *
+     * @param property 实体类属性
+     * @param value 属性值
+     * @param <R> 属性类型
+     * @return 当前对象
+     */
+    public <R> Criteria<T> lt(PropertyGetter<T, R> property, R value) {
+        return add(getPropertyName(property), Operator.LT, value);
+    }
+
+    /**
+     * 小于等于：{@code column <= ?}
+     *
+     * @param property 实体类属性
+     * @param value 属性值
+     * @param <R> 属性类型
+     * @return 当前对象
+     */
+    public <R> Criteria<T> le(PropertyGetter<T, R> property, R value) {
+        return add(getPropertyName(property), Operator.LE, value);
+    }
+
+    /**
+     * 区间：{@code column BETWEEN ? AND ?}
+     *
+     * @param property 实体类属性
+     * @param from 开始值（包含）
+     * @param to 结束值（包含）
+     * @param <R> 属性类型
+     * @return 当前对象
+     */
+    public <R> Criteria<T> between(PropertyGetter<T, R> property, R from, R to) {
+        return add(getPropertyName(property), Operator.BETWEEN, from, to);
+    }
+
+    /**
+     * 包含：{@code column IN (?, ?)}，集合为空时不匹配任何记录
+     *
+     * @param property 实体类属性
+     * @param values 属性值集合
+     * @param <R> 属性类型
+     * @return 当前对象
+     */
+    public <R> Criteria<T> in(PropertyGetter<T, R> property, Collection<? extends R> values) {
+        return add(getPropertyName(property), Operator.IN, values.toArray());
+    }
+
+    /**
+     * 不包含：{@code column NOT IN (?, ?)}，集合为空时匹配所有记录
+     *
+     * @param property 实体类属性
+     * @param values 属性值集合
+     * @param <R> 属性类型
+     * @return 当前对象
+     */
+    public <R> Criteria<T> notIn(PropertyGetter<T, R> property, Collection<? extends R> values) {
+        return add(getPropertyName(property), Operator.NOT_IN, values.toArray());
+    }
+
+    /**
+     * 模糊匹配：{@code column LIKE ?}，通配符需要自己指定，比如：{@code "Jerry%"}
+     *
+     * @param property 实体类属性
+     * @param pattern 匹配的表达式
+     * @return 当前对象
+     */
+    public Criteria<T> like(PropertyGetter<T, String> property, String pattern) {
+        return add(getPropertyName(property), Operator.LIKE, pattern);
+    }
+
+    /**
+     * 模糊不匹配：{@code column NOT LIKE ?}
+     *
+     * @param property 实体类属性
+     * @param pattern 匹配的表达式
+     * @return 当前对象
+     */
+    public Criteria<T> notLike(PropertyGetter<T, String> property, String pattern) {
+        return add(getPropertyName(property), Operator.NOT_LIKE, pattern);
+    }
+
+    /**
+     * 为空：{@code column IS NULL}
+     *
+     * @param property 实体类属性
+     * @return 当前对象
+     */
+    public Criteria<T> isNull(PropertyGetter<T, ?> property) {
+        return add(getPropertyName(property), Operator.IS_NULL);
+    }
+
+    /**
+     * 不为空：{@code column IS NOT NULL}
+     *
+     * @param property 实体类属性
+     * @return 当前对象
+     */
+    public Criteria<T> isNotNull(PropertyGetter<T, ?> property) {
+        return add(getPropertyName(property), Operator.IS_NOT_NULL);
+    }
+
+    /**
+     * 增加一组使用 AND 连接的查询条件：{@code (a = ? AND b = ?)}
+     *
+     * @param group 设置分组中的查询条件
+     * @return 当前对象
+     */
+    public Criteria<T> and(Consumer<Criteria<T>> group) {
+        return addGroup(false, group);
+    }
+
+    /**
+     * 增加一组使用 OR 连接的查询条件：{@code (a = ? OR b = ?)}
+     *
+     * @param group 设置分组中的查询条件
+     * @return 当前对象
+     */
+    public Criteria<T> or(Consumer<Criteria<T>> group) {
+        return addGroup(true, group);
+    }
+
+    private Criteria<T> addGroup(boolean or, Consumer<Criteria<T>> group) {
+        Criteria<T> criteria = new Criteria<>(tableInfo, or, null);
+        group.accept(criteria);
+        if (!criteria.isEmpty()) {
+            conditions.add(criteria);
+        }
+        return this;
+    }
+
+    /**
+     * 增加查询条件，用于属性名是动态传入的场景，属性名不是实体类中的数据库字段时抛出异常
+     *
+     * @param property 实体类属性名
+     * @param operator 比较运算符
+     * @param values 属性值，个数需要和 {@link Operator} 匹配
+     * @return 当前对象
+     */
+    public Criteria<T> add(String property, Operator operator, Object... values) {
+        TableColumnInfo columnInfo = getColumnInfo(property);
+        if (columnInfo == null) {
+            // 校验字段名，防止SQL注入
+            throw new BizRuntimeException(
+                    "[" + tableInfo.getEntityClass().getName() + "] invalid criteria field: " + property);
+        }
+        if (operator.getValueCount() >= 0 && values.length != operator.getValueCount()) {
+            throw new BizRuntimeException("[" + property + "] " + operator + " needs " + operator.getValueCount()
+                    + " value(s), but got " + values.length);
+        }
+        for (Object value : values) {
+            if (value == null) {
+                throw new BizRuntimeException(
+                        "[" + property + "] " + operator + " value can not be null, use isNull instead");
+            }
+        }
+        conditions.add(new Criterion(columnInfo, operator, values));
+        return this;
+    }
+
+    /**
+     * 增加排序字段
+     *
+     * @param property 实体类属性
+     * @param direction 排序方向
+     * @return 当前对象
+     */
+    public Criteria<T> orderBy(PropertyGetter<T, ?> property, Direction direction) {
+        checkRoot();
+        String name = getPropertyName(property);
+        TableColumnInfo columnInfo = getColumnInfo(name);
+        if (columnInfo == null) {
+            throw new BizRuntimeException(
+                    "[" + tableInfo.getEntityClass().getName() + "] invalid order field: " + name);
+        }
+        orders.add(new Order(direction, columnInfo.getActualColumn()));
+        return this;
+    }
+
+    /**
+     * 增加升序排序字段
+     *
+     * @param property 实体类属性
+     * @return 当前对象
+     */
+    public Criteria<T> orderByAsc(PropertyGetter<T, ?> property) {
+        return orderBy(property, Direction.ASC);
+    }
+
+    /**
+     * 增加降序排序字段
+     *
+     * @param property 实体类属性
+     * @return 当前对象
+     */
+    public Criteria<T> orderByDesc(PropertyGetter<T, ?> property) {
+        return orderBy(property, Direction.DESC);
+    }
+
+    /**
+     * 增加排序字段，用于排序字段是动态传入的场景，和
+     * {@link app.myoss.cloud.mybatis.repository.utils.CrudServiceUtils#convertToOrders} 一样忽略不是数据库字段的属性
+     *
+     * @param sort 排序字段
+     * @return 当前对象
+     */
+    public Criteria<T> orderBy(Sort sort) {
+        checkRoot();
+        if (sort == null || CollectionUtils.isEmpty(sort.getOrders())) {
+            return this;
+        }
+        for (Order item : sort.getOrders()) {
+            TableColumnInfo columnInfo = getColumnInfo(item.getProperty());
+            if (columnInfo != null) {
+                // 校验字段名，防止SQL注入
+                orders.add(new Order(item.getDirection(), columnInfo.getActualColumn()));
+            } else {
+                log.error("[{}] ignored invalid filed: {}", tableInfo.getEntityClass(), item.getProperty());
+            }
+        }
+        return this;
+    }
+
+    private void checkRoot() {
+        if (orders == null) {
+            throw new BizRuntimeException("order by is not supported in criteria group");
+        }
+    }
+
+    /**
+     * 是否没有任何查询条件
+     *
+     * @return true: 没有查询条件
+     */
+    public boolean isEmpty() {
+        return conditions.isEmpty();
+    }
+
+    /**
+     * 获取实体类class
+     *
+     * @return 实体类class
+     */
+    public Class<?> getEntityClass() {
+        return tableInfo.getEntityClass();
+    }
+
+    /**
+     * 获取排序字段，{@link Order#getProperty()} 为数据库字段名
+     *
+     * @return 排序字段
+     */
+    public List<Order> getOrders() {
+        return (orders != null ? Collections.unmodifiableList(orders) : Collections.emptyList());
+    }
+
+    private TableColumnInfo getColumnInfo(String property) {
+        return getColumnInfo(tableInfo, property);
+    }
+
+    /**
+     * 获取实体类属性对应的数据库字段，优先精确匹配属性名，其次忽略大小写匹配
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param property 实体类属性名
+     * @return 数据库字段，属性名不是实体类中的数据库字段时返回 null
+     */
+    static TableColumnInfo getColumnInfo(TableInfo tableInfo, String property) {
+        if (StringUtils.isBlank(property)) {
+            return null;
+        }
+        for (TableColumnInfo columnInfo : tableInfo.getColumns()) {
+            if (columnInfo.getProperty().equals(property)) {
+                return columnInfo;
+            }
+        }
+        // 举例 field 名称为：xPath，getter 方法解析出来的属性名为：XPath
+        for (TableColumnInfo columnInfo : tableInfo.getColumns()) {
+            if (columnInfo.getProperty().equalsIgnoreCase(property)) {
+                return columnInfo;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取 getter 方法引用对应的属性名，每个方法引用只会解析一次
+     *
+     * @param getter getter 方法引用
+     * @return 属性名
+     */
+    static String getPropertyName(PropertyGetter<?, ?> getter) {
+        return PROPERTY_NAME_CACHE.computeIfAbsent(getter.getClass(), key -> {
+            String methodName;
+            try {
+                Method writeReplace = key.getDeclaredMethod("writeReplace");
+                writeReplace.setAccessible(true);
+                methodName = ((SerializedLambda) writeReplace.invoke(getter)).getImplMethodName();
+            } catch (ReflectiveOperationException | ClassCastException ex) {
+                throw new BizRuntimeException(
+                        "[" + key.getName() + "] is not a method reference, for example: User::getName", ex);
+            }
+            if (methodName.startsWith("get") && methodName.length() > 3) {
+                return Introspector.decapitalize(methodName.substring(3));
+            } else if (methodName.startsWith("is") && methodName.length() > 2) {
+                return Introspector.decapitalize(methodName.substring(2));
+            }
+            throw new BizRuntimeException("[" + methodName + "] is not a getter method");
+        });
+    }
+
+    /**
+     * 生成查询条件的结构签名，结构相同（字段、运算符、值的个数、分组、排序都相同）的查询条件生成的 sql 语句相同
+     *
+     * @param signature 结构签名
+     */
+    void appendSignature(StringBuilder signature) {
+        signature.append(or ? "O(" : "A(");
+        for (Object condition : conditions) {
+            if (condition instanceof Criterion) {
+                Criterion criterion = (Criterion) condition;
+                signature.append(criterion.columnInfo.getProperty())
+                        .append(':')
+                        .append(criterion.operator.ordinal())
+                        .append(':')
+                        .append(criterion.values.length)
+                        .append(';');
+            } else {
+                ((Criteria<?>) condition).appendSignature(signature);
+            }
+        }
+        signature.append(')');
+        if (orders != null) {
+            for (Order order : orders) {
+                signature.append(order.getProperty()).append(' ').append(order.getDirection()).append(',');
+            }
+        }
+    }
+
+    /**
+     * 生成查询条件的 sql 语句，不包含 where 和 order by
+     *
+     * @param sql sql 语句
+     * @param parameterColumns 每个 {@code ?} 占位符对应的字段
+     */
+    void appendSql(StringBuilder sql, List<TableColumnInfo> parameterColumns) {
+        String separator = (or ? " OR " : " AND ");
+        for (int i = 0; i < conditions.size(); i++) {
+            if (i > 0) {
+                sql.append(separator);
+            }
+            Object condition = conditions.get(i);
+            if (condition instanceof Criterion) {
+                ((Criterion) condition).appendSql(sql, parameterColumns);
+            } else {
+                sql.append('(');
+                ((Criteria<?>) condition).appendSql(sql, parameterColumns);
+                sql.append(')');
+            }
+        }
+    }
+
+    /**
+     * 按 {@code ?} 占位符的顺序收集参数值
+     *
+     * @param values 参数值
+     */
+    void collectValues(List<Object> values) {
+        for (Object condition : conditions) {
+            if (condition instanceof Criterion) {
+                Collections.addAll(values, ((Criterion) condition).values);
+            } else {
+                ((Criteria<?>) condition).collectValues(values);
+            }
+        }
+    }
+
+    /**
+     * 比较运算符
+     */
+    @Getter
+    public enum Operator {
+        EQ("=", 1),
+        NE("<>", 1),
+        GT(">", 1),
+        GE(">=", 1),
+        LT("<", 1),
+        LE("<=", 1),
+        LIKE("LIKE", 1),
+        NOT_LIKE("NOT LIKE", 1),
+        BETWEEN("BETWEEN", 2),
+        IN("IN", -1),
+        NOT_IN("NOT IN", -1),
+        IS_NULL("IS NULL", 0),
+        IS_NOT_NULL("IS NOT NULL", 0);
+
+        /**
+         * sql 运算符
+         */
+        private final String sql;
+        /**
+         * 值的个数，-1 表示任意个数
+         */
+        private final int    valueCount;
+
+        Operator(String sql, int valueCount) {
+            this.sql = sql;
+            this.valueCount = valueCount;
+        }
+    }
+
+    /**
+     * 单个字段的查询条件
+     */
+    private static class Criterion {
+        private final TableColumnInfo columnInfo;
+        private final Operator        operator;
+        private final Object[]        values;
+
+        Criterion(TableColumnInfo columnInfo, Operator operator, Object[] values) {
+            this.columnInfo = columnInfo;
+            this.operator = operator;
+            this.values = values;
+        }
+
+        void appendSql(StringBuilder sql, List<TableColumnInfo> parameterColumns) {
+            if (values.length == 0 && (operator == Operator.IN || operator == Operator.NOT_IN)) {
+                sql.append(operator == Operator.IN ? "1 = 0" : "1 = 1");
+                return;
+            }
+            sql.append(columnInfo.getActualColumn()).append(' ').append(operator.getSql());
+            switch (operator) {
+                case IS_NULL:
+                case IS_NOT_NULL:
+                    break;
+                case BETWEEN:
+                    sql.append(" ? AND ?");
+                    break;
+                case IN:
+                case NOT_IN:
+                    sql.append(" (");
+                    for (int i = 0; i < values.length; i++) {
+                        sql.append(i > 0 ? ", ?" : "?");
+                    }
+                    sql.append(')');
+                    break;
+                default:
+                    sql.append(" ?");
+                    break;
+            }
+            for (int i = 0; i < values.length; i++) {
+                parameterColumns.add(columnInfo);
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.criteria;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeHandler;
+
+import app.myoss.cloud.core.lang.dto.Order;
+import app.myoss.cloud.mybatis.mapper.template.SqlShapeCache;
+import app.myoss.cloud.mybatis.table.TableColumnInfo;
+import app.myoss.cloud.mybatis.table.TableInfo;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+
+/**
+ * 将 {@link Criteria} 编译为参数化 sql 语句的 SqlSource。
+ * <p>
+ * 结构相同的查询条件生成的 sql 语句和 {@link ParameterMapping} 会被缓存，之后只需要按顺序收集参数值；参数值通过
+ * {@link BoundSql#setAdditionalParameter(String, Object)} 传递，不依赖 Mapper 方法的参数结构
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月18日 上午10:05:21
+ */
+public class CriteriaSqlSource implements SqlSource {
+    /**
+     * {@link Criteria} 在 Mapper 方法中的参数名
+     */
+    public static final String                       CRITERIA_PARAM = "criteria";
+    private static final String                      VALUE_PREFIX   = "__criteria_";
+    private final Configuration                      configuration;
+    private final TableInfo                          tableInfo;
+    private final String                             selectSql;
+    private final boolean                            orderBy;
+    private final String                             suffixSql;
+    private final List<ParameterMapping>             suffixParameterMappings;
+    /**
+     * 查询条件的结构签名 => sql 语句
+     */
+    private final SqlShapeCache<String, CompiledSql> compiledSqls   = new SqlShapeCache<>();
+
+    /**
+     * 创建将 {@link Criteria} 编译为参数化 sql 语句的 SqlSource
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param selectSql where 条件之前的 sql 语句，比如：{@code SELECT id, name FROM table_name}
+     * @param orderBy 是否使用 {@link Criteria#getOrders()} 生成 order by 语句
+     * @param suffixSql 追加在最后的 sql 语句，比如：{@code LIMIT ?, ?}，没有则为 null
+     * @param suffixParameters suffixSql 中每个 {@code ?} 占位符对应的参数名
+     */
+    public CriteriaSqlSource(TableInfo tableInfo, String selectSql, boolean orderBy, String suffixSql,
+                             String... suffixParameters) {
+        this.configuration = tableInfo.getConfiguration();
+        this.tableInfo = tableInfo;
+        this.selectSql = selectSql;
+        this.orderBy = orderBy;
+        this.suffixSql = suffixSql;
+        List<ParameterMapping> mappings = new ArrayList<>(suffixParameters.length);
+        for (String parameter : suffixParameters) {
+            mappings.add(new ParameterMapping.Builder(configuration, parameter, Integer.class).build());
+        }
+        this.suffixParameterMappings = mappings;
+    }
+
+    @Override
+    public BoundSql getBoundSql(Object parameterObject) {
+        Criteria<?> criteria = getCriteria(parameterObject);
+        if (criteria != null && criteria.getEntityClass() != tableInfo.getEntityClass()) {
+            throw new BindingException("criteria entity [" + criteria.getEntityClass().getName()
+                    + "] does not match table entity [" + tableInfo.getEntityClass().getName() + "]");
+        }
+        StringBuilder signature = new StringBuilder(128);
+        if (criteria != null) {
+            criteria.appendSignature(signature);
+        }
+        CompiledSql compiledSql = compiledSqls.computeIfAbsent(signature.toString(), key -> compile(criteria));
+
+        BoundSql boundSql = new BoundSql(configuration, compiledSql.sql, compiledSql.parameterMappings,
+                parameterObject);
+        if (criteria != null) {
+            List<Object> values = new ArrayList<>(compiledSql.parameterMappings.size());
+            criteria.collectValues(values);
+            for (int i = 0; i < values.size(); i++) {
+                boundSql.setAdditionalParameter(VALUE_PREFIX + i, values.get(i));
+            }
+        }
+        return boundSql;
+    }
+
+    private static Criteria<?> getCriteria(Object parameterObject) {
+        if (parameterObject instanceof Criteria) {
+            return (Criteria<?>) parameterObject;
+        }
+        if (parameterObject instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) parameterObject;
+            if (map.containsKey(CRITERIA_PARAM)) {
+                return (Criteria<?>) map.get(CRITERIA_PARAM);
+            }
+        }
+        return null;
+    }
+
+    private CompiledSql compile(Criteria<?> criteria) {
+        StringBuilder sql = new StringBuilder(selectSql.length() + 256);
+        sql.append(selectSql);
+        List<TableColumnInfo> parameterColumns = new ArrayList<>();
+        boolean hasCondition = criteria != null && !criteria.isEmpty();
+        if (hasCondition) {
+            sql.append(" WHERE ");
+            criteria.appendSql(sql, parameterColumns);
+        }
+        if (tableInfo.isLogicDelete()) {
+            for (TableColumnInfo item : tableInfo.getLogicDeleteColumns()) {
+                sql.append(hasCondition ? " AND " : " WHERE ");
+                hasCondition = true;
+                sql.append(TableMetaObject.builderLogicUnDeleteSql(item));
+            }
+        }
+        if (orderBy && criteria != null && !criteria.getOrders().isEmpty()) {
+            sql.append(" ORDER BY ");
+            List<Order> orders = criteria.getOrders();
+            for (int i = 0; i < orders.size(); i++) {
+                Order order = orders.get(i);
+                sql.append(i > 0 ? ", " : "").append(order.getProperty()).append(' ').append(order.getDirection());
+            }
+        }
+
+        List<ParameterMapping> parameterMappings = new ArrayList<>(
+                parameterColumns.size() + suffixParameterMappings.size());
+        for (int i = 0; i < parameterColumns.size(); i++) {
+            TableColumnInfo columnInfo = parameterColumns.get(i);
+            String property = VALUE_PREFIX + i;
+            TypeHandler<?> typeHandler = columnInfo.getTypeHandler();
+            ParameterMapping.Builder builder = (typeHandler != null
+                    ? new ParameterMapping.Builder(configuration, property, typeHandler)
+                    : new ParameterMapping.Builder(configuration, property, columnInfo.getJavaType()));
+            parameterMappings.add(builder.build());
+        }
+        if (suffixSql != null) {
+            sql.append(' ').append(suffixSql);
+            parameterMappings.addAll(suffixParameterMappings);
+        }
+        return new CompiledSql(sql.toString(), Collections.unmodifiableList(parameterMappings));
+    }
+
+    private static class CompiledSql {
+        private final String                 sql;
+        private final List<ParameterMapping> parameterMappings;
+
+        CompiledSql(String sql, List<ParameterMapping> parameterMappings) {
+            this.sql = sql;
+            this.parameterMappings = parameterMappings;
+        }
+    }
+}
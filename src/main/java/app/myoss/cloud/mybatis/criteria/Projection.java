@@ -0,0 +1,256 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.criteria;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.session.Configuration;
+
+import app.myoss.cloud.core.exception.BizRuntimeException;
+import app.myoss.cloud.mybatis.table.TableColumnInfo;
+import app.myoss.cloud.mybatis.table.TableInfo;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+
+/**
+ * 查询指定的数据库字段（投影），用于只需要少量字段的查询，避免查询出所有的字段（比如：大文本、JSON字段）。
+ * <p>
+ * 属性名只能是实体类中可以查询的数据库字段，防止SQL注入；相同字段的投影只会创建一次，select 语句和转换为 DTO 的属性映射都会被缓存
+ *
+ * <pre>
+ * Projection&lt;User&gt; projection = Projection.of(User.class, User::getId, User::getName);
+ * // SELECT id, name FROM t_sys_user WHERE ...
+ * List&lt;User&gt; users = userMapper.selectListColumns(condition, projection);
+ * List&lt;UserNameDTO&gt; dtoList = projection.convert(users, UserNameDTO.class);
+ * </pre>
+ *
+ * @param <T> 实体类
+ * @author Jerry.Chen
+ * @since 2019年6月19日 上午11:12:36
+ */
+public class Projection<T> {
+    /**
+     * 最多缓存的投影数量，超过之后不再缓存
+     */
+    public static final int                         MAX_CACHED_PROJECTIONS = 1024;
+    /**
+     * 实体类名 + 属性名 => 投影
+     */
+    private static final Map<String, Projection<?>> PROJECTION_CACHE       = new ConcurrentHashMap<>();
+    private final TableInfo                         tableInfo;
+    private final List<TableColumnInfo>             columns;
+    private final String                            selectSql;
+    /**
+     * DTO class => 属性映射
+     */
+    private final Map<Class<?>, DtoConverter>       dtoConverters          = new ConcurrentHashMap<>();
+
+    private Projection(TableInfo tableInfo, String... properties) {
+        if (properties.length == 0) {
+            throw new BizRuntimeException("[" + tableInfo.getEntityClass().getName() + "] projection is empty");
+        }
+        List<TableColumnInfo> columnList = new ArrayList<>(properties.length);
+        for (String property : properties) {
+            TableColumnInfo columnInfo = Criteria.getColumnInfo(tableInfo, property);
+            if (columnInfo == null || !columnInfo.isSelectable()) {
+                // 校验字段名，防止SQL注入
+                throw new BizRuntimeException(
+                        "[" + tableInfo.getEntityClass().getName() + "] invalid projection field: " + property);
+            }
+            // TableColumnInfo 的 equals/hashCode 会引用 TableInfo，这里按照对象引用去重
+            if (columnList.stream().noneMatch(item -> item == columnInfo)) {
+                columnList.add(columnInfo);
+            }
+        }
+        this.tableInfo = tableInfo;
+        this.columns = Collections.unmodifiableList(columnList);
+        this.selectSql = columns.stream().map(TableColumnInfo::getActualColumn).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * 创建实体类的投影
+     *
+     * @param entityClass 实体类class
+     * @param properties 需要查询的属性 getter 方法引用
+     * @param <T> 实体类
+     * @return 投影
+     */
+    @SafeVarargs
+    public static <T> Projection<T> of(Class<T> entityClass, PropertyGetter<T, ?>... properties) {
+        String[] names = new String[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            names[i] = Criteria.getPropertyName(properties[i]);
+        }
+        return ofProperties(entityClass, names);
+    }
+
+    /**
+     * 创建实体类的投影，用于属性名是动态传入的场景，属性名不是实体类中可以查询的数据库字段时抛出异常
+     *
+     * @param entityClass 实体类class
+     * @param properties 需要查询的属性名
+     * @param <T> 实体类
+     * @return 投影
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Projection<T> ofProperties(Class<T> entityClass, String... properties) {
+        String key = entityClass.getName() + ":" + String.join(",", properties);
+        Projection<?> projection = PROJECTION_CACHE.get(key);
+        if (projection == null) {
+            TableInfo tableInfo = TableMetaObject.getTableInfo(entityClass);
+            if (tableInfo == null) {
+                throw new BizRuntimeException("[" + entityClass.getName() + "] is not a registered table entity");
+            }
+            projection = new Projection<T>(tableInfo, properties);
+            if (PROJECTION_CACHE.size() < MAX_CACHED_PROJECTIONS) {
+                Projection<?> exists = PROJECTION_CACHE.putIfAbsent(key, projection);
+                if (exists != null) {
+                    projection = exists;
+                }
+            }
+        }
+        return (Projection<T>) projection;
+    }
+
+    /**
+     * 获取实体类class
+     *
+     * @return 实体类class
+     */
+    public Class<?> getEntityClass() {
+        return tableInfo.getEntityClass();
+    }
+
+    /**
+     * 获取需要查询的数据库字段
+     *
+     * @return 数据库字段
+     */
+    public List<TableColumnInfo> getColumns() {
+        return columns;
+    }
+
+    /**
+     * 获取 select 查询的字段sql语句，比如：{@code id, name}
+     *
+     * @return sql语句
+     */
+    public String getSelectSql() {
+        return selectSql;
+    }
+
+    /**
+     * 将投影查询出来的实体对象转换为 DTO 对象，只复制投影中的字段，DTO 中没有 setter 方法或者类型不匹配的字段会被忽略
+     *
+     * @param entity 实体对象
+     * @param dtoClass DTO class，需要有无参的构造方法
+     * @param <D> DTO 类型
+     * @return DTO 对象，实体对象为 null 时返回 null
+     */
+    public <D> D convert(T entity, Class<D> dtoClass) {
+        if (entity == null) {
+            return null;
+        }
+        return getDtoConverter(dtoClass).convert(entity);
+    }
+
+    /**
+     * 将投影查询出来的实体对象转换为 DTO 对象，只复制投影中的字段，DTO 中没有 setter 方法或者类型不匹配的字段会被忽略
+     *
+     * @param entities 实体对象
+     * @param dtoClass DTO class，需要有无参的构造方法
+     * @param <D> DTO 类型
+     * @return DTO 对象
+     */
+    public <D> List<D> convert(List<T> entities, Class<D> dtoClass) {
+        if (entities == null) {
+            return null;
+        }
+        DtoConverter dtoConverter = getDtoConverter(dtoClass);
+        List<D> result = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            result.add(entity != null ? dtoConverter.convert(entity) : null);
+        }
+        return result;
+    }
+
+    private DtoConverter getDtoConverter(Class<?> dtoClass) {
+        DtoConverter dtoConverter = dtoConverters.get(dtoClass);
+        if (dtoConverter == null) {
+            dtoConverter = dtoConverters.computeIfAbsent(dtoClass, this::compile);
+        }
+        return dtoConverter;
+    }
+
+    private DtoConverter compile(Class<?> dtoClass) {
+        Configuration configuration = tableInfo.getConfiguration();
+        Reflector reflector = configuration.getReflectorFactory().findForClass(dtoClass);
+        List<Function<Object, Object>> getters = new ArrayList<>(columns.size());
+        List<Invoker> setters = new ArrayList<>(columns.size());
+        for (TableColumnInfo columnInfo : columns) {
+            String property = columnInfo.getProperty();
+            if (reflector.hasSetter(property)
+                    && ClassUtils.isAssignable(columnInfo.getJavaType(), reflector.getSetterType(property), true)) {
+                getters.add(columnInfo.getGetter());
+                setters.add(reflector.getSetInvoker(property));
+            }
+        }
+        return new DtoConverter(configuration, dtoClass, getters, setters);
+    }
+
+    private static class DtoConverter {
+        private final Configuration              configuration;
+        private final Class<?>                   dtoClass;
+        private final Function<Object, Object>[] getters;
+        private final Invoker[]                  setters;
+
+        @SuppressWarnings("unchecked")
+        DtoConverter(Configuration configuration, Class<?> dtoClass, List<Function<Object, Object>> getters,
+                     List<Invoker> setters) {
+            this.configuration = configuration;
+            this.dtoClass = dtoClass;
+            this.getters = getters.toArray(new Function[0]);
+            this.setters = setters.toArray(new Invoker[0]);
+        }
+
+        @SuppressWarnings("unchecked")
+        <D> D convert(Object entity) {
+            Object dto = configuration.getObjectFactory().create(dtoClass);
+            for (int i = 0; i < getters.length; i++) {
+                Object value = getters[i].apply(entity);
+                if (value != null) {
+                    try {
+                        setters[i].invoke(dto, new Object[] { value });
+                    } catch (IllegalAccessException | InvocationTargetException ex) {
+                        throw new BizRuntimeException("[" + dtoClass.getName() + "] set property failed", ex);
+                    }
+                }
+            }
+            return (D) dto;
+        }
+    }
+}
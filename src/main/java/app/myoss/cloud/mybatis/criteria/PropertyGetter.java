@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.criteria;
+
+import java.io.Serializable;
+import java.util.function.Function;
+
+/**
+ * 实体类属性的 getter 方法引用，比如：{@code User::getName}，用于类型安全的指定查询条件中的属性。必须是可序列化的方法引用，通过
+ * {@link java.lang.invoke.SerializedLambda} 解析出属性名
+ *
+ * @param <T> 实体类
+ * @param <R> 属性类型
+ * @author Jerry.Chen
+ * @since 2019年6月18日 上午10:05:21
+ * @see Criteria
+ */
+@FunctionalInterface
+public interface PropertyGetter<T, R> extends Function<T, R>, Serializable {
+}
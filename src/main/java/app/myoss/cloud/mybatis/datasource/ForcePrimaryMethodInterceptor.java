@@ -0,0 +1,39 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.datasource;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * 处理 {@link ForcePrimary} 注解的方法拦截器，方法执行期间强制使用主库
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月22日 上午11:20:35
+ */
+public class ForcePrimaryMethodInterceptor implements MethodInterceptor {
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        ReadWriteRoutingContext.enterForcePrimary();
+        try {
+            return invocation.proceed();
+        } finally {
+            ReadWriteRoutingContext.exitForcePrimary();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.datasource;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 选择平均耗时最少的从库，耗时使用指数加权移动平均计算，没有执行过 sql 语句的从库优先选择。
+ * <p>
+ * 耗时相同时轮询选择，避免所有请求集中到同一个从库
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月22日 上午11:20:35
+ */
+public class LeastLatencyReplicaSelector implements ReplicaSelector {
+    /**
+     * 新耗时的权重，取值范围：(0, 1]
+     */
+    private final double             weight;
+    private final AtomicInteger      counter = new AtomicInteger();
+    private volatile AtomicLongArray latencies;
+
+    /**
+     * 创建选择平均耗时最少的从库的选择策略，新耗时的权重为 0.2
+     */
+    public LeastLatencyReplicaSelector() {
+        this(0.2);
+    }
+
+    /**
+     * 创建选择平均耗时最少的从库的选择策略
+     *
+     * @param weight 新耗时的权重，取值范围：(0, 1]，越大越偏向最近的耗时
+     */
+    public LeastLatencyReplicaSelector(double weight) {
+        if (weight <= 0 || weight > 1) {
+            throw new IllegalArgumentException("weight must be in (0, 1], but found: " + weight);
+        }
+        this.weight = weight;
+    }
+
+    @Override
+    public int select(int replicaCount) {
+        AtomicLongArray array = getLatencies(replicaCount);
+        int start = (counter.getAndIncrement() & Integer.MAX_VALUE) % replicaCount;
+        int selected = start;
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < replicaCount; i++) {
+            int index = (start + i) % replicaCount;
+            long latency = array.get(index);
+            if (latency < min) {
+                min = latency;
+                selected = index;
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public void recordLatency(int index, long elapsedNanos) {
+        AtomicLongArray array = latencies;
+        if (array == null || index >= array.length()) {
+            return;
+        }
+        long previous = array.get(index);
+        long value = (previous == 0 ? elapsedNanos : (long) (previous + weight * (elapsedNanos - previous)));
+        array.set(index, Math.max(1, value));
+    }
+
+    /**
+     * 获取从库的平均耗时
+     *
+     * @param index 从库的下标
+     * @return 平均耗时，单位：纳秒，0 表示还没有执行过 sql 语句
+     */
+    public long getLatency(int index) {
+        AtomicLongArray array = latencies;
+        return (array == null || index >= array.length() ? 0 : array.get(index));
+    }
+
+    private AtomicLongArray getLatencies(int replicaCount) {
+        AtomicLongArray array = latencies;
+        if (array == null || array.length() != replicaCount) {
+            synchronized (this) {
+                array = latencies;
+                if (array == null || array.length() != replicaCount) {
+                    array = new AtomicLongArray(replicaCount);
+                    latencies = array;
+                }
+            }
+        }
+        return array;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.datasource;
+
+import java.util.function.LongConsumer;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import app.myoss.cloud.core.lang.concurrent.CallableFunc;
+
+/**
+ * 读写分离的路由上下文，保存在当前线程中。
+ * <ul>
+ * <li>当前 sql 语句是否路由到从库，由 {@link app.myoss.cloud.mybatis.plugin.ReadWriteRoutingInterceptor} 设置</li>
+ * <li>强制使用主库，使用 {@link #runOnPrimary(CallableFunc)} 或者 {@link ForcePrimary} 注解</li>
+ * <li>事务同步范围内（比如：{@code Propagation.SUPPORTS}）执行过写操作之后，剩下的查询都使用主库，防止读取不到刚写入的数据</li>
+ * </ul>
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月22日 上午11:20:35
+ */
+public final class ReadWriteRoutingContext {
+    private static final ThreadLocal<Integer>      FORCE_PRIMARY    = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean>      READ_ROUTE       = new ThreadLocal<>();
+    private static final ThreadLocal<LongConsumer> LATENCY_RECORDER = new ThreadLocal<>();
+    /**
+     * 事务同步范围内是否执行过写操作，绑定在 {@link TransactionSynchronizationManager} 中的 key
+     */
+    private static final Object                    WRITTEN_KEY      = new Object();
+
+    private ReadWriteRoutingContext() {
+    }
+
+    /**
+     * 强制使用主库执行
+     *
+     * @param callable 需要执行的方法
+     * @param <V> 返回值类型
+     * @return 方法的返回值
+     */
+    public static <V> V runOnPrimary(CallableFunc<V> callable) {
+        enterForcePrimary();
+        try {
+            return callable.call();
+        } finally {
+            exitForcePrimary();
+        }
+    }
+
+    /**
+     * 强制使用主库执行
+     *
+     * @param runnable 需要执行的方法
+     */
+    public static void runOnPrimary(Runnable runnable) {
+        runOnPrimary(() -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    static void enterForcePrimary() {
+        Integer depth = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(depth == null ? 1 : depth + 1);
+    }
+
+    static void exitForcePrimary() {
+        Integer depth = FORCE_PRIMARY.get();
+        if (depth == null || depth <= 1) {
+            FORCE_PRIMARY.remove();
+        } else {
+            FORCE_PRIMARY.set(depth - 1);
+        }
+    }
+
+    /**
+     * 当前是否强制使用主库
+     *
+     * @return true: 强制使用主库
+     */
+    public static boolean isForcePrimary() {
+        return FORCE_PRIMARY.get() != null;
+    }
+
+    /**
+     * 当前 sql 语句是否路由到从库
+     *
+     * @return true: 使用从库; false: 使用主库
+     */
+    public static boolean isReadRoute() {
+        return Boolean.TRUE.equals(READ_ROUTE.get());
+    }
+
+    /**
+     * 设置当前 sql 语句的路由
+     *
+     * @param readRoute true: 使用从库; false: 使用主库; null: 清除
+     * @return 之前的路由，用于执行完 sql 语句之后还原
+     */
+    public static Boolean setReadRoute(Boolean readRoute) {
+        Boolean previous = READ_ROUTE.get();
+        if (readRoute == null) {
+            READ_ROUTE.remove();
+        } else {
+            READ_ROUTE.set(readRoute);
+        }
+        return previous;
+    }
+
+    /**
+     * 记录执行了写操作，在事务同步范围内，之后的查询都使用主库，事务同步结束之后自动清除；挂起事务同步时（比如：
+     * {@code Propagation.REQUIRES_NEW}）不影响新的事务同步
+     */
+    public static void markWritten() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(WRITTEN_KEY)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(WRITTEN_KEY, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITTEN_KEY);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(WRITTEN_KEY, Boolean.TRUE);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITTEN_KEY);
+            }
+        });
+    }
+
+    /**
+     * 在事务同步范围内是否执行过写操作
+     *
+     * @return true: 执行过写操作
+     */
+    public static boolean isWritten() {
+        return TransactionSynchronizationManager.hasResource(WRITTEN_KEY);
+    }
+
+    /**
+     * 设置当前 sql 语句使用的从库耗时记录器，由 {@link ReadWriteRoutingDataSource} 在选择从库时设置
+     *
+     * @param recorder 耗时记录器，null: 清除
+     */
+    static void setLatencyRecorder(LongConsumer recorder) {
+        if (recorder == null) {
+            LATENCY_RECORDER.remove();
+        } else {
+            LATENCY_RECORDER.set(recorder);
+        }
+    }
+
+    /**
+     * 记录当前 sql 语句在从库执行的耗时，用于 {@link LeastLatencyReplicaSelector} 选择从库，并清除耗时记录器
+     *
+     * @param elapsedNanos 耗时，单位：纳秒
+     */
+    public static void recordLatency(long elapsedNanos) {
+        LongConsumer recorder = LATENCY_RECORDER.get();
+        if (recorder != null) {
+            LATENCY_RECORDER.remove();
+            recorder.accept(elapsedNanos);
+        }
+    }
+}
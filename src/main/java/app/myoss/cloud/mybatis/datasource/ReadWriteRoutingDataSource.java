@@ -0,0 +1,235 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.util.Assert;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 读写分离的数据源，根据 {@link ReadWriteRoutingContext#isReadRoute()} 选择主库或者从库。
+ * <p>
+ * 需要配合 {@link app.myoss.cloud.mybatis.plugin.ReadWriteRoutingInterceptor} 使用：不在读写事务中的
+ * {@code SELECT} 语句使用从库，其它的都使用主库。事务开启时就会获取数据库连接，如果希望只读事务（
+ * {@code @Transactional(readOnly = true)}）也使用从库，事务管理器需要使用
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} 包装当前数据源。
+ * <p>
+ * 从库的连接会被包装，事务同步范围内绑定的从库连接执行写操作时，自动提交模式下切换到主库，事务中直接抛出异常。从库获取连接失败时使用主库
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月22日 上午11:20:35
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+    private final DataSource       primary;
+    private final List<DataSource> replicas;
+    private final ReplicaSelector  replicaSelector;
+
+    /**
+     * 创建读写分离的数据源，轮询选择从库
+     *
+     * @param primary 主库
+     * @param replicas 从库
+     */
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        this(primary, replicas, new RoundRobinReplicaSelector());
+    }
+
+    /**
+     * 创建读写分离的数据源
+     *
+     * @param primary 主库
+     * @param replicas 从库，为空时全部使用主库
+     * @param replicaSelector 从库的选择策略
+     */
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas,
+                                      ReplicaSelector replicaSelector) {
+        Assert.notNull(primary, "primary dataSource is required");
+        Assert.notNull(replicaSelector, "replicaSelector is required");
+        this.primary = primary;
+        this.replicas = (replicas != null ? Collections.unmodifiableList(new ArrayList<>(replicas))
+                : Collections.emptyList());
+        this.replicaSelector = replicaSelector;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!ReadWriteRoutingContext.isReadRoute() || replicas.isEmpty()) {
+            return primary.getConnection();
+        }
+        int index = replicaSelector.select(replicas.size());
+        try {
+            Connection connection = replicas.get(index).getConnection();
+            ReadWriteRoutingContext.setLatencyRecorder(elapsedNanos -> replicaSelector.recordLatency(index,
+                    elapsedNanos));
+            return newReplicaConnectionProxy(connection, primary::getConnection);
+        } catch (SQLException ex) {
+            log.warn("get connection from replica [{}] failed, use primary instead", index, ex);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (!ReadWriteRoutingContext.isReadRoute() || replicas.isEmpty()) {
+            return primary.getConnection(username, password);
+        }
+        int index = replicaSelector.select(replicas.size());
+        try {
+            Connection connection = replicas.get(index).getConnection(username, password);
+            ReadWriteRoutingContext.setLatencyRecorder(elapsedNanos -> replicaSelector.recordLatency(index,
+                    elapsedNanos));
+            return newReplicaConnectionProxy(connection, () -> primary.getConnection(username, password));
+        } catch (SQLException ex) {
+            log.warn("get connection from replica [{}] failed, use primary instead", index, ex);
+            return primary.getConnection(username, password);
+        }
+    }
+
+    /**
+     * 包装从库的连接，事务同步范围内（比如：{@code Propagation.SUPPORTS}）第一条查询语句获取的从库连接会一直被使用，
+     * 之后执行写操作时需要切换到主库
+     *
+     * @param connection 从库的连接
+     * @param primaryConnectionSupplier 获取主库连接的方法
+     * @return 从库连接的代理对象
+     */
+    protected Connection newReplicaConnectionProxy(Connection connection,
+                                                   PrimaryConnectionSupplier primaryConnectionSupplier) {
+        return (Connection) Proxy.newProxyInstance(ReadWriteRoutingDataSource.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new ReplicaConnectionInvocationHandler(connection, primaryConnectionSupplier));
+    }
+
+    /**
+     * 获取主库
+     *
+     * @return 主库
+     */
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    /**
+     * 获取从库
+     *
+     * @return 从库
+     */
+    public List<DataSource> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * 获取从库的选择策略
+     *
+     * @return 从库的选择策略
+     */
+    public ReplicaSelector getReplicaSelector() {
+        return replicaSelector;
+    }
+
+    /**
+     * 获取主库连接的方法
+     */
+    @FunctionalInterface
+    protected interface PrimaryConnectionSupplier {
+        /**
+         * 获取主库连接
+         *
+         * @return 主库连接
+         * @throws SQLException 获取连接失败
+         */
+        Connection getConnection() throws SQLException;
+    }
+
+    /**
+     * 从库连接的代理：创建 {@link java.sql.Statement} 时如果当前 sql 语句不是路由到从库（写操作或者强制使用主库），
+     * <ul>
+     * <li>自动提交模式（不在事务中）：关闭从库连接，切换到主库连接，和
+     * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} 一样在执行语句之前才确定目标连接</li>
+     * <li>事务中：从库连接上已经有未提交的事务，不能切换，直接抛出异常，防止写操作在从库上执行</li>
+     * </ul>
+     */
+    private static class ReplicaConnectionInvocationHandler implements InvocationHandler {
+        private final PrimaryConnectionSupplier primaryConnectionSupplier;
+        private Connection                      target;
+        private boolean                         replica = true;
+
+        ReplicaConnectionInvocationHandler(Connection target, PrimaryConnectionSupplier primaryConnectionSupplier) {
+            this.target = target;
+            this.primaryConnectionSupplier = primaryConnectionSupplier;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Replica connection proxy for target [" + target + "], replica: " + replica;
+                case "createStatement":
+                case "prepareStatement":
+                case "prepareCall":
+                    if (replica && !ReadWriteRoutingContext.isReadRoute()) {
+                        switchToPrimary();
+                    }
+                    break;
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
+        }
+
+        private void switchToPrimary() throws SQLException {
+            if (!target.getAutoCommit()) {
+                throw new SQLException("can not execute write statement on replica connection in transaction, "
+                        + "please use read-write transaction or @ForcePrimary");
+            }
+            Connection primaryConnection = primaryConnectionSupplier.getConnection();
+            try {
+                target.close();
+            } catch (SQLException ex) {
+                log.warn("close replica connection failed", ex);
+            }
+            log.debug("switch replica connection to primary for write statement");
+            target = primaryConnection;
+            replica = false;
+            // 之后的语句在主库执行，不再记录从库的耗时
+            ReadWriteRoutingContext.setLatencyRecorder(null);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.datasource;
+
+/**
+ * 从库的选择策略
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月22日 上午11:20:35
+ * @see RoundRobinReplicaSelector
+ * @see LeastLatencyReplicaSelector
+ */
+public interface ReplicaSelector {
+    /**
+     * 选择一个从库
+     *
+     * @param replicaCount 从库数量，大于0
+     * @return 从库的下标
+     */
+    int select(int replicaCount);
+
+    /**
+     * 记录 sql 语句在从库执行的耗时
+     *
+     * @param index 从库的下标
+     * @param elapsedNanos 耗时，单位：纳秒
+     */
+    default void recordLatency(int index, long elapsedNanos) {
+    }
+}
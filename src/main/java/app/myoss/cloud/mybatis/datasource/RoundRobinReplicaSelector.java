@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.datasource;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 轮询选择从库
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月22日 上午11:20:35
+ */
+public class RoundRobinReplicaSelector implements ReplicaSelector {
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    public int select(int replicaCount) {
+        return (counter.getAndIncrement() & Integer.MAX_VALUE) % replicaCount;
+    }
+}
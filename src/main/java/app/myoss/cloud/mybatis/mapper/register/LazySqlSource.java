@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.register;
+
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.SystemMetaObject;
+
+import app.myoss.cloud.mybatis.mapper.template.AbstractMapperTemplate;
+
+/**
+ * 延迟生成 sql 语句的占位 SqlSource。第一次调用 {@link #getBoundSql(Object)} 时才会执行
+ * {@link AbstractMapperTemplate} 中的方法生成真正的 SqlSource，并且只会生成一次。
+ * <p>
+ * 生成之后 {@link MappedStatement#getSqlSource()} 仍然指向此对象，所有线程都通过 volatile
+ * 字段读取真正的 SqlSource，保证能看到模版方法对 {@link MappedStatement} 的所有修改（如 resultMaps）
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月5日 上午11:20:36
+ * @see MapperInterfaceRegister#setLazy(boolean)
+ */
+public class LazySqlSource implements SqlSource {
+    private final MappedStatement mappedStatement;
+    private final Runnable        initializer;
+    private volatile SqlSource    delegate;
+
+    /**
+     * 创建延迟生成 sql 语句的占位 SqlSource
+     *
+     * @param mappedStatement sql语句节点信息
+     * @param initializer 调用 {@link AbstractMapperTemplate} 中的方法生成 sql 语句
+     */
+    public LazySqlSource(MappedStatement mappedStatement, Runnable initializer) {
+        this.mappedStatement = mappedStatement;
+        this.initializer = initializer;
+    }
+
+    @Override
+    public BoundSql getBoundSql(Object parameterObject) {
+        SqlSource sqlSource = delegate;
+        if (sqlSource == null) {
+            sqlSource = initialize();
+        }
+        return sqlSource.getBoundSql(parameterObject);
+    }
+
+    /**
+     * 生成真正的 SqlSource，如果已经生成则直接返回
+     *
+     * @return 真正的 SqlSource
+     */
+    public SqlSource initialize() {
+        SqlSource sqlSource = delegate;
+        if (sqlSource != null) {
+            return sqlSource;
+        }
+        synchronized (this) {
+            sqlSource = delegate;
+            if (sqlSource == null) {
+                initializer.run();
+                sqlSource = mappedStatement.getSqlSource();
+                if (sqlSource == this) {
+                    throw new BindingException(
+                            "[" + mappedStatement.getId() + "] sqlSource is not replaced by mapper template");
+                }
+                // 仍然使用当前对象作为 MappedStatement 的 SqlSource
+                SystemMetaObject.forObject(mappedStatement).setValue("sqlSource", this);
+                delegate = sqlSource;
+            }
+            return sqlSource;
+        }
+    }
+
+    /**
+     * 是否已经生成了真正的 SqlSource
+     *
+     * @return true: 已经生成
+     */
+    public boolean isInitialized() {
+        return delegate != null;
+    }
+}
@@ -20,14 +20,22 @@ package app.myoss.cloud.mybatis.mapper.register;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 
@@ -38,6 +46,7 @@ import org.apache.ibatis.annotations.UpdateProvider;
 import org.apache.ibatis.binding.BindingException;
 import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.SystemMetaObject;
 import org.apache.ibatis.session.Configuration;
 
 import app.myoss.cloud.mybatis.mapper.annotation.RegisterMapper;
@@ -47,6 +56,7 @@ import app.myoss.cloud.mybatis.table.TableInfo;
 import app.myoss.cloud.mybatis.table.TableMetaObject;
 import lombok.Getter;
 import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * 通用 Mapper 接口注册器，扫描接口是否有 {@link RegisterMapper} 注解，并自动注册接口方法，生成 sql 语句
@@ -56,6 +66,7 @@ import lombok.Setter;
  * @see RegisterMapper
  * @see AbstractMapperTemplate
  */
+@Slf4j
 public class MapperInterfaceRegister {
     /**
      * 通用Mapper接口实例对象
@@ -72,6 +83,37 @@ public class MapperInterfaceRegister {
     private Configuration                                 configuration;
     @Getter
     private Set<Class<? extends Annotation>>              sqlProviderAnnotationTypes;
+    /**
+     * 是否开启并行注册：实体类的数据库表结构信息和 SqlSource 的生成会分发到 {@link ForkJoinPool}
+     * 中执行，生成的结果按照注册顺序发布到 MyBatis {@link Configuration} 中
+     */
+    @Setter
+    @Getter
+    private boolean                                       parallel;
+    /**
+     * 并行注册时使用的线程数，默认为 CPU 核数
+     */
+    @Setter
+    @Getter
+    private int                                           parallelism             = Runtime.getRuntime().availableProcessors();
+    /**
+     * 是否开启延迟生成：注册时只为 {@link MappedStatement} 设置占位的 {@link LazySqlSource}，
+     * 第一次执行时才生成真正的 sql 语句
+     */
+    @Setter
+    @Getter
+    private boolean                                       lazy;
+    /**
+     * 开启延迟生成时，需要在后台预先生成 sql 语句的模版方法名，如：selectByPrimaryKey
+     *
+     * @see #warmUp()
+     */
+    @Setter
+    @Getter
+    private Set<String>                                   warmUpMethods;
+    private final Queue<LazySqlSource>                    warmUpSqlSources        = new ConcurrentLinkedQueue<>();
+    private final Set<Class<?>>                           pendingMapperInterfaces = new LinkedHashSet<>();
+    private volatile ForkJoinPool                         forkJoinPool;
 
     /**
      * 初始化 通用 Mapper 接口注册器
@@ -102,7 +144,72 @@ public class MapperInterfaceRegister {
         }
         TableInfo tableInfo = TableMetaObject.getTableInfoByMapperInterface(mapperInterface, tableConfig,
                 configuration);
-        scanRegisterMapper(tableInfo, mapperInterface, mapperInterface);
+        List<RegisterTask> tasks = new ArrayList<>();
+        scanRegisterMapper(tableInfo, mapperInterface, mapperInterface, tasks);
+        executeTasks(tasks);
+    }
+
+    /**
+     * 批量为 Mapper Interface 注册 SQL 操作方法。开启 {@link #parallel}
+     * 之后，所有实体类的数据库表结构信息、所有方法的 SqlSource 会分别并行生成；否则和逐个调用
+     * {@link #executeRegister(Class)} 的效果一样
+     *
+     * @param mapperInterfaces mapper interface class
+     */
+    public void executeRegister(Collection<Class<?>> mapperInterfaces) {
+        Map<Class<?>, Class<?>> mapperEntityClasses = new LinkedHashMap<>();
+        for (Class<?> mapperInterface : mapperInterfaces) {
+            Class<?> entityClass = TableMetaObject.getEntityClassByMapperInterface(mapperInterface);
+            if (entityClass != null) {
+                mapperEntityClasses.put(mapperInterface, entityClass);
+            }
+        }
+        if (parallel) {
+            // 实体类的数据库表结构信息只和实体类有关，去重之后并行生成，结果会缓存在 TableMetaObject 中
+            Set<Class<?>> entityClasses = new LinkedHashSet<>(mapperEntityClasses.values());
+            List<ForkJoinTask<TableInfo>> futures = new ArrayList<>(entityClasses.size());
+            for (Class<?> entityClass : entityClasses) {
+                futures.add(getForkJoinPool()
+                        .submit(() -> TableMetaObject.getTableInfo(entityClass, tableConfig, configuration)));
+            }
+            joinAll(futures);
+        }
+
+        List<RegisterTask> tasks = new ArrayList<>();
+        for (Class<?> mapperInterface : mapperEntityClasses.keySet()) {
+            TableInfo tableInfo = TableMetaObject.getTableInfoByMapperInterface(mapperInterface, tableConfig,
+                    configuration);
+            scanRegisterMapper(tableInfo, mapperInterface, mapperInterface, tasks);
+        }
+        executeTasks(tasks);
+    }
+
+    /**
+     * 延迟注册 Mapper Interface，先放入待注册的集合中，调用 {@link #executePendingRegister()}
+     * 时再批量注册。开启 {@link #parallel} 时，用它收集所有的 Mapper Interface，一次性并行生成
+     *
+     * @param mapperInterface mapper interface class
+     * @see #executePendingRegister()
+     */
+    public synchronized void addPendingRegister(Class<?> mapperInterface) {
+        pendingMapperInterfaces.add(mapperInterface);
+    }
+
+    /**
+     * 批量注册 {@link #addPendingRegister(Class)} 收集到的 Mapper Interface，没有待注册的
+     * Mapper Interface 时直接返回。需要在所有的 Mapper Interface 都收集完成之后、第一次被使用之前调用一次：Spring Boot
+     * 项目在所有的单例 Bean 初始化完成之后由 {@code MybatisAutoConfiguration#mapperInterfaceRegisterInitializer}
+     * 调用，其它项目开启 {@link #parallel} 时需要自行调用
+     *
+     * @see #executeRegister(Collection)
+     */
+    public synchronized void executePendingRegister() {
+        if (pendingMapperInterfaces.isEmpty()) {
+            return;
+        }
+        List<Class<?>> mapperInterfaces = new ArrayList<>(pendingMapperInterfaces);
+        pendingMapperInterfaces.clear();
+        executeRegister(mapperInterfaces);
     }
 
     /**
@@ -111,16 +218,18 @@ public class MapperInterfaceRegister {
      * @param tableInfo 数据库表结构信息
      * @param rootMapperInterfaceClass 实体对象关联的 mapper interface class
      * @param mapperInterface 当前要被扫描的 mapper interface class
+     * @param tasks 待执行的注册任务
      */
-    private void scanRegisterMapper(TableInfo tableInfo, Class<?> rootMapperInterfaceClass, Class<?> mapperInterface) {
+    private void scanRegisterMapper(TableInfo tableInfo, Class<?> rootMapperInterfaceClass, Class<?> mapperInterface,
+                                    List<RegisterTask> tasks) {
         Class<?>[] interfaces = mapperInterface.getInterfaces();
         for (Class<?> sqlMapperClass : interfaces) {
             // 自动注册标记了 @RegisterMapper 的接口
             if (sqlMapperClass.isAnnotationPresent(RegisterMapper.class)) {
-                processRegisterMapper(tableInfo, rootMapperInterfaceClass, sqlMapperClass);
+                collectRegisterTasks(tableInfo, rootMapperInterfaceClass, sqlMapperClass, tasks);
             }
             // 扫描父接口
-            scanRegisterMapper(tableInfo, rootMapperInterfaceClass, sqlMapperClass);
+            scanRegisterMapper(tableInfo, rootMapperInterfaceClass, sqlMapperClass, tasks);
         }
     }
 
@@ -132,11 +241,26 @@ public class MapperInterfaceRegister {
      * @param sqlMapperClass sql mapper class
      */
     public void processRegisterMapper(TableInfo tableInfo, Class<?> mapperInterfaceClass, Class<?> sqlMapperClass) {
+        List<RegisterTask> tasks = new ArrayList<>();
+        collectRegisterTasks(tableInfo, mapperInterfaceClass, sqlMapperClass, tasks);
+        executeTasks(tasks);
+    }
+
+    /**
+     * 收集通用Mapper接口中需要生成 sql 语句的方法，按照方法声明的顺序生成注册任务
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param mapperInterfaceClass 实体对象关联的 mapper interface class
+     * @param sqlMapperClass sql mapper class
+     * @param tasks 待执行的注册任务
+     */
+    private void collectRegisterTasks(TableInfo tableInfo, Class<?> mapperInterfaceClass, Class<?> sqlMapperClass,
+                                      List<RegisterTask> tasks) {
         Method[] methods = sqlMapperClass.getDeclaredMethods();
         if (methods.length == 0) {
             return;
         }
-        Map<Class<?>, HashSet<String>> methodSet = new LinkedHashMap<>();
+        Map<Class<?>, Set<String>> methodSet = new LinkedHashMap<>();
         for (Method method : methods) {
             String name = method.getName();
             int count = 0;
@@ -158,27 +282,208 @@ public class MapperInterfaceRegister {
                     throw new BindingException(
                             "You cannot supply both more than one SqlProvider to method named " + name);
                 }
-                methodSet.computeIfAbsent(providerType, k -> new HashSet<>()).add(name);
+                methodSet.computeIfAbsent(providerType, k -> new LinkedHashSet<>()).add(name);
                 count++;
             }
         }
 
-        for (Entry<Class<?>, HashSet<String>> entry : methodSet.entrySet()) {
+        for (Entry<Class<?>, Set<String>> entry : methodSet.entrySet()) {
             Class<?> templateClass = entry.getKey();
             AbstractMapperTemplate templateInstance = getMapperTemplate(templateClass);
-            HashSet<String> value = entry.getValue();
             String canonicalName = mapperInterfaceClass.getCanonicalName();
-            for (String methodName : value) {
+            for (String methodName : entry.getValue()) {
                 MappedStatement mappedStatement = configuration.getMappedStatement(canonicalName + "." + methodName);
+                Method method;
                 try {
-                    Method method = templateClass.getMethod(methodName, TableInfo.class, MappedStatement.class);
-                    method.invoke(templateInstance, tableInfo, mappedStatement);
+                    method = templateClass.getMethod(methodName, TableInfo.class, MappedStatement.class);
                 } catch (NoSuchMethodException e) {
                     throw new BindingException(
                             canonicalName + " not found method \"" + methodName + "\" in " + templateClass, e);
-                } catch (IllegalAccessException | InvocationTargetException e) {
-                    throw new BindingException(e);
                 }
+                tasks.add(new RegisterTask(templateInstance, method, tableInfo, mappedStatement));
+                if (tableInfo.isSharding()) {
+                    // 水平分表：每张物理表使用复制的sql语句节点，由模版方法按物理表名生成 sql 语句
+                    for (int i = 0; i < tableInfo.getShardingCount(); i++) {
+                        String shardId = TableMetaObject.getShardStatementId(mappedStatement.getId(), i);
+                        MappedStatement shardStatement = copyMappedStatement(mappedStatement, shardId);
+                        synchronized (configuration) {
+                            configuration.addMappedStatement(shardStatement);
+                        }
+                        tasks.add(new RegisterTask(templateInstance, method,
+                                TableMetaObject.getShardTableInfo(tableInfo, i), shardStatement));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 复制还没有生成 sql 语句的sql语句节点，用于水平分表中的物理表
+     *
+     * @param ms 逻辑表的sql语句节点
+     * @param id 物理表的sql语句节点id
+     * @return 物理表的sql语句节点
+     */
+    private static MappedStatement copyMappedStatement(MappedStatement ms, String id) {
+        MappedStatement.Builder builder = new MappedStatement.Builder(ms.getConfiguration(), id, ms.getSqlSource(),
+                ms.getSqlCommandType()).resource(ms.getResource())
+                        .fetchSize(ms.getFetchSize())
+                        .timeout(ms.getTimeout())
+                        .statementType(ms.getStatementType())
+                        .resultSetType(ms.getResultSetType())
+                        .parameterMap(ms.getParameterMap())
+                        .resultMaps(ms.getResultMaps())
+                        .cache(ms.getCache())
+                        .flushCacheRequired(ms.isFlushCacheRequired())
+                        .useCache(ms.isUseCache())
+                        .resultOrdered(ms.isResultOrdered())
+                        .keyGenerator(ms.getKeyGenerator())
+                        .databaseId(ms.getDatabaseId())
+                        .lang(ms.getLang());
+        if (ms.getKeyProperties() != null) {
+            builder.keyProperty(String.join(",", ms.getKeyProperties()));
+        }
+        if (ms.getKeyColumns() != null) {
+            builder.keyColumn(String.join(",", ms.getKeyColumns()));
+        }
+        if (ms.getResultSets() != null) {
+            builder.resultSets(String.join(",", ms.getResultSets()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 执行注册任务。开启 {@link #parallel} 之后，任务会分发到 {@link ForkJoinPool}
+     * 中并行执行，每个任务只修改自己的 {@link MappedStatement}；等待所有任务结束之后，按照任务的顺序检查结果，
+     * 抛出第一个失败任务的异常，保证和串行执行时的报错一致
+     *
+     * @param tasks 待执行的注册任务
+     */
+    private void executeTasks(List<RegisterTask> tasks) {
+        if (lazy) {
+            List<RegisterTask> eagerTasks = new ArrayList<>(tasks.size());
+            for (RegisterTask task : tasks) {
+                if (task.supportLazy()) {
+                    LazySqlSource sqlSource = new LazySqlSource(task.mappedStatement, task);
+                    SystemMetaObject.forObject(task.mappedStatement).setValue("sqlSource", sqlSource);
+                    if (warmUpMethods != null && warmUpMethods.contains(task.method.getName())) {
+                        warmUpSqlSources.add(sqlSource);
+                    }
+                } else {
+                    eagerTasks.add(task);
+                }
+            }
+            tasks = eagerTasks;
+        }
+        if (!parallel || tasks.size() < 2) {
+            for (RegisterTask task : tasks) {
+                task.run();
+            }
+            return;
+        }
+        List<ForkJoinTask<?>> futures = new ArrayList<>(tasks.size());
+        for (RegisterTask task : tasks) {
+            futures.add(getForkJoinPool().submit(task));
+        }
+        joinAll(futures);
+    }
+
+    private void joinAll(List<? extends ForkJoinTask<?>> futures) {
+        RuntimeException exception = null;
+        for (ForkJoinTask<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BindingException("register mapper interrupted", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                RuntimeException ex = (cause instanceof RuntimeException ? (RuntimeException) cause
+                        : new BindingException(cause));
+                if (exception == null) {
+                    exception = ex;
+                } else {
+                    exception.addSuppressed(ex);
+                }
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * 在后台线程中预先生成 {@link #warmUpMethods} 的 sql 语句，需要在所有 Mapper Interface
+     * 都注册完成之后调用，避免和 MyBatis {@link Configuration} 的写入并发
+     */
+    public void warmUp() {
+        LazySqlSource sqlSource;
+        while ((sqlSource = warmUpSqlSources.poll()) != null) {
+            LazySqlSource item = sqlSource;
+            getForkJoinPool().execute(() -> {
+                try {
+                    item.initialize();
+                } catch (RuntimeException ex) {
+                    // 第一次执行时会再次生成，并抛出异常
+                    log.warn("warm up mapper sql failed", ex);
+                }
+            });
+        }
+    }
+
+    private ForkJoinPool getForkJoinPool() {
+        if (forkJoinPool == null) {
+            synchronized (this) {
+                if (forkJoinPool == null) {
+                    forkJoinPool = new ForkJoinPool(Math.max(1, parallelism));
+                }
+            }
+        }
+        return forkJoinPool;
+    }
+
+    /**
+     * 关闭并行注册、后台预先生成 sql 语句使用的 {@link ForkJoinPool}，已经提交的任务会继续执行完成。在 Spring
+     * 容器中会作为 Bean 的销毁方法被自动调用
+     */
+    public void shutdown() {
+        ForkJoinPool pool;
+        synchronized (this) {
+            pool = forkJoinPool;
+            forkJoinPool = null;
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 通用Mapper接口方法的注册任务：调用 {@link AbstractMapperTemplate} 中的方法生成 sql 语句
+     */
+    private static class RegisterTask implements Runnable {
+        private final AbstractMapperTemplate templateInstance;
+        private final Method                 method;
+        private final TableInfo              tableInfo;
+        private final MappedStatement        mappedStatement;
+
+        RegisterTask(AbstractMapperTemplate templateInstance, Method method, TableInfo tableInfo,
+                     MappedStatement mappedStatement) {
+            this.templateInstance = templateInstance;
+            this.method = method;
+            this.tableInfo = tableInfo;
+            this.mappedStatement = mappedStatement;
+        }
+
+        boolean supportLazy() {
+            return templateInstance.supportLazy(tableInfo, method.getName());
+        }
+
+        @Override
+        public void run() {
+            try {
+                method.invoke(templateInstance, tableInfo, mappedStatement);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new BindingException(e);
             }
         }
     }
@@ -18,6 +18,11 @@
 package app.myoss.cloud.mybatis.mapper.template;
 
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Transformer;
@@ -36,6 +41,9 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import app.myoss.cloud.core.exception.BizRuntimeException;
+import app.myoss.cloud.mybatis.table.TableColumnInfo;
+import app.myoss.cloud.mybatis.table.TableInfo;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
 
 /**
  * 生成通用 insert/update/delete/select MappedStatement 模版基类
@@ -44,6 +52,13 @@ import app.myoss.cloud.core.exception.BizRuntimeException;
  * @since 2018年4月25日 下午6:50:36
  */
 public abstract class AbstractMapperTemplate {
+    /**
+     * MyBatis 全局配置 => {@code <sql>} 节点的完整id => 节点的内容
+     */
+    private static final Map<Configuration, Map<String, String>> SQL_FRAGMENT_CACHE = new WeakHashMap<>();
+    private static final TransformerFactory                      TRANSFORMER_FACTORY = TransformerFactory
+            .newInstance();
+
     protected XMLLanguageDriver xmlLanguageDriver = new XMLLanguageDriver();
 
     /**
@@ -56,6 +71,38 @@ public abstract class AbstractMapperTemplate {
         return "dynamicSql";
     }
 
+    /**
+     * 模版方法是否支持延迟生成 sql 语句。MyBatis 在第一次调用
+     * {@link MappedStatement#getBoundSql(Object)} 之前就会使用 keyGenerator、sqlCommandType
+     * 属性，如果模版方法会修改这些属性，则不能延迟生成
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param methodName 模版方法名
+     * @return true: 支持延迟生成
+     */
+    public boolean supportLazy(TableInfo tableInfo, String methodName) {
+        return true;
+    }
+
+    /**
+     * 获取 where 条件中使用 {@code <if test="xxx != null">} 判断的字段，和
+     * {@link TableMetaObject#builderWhereConditionSql(TableInfo, boolean)} 的规则一致
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param includeLogicDelete 是否不过滤掉已经被标记为逻辑删除的数据
+     * @return where 条件中的字段
+     */
+    protected static List<TableColumnInfo> getWhereConditionColumns(TableInfo tableInfo, boolean includeLogicDelete) {
+        List<TableColumnInfo> columns = new ArrayList<>(tableInfo.getColumns().size());
+        for (TableColumnInfo columnInfo : tableInfo.getColumns()) {
+            if (!includeLogicDelete && columnInfo.isLogicDelete()) {
+                continue;
+            }
+            columns.add(columnInfo);
+        }
+        return columns;
+    }
+
     /**
      * 获取"自定义通用SQL查询条件"
      *
@@ -74,17 +121,7 @@ public abstract class AbstractMapperTemplate {
         Configuration configuration = ms.getConfiguration();
         String namespace = StringUtils.substringBeforeLast(ms.getId(), ".");
         String sqlId = namespace + ".Where_Extend";
-        if (!configuration.getSqlFragments().containsKey(sqlId)) {
-            return null;
-        }
-
-        XNode node = configuration.getSqlFragments().get(sqlId);
-        try {
-            StringWriter nodeContent = getNodeContent(node.getNode());
-            return nodeContent.toString();
-        } catch (TransformerException e) {
-            throw new BizRuntimeException("get sqlFragments content failed, sqlId: " + sqlId, e);
-        }
+        return getSqlFragmentContent(configuration, sqlId);
     }
 
     /**
@@ -105,20 +142,15 @@ public abstract class AbstractMapperTemplate {
         Configuration configuration = ms.getConfiguration();
         String namespace = StringUtils.substringBeforeLast(ms.getId(), ".");
         String sqlId = namespace + ".Where_Extend_Condition";
-        if (!configuration.getSqlFragments().containsKey(sqlId)) {
+        String content = getSqlFragmentContent(configuration, sqlId);
+        if (content == null) {
             return null;
         }
 
-        XNode node = configuration.getSqlFragments().get(sqlId);
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(content.length() + 48);
         sb.append("  <if test=\"condition != null\">\n    ");
-        try {
-            StringWriter nodeContent = getNodeContent(node.getNode());
-            sb.append(nodeContent.toString());
-            sb.append("\n  </if>\n");
-        } catch (TransformerException e) {
-            throw new BizRuntimeException("get sqlFragments content failed, sqlId: " + sqlId, e);
-        }
+        sb.append(content);
+        sb.append("\n  </if>\n");
         return sb;
     }
 
@@ -132,23 +164,43 @@ public abstract class AbstractMapperTemplate {
         Configuration configuration = ms.getConfiguration();
         String namespace = StringUtils.substringBeforeLast(ms.getId(), ".");
         String sqlId = namespace + ".Where_Extra_Condition";
-        if (!configuration.getSqlFragments().containsKey(sqlId)) {
+        String content = getSqlFragmentContent(configuration, sqlId);
+        if (content == null) {
             return null;
         }
 
-        XNode node = configuration.getSqlFragments().get(sqlId);
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(content.length() + 48);
         sb.append("  <if test=\"extraCondition != null\">\n    ");
-        try {
-            StringWriter nodeContent = getNodeContent(node.getNode());
-            sb.append(nodeContent.toString());
-        } catch (TransformerException e) {
-            throw new BizRuntimeException("get sqlFragments content failed, sqlId: " + sqlId, e);
-        }
+        sb.append(content);
         sb.append("\n  </if>\n");
         return sb;
     }
 
+    /**
+     * 获取 {@code <sql>} 节点的内容，转换为普通文本内容。同一个 {@link Configuration} 中每个节点只会转换一次
+     *
+     * @param configuration MyBatis 全局配置
+     * @param sqlId {@code <sql>} 节点的完整id：namespace + "." + id
+     * @return {@code <sql>} 节点的内容，节点不存在则为 null
+     */
+    protected String getSqlFragmentContent(Configuration configuration, String sqlId) {
+        if (!configuration.getSqlFragments().containsKey(sqlId)) {
+            return null;
+        }
+        Map<String, String> fragments;
+        synchronized (SQL_FRAGMENT_CACHE) {
+            fragments = SQL_FRAGMENT_CACHE.computeIfAbsent(configuration, key -> new ConcurrentHashMap<>());
+        }
+        return fragments.computeIfAbsent(sqlId, key -> {
+            XNode node = configuration.getSqlFragments().get(key);
+            try {
+                return getNodeContent(node.getNode()).toString();
+            } catch (TransformerException e) {
+                throw new BizRuntimeException("get sqlFragments content failed, sqlId: " + key, e);
+            }
+        });
+    }
+
     /**
      * 获取 XML Node 节点的内容，转换为普通文本内容
      *
@@ -159,7 +211,11 @@ public abstract class AbstractMapperTemplate {
     public static StringWriter getNodeContent(Node node) throws TransformerException {
         StringWriter writer = new StringWriter();
         StreamResult streamResult = new StreamResult(writer);
-        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        Transformer transformer;
+        // TransformerFactory 不是线程安全的；sql 节点的内容已经被缓存，不需要复用 Transformer
+        synchronized (TRANSFORMER_FACTORY) {
+            transformer = TRANSFORMER_FACTORY.newTransformer();
+        }
         transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
         NodeList childNodes = node.getChildNodes();
         for (int i = 0; i < childNodes.getLength(); i++) {
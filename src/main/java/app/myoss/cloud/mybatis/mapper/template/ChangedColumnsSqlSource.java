@@ -0,0 +1,161 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeHandler;
+
+import app.myoss.cloud.mybatis.table.TableColumnInfo;
+import app.myoss.cloud.mybatis.table.TableInfo;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+import app.myoss.cloud.mybatis.table.annotation.FillRule;
+
+/**
+ * 按"有变化的字段位掩码"生成 update 语句的 SqlSource，只更新有变化的字段。
+ * <p>
+ * 位掩码的第 {@code i} 位对应 {@link TableInfo#getColumns()} 中的第 {@code i}
+ * 个字段，相同掩码直接复用第一次生成的 sql 语句和 {@link ParameterMapping}。更新时自动填充的字段、乐观锁版本号总是会更新。
+ * <p>
+ * 位掩码最多只能表示64个字段，字段数量超过64个的表直接抛出异常，不支持只更新有变化的字段
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月20日 上午10:36:15
+ */
+public class ChangedColumnsSqlSource implements SqlSource {
+    /**
+     * 实体对象在 Mapper 方法中的参数名
+     */
+    public static final String                     RECORD_PARAM          = "record";
+    /**
+     * 有变化的字段位掩码在 Mapper 方法中的参数名
+     */
+    public static final String                     CHANGED_COLUMNS_PARAM = "changedColumns";
+    private final Configuration                    configuration;
+    private final TableInfo                        tableInfo;
+    private final List<TableColumnInfo>            columns;
+    /**
+     * 主键、逻辑删除、乐观锁版本号的 where 条件语句
+     */
+    private final String                           whereSql;
+    private final List<ParameterMapping>           whereParameterMappings;
+    /**
+     * 有变化的字段位掩码 => sql 语句
+     */
+    private final SqlShapeCache<Long, CompiledSql> compiledSqls          = new SqlShapeCache<>();
+
+    /**
+     * 创建按"有变化的字段位掩码"生成 update 语句的 SqlSource
+     *
+     * @param tableInfo 数据库表结构信息
+     */
+    public ChangedColumnsSqlSource(TableInfo tableInfo) {
+        this.configuration = tableInfo.getConfiguration();
+        this.tableInfo = tableInfo;
+        this.columns = new ArrayList<>(tableInfo.getColumns());
+        // where 条件和通用 update 方法一样使用 TableMetaObject 生成，没有动态的条件，生成一次之后复用
+        StringBuilder where = TableMetaObject.builderWherePrimaryKeyWithParameterSql(tableInfo, false, RECORD_PARAM);
+        TableColumnInfo versionColumn = tableInfo.getVersionColumn();
+        if (versionColumn != null) {
+            // 总是校验版本号，版本号为 null 时匹配不到任何记录
+            where.insert(where.lastIndexOf("</where>"), "  AND " + versionColumn.getActualColumn() + " = #{"
+                    + RECORD_PARAM + "." + versionColumn.getProperty() + "}\n");
+        }
+        BoundSql whereBoundSql = new XMLLanguageDriver()
+                .createSqlSource(configuration, "<script>\n" + where + "\n</script>", null)
+                .getBoundSql(null);
+        this.whereSql = whereBoundSql.getSql();
+        this.whereParameterMappings = whereBoundSql.getParameterMappings();
+    }
+
+    @Override
+    public BoundSql getBoundSql(Object parameterObject) {
+        if (!(parameterObject instanceof Map)) {
+            throw new BindingException("parameter must contain [" + RECORD_PARAM + "] and [" + CHANGED_COLUMNS_PARAM
+                    + "], but found: " + parameterObject);
+        }
+        if (columns.size() > Long.SIZE) {
+            // 位掩码只能表示64个字段，超过之后 1L << i 会回绕到低位，更新错误的字段
+            throw new BindingException("table [" + tableInfo.getTableName() + "] has " + columns.size()
+                    + " columns, changed columns bit mask supports at most " + Long.SIZE + " columns");
+        }
+        Map<?, ?> map = (Map<?, ?>) parameterObject;
+        Long changedColumns = (Long) map.get(CHANGED_COLUMNS_PARAM);
+        CompiledSql compiledSql = compiledSqls.computeIfAbsent(changedColumns, this::compile);
+        return new BoundSql(configuration, compiledSql.sql, compiledSql.parameterMappings, parameterObject);
+    }
+
+    private CompiledSql compile(long changedColumns) {
+        StringBuilder sql = new StringBuilder(512);
+        List<ParameterMapping> parameterMappings = new ArrayList<>();
+        sql.append("UPDATE ").append(TableMetaObject.getTableName(tableInfo)).append(" SET ");
+        int setCount = 0;
+        for (int i = 0; i < columns.size(); i++) {
+            TableColumnInfo columnInfo = columns.get(i);
+            if (!columnInfo.isUpdatable() || columnInfo.isPrimaryKey() || columnInfo.isLogicDelete()
+                    || columnInfo.isVersion()) {
+                continue;
+            }
+            if ((changedColumns & (1L << i)) == 0 && !columnInfo.haveFillRule(FillRule.UPDATE)) {
+                continue;
+            }
+            sql.append(setCount++ > 0 ? ", " : "").append(columnInfo.getActualColumn()).append(" = ?");
+            parameterMappings.add(buildParameterMapping(columnInfo));
+        }
+        TableColumnInfo versionColumn = tableInfo.getVersionColumn();
+        if (versionColumn != null) {
+            String column = versionColumn.getActualColumn();
+            sql.append(setCount++ > 0 ? ", " : "").append(column);
+            sql.append(" = COALESCE(").append(column).append(", 0) + 1");
+        }
+        if (setCount == 0) {
+            throw new BindingException("no column need to update for table: " + tableInfo.getTableName());
+        }
+        sql.append(' ').append(whereSql);
+        parameterMappings.addAll(whereParameterMappings);
+        return new CompiledSql(sql.toString(), Collections.unmodifiableList(parameterMappings));
+    }
+
+    private ParameterMapping buildParameterMapping(TableColumnInfo columnInfo) {
+        String property = RECORD_PARAM + "." + columnInfo.getProperty();
+        TypeHandler<?> typeHandler = columnInfo.getTypeHandler();
+        ParameterMapping.Builder builder = (typeHandler != null
+                ? new ParameterMapping.Builder(configuration, property, typeHandler)
+                : new ParameterMapping.Builder(configuration, property, columnInfo.getJavaType()));
+        return builder.build();
+    }
+
+    private static class CompiledSql {
+        private final String                 sql;
+        private final List<ParameterMapping> parameterMappings;
+
+        CompiledSql(String sql, List<ParameterMapping> parameterMappings) {
+            this.sql = sql;
+            this.parameterMappings = parameterMappings;
+        }
+    }
+}
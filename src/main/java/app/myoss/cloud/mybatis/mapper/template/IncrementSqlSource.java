@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template;
+
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+import org.springframework.util.ClassUtils;
+
+import app.myoss.cloud.core.exception.BizRuntimeException;
+import app.myoss.cloud.mybatis.table.TableColumnInfo;
+import app.myoss.cloud.mybatis.table.TableInfo;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+import app.myoss.cloud.mybatis.table.annotation.FillRule;
+
+/**
+ * 生成原子增减字段值的 update 语句的 SqlSource，比如：库存、余额、浏览次数，不需要先查询再更新。
+ * <p>
+ * 参数 {@code increments} 为"属性名 => 增量"，{@code floor} 不为 null 时要求更新之后的值不小于 floor，否则不会更新；相同的"属性名 +
+ * floor 是否为空"组合直接复用第一次生成的 SqlSource。更新时自动填充的字段使用参数 {@code record} 中的值，有乐观锁版本号时版本号加1。
+ * <p>
+ * 字段值为 null 时当做 0 处理，生成的 sql 语句示例如下：
+ *
+ * <pre>
+ * UPDATE table_name SET stock = COALESCE(stock, 0) + ? WHERE id = ? AND COALESCE(stock, 0) + ? &gt;= ?
+ * </pre>
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月21日 下午2:12:40
+ */
+public class IncrementSqlSource implements SqlSource {
+    /**
+     * 实体对象在 Mapper 方法中的参数名，用于主键条件和更新时自动填充的字段
+     */
+    public static final String                     RECORD_PARAM      = "record";
+    /**
+     * "属性名 => 增量"在 Mapper 方法中的参数名
+     */
+    public static final String                     INCREMENTS_PARAM  = "increments";
+    /**
+     * 更新之后的值的下限在 Mapper 方法中的参数名
+     */
+    public static final String                     FLOOR_PARAM       = "floor";
+    private final Configuration                    configuration;
+    private final TableInfo                        tableInfo;
+    private final boolean                          batch;
+    private final XMLLanguageDriver                xmlLanguageDriver = new XMLLanguageDriver();
+    /**
+     * "属性名 + floor 是否为空"组合 => SqlSource
+     */
+    private final SqlShapeCache<String, SqlSource> sqlSources        = new SqlShapeCache<>();
+
+    /**
+     * 创建生成原子增减字段值的 update 语句的 SqlSource
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param batch true: 使用参数 {@code ids} 中的主键值批量更新; false: 使用参数 {@code record} 中的主键值更新
+     */
+    public IncrementSqlSource(TableInfo tableInfo, boolean batch) {
+        this.configuration = tableInfo.getConfiguration();
+        this.tableInfo = tableInfo;
+        this.batch = batch;
+    }
+
+    @Override
+    public BoundSql getBoundSql(Object parameterObject) {
+        if (!(parameterObject instanceof Map)) {
+            throw new BindingException("parameter must contain [" + INCREMENTS_PARAM + "], but found: "
+                    + parameterObject);
+        }
+        Map<?, ?> map = (Map<?, ?>) parameterObject;
+        Map<?, ?> increments = (Map<?, ?>) map.get(INCREMENTS_PARAM);
+        if (increments == null || increments.isEmpty()) {
+            throw new BizRuntimeException("increments can't be empty");
+        }
+        boolean hasFloor = map.containsKey(FLOOR_PARAM) && map.get(FLOOR_PARAM) != null;
+        TreeSet<String> properties = new TreeSet<>();
+        for (Map.Entry<?, ?> entry : increments.entrySet()) {
+            if (entry.getValue() == null) {
+                throw new BizRuntimeException("increment value of [" + entry.getKey() + "] can't be null");
+            }
+            properties.add(String.valueOf(entry.getKey()));
+        }
+        String key = String.join(",", properties) + (hasFloor ? "|floor" : "");
+        SqlSource sqlSource = sqlSources.computeIfAbsent(key, item -> compile(properties, hasFloor));
+        return sqlSource.getBoundSql(parameterObject);
+    }
+
+    private SqlSource compile(TreeSet<String> properties, boolean hasFloor) {
+        StringBuilder builder = new StringBuilder(1024);
+        StringBuilder floorSql = new StringBuilder(128);
+        builder.append("UPDATE ").append(TableMetaObject.getTableName(tableInfo)).append("\n");
+        builder.append("<set>\n");
+        for (String property : properties) {
+            TableColumnInfo columnInfo = getIncrementColumn(property);
+            String column = columnInfo.getActualColumn();
+            String delta = "#{" + INCREMENTS_PARAM + "." + property + "}";
+            String value = "COALESCE(" + column + ", 0) + " + delta;
+            builder.append("  ").append(column).append(" = ").append(value).append(",\n");
+            if (hasFloor) {
+                floorSql.append("  AND ").append(value);
+                floorSql.append(" &gt;= #{").append(FLOOR_PARAM).append("}\n");
+            }
+        }
+        for (TableColumnInfo columnInfo : tableInfo.getColumns()) {
+            if (columnInfo.isVersion()) {
+                String column = columnInfo.getActualColumn();
+                builder.append("  ").append(column).append(" = COALESCE(").append(column).append(", 0) + 1,\n");
+            } else if (columnInfo.isUpdatable() && !columnInfo.isPrimaryKey() && !columnInfo.isLogicDelete()
+                    && columnInfo.haveFillRule(FillRule.UPDATE)) {
+                builder.append("  ").append(columnInfo.getActualColumn()).append(" = #{").append(RECORD_PARAM);
+                builder.append(".").append(columnInfo.getProperty()).append("},\n");
+            }
+        }
+        builder.append("</set>\n");
+        if (batch) {
+            builder.append(TableMetaObject.builderWhereByListPrimaryKeySql(tableInfo, false));
+        } else {
+            builder.append(TableMetaObject.builderWherePrimaryKeyWithParameterSql(tableInfo, false, RECORD_PARAM));
+        }
+        builder.insert(builder.lastIndexOf("</where>"), floorSql);
+        return xmlLanguageDriver.createSqlSource(configuration, "<script>\n" + builder + "\n</script>", null);
+    }
+
+    private TableColumnInfo getIncrementColumn(String property) {
+        for (TableColumnInfo columnInfo : tableInfo.getColumns()) {
+            if (!columnInfo.getProperty().equals(property)) {
+                continue;
+            }
+            Class<?> javaType = ClassUtils.resolvePrimitiveIfNecessary(columnInfo.getJavaType());
+            if (!columnInfo.isUpdatable() || columnInfo.isPrimaryKey() || columnInfo.isLogicDelete()
+                    || columnInfo.isVersion() || !Number.class.isAssignableFrom(javaType)) {
+                break;
+            }
+            return columnInfo;
+        }
+        throw new BizRuntimeException("property [" + property + "] is not an updatable numeric column of ["
+                + tableInfo.getEntityClass().getName() + "]");
+    }
+}
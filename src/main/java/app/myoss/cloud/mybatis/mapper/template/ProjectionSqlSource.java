@@ -0,0 +1,184 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package app.myoss.cloud.mybatis.mapper.template;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.DynamicContext;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+
+import app.myoss.cloud.mybatis.criteria.Projection;
+import app.myoss.cloud.mybatis.table.TableColumnInfo;
+import app.myoss.cloud.mybatis.table.TableInfo;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+
+/**
+ * 查询指定字段（投影）的 SqlSource，按"投影字段 + 查询条件非空字段组合"缓存 sql 语句。
+ * <p>
+ * 投影中的字段直接写入 sql 模版中，不使用 {@code ${}} 文本替换；每种投影只会解析一次模版，每种"投影字段 + 查询条件非空字段组合"只会执行一次 OGNL
+ * 表达式，之后直接复用缓存的 {@link StaticSqlSource}。
+ * <p>
+ * 查询条件不是实体类本身（比如子类）、有"自定义通用SQL查询条件"、字段超过64个时，每次都使用投影的动态 SqlSource 生成 sql 语句
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月29日 下午5:02:37
+ */
+public class ProjectionSqlSource implements SqlSource {
+    /**
+     * 查询条件在 Mapper 方法中的参数名
+     */
+    public static final String                                    CONDITION_PARAM   = "condition";
+    /**
+     * 投影在 Mapper 方法中的参数名
+     */
+    public static final String                                    PROJECTION_PARAM  = "projection";
+    private final XMLLanguageDriver                               xmlLanguageDriver = new XMLLanguageDriver();
+    private final Configuration                                   configuration;
+    private final TableInfo                                       tableInfo;
+    private final String                                          whereSql;
+    private final Function<Object, Object>[]                      getters;
+    /**
+     * 投影字段 => 动态 SqlSource
+     */
+    private final SqlShapeCache<String, SqlSource>                dynamicSqlSources = new SqlShapeCache<>();
+    /**
+     * 投影字段 + 查询条件非空字段位掩码 => sql 语句
+     */
+    private final SqlShapeCache<ProjectionShape, StaticSqlSource> staticSqlSources  = new SqlShapeCache<>();
+
+    /**
+     * 创建查询指定字段（投影）的 SqlSource
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param whereSql where 条件sql语句模版，比如：{@link TableInfo#getWhereConditionWithParameterSql()}
+     * @param shapeColumns 决定 where 条件组合的字段，即 {@code <if test="condition.xxx != null">}
+     *            中的字段；为 null 时表示 where 条件不只由这些字段决定，不缓存 sql 语句
+     */
+    @SuppressWarnings("unchecked")
+    public ProjectionSqlSource(TableInfo tableInfo, String whereSql, List<TableColumnInfo> shapeColumns) {
+        this.configuration = tableInfo.getConfiguration();
+        this.tableInfo = tableInfo;
+        this.whereSql = whereSql;
+        this.getters = (shapeColumns != null && shapeColumns.size() <= Long.SIZE
+                ? shapeColumns.stream().map(TableColumnInfo::getGetter).toArray(Function[]::new)
+                : null);
+    }
+
+    @Override
+    public BoundSql getBoundSql(Object parameterObject) {
+        if (!(parameterObject instanceof Map)) {
+            throw new BindingException("parameter must contain [" + CONDITION_PARAM + "] and [" + PROJECTION_PARAM
+                    + "], but found: " + parameterObject);
+        }
+        Map<?, ?> map = (Map<?, ?>) parameterObject;
+        Projection<?> projection = (Projection<?>) map.get(PROJECTION_PARAM);
+        if (projection != null && projection.getEntityClass() != tableInfo.getEntityClass()) {
+            throw new BindingException("projection of [" + projection.getEntityClass().getName()
+                    + "] can not be used to query [" + tableInfo.getEntityClass().getName() + "]");
+        }
+        String selectSql = (projection != null ? projection.getSelectSql() : tableInfo.getSelectAllColumnsSql());
+        Object condition = map.get(CONDITION_PARAM);
+        if (getters == null || (condition != null && condition.getClass() != tableInfo.getEntityClass())) {
+            return getDynamicSqlSource(selectSql).getBoundSql(parameterObject);
+        }
+
+        ProjectionShape shape = new ProjectionShape(selectSql, shapeMask(condition));
+        StaticSqlSource staticSqlSource = staticSqlSources.get(shape);
+        BoundSql boundSql;
+        if (staticSqlSource == null) {
+            boundSql = getDynamicSqlSource(selectSql).getBoundSql(parameterObject);
+            if (!isCacheable(boundSql)) {
+                return boundSql;
+            }
+            staticSqlSource = new StaticSqlSource(configuration, boundSql.getSql(), boundSql.getParameterMappings());
+            staticSqlSources.put(shape, staticSqlSource);
+            return boundSql;
+        }
+        boundSql = staticSqlSource.getBoundSql(parameterObject);
+        boundSql.setAdditionalParameter(DynamicContext.PARAMETER_OBJECT_KEY, parameterObject);
+        boundSql.setAdditionalParameter(DynamicContext.DATABASE_ID_KEY, configuration.getDatabaseId());
+        return boundSql;
+    }
+
+    private SqlSource getDynamicSqlSource(String selectSql) {
+        return dynamicSqlSources.computeIfAbsent(selectSql, key -> {
+            String sql = "SELECT " + key + "\nFROM " + TableMetaObject.getTableName(tableInfo) + "\n" + whereSql;
+            return xmlLanguageDriver.createSqlSource(configuration, "<script>\n" + sql + "\n</script>", null);
+        });
+    }
+
+    private long shapeMask(Object condition) {
+        long mask = 0;
+        if (condition == null) {
+            return mask;
+        }
+        for (int i = 0; i < getters.length; i++) {
+            if (getters[i].apply(condition) != null) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 参数引用了 {@code <bind>}、{@code <foreach>} 生成的临时变量时，sql 不只由非空字段决定，不能缓存
+     */
+    private static boolean isCacheable(BoundSql boundSql) {
+        for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+            if (boundSql.hasAdditionalParameter(parameterMapping.getProperty())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class ProjectionShape {
+        private final String selectSql;
+        private final long   mask;
+
+        ProjectionShape(String selectSql, long mask) {
+            this.selectSql = selectSql;
+            this.mask = mask;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ProjectionShape)) {
+                return false;
+            }
+            ProjectionShape that = (ProjectionShape) o;
+            return mask == that.mask && selectSql.equals(that.selectSql);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(selectSql, mask);
+        }
+    }
+}
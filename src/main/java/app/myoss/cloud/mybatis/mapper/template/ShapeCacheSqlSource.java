@@ -0,0 +1,154 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.DynamicContext;
+import org.apache.ibatis.session.Configuration;
+
+import app.myoss.cloud.mybatis.table.TableColumnInfo;
+
+/**
+ * 按"非空字段组合"缓存 sql 语句的 SqlSource。
+ * <p>
+ * 通用模版生成的 {@code <if test="xxx != null">} 语句，每种非空字段组合都会生成不同的 sql，并且每次调用都要重新执行 OGNL
+ * 表达式。这里使用预先编译好的 getter 函数计算非空字段的位掩码，相同掩码直接复用第一次生成的 sql 语句和
+ * {@link ParameterMapping}，同一种 sql 也能复用数据库端的 PreparedStatement。
+ * <p>
+ * 只有 sql 的所有动态部分都由 shapeColumns 是否为 null 决定时才能使用，参数不是实体类本身（比如子类、Map）时直接使用模版生成的动态
+ * SqlSource
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月17日 下午2:36:18
+ */
+public class ShapeCacheSqlSource implements SqlSource {
+    private final Configuration                 configuration;
+    private final SqlSource                     delegate;
+    private final Class<?>                      entityClass;
+    private final Function<Object, Object>[]    getters;
+    /**
+     * 非空字段位掩码 => sql 语句
+     */
+    private final SqlShapeCache<Long, SqlShape> shapes;
+
+    /**
+     * 创建按"非空字段组合"缓存 sql 语句的 SqlSource
+     *
+     * @param configuration MyBatis 全局配置
+     * @param delegate 模版生成的动态 SqlSource
+     * @param entityClass 实体类class
+     * @param shapeColumns 决定 sql 语句组合的字段，即 {@code <if test="xxx != null">} 中的字段，最多64个
+     * @param maxShapes 最多缓存的 sql 组合数量，超过之后淘汰最久没有使用的组合
+     */
+    @SuppressWarnings("unchecked")
+    public ShapeCacheSqlSource(Configuration configuration, SqlSource delegate, Class<?> entityClass,
+                               List<TableColumnInfo> shapeColumns, int maxShapes) {
+        if (shapeColumns.size() > Long.SIZE) {
+            throw new IllegalArgumentException("shapeColumns size must be less than or equal to " + Long.SIZE);
+        }
+        this.configuration = configuration;
+        this.delegate = delegate;
+        this.entityClass = entityClass;
+        this.getters = shapeColumns.stream().map(TableColumnInfo::getGetter).toArray(Function[]::new);
+        this.shapes = new SqlShapeCache<>(maxShapes);
+    }
+
+    /**
+     * 使用模版生成的动态 sql 语句创建 SqlSource，字段超过64个或者没有动态字段时直接返回 delegate
+     *
+     * @param configuration MyBatis 全局配置
+     * @param delegate 模版生成的动态 SqlSource
+     * @param entityClass 实体类class
+     * @param shapeColumns 决定 sql 语句组合的字段
+     * @return SqlSource
+     */
+    public static SqlSource wrap(Configuration configuration, SqlSource delegate, Class<?> entityClass,
+                                 List<TableColumnInfo> shapeColumns) {
+        if (shapeColumns.isEmpty() || shapeColumns.size() > Long.SIZE) {
+            return delegate;
+        }
+        return new ShapeCacheSqlSource(configuration, delegate, entityClass, shapeColumns,
+                SqlShapeCache.DEFAULT_MAX_SHAPES);
+    }
+
+    @Override
+    public BoundSql getBoundSql(Object parameterObject) {
+        if (parameterObject == null || parameterObject.getClass() != entityClass) {
+            return delegate.getBoundSql(parameterObject);
+        }
+        Long mask = shapeMask(parameterObject);
+        SqlShape shape = shapes.get(mask);
+        if (shape != null) {
+            BoundSql boundSql = new BoundSql(configuration, shape.sql, shape.parameterMappings, parameterObject);
+            boundSql.setAdditionalParameter(DynamicContext.PARAMETER_OBJECT_KEY, parameterObject);
+            boundSql.setAdditionalParameter(DynamicContext.DATABASE_ID_KEY, configuration.getDatabaseId());
+            return boundSql;
+        }
+        BoundSql boundSql = delegate.getBoundSql(parameterObject);
+        if (isCacheable(boundSql)) {
+            shapes.put(mask, new SqlShape(boundSql.getSql(), boundSql.getParameterMappings()));
+        }
+        return boundSql;
+    }
+
+    private Long shapeMask(Object parameterObject) {
+        long mask = 0;
+        for (int i = 0; i < getters.length; i++) {
+            if (getters[i].apply(parameterObject) != null) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 参数引用了 {@code <bind>}、{@code <foreach>} 生成的临时变量时，sql 不只由非空字段决定，不能缓存
+     */
+    private static boolean isCacheable(BoundSql boundSql) {
+        for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+            if (boundSql.hasAdditionalParameter(parameterMapping.getProperty())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 获取当前缓存的 sql 组合数量
+     *
+     * @return sql 组合数量
+     */
+    public int getShapeCount() {
+        return shapes.size();
+    }
+
+    private static class SqlShape {
+        private final String                 sql;
+        private final List<ParameterMapping> parameterMappings;
+
+        SqlShape(String sql, List<ParameterMapping> parameterMappings) {
+            this.sql = sql;
+            this.parameterMappings = parameterMappings;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 按 sql 语句的结构（比如：非空字段组合、查询条件结构）缓存编译好的 sql 语句，超过最大数量之后淘汰最久没有使用的结构（LRU）。
+ * <p>
+ * 编译 sql 语句时不加锁，并发编译同一个结构时使用先放入缓存的结果
+ *
+ * @param <K> sql 语句结构的 key
+ * @param <V> 编译好的 sql 语句
+ * @author Jerry.Chen
+ * @since 2019年6月17日 下午2:20:45
+ */
+public class SqlShapeCache<K, V> {
+    /**
+     * 每条 sql 语句默认最多缓存的 sql 组合数量
+     */
+    public static final int DEFAULT_MAX_SHAPES = 256;
+    private final Map<K, V> cache;
+
+    /**
+     * 创建 sql 语句结构的缓存，最多缓存 {@link #DEFAULT_MAX_SHAPES} 个
+     */
+    public SqlShapeCache() {
+        this(DEFAULT_MAX_SHAPES);
+    }
+
+    /**
+     * 创建 sql 语句结构的缓存
+     *
+     * @param maxShapes 最多缓存的 sql 组合数量，超过之后淘汰最久没有使用的组合
+     */
+    public SqlShapeCache(int maxShapes) {
+        this.cache = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxShapes;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存的 sql 语句
+     *
+     * @param key sql 语句结构的 key
+     * @return 缓存的 sql 语句，没有则为 null
+     */
+    public V get(K key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    /**
+     * 缓存 sql 语句
+     *
+     * @param key sql 语句结构的 key
+     * @param value 编译好的 sql 语句
+     */
+    public void put(K key, V value) {
+        synchronized (cache) {
+            cache.put(key, value);
+        }
+    }
+
+    /**
+     * 获取缓存的 sql 语句，没有则编译之后放入缓存
+     *
+     * @param key sql 语句结构的 key
+     * @param compiler 编译 sql 语句的方法
+     * @return 缓存的 sql 语句
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> compiler) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        V compiled = compiler.apply(key);
+        synchronized (cache) {
+            V existing = cache.putIfAbsent(key, compiled);
+            return (existing != null ? existing : compiled);
+        }
+    }
+
+    /**
+     * 获取当前缓存的 sql 组合数量
+     *
+     * @return sql 组合数量
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+}
@@ -27,6 +27,7 @@ import org.apache.ibatis.reflection.SystemMetaObject;
 import org.apache.ibatis.session.Configuration;
 
 import app.myoss.cloud.mybatis.mapper.template.AbstractMapperTemplate;
+import app.myoss.cloud.mybatis.mapper.template.ShapeCacheSqlSource;
 import app.myoss.cloud.mybatis.mapper.template.delete.DeleteByConditionMapper;
 import app.myoss.cloud.mybatis.mapper.template.delete.DeleteByPrimaryKeyMapper;
 import app.myoss.cloud.mybatis.table.TableColumnInfo;
@@ -41,6 +42,14 @@ import app.myoss.cloud.mybatis.table.annotation.FillRule;
  * @since 2018年5月1日 下午6:04:12
  */
 public class DeleteMapperTemplate extends AbstractMapperTemplate {
+    /**
+     * 逻辑删除时会把 sqlCommandType 修改为 UPDATE，不能延迟生成
+     */
+    @Override
+    public boolean supportLazy(TableInfo tableInfo, String methodName) {
+        return !tableInfo.isLogicDelete();
+    }
+
     /**
      * 删除记录，生成 delete 语句。
      * <p>
@@ -240,6 +249,11 @@ public class DeleteMapperTemplate extends AbstractMapperTemplate {
         // 替换 sqlSource 对象
         SqlSource sqlSource = xmlLanguageDriver.createSqlSource(configuration, "<script>\n" + sql + "\n</script>",
                 null);
+        if (extendSql == null) {
+            // 没有"自定义通用SQL查询条件"时，sql 只由非空字段决定，按非空字段组合缓存
+            sqlSource = ShapeCacheSqlSource.wrap(configuration, sqlSource, tableInfo.getEntityClass(),
+                    getWhereConditionColumns(tableInfo, false));
+        }
         metaObject.setValue("sqlSource", sqlSource);
         return sql;
     }
@@ -17,6 +17,7 @@
 
 package app.myoss.cloud.mybatis.mapper.template.insert.impl;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
@@ -39,6 +40,7 @@ import org.apache.ibatis.session.Configuration;
 
 import app.myoss.cloud.mybatis.executor.keygen.SequenceKeyGenerator;
 import app.myoss.cloud.mybatis.mapper.template.AbstractMapperTemplate;
+import app.myoss.cloud.mybatis.mapper.template.ShapeCacheSqlSource;
 import app.myoss.cloud.mybatis.mapper.template.insert.InsertAllColumnMapper;
 import app.myoss.cloud.mybatis.mapper.template.insert.InsertBatchMapper;
 import app.myoss.cloud.mybatis.mapper.template.insert.InsertMapper;
@@ -57,6 +59,31 @@ import app.myoss.cloud.mybatis.table.annotation.SequenceGenerator.Order;
  * @since 2018年4月29日 下午4:46:05
  */
 public class InsertMapperTemplate extends AbstractMapperTemplate {
+    /**
+     * 有"序列生成器"时会修改 keyGenerator 属性，不能延迟生成
+     */
+    @Override
+    public boolean supportLazy(TableInfo tableInfo, String methodName) {
+        return tableInfo.getTableSequence() == null;
+    }
+
+    /**
+     * 生成 insert 语句中字段的值，乐观锁的版本号为 null 时初始化为 0，示例如下：
+     *
+     * <pre>
+     * #{name}
+     * COALESCE(#{version}, 0)
+     * </pre>
+     *
+     * @param columnInfo 数据库表字段信息
+     * @param prefix 参数名的前缀，比如：{@code item.}
+     * @return sql语句
+     */
+    protected static String builderInsertValueSql(TableColumnInfo columnInfo, String prefix) {
+        String value = "#{" + prefix + columnInfo.getProperty() + "}";
+        return (columnInfo.isVersion() ? "COALESCE(" + value + ", 0)" : value);
+    }
+
     /**
      * 生成 selectKey 序列，并增加到 {@link Configuration} 全局配置中
      *
@@ -98,16 +125,19 @@ public class InsertMapperTemplate extends AbstractMapperTemplate {
         KeyGenerator keyGenerator = new NoKeyGenerator();
         MapperBuilderAssistant builderAssistant = new MapperBuilderAssistant(configuration, parentId);
         builderAssistant.setCurrentNamespace(StringUtils.substringBeforeLast(parentId, "."));
-        builderAssistant.addMappedStatement(id, sqlSource, statementType, sqlCommandType, null, null, null,
-                parameterTypeClass, null, resultTypeClass, null, false, false, false, keyGenerator, keyProperty,
-                keyColumn, configuration.getDatabaseId(), langDriver, null);
+        // Configuration 不是线程安全的，并行注册 Mapper 时需要串行写入
+        synchronized (configuration) {
+            builderAssistant.addMappedStatement(id, sqlSource, statementType, sqlCommandType, null, null, null,
+                    parameterTypeClass, null, resultTypeClass, null, false, false, false, keyGenerator, keyProperty,
+                    keyColumn, configuration.getDatabaseId(), langDriver, null);
 
-        id = builderAssistant.applyCurrentNamespace(id, false);
+            id = builderAssistant.applyCurrentNamespace(id, false);
 
-        MappedStatement keyStatement = configuration.getMappedStatement(id, false);
-        SelectKeyGenerator selectKeyGenerator = new SelectKeyGenerator(keyStatement, executeBefore);
-        configuration.addKeyGenerator(id, selectKeyGenerator);
-        return selectKeyGenerator;
+            MappedStatement keyStatement = configuration.getMappedStatement(id, false);
+            SelectKeyGenerator selectKeyGenerator = new SelectKeyGenerator(keyStatement, executeBefore);
+            configuration.addKeyGenerator(id, selectKeyGenerator);
+            return selectKeyGenerator;
+        }
     }
 
     /**
@@ -177,8 +207,7 @@ public class InsertMapperTemplate extends AbstractMapperTemplate {
             }
             builder.append(columnInfo.getActualColumn()).append(", ");
 
-            values.append("#{").append(columnInfo.getProperty());
-            values.append("}, ");
+            values.append(builderInsertValueSql(columnInfo, "")).append(", ");
         }
         values.deleteCharAt(values.length() - 2);
         builder.deleteCharAt(builder.length() - 2).append(")\n");
@@ -229,15 +258,18 @@ public class InsertMapperTemplate extends AbstractMapperTemplate {
         builder.append("INSERT INTO ").append(TableMetaObject.getTableName(tableInfo)).append("\n");
         builder.append("<trim prefix=\"(\" suffix=\")\" suffixOverrides=\",\">\n");
         StringBuilder values = new StringBuilder(2048);
+        List<TableColumnInfo> shapeColumns = new ArrayList<>();
         values.append("<trim prefix=\"values (\" suffix=\")\" suffixOverrides=\",\">\n");
         for (TableColumnInfo columnInfo : tableInfo.getColumns()) {
             if (!columnInfo.isInsertable() || columnInfo.isAutoIncrement()) {
                 continue;
             }
-            // 如果是主键字段（不是自动增长的主键）、字段有自动填充的规则、字段是逻辑删除字段，不加 if 表达式判断
+            // 如果是主键字段（不是自动增长的主键）、字段有自动填充的规则、字段是逻辑删除字段、乐观锁的版本号字段，不加 if 表达式判断
             boolean fillInsert = (columnInfo.isPrimaryKey() && GenerationType.USE_GENERATED_KEYS != generationType)
-                    || columnInfo.haveFillRule(FillRule.INSERT) || columnInfo.isLogicDelete();
+                    || columnInfo.haveFillRule(FillRule.INSERT) || columnInfo.isLogicDelete()
+                    || columnInfo.isVersion();
             if (!fillInsert) {
+                shapeColumns.add(columnInfo);
                 builder.append("  <if test=\"").append(columnInfo.getProperty()).append(" != null\">\n");
             }
             builder.append("    ").append(columnInfo.getActualColumn()).append(",\n");
@@ -248,8 +280,7 @@ public class InsertMapperTemplate extends AbstractMapperTemplate {
             if (!fillInsert) {
                 values.append("  <if test=\"").append(columnInfo.getProperty()).append(" != null\">\n");
             }
-            values.append("    #{").append(columnInfo.getProperty());
-            values.append("},\n");
+            values.append("    ").append(builderInsertValueSql(columnInfo, "")).append(",\n");
             if (!fillInsert) {
                 values.append("  </if>\n");
             }
@@ -260,6 +291,7 @@ public class InsertMapperTemplate extends AbstractMapperTemplate {
         // 替换 sqlSource 对象
         SqlSource sqlSource = xmlLanguageDriver.createSqlSource(configuration, "<script>\n" + sql + "\n</script>",
                 null);
+        sqlSource = ShapeCacheSqlSource.wrap(configuration, sqlSource, tableInfo.getEntityClass(), shapeColumns);
         metaObject.setValue("sqlSource", sqlSource);
         return sql;
     }
@@ -301,8 +333,7 @@ public class InsertMapperTemplate extends AbstractMapperTemplate {
             }
             builder.append(columnInfo.getActualColumn()).append(", ");
 
-            values.append("#{item.").append(columnInfo.getProperty());
-            values.append("}, ");
+            values.append(builderInsertValueSql(columnInfo, "item.")).append(", ");
         }
         values.deleteCharAt(values.length() - 2).append(")\n</foreach>");
         builder.deleteCharAt(builder.length() - 2).append(")\n");
@@ -30,5 +30,6 @@ import app.myoss.cloud.mybatis.table.annotation.Column;
 @RegisterMapper
 public interface RetrieveIncludeLogicDeleteMapper<T> extends SelectOneIncludeLogicDeleteMapper<T>,
         SelectListIncludeLogicDeleteMapper<T>, SelectCountIncludeLogicDeleteMapper<T>,
-        SelectPageIncludeLogicDeleteMapper<T>, SelectByPrimaryKeyIncludeLogicDeleteMapper<T> {
+        SelectPageIncludeLogicDeleteMapper<T>, SelectByPrimaryKeyIncludeLogicDeleteMapper<T>,
+        SelectExistsIncludeLogicDeleteMapper<T> {
 }
@@ -28,5 +28,6 @@ import app.myoss.cloud.mybatis.mapper.annotation.RegisterMapper;
  */
 @RegisterMapper
 public interface RetrieveMapper<T> extends SelectOneMapper<T>, SelectListMapper<T>, SelectCountMapper<T>,
-        SelectPageMapper<T>, SelectByPrimaryKeyMapper<T> {
+        SelectPageMapper<T>, SelectByPrimaryKeyMapper<T>, SelectCriteriaMapper<T>, SelectProjectionMapper<T>,
+        SelectLazyColumnsMapper<T>, SelectExistsMapper<T>, SelectAggregateMapper<T> {
 }
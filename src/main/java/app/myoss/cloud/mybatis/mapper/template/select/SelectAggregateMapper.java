@@ -0,0 +1,50 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template.select;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.SelectProvider;
+
+import app.myoss.cloud.mybatis.criteria.Aggregation;
+import app.myoss.cloud.mybatis.mapper.annotation.RegisterMapper;
+import app.myoss.cloud.mybatis.mapper.template.select.impl.SelectAggregateMapperTemplate;
+
+/**
+ * 聚合查询（sum/min/max/avg/count group by）通用 Mapper 接口，会过滤掉已经被标记为逻辑删除的数据
+ *
+ * @param <T> 实体类
+ * @author Jerry.Chen
+ * @since 2019年6月28日 下午3:16:52
+ */
+@RegisterMapper
+public interface SelectAggregateMapper<T> {
+    /**
+     * 根据条件聚合查询，返回的结果使用 {@link Aggregation#convert(List)} 转换
+     *
+     * @param condition 匹配的条件
+     * @param aggregation 聚合查询的字段
+     * @return 聚合查询的结果
+     * @see SelectAggregateMapperTemplate#selectAggregate
+     */
+    @SelectProvider(type = SelectAggregateMapperTemplate.class, method = "dynamicSql")
+    List<Map<String, Object>> selectAggregate(@Param("condition") T condition,
+                                              @Param("aggregation") Aggregation<T> aggregation);
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template.select;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.SelectProvider;
+import org.apache.ibatis.session.ResultHandler;
+
+import app.myoss.cloud.mybatis.criteria.Criteria;
+import app.myoss.cloud.mybatis.mapper.annotation.RegisterMapper;
+import app.myoss.cloud.mybatis.mapper.template.select.impl.SelectCriteriaMapperTemplate;
+
+/**
+ * 根据 {@link Criteria} 查询记录通用 Mapper 接口，会过滤掉已经被标记为逻辑删除的数据
+ *
+ * @param <T> 实体类
+ * @author Jerry.Chen
+ * @since 2019年6月18日 上午10:05:21
+ */
+@RegisterMapper
+public interface SelectCriteriaMapper<T> {
+    /**
+     * 根据查询条件查询匹配的实体对象
+     *
+     * @param criteria 查询条件
+     * @return 匹配的实体对象
+     * @see SelectCriteriaMapperTemplate#selectListByCriteria
+     */
+    @SelectProvider(type = SelectCriteriaMapperTemplate.class, method = "dynamicSql")
+    List<T> selectListByCriteria(Criteria<T> criteria);
+
+    /**
+     * 根据查询条件查询匹配的实体对象总记录数
+     *
+     * @param criteria 查询条件
+     * @return 匹配的实体对象总记录数
+     * @see SelectCriteriaMapperTemplate#selectCountByCriteria
+     */
+    @SelectProvider(type = SelectCriteriaMapperTemplate.class, method = "dynamicSql")
+    int selectCountByCriteria(Criteria<T> criteria);
+
+    /**
+     * 根据查询条件分页查询匹配的实体对象
+     *
+     * @param criteria 查询条件
+     * @param offset 记录行的偏移量（SELECT * FROM table LIMIT 0,10; // 检索记录行 1-10）
+     * @param pageSize 分页的条数
+     * @return 匹配的实体对象
+     * @see SelectCriteriaMapperTemplate#selectPageByCriteria
+     */
+    @SelectProvider(type = SelectCriteriaMapperTemplate.class, method = "dynamicSql")
+    List<T> selectPageByCriteria(@Param("criteria") Criteria<T> criteria, @Param("offset") int offset,
+                                 @Param("pageSize") int pageSize);
+
+    /**
+     * 根据查询条件流式查询匹配的实体对象，每读取一条记录就回调一次 resultHandler，不会一次性加载所有的记录
+     *
+     * @param criteria 查询条件
+     * @param resultHandler 处理每一条记录
+     * @see SelectCriteriaMapperTemplate#selectStreamByCriteria
+     */
+    @SelectProvider(type = SelectCriteriaMapperTemplate.class, method = "dynamicSql")
+    void selectStreamByCriteria(Criteria<T> criteria, ResultHandler<T> resultHandler);
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template.select;
+
+import java.io.Serializable;
+
+import org.apache.ibatis.annotations.SelectProvider;
+
+import app.myoss.cloud.mybatis.mapper.annotation.RegisterMapper;
+import app.myoss.cloud.mybatis.mapper.template.select.impl.SelectIncludeLogicDeleteMapperTemplate;
+import app.myoss.cloud.mybatis.table.annotation.Column;
+
+/**
+ * 查询是否存在记录通用 Mapper 接口，不会过滤掉已经被标记为逻辑删除（{@link Column#logicDelete}）的数据
+ *
+ * @param <T> 实体类
+ * @author Jerry.Chen
+ * @since 2019年6月27日 上午11:20:43
+ */
+@RegisterMapper
+public interface SelectExistsIncludeLogicDeleteMapper<T> {
+    /**
+     * 根据条件查询是否存在匹配的记录，不会过滤掉已经被标记为逻辑删除（{@link Column#logicDelete}）的数据
+     *
+     * @param condition 匹配的条件
+     * @return true: 存在; false: 不存在
+     * @see SelectIncludeLogicDeleteMapperTemplate#existsIncludeLogicDelete
+     */
+    @SelectProvider(type = SelectIncludeLogicDeleteMapperTemplate.class, method = "dynamicSql")
+    boolean existsIncludeLogicDelete(T condition);
+
+    /**
+     * 根据主键查询是否存在记录，不会过滤掉已经被标记为逻辑删除（{@link Column#logicDelete}）的数据
+     *
+     * @param id 主键
+     * @return true: 存在; false: 不存在
+     * @see SelectIncludeLogicDeleteMapperTemplate#existsByPrimaryKeyIncludeLogicDelete
+     */
+    @SelectProvider(type = SelectIncludeLogicDeleteMapperTemplate.class, method = "dynamicSql")
+    boolean existsByPrimaryKeyIncludeLogicDelete(Serializable id);
+
+    /**
+     * 根据主键查询是否存在记录，支持联合主键，不会过滤掉已经被标记为逻辑删除（{@link Column#logicDelete}）的数据
+     *
+     * @param condition 主键有值的实体对象
+     * @return true: 存在; false: 不存在
+     * @see SelectIncludeLogicDeleteMapperTemplate#existsWithPrimaryKeyIncludeLogicDelete
+     */
+    @SelectProvider(type = SelectIncludeLogicDeleteMapperTemplate.class, method = "dynamicSql")
+    boolean existsWithPrimaryKeyIncludeLogicDelete(T condition);
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template.select;
+
+import java.io.Serializable;
+
+import org.apache.ibatis.annotations.SelectProvider;
+
+import app.myoss.cloud.mybatis.mapper.annotation.RegisterMapper;
+import app.myoss.cloud.mybatis.mapper.template.select.impl.SelectMapperTemplate;
+
+/**
+ * 查询是否存在记录通用 Mapper 接口，生成 {@code SELECT 1 ... LIMIT 1} 语句，匹配到第一条记录就结束查询，比
+ * {@link SelectCountMapper#selectCount(Object)} 更适合判断记录是否存在
+ *
+ * @param <T> 实体类
+ * @author Jerry.Chen
+ * @since 2019年6月27日 上午11:20:43
+ */
+@RegisterMapper
+public interface SelectExistsMapper<T> {
+    /**
+     * 根据条件查询是否存在匹配的记录
+     *
+     * @param condition 匹配的条件
+     * @return true: 存在; false: 不存在
+     * @see SelectMapperTemplate#exists
+     */
+    @SelectProvider(type = SelectMapperTemplate.class, method = "dynamicSql")
+    boolean exists(T condition);
+
+    /**
+     * 根据主键查询是否存在记录
+     *
+     * @param id 主键
+     * @return true: 存在; false: 不存在
+     * @see SelectMapperTemplate#existsByPrimaryKey
+     */
+    @SelectProvider(type = SelectMapperTemplate.class, method = "dynamicSql")
+    boolean existsByPrimaryKey(Serializable id);
+
+    /**
+     * 根据主键查询是否存在记录，支持联合主键
+     *
+     * @param condition 主键有值的实体对象
+     * @return true: 存在; false: 不存在
+     * @see SelectMapperTemplate#existsWithPrimaryKey
+     */
+    @SelectProvider(type = SelectMapperTemplate.class, method = "dynamicSql")
+    boolean existsWithPrimaryKey(T condition);
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template.select;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.SelectProvider;
+
+import app.myoss.cloud.mybatis.mapper.annotation.RegisterMapper;
+import app.myoss.cloud.mybatis.mapper.template.select.impl.SelectLazyColumnsMapperTemplate;
+import app.myoss.cloud.mybatis.table.annotation.Column;
+
+/**
+ * 加载延迟加载（{@link Column#lazy()}）字段通用 Mapper 接口，会过滤掉已经被标记为逻辑删除的数据
+ *
+ * @param <T> 实体类
+ * @author Jerry.Chen
+ * @since 2019年6月19日 下午4:08:52
+ */
+@RegisterMapper
+public interface SelectLazyColumnsMapper<T> {
+    /**
+     * 根据主键查询延迟加载的字段，返回的实体对象中只有主键字段和延迟加载的字段有值
+     *
+     * @param condition 主键字段有值的实体对象
+     * @return 匹配的实体对象
+     * @see SelectLazyColumnsMapperTemplate#selectLazyColumnsWithPrimaryKey
+     */
+    @SelectProvider(type = SelectLazyColumnsMapperTemplate.class, method = "dynamicSql")
+    T selectLazyColumnsWithPrimaryKey(T condition);
+
+    /**
+     * 根据主键批量查询延迟加载的字段，返回的实体对象中只有主键字段和延迟加载的字段有值
+     *
+     * @param ids 主键字段有值的实体对象
+     * @return 匹配的实体对象
+     * @see SelectLazyColumnsMapperTemplate#selectListLazyColumnsWithPrimaryKey
+     */
+    @SelectProvider(type = SelectLazyColumnsMapperTemplate.class, method = "dynamicSql")
+    List<T> selectListLazyColumnsWithPrimaryKey(@Param("ids") Collection<T> ids);
+}
@@ -32,7 +32,7 @@ import app.myoss.cloud.mybatis.mapper.template.select.impl.SelectMapperTemplate;
 @RegisterMapper
 public interface SelectOneMapper<T> {
     /**
-     * 根据条件查询匹配的实体对象，只能有一条查询结果记录，有多条查询结果则会抛出异常
+     * 根据条件查询匹配的实体对象，只能有一条查询结果记录，有多条查询结果则会抛出异常（sql 语句使用 LIMIT 2，不会查询所有匹配的记录）
      *
      * @param condition 匹配的条件
      * @return 匹配的实体对象
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template.select;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.SelectProvider;
+
+import app.myoss.cloud.mybatis.criteria.Projection;
+import app.myoss.cloud.mybatis.mapper.annotation.RegisterMapper;
+import app.myoss.cloud.mybatis.mapper.template.select.impl.SelectProjectionMapperTemplate;
+
+/**
+ * 查询指定字段（投影）通用 Mapper 接口，会过滤掉已经被标记为逻辑删除的数据
+ *
+ * @param <T> 实体类
+ * @author Jerry.Chen
+ * @since 2019年6月19日 上午11:12:36
+ */
+@RegisterMapper
+public interface SelectProjectionMapper<T> {
+    /**
+     * 根据条件查询匹配的实体对象，只查询投影中的字段，实体对象中其它的字段为 null
+     *
+     * @param condition 匹配的条件
+     * @param projection 需要查询的字段，为 null 时查询所有的字段
+     * @return 匹配的实体对象
+     * @see SelectProjectionMapperTemplate#selectListColumns
+     */
+    @SelectProvider(type = SelectProjectionMapperTemplate.class, method = "dynamicSql")
+    List<T> selectListColumns(@Param("condition") T condition, @Param("projection") Projection<T> projection);
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template.select.impl;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.Configuration;
+
+import app.myoss.cloud.mybatis.criteria.Aggregation;
+import app.myoss.cloud.mybatis.mapper.template.AbstractMapperTemplate;
+import app.myoss.cloud.mybatis.mapper.template.select.SelectAggregateMapper;
+import app.myoss.cloud.mybatis.table.TableInfo;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+
+/**
+ * 生成聚合查询的 select MappedStatement 模版类
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月28日 下午3:16:52
+ */
+public class SelectAggregateMapperTemplate extends AbstractMapperTemplate {
+
+    /**
+     * 聚合查询记录，生成 select 语句。查询的字段来自 {@link Aggregation#getSelectSql()}，分组字段来自
+     * {@link Aggregation#getGroupBySql()}，都已经校验过字段名；查询条件和 {@code selectList} 一样，会过滤掉逻辑删除的数据。
+     * <p>
+     * 示例如下：
+     *
+     * <pre>
+     * SELECT ${aggregation.selectSql} FROM table_name
+     * &lt;where&gt;
+     *   &lt;if test=&quot;condition != null&quot;&gt;
+     *     &lt;if test=&quot;condition.id != null&quot;&gt;
+     *       and id = #{condition.id}
+     *     &lt;/if&gt;
+     *   &lt;/if&gt;
+     *   and is_deleted = 'N'
+     * &lt;/where&gt;
+     * &lt;if test=&quot;aggregation.groupBySql != null&quot;&gt;
+     *   GROUP BY ${aggregation.groupBySql}
+     * &lt;/if&gt;
+     * </pre>
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
+     * @return 生成的sql语句
+     * @see SelectAggregateMapper#selectAggregate(Object, Aggregation)
+     */
+    public String selectAggregate(TableInfo tableInfo, MappedStatement ms) {
+        MetaObject metaObject = SystemMetaObject.forObject(ms);
+
+        // 生成 sql 语句
+        StringBuilder builder = new StringBuilder(2048);
+        builder.append("SELECT ${aggregation.selectSql}");
+        builder.append(" FROM ").append(TableMetaObject.getTableName(tableInfo)).append("\n");
+        builder.append(tableInfo.getWhereConditionWithParameterSql());
+        StringBuilder extendSql = getWhereExtendCondition(ms);
+        if (extendSql != null) {
+            builder.insert(builder.length() - 8, extendSql);
+        }
+        builder.append("\n<if test=\"aggregation.groupBySql != null\">");
+        builder.append("\n  GROUP BY ${aggregation.groupBySql}");
+        builder.append("\n</if>");
+        String sql = builder.toString();
+
+        // 替换 sqlSource 对象
+        Configuration configuration = ms.getConfiguration();
+        SqlSource sqlSource = xmlLanguageDriver.createSqlSource(configuration, "<script>\n" + sql + "\n</script>",
+                null);
+        metaObject.setValue("sqlSource", sqlSource);
+        return sql;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template.select.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+
+import app.myoss.cloud.mybatis.criteria.Criteria;
+import app.myoss.cloud.mybatis.criteria.CriteriaSqlSource;
+import app.myoss.cloud.mybatis.mapper.template.AbstractMapperTemplate;
+import app.myoss.cloud.mybatis.mapper.template.select.SelectCriteriaMapper;
+import app.myoss.cloud.mybatis.table.TableInfo;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+
+/**
+ * 生成根据 {@link Criteria} 查询的 select MappedStatement 模版类，sql 语句在执行时由 {@link CriteriaSqlSource} 生成
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月18日 上午10:05:21
+ */
+public class SelectCriteriaMapperTemplate extends AbstractMapperTemplate {
+    /**
+     * 使用 ResultHandler 的方法，MyBatis 在生成 sql 语句之前就会校验 resultMaps，不能延迟生成
+     */
+    @Override
+    public boolean supportLazy(TableInfo tableInfo, String methodName) {
+        return !"selectStreamByCriteria".equals(methodName);
+    }
+
+    /**
+     * 根据查询条件查询记录，生成 select 语句。
+     * <p>
+     * 示例如下：
+     *
+     * <pre>
+     * SELECT id,... FROM table_name WHERE status = ? AND name LIKE ? AND is_deleted = 'N' ORDER BY id DESC
+     * </pre>
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
+     * @return 生成的sql语句
+     * @see SelectCriteriaMapper#selectListByCriteria(Criteria)
+     */
+    public String selectListByCriteria(TableInfo tableInfo, MappedStatement ms) {
+        MetaObject metaObject = SystemMetaObject.forObject(ms);
+        // 替换 resultMap 对象
+        List<ResultMap> resultMaps = Stream.of(tableInfo.getBaseResultMap())
+                .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+        metaObject.setValue("resultMaps", resultMaps);
+
+        // 替换 sqlSource 对象
+        String sql = "SELECT " + tableInfo.getSelectAllColumnsSql() + " FROM "
+                + TableMetaObject.getTableName(tableInfo);
+        metaObject.setValue("sqlSource", new CriteriaSqlSource(tableInfo, sql, true, null));
+        return sql;
+    }
+
+    /**
+     * 根据查询条件查询记录总数，生成 select 语句。
+     * <p>
+     * 示例如下：
+     *
+     * <pre>
+     * SELECT COUNT(1) FROM table_name WHERE status = ? AND name LIKE ? AND is_deleted = 'N'
+     * </pre>
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
+     * @return 生成的sql语句
+     * @see SelectCriteriaMapper#selectCountByCriteria(Criteria)
+     */
+    public String selectCountByCriteria(TableInfo tableInfo, MappedStatement ms) {
+        MetaObject metaObject = SystemMetaObject.forObject(ms);
+
+        // 替换 sqlSource 对象
+        String sql = "SELECT COUNT(1) FROM " + TableMetaObject.getTableName(tableInfo);
+        metaObject.setValue("sqlSource", new CriteriaSqlSource(tableInfo, sql, false, null));
+        return sql;
+    }
+
+    /**
+     * 根据查询条件分页查询记录，生成 select 语句。
+     * <p>
+     * 示例如下：
+     *
+     * <pre>
+     * SELECT id,... FROM table_name WHERE status = ? AND is_deleted = 'N' ORDER BY id DESC limit #{offset}, #{pageSize}
+     * </pre>
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
+     * @return 生成的sql语句
+     * @see SelectCriteriaMapper#selectPageByCriteria(Criteria, int, int)
+     */
+    public String selectPageByCriteria(TableInfo tableInfo, MappedStatement ms) {
+        MetaObject metaObject = SystemMetaObject.forObject(ms);
+        // 替换 resultMap 对象
+        List<ResultMap> resultMaps = Stream.of(tableInfo.getBaseResultMap())
+                .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+        metaObject.setValue("resultMaps", resultMaps);
+
+        // 替换 sqlSource 对象
+        String sql = "SELECT " + tableInfo.getSelectAllColumnsSql() + " FROM "
+                + TableMetaObject.getTableName(tableInfo);
+        metaObject.setValue("sqlSource",
+                new CriteriaSqlSource(tableInfo, sql, true, "limit ?, ?", "offset", "pageSize"));
+        return sql;
+    }
+
+    /**
+     * 根据查询条件流式查询记录，生成的 select 语句和 {@link #selectListByCriteria(TableInfo, MappedStatement)}
+     * 相同
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
+     * @return 生成的sql语句
+     * @see SelectCriteriaMapper#selectStreamByCriteria
+     */
+    public String selectStreamByCriteria(TableInfo tableInfo, MappedStatement ms) {
+        return selectListByCriteria(tableInfo, ms);
+    }
+}
@@ -32,8 +32,10 @@ import org.apache.ibatis.reflection.SystemMetaObject;
 import org.apache.ibatis.session.Configuration;
 
 import app.myoss.cloud.mybatis.mapper.template.AbstractMapperTemplate;
+import app.myoss.cloud.mybatis.mapper.template.ShapeCacheSqlSource;
 import app.myoss.cloud.mybatis.mapper.template.select.SelectByPrimaryKeyIncludeLogicDeleteMapper;
 import app.myoss.cloud.mybatis.mapper.template.select.SelectCountIncludeLogicDeleteMapper;
+import app.myoss.cloud.mybatis.mapper.template.select.SelectExistsIncludeLogicDeleteMapper;
 import app.myoss.cloud.mybatis.mapper.template.select.SelectListIncludeLogicDeleteMapper;
 import app.myoss.cloud.mybatis.mapper.template.select.SelectOneIncludeLogicDeleteMapper;
 import app.myoss.cloud.mybatis.mapper.template.select.SelectPageIncludeLogicDeleteMapper;
@@ -61,6 +63,7 @@ public class SelectIncludeLogicDeleteMapperTemplate extends AbstractMapperTempla
      *     and id = #{id}
      *   &lt;/if&gt;
      * &lt;/where&gt;
+     * LIMIT 2
      * </pre>
      *
      * @param tableInfo 数据库表结构信息
@@ -69,29 +72,8 @@ public class SelectIncludeLogicDeleteMapperTemplate extends AbstractMapperTempla
      * @see SelectOneIncludeLogicDeleteMapper#selectOneIncludeLogicDelete(Object)
      */
     public String selectOneIncludeLogicDelete(TableInfo tableInfo, MappedStatement ms) {
-        MetaObject metaObject = SystemMetaObject.forObject(ms);
-        // 替换 resultMap 对象
-        List<ResultMap> resultMaps = Stream.of(tableInfo.getBaseResultMap())
-                .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
-        metaObject.setValue("resultMaps", resultMaps);
-
-        // 生成 sql 语句
-        StringBuilder builder = new StringBuilder(2048);
-        builder.append("SELECT ").append(tableInfo.getSelectAllColumnsSql());
-        builder.append(" FROM ").append(TableMetaObject.getTableName(tableInfo)).append("\n");
-        builder.append(tableInfo.getWhereConditionIncludeLogicDeleteSql());
-        String extendSql = getWhereExtend(ms);
-        if (extendSql != null) {
-            builder.insert(builder.length() - 8, extendSql);
-        }
-        String sql = builder.toString();
-
-        // 替换 sqlSource 对象
-        Configuration configuration = ms.getConfiguration();
-        SqlSource sqlSource = xmlLanguageDriver.createSqlSource(configuration, "<script>\n" + sql + "\n</script>",
-                null);
-        metaObject.setValue("sqlSource", sqlSource);
-        return sql;
+        // 最多查询2条记录，已经足够判断是否有多条查询结果
+        return selectByConditionIncludeLogicDelete(tableInfo, ms, "LIMIT 2");
     }
 
     /**
@@ -114,7 +96,7 @@ public class SelectIncludeLogicDeleteMapperTemplate extends AbstractMapperTempla
      * @see SelectListIncludeLogicDeleteMapper#selectListIncludeLogicDelete(Object)
      */
     public String selectListIncludeLogicDelete(TableInfo tableInfo, MappedStatement ms) {
-        return selectOneIncludeLogicDelete(tableInfo, ms);
+        return selectByConditionIncludeLogicDelete(tableInfo, ms, null);
     }
 
     /**
@@ -153,6 +135,11 @@ public class SelectIncludeLogicDeleteMapperTemplate extends AbstractMapperTempla
         Configuration configuration = ms.getConfiguration();
         SqlSource sqlSource = xmlLanguageDriver.createSqlSource(configuration, "<script>\n" + sql + "\n</script>",
                 null);
+        if (extendSql == null) {
+            // 没有"自定义通用SQL查询条件"时，sql 只由非空字段决定，按非空字段组合缓存
+            sqlSource = ShapeCacheSqlSource.wrap(configuration, sqlSource, tableInfo.getEntityClass(),
+                    getWhereConditionColumns(tableInfo, true));
+        }
         metaObject.setValue("sqlSource", sqlSource);
         return sql;
     }
@@ -478,4 +465,143 @@ public class SelectIncludeLogicDeleteMapperTemplate extends AbstractMapperTempla
         metaObject.setValue("sqlSource", sqlSource);
         return sql;
     }
+
+    /**
+     * 查询是否存在匹配的记录，生成 select 语句，匹配到第一条记录就结束查询，不会统计所有匹配的记录数。
+     * <p>
+     * 示例如下：
+     *
+     * <pre>
+     * SELECT COUNT(1) FROM (SELECT 1 FROM table_name
+     * &lt;where&gt;
+     *   &lt;if test=&quot;id != null&quot;&gt;
+     *     and id = #{id}
+     *   &lt;/if&gt;
+     * &lt;/where&gt;
+     * LIMIT 1) t_exists
+     * </pre>
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
+     * @return 生成的sql语句
+     * @see SelectExistsIncludeLogicDeleteMapper#existsIncludeLogicDelete(Object)
+     */
+    public String existsIncludeLogicDelete(TableInfo tableInfo, MappedStatement ms) {
+        MetaObject metaObject = SystemMetaObject.forObject(ms);
+
+        // 生成 sql 语句
+        StringBuilder builder = new StringBuilder(2048);
+        builder.append("SELECT COUNT(1) FROM (SELECT 1 FROM ").append(TableMetaObject.getTableName(tableInfo));
+        builder.append("\n").append(tableInfo.getWhereConditionIncludeLogicDeleteSql());
+        String extendSql = getWhereExtend(ms);
+        if (extendSql != null) {
+            builder.insert(builder.length() - 8, extendSql);
+        }
+        builder.append("\nLIMIT 1) t_exists");
+        String sql = builder.toString();
+
+        // 替换 sqlSource 对象
+        Configuration configuration = ms.getConfiguration();
+        SqlSource sqlSource = xmlLanguageDriver.createSqlSource(configuration, "<script>\n" + sql + "\n</script>",
+                null);
+        if (extendSql == null) {
+            // 没有"自定义通用SQL查询条件"时，sql 只由非空字段决定，按非空字段组合缓存
+            sqlSource = ShapeCacheSqlSource.wrap(configuration, sqlSource, tableInfo.getEntityClass(),
+                    getWhereConditionColumns(tableInfo, true));
+        }
+        metaObject.setValue("sqlSource", sqlSource);
+        return sql;
+    }
+
+    /**
+     * 根据主键查询是否存在记录，生成 select 语句。
+     * <p>
+     * 示例如下：
+     *
+     * <pre>
+     * SELECT COUNT(1) FROM (SELECT 1 FROM table_name
+     * &lt;where&gt;
+     *  AND id = #{id}
+     * &lt;/where&gt;
+     * LIMIT 1) t_exists
+     * </pre>
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
+     * @return 生成的sql语句
+     * @see SelectExistsIncludeLogicDeleteMapper#existsByPrimaryKeyIncludeLogicDelete(Serializable)
+     * @see SelectExistsIncludeLogicDeleteMapper#existsWithPrimaryKeyIncludeLogicDelete(Object)
+     */
+    public String existsByPrimaryKeyIncludeLogicDelete(TableInfo tableInfo, MappedStatement ms) {
+        MetaObject metaObject = SystemMetaObject.forObject(ms);
+
+        // 生成 sql 语句
+        StringBuilder builder = new StringBuilder(1024);
+        builder.append("SELECT COUNT(1) FROM (SELECT 1 FROM ").append(TableMetaObject.getTableName(tableInfo));
+        builder.append("\n").append(tableInfo.getWherePrimaryKeyIncludeLogicDeleteSql());
+        builder.append("\nLIMIT 1) t_exists");
+        String sql = builder.toString();
+
+        // 替换 sqlSource 对象
+        Configuration configuration = ms.getConfiguration();
+        SqlSource sqlSource = xmlLanguageDriver.createSqlSource(configuration, "<script>\n" + sql + "\n</script>",
+                null);
+        metaObject.setValue("sqlSource", sqlSource);
+        return sql;
+    }
+
+    /**
+     * 根据主键查询是否存在记录，生成 select 语句，和 {@link #existsByPrimaryKeyIncludeLogicDelete(TableInfo, MappedStatement)}
+     * 相同
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
+     * @return 生成的sql语句
+     * @see SelectExistsIncludeLogicDeleteMapper#existsWithPrimaryKeyIncludeLogicDelete(Object)
+     */
+    public String existsWithPrimaryKeyIncludeLogicDelete(TableInfo tableInfo, MappedStatement ms) {
+        return existsByPrimaryKeyIncludeLogicDelete(tableInfo, ms);
+    }
+
+    /**
+     * 查询记录，生成 select 语句
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
+     * @param limitSql 追加在最后的 limit 语句，没有则为 null
+     * @return 生成的sql语句
+     */
+    private String selectByConditionIncludeLogicDelete(TableInfo tableInfo, MappedStatement ms, String limitSql) {
+        MetaObject metaObject = SystemMetaObject.forObject(ms);
+        // 替换 resultMap 对象
+        List<ResultMap> resultMaps = Stream.of(tableInfo.getBaseResultMap())
+                .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+        metaObject.setValue("resultMaps", resultMaps);
+
+        // 生成 sql 语句
+        StringBuilder builder = new StringBuilder(2048);
+        builder.append("SELECT ").append(tableInfo.getSelectAllColumnsSql());
+        builder.append(" FROM ").append(TableMetaObject.getTableName(tableInfo)).append("\n");
+        builder.append(tableInfo.getWhereConditionIncludeLogicDeleteSql());
+        String extendSql = getWhereExtend(ms);
+        if (extendSql != null) {
+            builder.insert(builder.length() - 8, extendSql);
+        }
+        if (limitSql != null) {
+            builder.append("\n").append(limitSql);
+        }
+        String sql = builder.toString();
+
+        // 替换 sqlSource 对象
+        Configuration configuration = ms.getConfiguration();
+        SqlSource sqlSource = xmlLanguageDriver.createSqlSource(configuration, "<script>\n" + sql + "\n</script>",
+                null);
+        if (extendSql == null) {
+            // 没有"自定义通用SQL查询条件"时，sql 只由非空字段决定，按非空字段组合缓存
+            sqlSource = ShapeCacheSqlSource.wrap(configuration, sqlSource, tableInfo.getEntityClass(),
+                    getWhereConditionColumns(tableInfo, true));
+        }
+        metaObject.setValue("sqlSource", sqlSource);
+        return sql;
+    }
 }
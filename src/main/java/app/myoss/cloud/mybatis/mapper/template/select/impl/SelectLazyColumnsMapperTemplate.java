@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template.select.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.Configuration;
+
+import app.myoss.cloud.mybatis.mapper.template.AbstractMapperTemplate;
+import app.myoss.cloud.mybatis.mapper.template.select.SelectLazyColumnsMapper;
+import app.myoss.cloud.mybatis.table.TableColumnInfo;
+import app.myoss.cloud.mybatis.table.TableInfo;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+import app.myoss.cloud.mybatis.table.annotation.Column;
+
+/**
+ * 生成查询延迟加载（{@link Column#lazy()}）字段的 select MappedStatement 模版类
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月19日 下午4:08:52
+ */
+public class SelectLazyColumnsMapperTemplate extends AbstractMapperTemplate {
+
+    /**
+     * 生成 select 查询主键字段和延迟加载字段的sql语句，示例如下：
+     *
+     * <pre>
+     * id, content
+     * </pre>
+     *
+     * @param tableInfo 数据库表结构信息
+     * @return sql语句
+     */
+    protected String builderSelectLazyColumns(TableInfo tableInfo) {
+        List<TableColumnInfo> columns = new ArrayList<>(tableInfo.getPrimaryKeyColumns());
+        for (TableColumnInfo columnInfo : tableInfo.getLazyColumns()) {
+            if (!columnInfo.isPrimaryKey()) {
+                columns.add(columnInfo);
+            }
+        }
+        return columns.stream().map(TableColumnInfo::getActualColumn).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * 根据主键查询延迟加载的字段，生成 select 语句。
+     * <p>
+     * 示例如下：
+     *
+     * <pre>
+     * SELECT id, content FROM table_name
+     * &lt;where&gt;
+     *  AND id = #{id}
+     *  AND is_deleted = 'N'
+     * &lt;/where&gt;
+     * </pre>
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
+     * @return 生成的sql语句
+     * @see SelectLazyColumnsMapper#selectLazyColumnsWithPrimaryKey(Object)
+     */
+    public String selectLazyColumnsWithPrimaryKey(TableInfo tableInfo, MappedStatement ms) {
+        MetaObject metaObject = SystemMetaObject.forObject(ms);
+        // 替换 resultMap 对象
+        List<ResultMap> resultMaps = Stream.of(tableInfo.getBaseResultMap())
+                .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+        metaObject.setValue("resultMaps", resultMaps);
+
+        // 生成 sql 语句
+        StringBuilder builder = new StringBuilder(1024);
+        builder.append("SELECT ").append(builderSelectLazyColumns(tableInfo));
+        builder.append(" FROM ").append(TableMetaObject.getTableName(tableInfo)).append("\n");
+        builder.append(tableInfo.getWherePrimaryKeySql());
+        String sql = builder.toString();
+
+        // 替换 sqlSource 对象
+        Configuration configuration = ms.getConfiguration();
+        SqlSource sqlSource = xmlLanguageDriver.createSqlSource(configuration, "<script>\n" + sql + "\n</script>",
+                null);
+        metaObject.setValue("sqlSource", sqlSource);
+        return sql;
+    }
+
+    /**
+     * 根据主键批量查询延迟加载的字段，生成 select 语句。
+     * <p>
+     * 示例如下：
+     *
+     * <pre>
+     * SELECT id, content FROM table_name
+     * &lt;where&gt;
+     *  AND id in
+     *  &lt;foreach collection=&quot;ids&quot; item=&quot;item&quot; separator=&quot;,&quot; open=&quot;(&quot; close=&quot;)&quot;&gt;
+     *    #{item.id}
+     *  &lt;/foreach&gt;
+     *  AND is_deleted = 'N'
+     * &lt;/where&gt;
+     * </pre>
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
+     * @return 生成的sql语句
+     * @see SelectLazyColumnsMapper#selectListLazyColumnsWithPrimaryKey(java.util.Collection)
+     */
+    public String selectListLazyColumnsWithPrimaryKey(TableInfo tableInfo, MappedStatement ms) {
+        MetaObject metaObject = SystemMetaObject.forObject(ms);
+        // 替换 resultMap 对象
+        List<ResultMap> resultMaps = Stream.of(tableInfo.getBaseResultMap())
+                .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+        metaObject.setValue("resultMaps", resultMaps);
+
+        // 生成 sql 语句
+        StringBuilder builder = new StringBuilder(1024);
+        builder.append("SELECT ").append(builderSelectLazyColumns(tableInfo));
+        builder.append(" FROM ").append(TableMetaObject.getTableName(tableInfo)).append("\n");
+        builder.append(TableMetaObject.builderWhereWithListPrimaryKeySql(tableInfo, false));
+        String sql = builder.toString();
+
+        // 替换 sqlSource 对象
+        Configuration configuration = ms.getConfiguration();
+        SqlSource sqlSource = xmlLanguageDriver.createSqlSource(configuration, "<script>\n" + sql + "\n</script>",
+                null);
+        metaObject.setValue("sqlSource", sqlSource);
+        return sql;
+    }
+}
@@ -33,8 +33,10 @@ import org.apache.ibatis.reflection.SystemMetaObject;
 import org.apache.ibatis.session.Configuration;
 
 import app.myoss.cloud.mybatis.mapper.template.AbstractMapperTemplate;
+import app.myoss.cloud.mybatis.mapper.template.ShapeCacheSqlSource;
 import app.myoss.cloud.mybatis.mapper.template.select.SelectByPrimaryKeyMapper;
 import app.myoss.cloud.mybatis.mapper.template.select.SelectCountMapper;
+import app.myoss.cloud.mybatis.mapper.template.select.SelectExistsMapper;
 import app.myoss.cloud.mybatis.mapper.template.select.SelectListMapper;
 import app.myoss.cloud.mybatis.mapper.template.select.SelectOneMapper;
 import app.myoss.cloud.mybatis.mapper.template.select.SelectPageMapper;
@@ -62,6 +64,7 @@ public class SelectMapperTemplate extends AbstractMapperTemplate {
      *   &lt;/if&gt;
      *   and is_deleted = 'N'
      * &lt;/where&gt;
+     * LIMIT 2
      * </pre>
      *
      * @param tableInfo 数据库表结构信息
@@ -70,29 +73,8 @@ public class SelectMapperTemplate extends AbstractMapperTemplate {
      * @see SelectOneMapper#selectOne(Object)
      */
     public String selectOne(TableInfo tableInfo, MappedStatement ms) {
-        MetaObject metaObject = SystemMetaObject.forObject(ms);
-        // 替换 resultMap 对象
-        List<ResultMap> resultMaps = Stream.of(tableInfo.getBaseResultMap())
-                .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
-        metaObject.setValue("resultMaps", resultMaps);
-
-        // 生成 sql 语句
-        StringBuilder builder = new StringBuilder(2048);
-        builder.append("SELECT ").append(tableInfo.getSelectAllColumnsSql());
-        builder.append(" FROM ").append(TableMetaObject.getTableName(tableInfo)).append("\n");
-        builder.append(tableInfo.getWhereConditionSql());
-        String extendSql = getWhereExtend(ms);
-        if (extendSql != null) {
-            builder.insert(builder.length() - 8, extendSql);
-        }
-        String sql = builder.toString();
-
-        // 替换 sqlSource 对象
-        Configuration configuration = ms.getConfiguration();
-        SqlSource sqlSource = xmlLanguageDriver.createSqlSource(configuration, "<script>\n" + sql + "\n</script>",
-                null);
-        metaObject.setValue("sqlSource", sqlSource);
-        return sql;
+        // 最多查询2条记录，已经足够判断是否有多条查询结果
+        return selectByCondition(tableInfo, ms, "LIMIT 2");
     }
 
     /**
@@ -116,7 +98,7 @@ public class SelectMapperTemplate extends AbstractMapperTemplate {
      * @see SelectListMapper#selectList(Object)
      */
     public String selectList(TableInfo tableInfo, MappedStatement ms) {
-        return selectOne(tableInfo, ms);
+        return selectByCondition(tableInfo, ms, null);
     }
 
     /**
@@ -156,6 +138,11 @@ public class SelectMapperTemplate extends AbstractMapperTemplate {
         Configuration configuration = ms.getConfiguration();
         SqlSource sqlSource = xmlLanguageDriver.createSqlSource(configuration, "<script>\n" + sql + "\n</script>",
                 null);
+        if (extendSql == null) {
+            // 没有"自定义通用SQL查询条件"时，sql 只由非空字段决定，按非空字段组合缓存
+            sqlSource = ShapeCacheSqlSource.wrap(configuration, sqlSource, tableInfo.getEntityClass(),
+                    getWhereConditionColumns(tableInfo, false));
+        }
         metaObject.setValue("sqlSource", sqlSource);
         return sql;
     }
@@ -485,4 +472,145 @@ public class SelectMapperTemplate extends AbstractMapperTemplate {
         metaObject.setValue("sqlSource", sqlSource);
         return sql;
     }
+
+    /**
+     * 查询是否存在匹配的记录，生成 select 语句，匹配到第一条记录就结束查询，不会统计所有匹配的记录数。
+     * <p>
+     * 示例如下：
+     *
+     * <pre>
+     * SELECT COUNT(1) FROM (SELECT 1 FROM table_name
+     * &lt;where&gt;
+     *   &lt;if test=&quot;id != null&quot;&gt;
+     *     and id = #{id}
+     *   &lt;/if&gt;
+     *   and is_deleted = 'N'
+     * &lt;/where&gt;
+     * LIMIT 1) t_exists
+     * </pre>
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
+     * @return 生成的sql语句
+     * @see SelectExistsMapper#exists(Object)
+     */
+    public String exists(TableInfo tableInfo, MappedStatement ms) {
+        MetaObject metaObject = SystemMetaObject.forObject(ms);
+
+        // 生成 sql 语句
+        StringBuilder builder = new StringBuilder(2048);
+        builder.append("SELECT COUNT(1) FROM (SELECT 1 FROM ").append(TableMetaObject.getTableName(tableInfo));
+        builder.append("\n").append(tableInfo.getWhereConditionSql());
+        String extendSql = getWhereExtend(ms);
+        if (extendSql != null) {
+            builder.insert(builder.length() - 8, extendSql);
+        }
+        builder.append("\nLIMIT 1) t_exists");
+        String sql = builder.toString();
+
+        // 替换 sqlSource 对象
+        Configuration configuration = ms.getConfiguration();
+        SqlSource sqlSource = xmlLanguageDriver.createSqlSource(configuration, "<script>\n" + sql + "\n</script>",
+                null);
+        if (extendSql == null) {
+            // 没有"自定义通用SQL查询条件"时，sql 只由非空字段决定，按非空字段组合缓存
+            sqlSource = ShapeCacheSqlSource.wrap(configuration, sqlSource, tableInfo.getEntityClass(),
+                    getWhereConditionColumns(tableInfo, false));
+        }
+        metaObject.setValue("sqlSource", sqlSource);
+        return sql;
+    }
+
+    /**
+     * 根据主键查询是否存在记录，生成 select 语句。
+     * <p>
+     * 示例如下：
+     *
+     * <pre>
+     * SELECT COUNT(1) FROM (SELECT 1 FROM table_name
+     * &lt;where&gt;
+     *  AND id = #{id}
+     *  AND is_deleted = 'N'
+     * &lt;/where&gt;
+     * LIMIT 1) t_exists
+     * </pre>
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
+     * @return 生成的sql语句
+     * @see SelectExistsMapper#existsByPrimaryKey(Serializable)
+     * @see SelectExistsMapper#existsWithPrimaryKey(Object)
+     */
+    public String existsByPrimaryKey(TableInfo tableInfo, MappedStatement ms) {
+        MetaObject metaObject = SystemMetaObject.forObject(ms);
+
+        // 生成 sql 语句
+        StringBuilder builder = new StringBuilder(1024);
+        builder.append("SELECT COUNT(1) FROM (SELECT 1 FROM ").append(TableMetaObject.getTableName(tableInfo));
+        builder.append("\n").append(tableInfo.getWherePrimaryKeySql());
+        builder.append("\nLIMIT 1) t_exists");
+        String sql = builder.toString();
+
+        // 替换 sqlSource 对象
+        Configuration configuration = ms.getConfiguration();
+        SqlSource sqlSource = xmlLanguageDriver.createSqlSource(configuration, "<script>\n" + sql + "\n</script>",
+                null);
+        metaObject.setValue("sqlSource", sqlSource);
+        return sql;
+    }
+
+    /**
+     * 根据主键查询是否存在记录，生成 select 语句，和 {@link #existsByPrimaryKey(TableInfo, MappedStatement)}
+     * 相同
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
+     * @return 生成的sql语句
+     * @see SelectExistsMapper#existsWithPrimaryKey(Object)
+     */
+    public String existsWithPrimaryKey(TableInfo tableInfo, MappedStatement ms) {
+        return existsByPrimaryKey(tableInfo, ms);
+    }
+
+    /**
+     * 查询记录，生成 select 语句
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
+     * @param limitSql 追加在最后的 limit 语句，没有则为 null
+     * @return 生成的sql语句
+     */
+    private String selectByCondition(TableInfo tableInfo, MappedStatement ms, String limitSql) {
+        MetaObject metaObject = SystemMetaObject.forObject(ms);
+        // 替换 resultMap 对象
+        List<ResultMap> resultMaps = Stream.of(tableInfo.getBaseResultMap())
+                .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+        metaObject.setValue("resultMaps", resultMaps);
+
+        // 生成 sql 语句
+        StringBuilder builder = new StringBuilder(2048);
+        builder.append("SELECT ").append(tableInfo.getSelectAllColumnsSql());
+        builder.append(" FROM ").append(TableMetaObject.getTableName(tableInfo)).append("\n");
+        builder.append(tableInfo.getWhereConditionSql());
+        String extendSql = getWhereExtend(ms);
+        if (extendSql != null) {
+            builder.insert(builder.length() - 8, extendSql);
+        }
+        if (limitSql != null) {
+            builder.append("\n").append(limitSql);
+        }
+        String sql = builder.toString();
+
+        // 替换 sqlSource 对象
+        Configuration configuration = ms.getConfiguration();
+        SqlSource sqlSource = xmlLanguageDriver.createSqlSource(configuration, "<script>\n" + sql + "\n</script>",
+                null);
+        if (extendSql == null) {
+            // 没有"自定义通用SQL查询条件"时，sql 只由非空字段决定，按非空字段组合缓存
+            sqlSource = ShapeCacheSqlSource.wrap(configuration, sqlSource, tableInfo.getEntityClass(),
+                    getWhereConditionColumns(tableInfo, false));
+        }
+        metaObject.setValue("sqlSource", sqlSource);
+        return sql;
+    }
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template.select.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+
+import app.myoss.cloud.mybatis.criteria.Projection;
+import app.myoss.cloud.mybatis.mapper.template.AbstractMapperTemplate;
+import app.myoss.cloud.mybatis.mapper.template.ProjectionSqlSource;
+import app.myoss.cloud.mybatis.mapper.template.select.SelectProjectionMapper;
+import app.myoss.cloud.mybatis.table.TableInfo;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+
+/**
+ * 生成查询指定字段（投影）的 select MappedStatement 模版类
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月19日 上午11:12:36
+ */
+public class SelectProjectionMapperTemplate extends AbstractMapperTemplate {
+
+    /**
+     * 查询指定字段的记录，生成 select 语句。查询的字段来自 {@link Projection#getColumns()}，已经校验过字段名，直接写入 sql
+     * 模版中；{@link ProjectionSqlSource} 按"投影字段 + 查询条件非空字段组合"缓存生成好的 sql 语句。结果使用实体类的
+     * BaseResultMap，MyBatis 只会映射结果集中存在的字段。
+     * <p>
+     * 示例如下：
+     *
+     * <pre>
+     * SELECT id, name
+     * FROM table_name
+     * &lt;where&gt;
+     *   &lt;if test=&quot;condition != null&quot;&gt;
+     *     &lt;if test=&quot;condition.id != null&quot;&gt;
+     *       and id = #{condition.id}
+     *     &lt;/if&gt;
+     *   &lt;/if&gt;
+     *   and is_deleted = 'N'
+     * &lt;/where&gt;
+     * </pre>
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
+     * @return 生成的sql语句（查询所有的字段）
+     * @see SelectProjectionMapper#selectListColumns(Object, Projection)
+     */
+    public String selectListColumns(TableInfo tableInfo, MappedStatement ms) {
+        MetaObject metaObject = SystemMetaObject.forObject(ms);
+        // 替换 resultMap 对象
+        List<ResultMap> resultMaps = Stream.of(tableInfo.getBaseResultMap())
+                .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+        metaObject.setValue("resultMaps", resultMaps);
+
+        // 生成 where 条件的 sql 语句，select 的字段由投影决定
+        StringBuilder where = new StringBuilder(tableInfo.getWhereConditionWithParameterSql());
+        StringBuilder extendSql = getWhereExtendCondition(ms);
+        if (extendSql != null) {
+            where.insert(where.lastIndexOf("</where>"), extendSql);
+        }
+        String whereSql = where.toString();
+
+        // 替换 sqlSource 对象，有"自定义通用SQL查询条件"时 sql 不只由非空字段决定，不缓存
+        SqlSource sqlSource = new ProjectionSqlSource(tableInfo, whereSql,
+                (extendSql == null ? getWhereConditionColumns(tableInfo, false) : null));
+        metaObject.setValue("sqlSource", sqlSource);
+        return "SELECT " + tableInfo.getSelectAllColumnsSql() + "\nFROM " + TableMetaObject.getTableName(tableInfo)
+                + "\n" + whereSql;
+    }
+}
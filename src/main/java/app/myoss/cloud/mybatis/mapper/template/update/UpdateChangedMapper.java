@@ -0,0 +1,49 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template.update;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.UpdateProvider;
+
+import app.myoss.cloud.mybatis.mapper.annotation.RegisterMapper;
+import app.myoss.cloud.mybatis.mapper.template.update.impl.UpdateMapperTemplate;
+import app.myoss.cloud.mybatis.repository.utils.EntityChangeTracker;
+
+/**
+ * 只更新有变化的字段通用 Mapper 接口
+ *
+ * @param <T> 实体类
+ * @author Jerry.Chen
+ * @since 2019年6月20日 上午10:36:15
+ */
+@RegisterMapper
+public interface UpdateChangedMapper<T> {
+    /**
+     * 根据主键id更新记录，只更新 changedColumns 中的字段，更新时自动填充的字段、乐观锁版本号总是会更新
+     *
+     * @param record 待更新的实体对象
+     * @param changedColumns 有变化的字段位掩码，第 {@code i} 位对应
+     *            {@link app.myoss.cloud.mybatis.table.TableInfo#getColumns()} 中的第
+     *            {@code i} 个字段
+     * @return SQL执行成功之后，影响的行数
+     * @see UpdateMapperTemplate#updateChangedByPrimaryKey
+     * @see EntityChangeTracker#getChangedColumns(Object)
+     */
+    @UpdateProvider(type = UpdateMapperTemplate.class, method = "dynamicSql")
+    int updateChangedByPrimaryKey(@Param("record") T record, @Param("changedColumns") long changedColumns);
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template.update;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Map;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.UpdateProvider;
+
+import app.myoss.cloud.mybatis.mapper.annotation.RegisterMapper;
+import app.myoss.cloud.mybatis.mapper.template.update.impl.UpdateMapperTemplate;
+
+/**
+ * 原子增减字段值通用 Mapper 接口，比如：库存、余额、浏览次数，一条 sql 语句完成，不需要先查询再更新
+ *
+ * @param <T> 实体类
+ * @author Jerry.Chen
+ * @since 2019年6月21日 下午2:12:40
+ */
+@RegisterMapper
+public interface UpdateIncrementMapper<T> {
+    /**
+     * 根据主键id增减字段值，字段值为 null 时当做 0 处理，示例：
+     * {@code UPDATE t SET stock = COALESCE(stock, 0) + ? WHERE id = ? AND COALESCE(stock, 0) + ? >= ?}
+     *
+     * @param record 实体对象，使用其中的主键值和更新时自动填充的字段值
+     * @param increments 属性名 => 增量，减少时使用负数，只能是可更新的数值类型字段
+     * @param floor 更新之后的值的下限，为 null 时不限制，比如：库存不能小于0
+     * @return SQL执行成功之后，影响的行数，记录不存在或者更新之后的值小于下限时为0
+     * @see UpdateMapperTemplate#updateIncrementByPrimaryKey
+     */
+    @UpdateProvider(type = UpdateMapperTemplate.class, method = "dynamicSql")
+    int updateIncrementByPrimaryKey(@Param("record") T record,
+                                    @Param("increments") Map<String, ? extends Number> increments,
+                                    @Param("floor") Number floor);
+
+    /**
+     * 根据主键id批量增减字段值，所有记录使用相同的增量
+     *
+     * @param ids 主键id
+     * @param record 实体对象，使用其中的更新时自动填充的字段值
+     * @param increments 属性名 => 增量，减少时使用负数，只能是可更新的数值类型字段
+     * @param floor 更新之后的值的下限，为 null 时不限制，比如：库存不能小于0
+     * @return SQL执行成功之后，影响的行数，不包括更新之后的值小于下限的记录
+     * @see UpdateMapperTemplate#updateIncrementByListPrimaryKey
+     */
+    @UpdateProvider(type = UpdateMapperTemplate.class, method = "dynamicSql")
+    int updateIncrementByListPrimaryKey(@Param("ids") Collection<? extends Serializable> ids,
+                                        @Param("record") T record,
+                                        @Param("increments") Map<String, ? extends Number> increments,
+                                        @Param("floor") Number floor);
+}
@@ -28,5 +28,6 @@ import app.myoss.cloud.mybatis.mapper.annotation.RegisterMapper;
  */
 @RegisterMapper
 public interface UpdateMapper<T> extends UpdateByPrimaryKeyMapper<T>, UpdateByPrimaryKeyAllColumnMapper<T>,
-        UpdateByConditionMapper<T>, UpdateUseMapByConditionMapper<T> {
+        UpdateByConditionMapper<T>, UpdateUseMapByConditionMapper<T>, UpdateChangedMapper<T>,
+        UpdateIncrementMapper<T> {
 }
@@ -17,6 +17,8 @@
 
 package app.myoss.cloud.mybatis.mapper.template.update.impl;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.mapping.MappedStatement;
@@ -26,13 +28,19 @@ import org.apache.ibatis.reflection.SystemMetaObject;
 import org.apache.ibatis.session.Configuration;
 
 import app.myoss.cloud.mybatis.mapper.template.AbstractMapperTemplate;
+import app.myoss.cloud.mybatis.mapper.template.ChangedColumnsSqlSource;
+import app.myoss.cloud.mybatis.mapper.template.IncrementSqlSource;
+import app.myoss.cloud.mybatis.mapper.template.ShapeCacheSqlSource;
 import app.myoss.cloud.mybatis.mapper.template.update.UpdateByConditionMapper;
 import app.myoss.cloud.mybatis.mapper.template.update.UpdateByPrimaryKeyAllColumnMapper;
 import app.myoss.cloud.mybatis.mapper.template.update.UpdateByPrimaryKeyMapper;
+import app.myoss.cloud.mybatis.mapper.template.update.UpdateChangedMapper;
+import app.myoss.cloud.mybatis.mapper.template.update.UpdateIncrementMapper;
 import app.myoss.cloud.mybatis.mapper.template.update.UpdateUseMapByConditionMapper;
 import app.myoss.cloud.mybatis.table.TableColumnInfo;
 import app.myoss.cloud.mybatis.table.TableInfo;
 import app.myoss.cloud.mybatis.table.TableMetaObject;
+import app.myoss.cloud.mybatis.table.annotation.Column;
 import app.myoss.cloud.mybatis.table.annotation.FillRule;
 
 /**
@@ -42,6 +50,36 @@ import app.myoss.cloud.mybatis.table.annotation.FillRule;
  * @since 2018年5月1日 下午9:15:39
  */
 public class UpdateMapperTemplate extends AbstractMapperTemplate {
+    /**
+     * 生成乐观锁版本号自增的 set 语句，版本号为 null 的历史数据从 0 开始计数，示例如下：
+     *
+     * <pre>
+     *   version = COALESCE(version, 0) + 1,
+     * </pre>
+     *
+     * @param versionColumn 版本号字段
+     * @return sql语句
+     */
+    protected static String builderSetVersionSql(TableColumnInfo versionColumn) {
+        String column = versionColumn.getActualColumn();
+        return "  " + column + " = COALESCE(" + column + ", 0) + 1,\n";
+    }
+
+    /**
+     * 在 where 条件语句的末尾追加乐观锁版本号的校验，版本号为 null 时匹配不到任何记录，示例如下：
+     *
+     * <pre>
+     *  AND version = #{version}
+     * </pre>
+     *
+     * @param builder 以 {@code </where>} 结尾的sql语句
+     * @param versionColumn 版本号字段
+     */
+    protected static void appendWhereVersionSql(StringBuilder builder, TableColumnInfo versionColumn) {
+        builder.insert(builder.lastIndexOf("</where>"),
+                "  AND " + versionColumn.getActualColumn() + " = #{" + versionColumn.getProperty() + "}\n");
+    }
+
     /**
      * 更新记录，生成 update 语句。
      * <p>
@@ -53,12 +91,16 @@ public class UpdateMapperTemplate extends AbstractMapperTemplate {
      *   &lt;if test=&quot;id != null&quot;&gt;
      *     id = #{id},
      *   &lt;/if&gt;
+     *   version = COALESCE(version, 0) + 1,
      * &lt;/set&gt;
      * &lt;where&gt;
      *  AND id = #{id}
      *  AND is_deleted = 'N'
+     *  AND version = #{version}
      * &lt;/where&gt;
      * </pre>
+     * <p>
+     * 有乐观锁的版本号字段（{@link Column#version()}）时才会生成 version 相关的语句
      *
      * @param tableInfo 数据库表结构信息
      * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
@@ -71,14 +113,20 @@ public class UpdateMapperTemplate extends AbstractMapperTemplate {
 
         // 生成 sql 语句
         StringBuilder builder = new StringBuilder(2048);
+        List<TableColumnInfo> shapeColumns = new ArrayList<>();
         builder.append("UPDATE ").append(TableMetaObject.getTableName(tableInfo)).append("\n");
         builder.append("<set>\n");
         for (TableColumnInfo columnInfo : tableInfo.getColumns()) {
             if (!columnInfo.isUpdatable() || columnInfo.isPrimaryKey() || columnInfo.isLogicDelete()) {
                 continue;
             }
+            if (columnInfo.isVersion()) {
+                builder.append(builderSetVersionSql(columnInfo));
+                continue;
+            }
             boolean fillUpdate = columnInfo.haveFillRule(FillRule.UPDATE);
             if (!fillUpdate) {
+                shapeColumns.add(columnInfo);
                 builder.append("  <if test=\"").append(columnInfo.getProperty()).append(" != null\">\n");
             }
             builder.append("    ")
@@ -92,11 +140,16 @@ public class UpdateMapperTemplate extends AbstractMapperTemplate {
         }
         builder.append("</set>\n");
         builder.append(tableInfo.getWherePrimaryKeySql());
+        TableColumnInfo versionColumn = tableInfo.getVersionColumn();
+        if (versionColumn != null) {
+            appendWhereVersionSql(builder, versionColumn);
+        }
         String sql = builder.toString();
 
         // 替换 sqlSource 对象
         SqlSource sqlSource = xmlLanguageDriver.createSqlSource(configuration, "<script>\n" + sql + "\n</script>",
                 null);
+        sqlSource = ShapeCacheSqlSource.wrap(configuration, sqlSource, tableInfo.getEntityClass(), shapeColumns);
         metaObject.setValue("sqlSource", sqlSource);
         return sql;
     }
@@ -116,6 +169,8 @@ public class UpdateMapperTemplate extends AbstractMapperTemplate {
      *  AND is_deleted = 'N'
      * &lt;/where&gt;
      * </pre>
+     * <p>
+     * 延迟加载的字段（{@link Column#lazy()}）只有值不为 null 时才会更新
      *
      * @param tableInfo 数据库表结构信息
      * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
@@ -134,11 +189,26 @@ public class UpdateMapperTemplate extends AbstractMapperTemplate {
             if (!columnInfo.isUpdatable() || columnInfo.isPrimaryKey() || columnInfo.isLogicDelete()) {
                 continue;
             }
+            if (columnInfo.isVersion()) {
+                builder.append(builderSetVersionSql(columnInfo));
+                continue;
+            }
+            if (columnInfo.isLazy()) {
+                // 延迟加载的字段在未加载时为 null，只有显式赋值了才更新，防止被覆盖为 null
+                builder.append("  <if test=\"").append(columnInfo.getProperty()).append(" != null\">\n");
+                builder.append("    ").append(columnInfo.getActualColumn()).append(" = #{");
+                builder.append(columnInfo.getProperty()).append("},\n");
+                builder.append("  </if>\n");
+                continue;
+            }
             builder.append("  ").append(columnInfo.getActualColumn()).append(" = #{").append(columnInfo.getProperty());
             builder.append("},\n");
         }
         builder.append("</set>\n");
         builder.append(tableInfo.getWherePrimaryKeySql());
+        if (tableInfo.getVersionColumn() != null) {
+            appendWhereVersionSql(builder, tableInfo.getVersionColumn());
+        }
         String sql = builder.toString();
 
         // 替换 sqlSource 对象
@@ -185,6 +255,11 @@ public class UpdateMapperTemplate extends AbstractMapperTemplate {
             if (!columnInfo.isUpdatable() || columnInfo.isPrimaryKey() || columnInfo.isLogicDelete()) {
                 continue;
             }
+            if (columnInfo.isVersion()) {
+                // 版本号条件使用 condition 中的值
+                builder.append(builderSetVersionSql(columnInfo));
+                continue;
+            }
             boolean fillUpdate = columnInfo.haveFillRule(FillRule.UPDATE);
             if (!fillUpdate) {
                 builder.append("  <if test=\"record.").append(columnInfo.getProperty()).append(" != null\">\n");
@@ -255,4 +330,94 @@ public class UpdateMapperTemplate extends AbstractMapperTemplate {
         metaObject.setValue("sqlSource", sqlSource);
         return sql;
     }
+
+    /**
+     * 更新记录，只更新有变化的字段，生成 update 语句。
+     * <p>
+     * 每种"有变化的字段位掩码"第一次执行时生成一条 sql 语句并缓存起来，示例如下：
+     *
+     * <pre>
+     * UPDATE table_name SET name = ?, version = COALESCE(version, 0) + 1 WHERE id = ? AND is_deleted = 'N' AND version = ?
+     * </pre>
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
+     * @return 生成的sql语句
+     * @see UpdateChangedMapper#updateChangedByPrimaryKey(Object, long)
+     */
+    public String updateChangedByPrimaryKey(TableInfo tableInfo, MappedStatement ms) {
+        MetaObject metaObject = SystemMetaObject.forObject(ms);
+
+        // 替换 sqlSource 对象，sql 语句在执行时按位掩码生成
+        String sql = "UPDATE " + TableMetaObject.getTableName(tableInfo);
+        metaObject.setValue("sqlSource", new ChangedColumnsSqlSource(tableInfo));
+        return sql;
+    }
+
+    /**
+     * 原子增减字段值，生成 update 语句。
+     * <p>
+     * 每种"增减的字段 + 是否有下限"组合第一次执行时生成 sql 语句并缓存起来，字段值为 null 时当做 0 处理，示例如下：
+     *
+     * <pre>
+     * UPDATE table_name
+     * &lt;set&gt;
+     *   stock = COALESCE(stock, 0) + #{increments.stock},
+     *   gmt_modified = #{record.gmtModified},
+     * &lt;/set&gt;
+     * &lt;where&gt;
+     *  AND id = #{record.id}
+     *  AND is_deleted = 'N'
+     *  AND COALESCE(stock, 0) + #{increments.stock} &gt;= #{floor}
+     * &lt;/where&gt;
+     * </pre>
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
+     * @return 生成的sql语句
+     * @see UpdateIncrementMapper#updateIncrementByPrimaryKey(Object, Map, Number)
+     */
+    public String updateIncrementByPrimaryKey(TableInfo tableInfo, MappedStatement ms) {
+        MetaObject metaObject = SystemMetaObject.forObject(ms);
+
+        // 替换 sqlSource 对象，sql 语句在执行时按增减的字段生成
+        String sql = "UPDATE " + TableMetaObject.getTableName(tableInfo);
+        metaObject.setValue("sqlSource", new IncrementSqlSource(tableInfo, false));
+        return sql;
+    }
+
+    /**
+     * 根据主键批量原子增减字段值，生成 update 语句。
+     * <p>
+     * 示例如下：
+     *
+     * <pre>
+     * UPDATE table_name
+     * &lt;set&gt;
+     *   stock = COALESCE(stock, 0) + #{increments.stock},
+     *   gmt_modified = #{record.gmtModified},
+     * &lt;/set&gt;
+     * &lt;where&gt;
+     *  AND id in
+     *  &lt;foreach collection=&quot;ids&quot; item=&quot;item&quot; separator=&quot;,&quot; open=&quot;(&quot; close=&quot;)&quot;&gt;
+     *    #{item}
+     *  &lt;/foreach&gt;
+     *  AND is_deleted = 'N'
+     *  AND COALESCE(stock, 0) + #{increments.stock} &gt;= #{floor}
+     * &lt;/where&gt;
+     * </pre>
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息，会将生成的sql语句替换掉原有的 {@link MappedStatement#sqlSource}
+     * @return 生成的sql语句
+     * @see UpdateIncrementMapper#updateIncrementByListPrimaryKey(java.util.Collection, Object, Map, Number)
+     */
+    public String updateIncrementByListPrimaryKey(TableInfo tableInfo, MappedStatement ms) {
+        MetaObject metaObject = SystemMetaObject.forObject(ms);
+
+        // 替换 sqlSource 对象，sql 语句在执行时按增减的字段生成
+        String sql = "UPDATE " + TableMetaObject.getTableName(tableInfo);
+        metaObject.setValue("sqlSource", new IncrementSqlSource(tableInfo, true));
+        return sql;
+    }
 }
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.plugin;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.StringUtils;
+
+import app.myoss.cloud.core.constants.MyossConstants;
+import app.myoss.cloud.mybatis.plugin.impl.FillRuleParameterHandlerCustomizer;
+import app.myoss.cloud.mybatis.table.TableColumnInfo;
+import app.myoss.cloud.mybatis.table.TableInfo;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+import app.myoss.cloud.mybatis.table.annotation.Column;
+import app.myoss.cloud.mybatis.table.annotation.FillRule;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 字段填充值注册器，字段通过 {@link Column#fillValue()} 或者属性名关联注册的填充值
+ * <p>
+ * 注册填充值时，会将所有已经注册的实体类需要填充的字段编译为 getter/setter 方法的调用列表（{@link EntityFiller}），之后每个实体对象只需要调用这些方法。
+ * 在填充值注册之后才注册的实体类，需要调用 {@link #compileAll()} 重新编译，Spring Boot 项目在所有的单例 Bean 初始化完成之后会自动调用
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月14日 上午10:21:08
+ * @see FillRuleParameterHandlerCustomizer
+ */
+public class FillValueRegistry {
+    private static final EntityFiller         EMPTY         = new EntityFiller(new ColumnFiller[0],
+            new ColumnFiller[0]);
+    private final Map<String, FillValue>      fillValues    = new ConcurrentHashMap<>();
+    /**
+     * 实体类 => 需要填充的字段
+     */
+    private final Map<Class<?>, EntityFiller> entityFillers = new ConcurrentHashMap<>();
+
+    /**
+     * 注册字段填充值，字段有值时不进行填充
+     *
+     * @param name 字段填充值的名称
+     * @param supplier 字段填充值生成器
+     * @return 当前对象
+     */
+    public FillValueRegistry register(String name, FillValueSupplier supplier) {
+        return register(name, supplier, false);
+    }
+
+    /**
+     * 注册字段填充值，并重新编译所有已经注册的实体类需要填充的字段
+     *
+     * @param name 字段填充值的名称
+     * @param supplier 字段填充值生成器
+     * @param overwrite 字段有值时是否覆盖，比如：修改时间
+     * @return 当前对象
+     */
+    public synchronized FillValueRegistry register(String name, FillValueSupplier supplier, boolean overwrite) {
+        fillValues.put(name, new FillValue(supplier, overwrite));
+        compileAll();
+        return this;
+    }
+
+    /**
+     * 获取字段关联的填充值，优先使用 {@link Column#fillValue()}，没有则使用属性名
+     *
+     * @param columnInfo 数据库表结构字段信息
+     * @return 没有注册则为 null
+     */
+    public FillValue getFillValue(TableColumnInfo columnInfo) {
+        String name = (columnInfo.getFillValue() != null ? columnInfo.getFillValue() : columnInfo.getProperty());
+        return fillValues.get(name);
+    }
+
+    /**
+     * 编译所有已经注册的实体类需要填充的字段，在所有的实体类都注册完成之后调用
+     */
+    public synchronized void compileAll() {
+        entityFillers.clear();
+        for (Map.Entry<Class<?>, TableInfo> entry : TableMetaObject.getTableInfoMap().entrySet()) {
+            entityFillers.put(entry.getKey(), compile(entry.getValue()));
+        }
+    }
+
+    /**
+     * 获取实体类需要填充的字段。实体类的子类、编译之后才注册的实体类在第一次使用时编译
+     *
+     * @param entityClass 实体类class
+     * @return 实体类需要填充的字段
+     */
+    public EntityFiller getEntityFiller(Class<?> entityClass) {
+        EntityFiller entityFiller = entityFillers.get(entityClass);
+        if (entityFiller == null) {
+            entityFiller = entityFillers.computeIfAbsent(entityClass, this::compile);
+        }
+        return entityFiller;
+    }
+
+    private EntityFiller compile(Class<?> entityClass) {
+        TableInfo tableInfo = null;
+        for (Class<?> clazz = entityClass; clazz != null && tableInfo == null; clazz = clazz.getSuperclass()) {
+            tableInfo = TableMetaObject.getTableInfo(clazz);
+        }
+        return (tableInfo != null ? compile(tableInfo) : EMPTY);
+    }
+
+    private EntityFiller compile(TableInfo tableInfo) {
+        List<ColumnFiller> insertFillers = new ArrayList<>();
+        List<ColumnFiller> updateFillers = new ArrayList<>();
+        for (TableColumnInfo columnInfo : tableInfo.getColumns()) {
+            boolean fillInsert = columnInfo.haveFillRule(FillRule.INSERT);
+            boolean fillUpdate = columnInfo.haveFillRule(FillRule.UPDATE);
+            if (!fillInsert && !fillUpdate) {
+                continue;
+            }
+            FillValue fillValue = getFillValue(columnInfo);
+            if (fillValue == null) {
+                continue;
+            }
+            ColumnFiller columnFiller = new ColumnFiller(columnInfo, fillValue);
+            if (fillInsert) {
+                insertFillers.add(columnFiller);
+            }
+            if (fillUpdate) {
+                updateFillers.add(columnFiller);
+            }
+        }
+        if (insertFillers.isEmpty() && updateFillers.isEmpty()) {
+            return EMPTY;
+        }
+        return new EntityFiller(insertFillers.toArray(new ColumnFiller[0]),
+                updateFillers.toArray(new ColumnFiller[0]));
+    }
+
+    /**
+     * 创建审计字段的填充值注册器，和
+     * {@link app.myoss.cloud.mybatis.plugin.impl.DefaultParameterHandlerCustomizer#setAuditInfo(Object, boolean)}
+     * 的规则一致
+     *
+     * @return 字段填充值注册器
+     */
+    public static FillValueRegistry auditFillValueRegistry() {
+        return new FillValueRegistry().register("isDeleted", FillValueSupplier.constant(MyossConstants.N))
+                .register("creator", FillValueSupplier.constant(MyossConstants.SYSTEM))
+                .register("modifier", FillValueSupplier.constant(MyossConstants.SYSTEM))
+                .register("gmtCreated", FillValueSupplier.clock())
+                .register("gmtModified", FillValueSupplier.clock(), true);
+    }
+
+    /**
+     * 字段填充值
+     */
+    @AllArgsConstructor
+    @Getter
+    public static class FillValue {
+        /**
+         * 字段填充值生成器
+         */
+        private final FillValueSupplier supplier;
+        /**
+         * 字段有值时是否覆盖
+         */
+        private final boolean           overwrite;
+    }
+
+    /**
+     * 实体类需要填充的字段
+     */
+    public static class EntityFiller {
+        private final ColumnFiller[] insertFillers;
+        private final ColumnFiller[] updateFillers;
+
+        EntityFiller(ColumnFiller[] insertFillers, ColumnFiller[] updateFillers) {
+            this.insertFillers = insertFillers;
+            this.updateFillers = updateFillers;
+        }
+
+        /**
+         * 是否没有需要填充的字段
+         *
+         * @return true: 没有需要填充的字段
+         */
+        public boolean isEmpty() {
+            return this == EMPTY;
+        }
+
+        /**
+         * 填充实体对象的字段值
+         *
+         * @param entity 实体对象
+         * @param isInsert 是否为插入
+         * @param now 当前时间
+         */
+        public void fill(Object entity, boolean isInsert, Date now) {
+            for (ColumnFiller columnFiller : (isInsert ? insertFillers : updateFillers)) {
+                columnFiller.fill(entity, now);
+            }
+        }
+    }
+
+    private static class ColumnFiller {
+        private final TableColumnInfo            columnInfo;
+        private final Function<Object, Object>   getter;
+        private final BiConsumer<Object, Object> setter;
+        private final FillValueSupplier          supplier;
+        private final boolean                    overwrite;
+
+        ColumnFiller(TableColumnInfo columnInfo, FillValue fillValue) {
+            this.columnInfo = columnInfo;
+            this.getter = columnInfo.getGetter();
+            this.setter = columnInfo.getSetter();
+            this.supplier = fillValue.getSupplier();
+            this.overwrite = fillValue.isOverwrite();
+        }
+
+        void fill(Object entity, Date now) {
+            if (!overwrite) {
+                Object value = getter.apply(entity);
+                if (value != null && !(value instanceof CharSequence && StringUtils.isBlank((CharSequence) value))) {
+                    return;
+                }
+            }
+            setter.accept(entity, supplier.getValue(columnInfo, entity, now));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.plugin;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.function.Supplier;
+
+import app.myoss.cloud.mybatis.table.TableColumnInfo;
+import app.myoss.cloud.mybatis.table.annotation.FillRule;
+
+/**
+ * 字段填充值生成器，用于 {@link FillRule} 字段在 INSERT/UPDATE 的时候自动填充值
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月14日 上午10:21:08
+ * @see FillValueRegistry
+ */
+@FunctionalInterface
+public interface FillValueSupplier {
+    /**
+     * 生成字段的填充值
+     *
+     * @param columnInfo 数据库表结构字段信息
+     * @param entity 实体对象
+     * @param now 当前时间，同一条 sql 语句中的所有实体对象使用同一个时间
+     * @return 字段的填充值
+     */
+    Object getValue(TableColumnInfo columnInfo, Object entity, Date now);
+
+    /**
+     * 固定值
+     *
+     * @param value 字段的填充值
+     * @return 字段填充值生成器
+     */
+    static FillValueSupplier constant(Object value) {
+        return (columnInfo, entity, now) -> value;
+    }
+
+    /**
+     * 当前操作人，比如从登录信息中获取
+     *
+     * @param operator 获取当前操作人
+     * @return 字段填充值生成器
+     */
+    static FillValueSupplier operator(Supplier<?> operator) {
+        return (columnInfo, entity, now) -> operator.get();
+    }
+
+    /**
+     * 当前时间，根据字段的Java类型进行转换，支持：{@link Date}、{@link Timestamp}、{@link LocalDateTime}、
+     * {@link Instant}、{@link Long}
+     *
+     * @return 字段填充值生成器
+     */
+    static FillValueSupplier clock() {
+        return (columnInfo, entity, now) -> {
+            Class<?> javaType = columnInfo.getJavaType();
+            if (javaType == Timestamp.class) {
+                return new Timestamp(now.getTime());
+            } else if (javaType == LocalDateTime.class) {
+                return LocalDateTime.ofInstant(now.toInstant(), ZoneId.systemDefault());
+            } else if (javaType == Instant.class) {
+                return now.toInstant();
+            } else if (javaType == Long.class || javaType == long.class) {
+                return now.getTime();
+            }
+            return now;
+        };
+    }
+}
@@ -28,6 +28,17 @@ import org.apache.ibatis.mapping.MappedStatement;
  * @see ParameterHandlerInterceptor
  */
 public interface ParameterHandlerCustomizer {
+    /**
+     * 是否需要处理此 sql 语句的参数，返回 false 时 {@link ParameterHandlerInterceptor} 不会拦截此 sql
+     * 语句。每次执行 sql 语句都会调用，实现类需要缓存判断的结果
+     *
+     * @param mappedStatement Mapped Statement
+     * @return true: 需要处理
+     */
+    default boolean isRequired(MappedStatement mappedStatement) {
+        return true;
+    }
+
     /**
      * 通用 SQL SELECT statements 处理 Parameter 逻辑
      *
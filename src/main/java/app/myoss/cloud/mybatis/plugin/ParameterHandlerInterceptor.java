@@ -17,9 +17,11 @@
 
 package app.myoss.cloud.mybatis.plugin;
 
+import java.lang.reflect.Field;
 import java.sql.PreparedStatement;
 import java.util.Properties;
 
+import org.apache.commons.lang3.reflect.FieldUtils;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
@@ -29,10 +31,9 @@ import org.apache.ibatis.plugin.Intercepts;
 import org.apache.ibatis.plugin.Invocation;
 import org.apache.ibatis.plugin.Plugin;
 import org.apache.ibatis.plugin.Signature;
-import org.apache.ibatis.reflection.MetaObject;
-import org.apache.ibatis.reflection.SystemMetaObject;
 import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
 
+import app.myoss.cloud.core.exception.BizRuntimeException;
 import lombok.Getter;
 
 /**
@@ -44,6 +45,10 @@ import lombok.Getter;
  */
 @Intercepts({ @Signature(type = ParameterHandler.class, method = "setParameters", args = { PreparedStatement.class }) })
 public class ParameterHandlerInterceptor implements Interceptor {
+    private static final Field         MAPPED_STATEMENT_FIELD = FieldUtils.getField(DefaultParameterHandler.class,
+            "mappedStatement", true);
+    private static final Field         BOUND_SQL_FIELD        = FieldUtils.getField(DefaultParameterHandler.class,
+            "boundSql", true);
     @Getter
     private ParameterHandlerCustomizer parameterHandlerCustomizer;
 
@@ -61,9 +66,8 @@ public class ParameterHandlerInterceptor implements Interceptor {
     public Object intercept(Invocation invocation) throws Throwable {
         DefaultParameterHandler target = (DefaultParameterHandler) invocation.getTarget();
         Object parameterObject = target.getParameterObject();
-        MetaObject metaObject = SystemMetaObject.forObject(target);
-        MappedStatement mappedStatement = (MappedStatement) metaObject.getValue("mappedStatement");
-        BoundSql boundSql = (BoundSql) metaObject.getValue("boundSql");
+        MappedStatement mappedStatement = (MappedStatement) readField(MAPPED_STATEMENT_FIELD, target);
+        BoundSql boundSql = (BoundSql) readField(BOUND_SQL_FIELD, target);
         SqlCommandType sqlCommandType = mappedStatement.getSqlCommandType();
         switch (sqlCommandType) {
             case SELECT:
@@ -92,11 +96,24 @@ public class ParameterHandlerInterceptor implements Interceptor {
     @Override
     public Object plugin(Object target) {
         if (target instanceof ParameterHandler) {
+            if (target instanceof DefaultParameterHandler && !parameterHandlerCustomizer
+                    .isRequired((MappedStatement) readField(MAPPED_STATEMENT_FIELD, target))) {
+                // 不需要处理参数的 sql 语句，不进行拦截
+                return target;
+            }
             return Plugin.wrap(target, this);
         }
         return target;
     }
 
+    private static Object readField(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new BizRuntimeException("read [" + field + "] failed", e);
+        }
+    }
+
     @Override
     public void setProperties(Properties properties) {
     }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.plugin;
+
+import java.util.Properties;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import app.myoss.cloud.mybatis.datasource.ReadWriteRoutingContext;
+import app.myoss.cloud.mybatis.datasource.ReadWriteRoutingDataSource;
+
+/**
+ * 读写分离的 Executor 拦截器，决定每条 sql 语句使用主库还是从库，配合 {@link ReadWriteRoutingDataSource} 使用。
+ * <p>
+ * 满足以下所有条件的 {@code SELECT} 语句使用从库，其它的都使用主库：
+ * <ul>
+ * <li>没有强制使用主库（{@link ReadWriteRoutingContext#isForcePrimary()}）</li>
+ * <li>不在读写事务中，只读事务可以使用从库</li>
+ * <li>当前事务同步范围内没有执行过写操作（{@link ReadWriteRoutingContext#isWritten()}）</li>
+ * </ul>
+ * 只有获取新的数据库连接时才会路由。事务同步范围内已经绑定的从库连接执行写操作时，由 {@link ReadWriteRoutingDataSource}
+ * 切换到主库（自动提交模式）或者抛出异常（事务中）
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月22日 上午11:20:35
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = { MappedStatement.class, Object.class }),
+        @Signature(type = Executor.class, method = "query", args = { MappedStatement.class, Object.class,
+                RowBounds.class, ResultHandler.class }),
+        @Signature(type = Executor.class, method = "query", args = { MappedStatement.class, Object.class,
+                RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class }),
+        @Signature(type = Executor.class, method = "queryCursor", args = { MappedStatement.class, Object.class,
+                RowBounds.class }) })
+public class ReadWriteRoutingInterceptor implements Interceptor {
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement mappedStatement = (MappedStatement) invocation.getArgs()[0];
+        boolean readRoute = isReadRoute(mappedStatement);
+        if (!readRoute && mappedStatement.getSqlCommandType() != SqlCommandType.SELECT) {
+            ReadWriteRoutingContext.markWritten();
+        }
+        Boolean previous = ReadWriteRoutingContext.setReadRoute(readRoute);
+        long start = (readRoute ? System.nanoTime() : 0);
+        try {
+            return invocation.proceed();
+        } finally {
+            ReadWriteRoutingContext.setReadRoute(previous);
+            if (readRoute) {
+                ReadWriteRoutingContext.recordLatency(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * 判断 sql 语句是否使用从库
+     *
+     * @param mappedStatement sql语句节点信息
+     * @return true: 使用从库
+     */
+    protected boolean isReadRoute(MappedStatement mappedStatement) {
+        if (mappedStatement.getSqlCommandType() != SqlCommandType.SELECT || ReadWriteRoutingContext.isForcePrimary()
+                || ReadWriteRoutingContext.isWritten()) {
+            return false;
+        }
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        if (target instanceof Executor) {
+            return Plugin.wrap(target, this);
+        }
+        return target;
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+}
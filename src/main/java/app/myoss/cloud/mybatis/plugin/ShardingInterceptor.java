@@ -0,0 +1,628 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.plugin;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.ibatis.binding.MapperMethod.ParamMap;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+import org.slf4j.MDC;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+import app.myoss.cloud.core.exception.BizRuntimeException;
+import app.myoss.cloud.core.lang.dto.Direction;
+import app.myoss.cloud.core.lang.dto.Order;
+import app.myoss.cloud.mybatis.criteria.Aggregation;
+import app.myoss.cloud.mybatis.criteria.Criteria;
+import app.myoss.cloud.mybatis.datasource.ReadWriteRoutingContext;
+import app.myoss.cloud.mybatis.table.TableColumnInfo;
+import app.myoss.cloud.mybatis.table.TableInfo;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+import app.myoss.cloud.mybatis.table.annotation.Table;
+
+/**
+ * 水平分表拦截器，配合 {@link Table#shardingKey()} 使用，将 Mapper 中的 sql 语句路由到实际的物理表中执行。
+ * <p>
+ * 参数中有分表字段的值时（实体对象、{@code condition}、{@code record}、分表字段为主键时的主键值、主键列表），只在对应的物理表中执行；
+ * 没有分表字段的值时：
+ * <ul>
+ * <li>插入语句：抛出异常</li>
+ * <li>更新、删除语句：依次在所有的物理表中执行，返回影响的总行数</li>
+ * <li>查询语句：在所有的物理表中执行之后合并结果，查询记录数的结果会累加（见 {@link #addCountStatement(String)}）；
+ * 有 {@code orders} 或者 {@link Criteria#getOrders()} 排序条件时按实体类的属性值归并排序；有 {@code offset}、{@code pageSize}
+ * 分页参数时，每张物理表查询前 {@code offset + pageSize} 条记录，合并之后再分页</li>
+ * </ul>
+ * 不在事务中的查询语句会使用独立的数据库连接并行的查询所有的物理表，事务中的查询语句使用事务的数据库连接依次查询；
+ * 强制使用主库时（{@link ReadWriteRoutingContext#runOnPrimary(app.myoss.cloud.core.lang.concurrent.CallableFunc)}）
+ * 也依次查询，保证所有的物理表都路由到主库。
+ * <p>
+ * 物理表名在生成 sql 语句时确定：通用 Mapper 注册时为每张物理表复制一个 {@link MappedStatement}，模版方法使用
+ * {@link TableMetaObject#getShardTableInfo(TableInfo, int)} 按物理表名生成 sql 语句，不会修改已经生成好的 sql 语句；所以
+ * {@link ExecutorType#REUSE}、{@link ExecutorType#BATCH} 按 sql 语句缓存、合并 {@link java.sql.Statement} 时也能区分不同的物理表。
+ * 手写的 sql 语句（比如：XML 中的 sql 语句）没有物理表的 {@link MappedStatement}，需要分表时会抛出异常。
+ * <p>
+ * 只支持同一个数据源中的水平分表，所有的物理表都使用 Mapper 所在的数据源，不支持按分表路由到不同的数据源（分库）
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月23日 上午10:12:36
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = { MappedStatement.class, Object.class }),
+        @Signature(type = Executor.class, method = "query", args = { MappedStatement.class, Object.class,
+                RowBounds.class, ResultHandler.class }),
+        @Signature(type = Executor.class, method = "query", args = { MappedStatement.class, Object.class,
+                RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class }),
+        @Signature(type = Executor.class, method = "queryCursor", args = { MappedStatement.class, Object.class,
+                RowBounds.class }) })
+public class ShardingInterceptor implements Interceptor {
+    private static final String                    OFFSET_PARAM      = "offset";
+    private static final String                    PAGE_SIZE_PARAM   = "pageSize";
+    private static final String                    ORDERS_PARAM      = "orders";
+    private static final String                    CRITERIA_PARAM    = "criteria";
+    private static final String                    CONDITION_PARAM   = "condition";
+    private static final String                    RECORD_PARAM      = "record";
+    private static final String                    AGGREGATION_PARAM = "aggregation";
+    /**
+     * 通用 Mapper 中查询记录数的方法，合并时累加每张物理表的结果
+     */
+    private static final Set<String>               COUNT_METHODS     = new HashSet<>(
+            Arrays.asList("selectCount", "selectCount2", "selectCountIncludeLogicDelete",
+                    "selectCountIncludeLogicDelete2", "selectCountByCriteria"));
+    /**
+     * 通用 Mapper 中判断记录是否存在的方法，合并时任意一张物理表存在即可
+     */
+    private static final Set<String>               EXISTS_METHODS    = new HashSet<>(
+            Arrays.asList("exists", "existsByPrimaryKey", "existsWithPrimaryKey", "existsIncludeLogicDelete",
+                    "existsByPrimaryKeyIncludeLogicDelete", "existsWithPrimaryKeyIncludeLogicDelete"));
+    /**
+     * 当前线程是否正在物理表中执行，物理表的sql语句不需要再次分表
+     */
+    private static final ThreadLocal<Boolean>      IN_SHARD          = new ThreadLocal<>();
+    private final ExecutorService                  scatterExecutor;
+    /**
+     * 线程池是否由当前拦截器创建，{@link #shutdown()} 时只关闭自己创建的线程池
+     */
+    private final boolean                          ownScatterExecutor;
+    /**
+     * sql语句节点id => 分表的数据库表结构信息
+     */
+    private final Map<String, Optional<TableInfo>> statementTables   = new ConcurrentHashMap<>();
+    /**
+     * 手写的查询记录数的sql语句节点id
+     */
+    private final Set<String>                      countStatements   = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 创建水平分表拦截器，使用默认的线程池并行查询所有的物理表，最大线程数为 CPU 核数
+     */
+    public ShardingInterceptor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 创建水平分表拦截器，使用默认的线程池并行查询所有的物理表，线程都在忙的时候由调用线程查询
+     *
+     * @param scatterThreads 并行查询所有物理表的最大线程数，小于等于0表示依次查询
+     */
+    public ShardingInterceptor(int scatterThreads) {
+        this(scatterThreads > 0 ? new ThreadPoolExecutor(0, scatterThreads, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), new ScatterThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy())
+                : null, true);
+    }
+
+    /**
+     * 创建水平分表拦截器
+     *
+     * @param scatterExecutor 并行查询所有物理表的线程池，为 null 表示依次查询，线程池由调用方负责关闭
+     */
+    public ShardingInterceptor(ExecutorService scatterExecutor) {
+        this(scatterExecutor, false);
+    }
+
+    private ShardingInterceptor(ExecutorService scatterExecutor, boolean ownScatterExecutor) {
+        this.scatterExecutor = scatterExecutor;
+        this.ownScatterExecutor = ownScatterExecutor;
+    }
+
+    /**
+     * 关闭拦截器创建的并行查询线程池，通过构造方法传入的线程池不会被关闭
+     */
+    public void shutdown() {
+        if (ownScatterExecutor && scatterExecutor != null) {
+            scatterExecutor.shutdown();
+        }
+    }
+
+    /**
+     * 标记手写的查询记录数的sql语句，没有分表字段的值时会累加每张物理表的结果；没有标记的sql语句会拼接所有物理表的结果
+     *
+     * @param statementId sql语句节点id，比如：{@code com.xxx.mapper.UserOrderMapper.countByUser}
+     */
+    public void addCountStatement(String statementId) {
+        countStatements.add(statementId);
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object[] args = invocation.getArgs();
+        MappedStatement mappedStatement = (MappedStatement) args[0];
+        TableInfo tableInfo = (IN_SHARD.get() == null ? getShardingTableInfo(mappedStatement) : null);
+        if (tableInfo == null) {
+            return invocation.proceed();
+        }
+        Object parameter = args[1];
+        Set<Integer> shardIndexes = new TreeSet<>();
+        if (!resolveShardIndexes(tableInfo, mappedStatement, parameter, shardIndexes)) {
+            if (mappedStatement.getSqlCommandType() == SqlCommandType.INSERT) {
+                throw new BizRuntimeException("[" + mappedStatement.getId() + "] sharding key ["
+                        + tableInfo.getShardingColumn().getProperty() + "] is required for insert");
+            }
+            shardIndexes.clear();
+            for (int i = 0; i < tableInfo.getShardingCount(); i++) {
+                shardIndexes.add(i);
+            }
+        }
+        Executor executor = (Executor) invocation.getTarget();
+        if (shardIndexes.size() == 1) {
+            int shardIndex = shardIndexes.iterator().next();
+            MappedStatement shardStatement = getShardMappedStatement(mappedStatement, shardIndex);
+            args[0] = shardStatement;
+            if (args.length == 6) {
+                // 调用方传入的是逻辑表的 BoundSql，使用物理表的sql语句节点重新生成
+                BoundSql boundSql = shardStatement.getBoundSql(parameter);
+                args[4] = executor.createCacheKey(shardStatement, parameter, (RowBounds) args[2], boundSql);
+                args[5] = boundSql;
+            }
+            return callOnShard(invocation::proceed);
+        }
+        if (mappedStatement.getSqlCommandType() == SqlCommandType.INSERT) {
+            throw new BizRuntimeException("[" + mappedStatement.getId()
+                    + "] records of one insert statement must belong to the same shard, but found: " + shardIndexes);
+        }
+        String methodName = invocation.getMethod().getName();
+        if ("update".equals(methodName)) {
+            int rows = 0;
+            for (Integer shardIndex : shardIndexes) {
+                MappedStatement shardStatement = getShardMappedStatement(mappedStatement, shardIndex);
+                rows += callOnShard(() -> executor.update(shardStatement, parameter));
+            }
+            return rows;
+        }
+        if ("queryCursor".equals(methodName)) {
+            throw new BizRuntimeException("[" + mappedStatement.getId() + "] sharding key ["
+                    + tableInfo.getShardingColumn().getProperty() + "] is required for cursor query");
+        }
+        return scatterQuery(executor, tableInfo, shardIndexes, args);
+    }
+
+    /**
+     * 获取 sql 语句对应的分表的数据库表结构信息，根据 sql语句节点id 的 namespace 找到通用 Mapper 对应的实体类
+     *
+     * @param mappedStatement sql语句节点信息
+     * @return 分表的数据库表结构信息，不分表则为 null
+     */
+    protected TableInfo getShardingTableInfo(MappedStatement mappedStatement) {
+        return statementTables.computeIfAbsent(mappedStatement.getId(), id -> {
+            int index = id.lastIndexOf('.');
+            if (index < 0) {
+                return Optional.empty();
+            }
+            Class<?> mapperInterface;
+            try {
+                mapperInterface = Resources.classForName(id.substring(0, index));
+            } catch (ClassNotFoundException ex) {
+                return Optional.empty();
+            }
+            Class<?> entityClass = TableMetaObject.getEntityClassByMapperInterface(mapperInterface);
+            TableInfo tableInfo = (entityClass != null ? TableMetaObject.getTableInfo(entityClass) : null);
+            return Optional.ofNullable(tableInfo != null && tableInfo.isSharding() ? tableInfo : null);
+        }).orElse(null);
+    }
+
+    /**
+     * 从参数中解析分表的下标
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param mappedStatement sql语句节点信息
+     * @param parameter sql语句的参数
+     * @param shardIndexes 解析出来的分表下标
+     * @return true: 参数中有分表字段的值；false: 需要在所有的物理表中执行
+     */
+    protected boolean resolveShardIndexes(TableInfo tableInfo, MappedStatement mappedStatement, Object parameter,
+                                          Set<Integer> shardIndexes) {
+        if (parameter instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) parameter;
+            if (map.containsKey(CONDITION_PARAM)) {
+                return resolveShardIndex(tableInfo, map.get(CONDITION_PARAM), shardIndexes);
+            }
+            if (map.containsKey(RECORD_PARAM) && resolveShardIndex(tableInfo, map.get(RECORD_PARAM), shardIndexes)) {
+                return true;
+            }
+            for (Object value : map.values()) {
+                if (value instanceof Collection
+                        && resolveShardIndexes(tableInfo, (Collection<?>) value, shardIndexes)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (parameter instanceof Collection) {
+            return resolveShardIndexes(tableInfo, (Collection<?>) parameter, shardIndexes);
+        }
+        return resolveShardIndex(tableInfo, parameter, shardIndexes);
+    }
+
+    private boolean resolveShardIndexes(TableInfo tableInfo, Collection<?> values, Set<Integer> shardIndexes) {
+        if (values.isEmpty()) {
+            return false;
+        }
+        Set<Integer> indexes = new TreeSet<>();
+        for (Object value : values) {
+            if (!resolveShardIndex(tableInfo, value, indexes)) {
+                return false;
+            }
+        }
+        shardIndexes.addAll(indexes);
+        return true;
+    }
+
+    private boolean resolveShardIndex(TableInfo tableInfo, Object value, Set<Integer> shardIndexes) {
+        TableColumnInfo shardingColumn = tableInfo.getShardingColumn();
+        Object shardingValue;
+        if (tableInfo.getEntityClass().isInstance(value)) {
+            shardingValue = shardingColumn.getGetter().apply(value);
+        } else if (value != null && !(value instanceof Map) && shardingColumn.isPrimaryKey()
+                && tableInfo.getPrimaryKeyColumns().size() == 1
+                && ClassUtils.isAssignableValue(shardingColumn.getJavaType(), value)) {
+            shardingValue = value;
+        } else {
+            return false;
+        }
+        if (shardingValue == null) {
+            return false;
+        }
+        shardIndexes.add(tableInfo.getShardingStrategy().getShardIndex(shardingValue, tableInfo.getShardingCount()));
+        return true;
+    }
+
+    private Object scatterQuery(Executor executor, TableInfo tableInfo, Set<Integer> shardIndexes, Object[] args)
+            throws Throwable {
+        MappedStatement mappedStatement = (MappedStatement) args[0];
+        Object parameter = args[1];
+        RowBounds rowBounds = (RowBounds) args[2];
+        @SuppressWarnings("unchecked")
+        ResultHandler<Object> resultHandler = (ResultHandler<Object>) args[3];
+
+        // 分页查询：每张物理表都查询前 offset + pageSize 条记录
+        int offset = 0;
+        int limit = Integer.MAX_VALUE;
+        Object shardParameter = parameter;
+        RowBounds shardRowBounds = rowBounds;
+        if (parameter instanceof Map && ((Map<?, ?>) parameter).containsKey(OFFSET_PARAM)
+                && ((Map<?, ?>) parameter).containsKey(PAGE_SIZE_PARAM)) {
+            Map<?, ?> map = (Map<?, ?>) parameter;
+            offset = ((Number) map.get(OFFSET_PARAM)).intValue();
+            limit = ((Number) map.get(PAGE_SIZE_PARAM)).intValue();
+            ParamMap<Object> paramMap = new ParamMap<>();
+            map.forEach((key, value) -> paramMap.put((String) key, value));
+            paramMap.put(OFFSET_PARAM, 0);
+            paramMap.put(PAGE_SIZE_PARAM, offset + limit);
+            shardParameter = paramMap;
+        } else if (rowBounds != RowBounds.DEFAULT) {
+            offset = rowBounds.getOffset();
+            limit = rowBounds.getLimit();
+            shardRowBounds = new RowBounds(0,
+                    (limit == RowBounds.NO_ROW_LIMIT ? RowBounds.NO_ROW_LIMIT : offset + limit));
+        }
+
+        boolean parallel = scatterExecutor != null && resultHandler == Executor.NO_RESULT_HANDLER
+                && !TransactionSynchronizationManager.isActualTransactionActive()
+                && !ReadWriteRoutingContext.isForcePrimary()
+                && mappedStatement.getConfiguration().getEnvironment() != null;
+        Map<String, String> mdcContext = (parallel ? MDC.getCopyOfContextMap() : null);
+        List<Future<List<Object>>> futures = new ArrayList<>(shardIndexes.size());
+        List<List<Object>> results = new ArrayList<>(shardIndexes.size());
+        for (Integer shardIndex : shardIndexes) {
+            Object queryParameter = shardParameter;
+            RowBounds queryRowBounds = shardRowBounds;
+            MappedStatement shardStatement = getShardMappedStatement(mappedStatement, shardIndex);
+            BoundSql boundSql = shardStatement.getBoundSql(queryParameter);
+            if (parallel) {
+                Callable<List<Object>> query = () -> queryWithNewExecutor(shardStatement, queryParameter,
+                        queryRowBounds, boundSql);
+                futures.add(scatterExecutor
+                        .submit(() -> callWithMdc(mdcContext, () -> callOnShard(query))));
+            } else {
+                CacheKey cacheKey = executor.createCacheKey(shardStatement, queryParameter, queryRowBounds, boundSql);
+                results.add(callOnShard(() -> executor.query(shardStatement, queryParameter,
+                        queryRowBounds, resultHandler, cacheKey, boundSql)));
+            }
+        }
+        for (Future<List<Object>> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException ex) {
+                throw ex.getCause();
+            }
+        }
+        return mergeResults(tableInfo, mappedStatement, parameter, results, offset, limit);
+    }
+
+    /**
+     * 在线程池的线程中恢复调用方的 {@link MDC}（比如：trace id）
+     */
+    private static <V> V callWithMdc(Map<String, String> mdcContext, Callable<V> callable) throws Exception {
+        Map<String, String> previous = MDC.getCopyOfContextMap();
+        if (mdcContext != null) {
+            MDC.setContextMap(mdcContext);
+        }
+        try {
+            return callable.call();
+        } finally {
+            if (previous != null) {
+                MDC.setContextMap(previous);
+            } else {
+                MDC.clear();
+            }
+        }
+    }
+
+    private static List<Object> queryWithNewExecutor(MappedStatement mappedStatement, Object parameter,
+                                                     RowBounds rowBounds, BoundSql boundSql) throws Exception {
+        Configuration configuration = mappedStatement.getConfiguration();
+        Environment environment = configuration.getEnvironment();
+        Transaction transaction = environment.getTransactionFactory()
+                .newTransaction(environment.getDataSource(), null, true);
+        Executor executor = configuration.newExecutor(transaction, ExecutorType.SIMPLE);
+        try {
+            CacheKey cacheKey = executor.createCacheKey(mappedStatement, parameter, rowBounds, boundSql);
+            return executor.query(mappedStatement, parameter, rowBounds, Executor.NO_RESULT_HANDLER, cacheKey,
+                    boundSql);
+        } finally {
+            executor.close(false);
+        }
+    }
+
+    /**
+     * 获取物理表的sql语句节点。通用 Mapper 注册时会为每张物理表复制一个sql语句节点，由模版方法按物理表名生成 sql
+     * 语句，同一张物理表返回同一个对象，{@link ExecutorType#BATCH} 才能合并同一张物理表的sql语句
+     *
+     * @param mappedStatement 逻辑表的sql语句节点
+     * @param shardIndex 分表的下标
+     * @return 物理表的sql语句节点
+     * @see TableMetaObject#getShardStatementId(String, int)
+     */
+    protected MappedStatement getShardMappedStatement(MappedStatement mappedStatement, int shardIndex) {
+        Configuration configuration = mappedStatement.getConfiguration();
+        String shardId = TableMetaObject.getShardStatementId(mappedStatement.getId(), shardIndex);
+        if (!configuration.hasStatement(shardId, false)) {
+            throw new BizRuntimeException("[" + mappedStatement.getId()
+                    + "] is not a generic mapper statement, sharding table can not be resolved");
+        }
+        return configuration.getMappedStatement(shardId, false);
+    }
+
+    /**
+     * 合并所有物理表的查询结果：
+     * <ul>
+     * <li>查询记录数的sql语句（通用 Mapper 中的 selectCount 系列方法、{@link #addCountStatement(String)} 标记的sql语句）累加每张物理表的结果</li>
+     * <li>通用 Mapper 中的 exists 系列方法任意一张物理表存在即可</li>
+     * <li>聚合查询按分组字段合并</li>
+     * <li>其它的查询拼接所有物理表的结果，再排序、分页</li>
+     * </ul>
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param mappedStatement sql语句节点信息
+     * @param parameter sql语句的参数
+     * @param results 每张物理表的查询结果
+     * @param offset 分页的偏移量
+     * @param limit 分页的条数
+     * @return 合并之后的查询结果
+     */
+    protected List<Object> mergeResults(TableInfo tableInfo, MappedStatement mappedStatement, Object parameter,
+                                        List<List<Object>> results, int offset, int limit) {
+        Aggregation<?> aggregation = getAggregation(parameter);
+        if (aggregation != null) {
+            // 聚合查询按分组字段合并每张物理表的聚合结果
+            return new ArrayList<>(aggregation.merge(results));
+        }
+        String statementId = mappedStatement.getId();
+        String methodName = statementId.substring(statementId.lastIndexOf('.') + 1);
+        if (COUNT_METHODS.contains(methodName) || countStatements.contains(statementId)) {
+            Class<?> resultType = ClassUtils
+                    .resolvePrimitiveIfNecessary(mappedStatement.getResultMaps().get(0).getType());
+            List<Object> merged = new ArrayList<>(1);
+            merged.add(sum(resultType, results));
+            return merged;
+        }
+        if (EXISTS_METHODS.contains(methodName)) {
+            // 是否存在记录，任意一张物理表存在即可
+            List<Object> merged = new ArrayList<>(1);
+            merged.add(results.stream().anyMatch(item -> !item.isEmpty() && Boolean.TRUE.equals(item.get(0))));
+            return merged;
+        }
+        List<Object> merged = new ArrayList<>();
+        results.forEach(merged::addAll);
+        Comparator<Object> comparator = getComparator(tableInfo, parameter);
+        if (comparator != null && merged.stream().allMatch(tableInfo.getEntityClass()::isInstance)) {
+            merged.sort(comparator);
+        }
+        if (offset == 0 && limit >= merged.size()) {
+            return merged;
+        }
+        int fromIndex = Math.min(offset, merged.size());
+        int toIndex = (int) Math.min((long) fromIndex + limit, merged.size());
+        return new ArrayList<>(merged.subList(fromIndex, toIndex));
+    }
+
+    private static Object sum(Class<?> resultType, List<List<Object>> results) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (List<Object> result : results) {
+            if (!result.isEmpty() && result.get(0) != null) {
+                total = total.add(new BigDecimal(result.get(0).toString()));
+            }
+        }
+        if (resultType == Integer.class) {
+            return total.intValue();
+        } else if (resultType == Long.class) {
+            return total.longValue();
+        } else if (resultType == Short.class) {
+            return total.shortValue();
+        } else if (resultType == Double.class) {
+            return total.doubleValue();
+        } else if (resultType == Float.class) {
+            return total.floatValue();
+        } else if (resultType == BigInteger.class) {
+            return total.toBigInteger();
+        }
+        return total;
+    }
+
+    private static Aggregation<?> getAggregation(Object parameter) {
+        if (parameter instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) parameter;
+            if (map.containsKey(AGGREGATION_PARAM)) {
+                return (Aggregation<?>) map.get(AGGREGATION_PARAM);
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparator<Object> getComparator(TableInfo tableInfo, Object parameter) {
+        List<Order> orders = null;
+        if (parameter instanceof Criteria) {
+            orders = ((Criteria<?>) parameter).getOrders();
+        } else if (parameter instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) parameter;
+            if (map.containsKey(ORDERS_PARAM)) {
+                orders = (List<Order>) map.get(ORDERS_PARAM);
+            } else if (map.containsKey(CRITERIA_PARAM) && map.get(CRITERIA_PARAM) != null) {
+                orders = ((Criteria<?>) map.get(CRITERIA_PARAM)).getOrders();
+            }
+        }
+        if (orders == null || orders.isEmpty()) {
+            return null;
+        }
+        Comparator<Object> comparator = null;
+        for (Order order : orders) {
+            TableColumnInfo columnInfo = findColumn(tableInfo, order.getProperty());
+            if (columnInfo == null) {
+                return null;
+            }
+            Function<Object, Object> getter = columnInfo.getGetter();
+            Comparator<Object> item = Comparator.comparing(entity -> (Comparable<Object>) getter.apply(entity),
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+            if (order.getDirection() == Direction.DESC) {
+                item = item.reversed();
+            }
+            comparator = (comparator == null ? item : comparator.thenComparing(item));
+        }
+        return comparator;
+    }
+
+    private static TableColumnInfo findColumn(TableInfo tableInfo, String property) {
+        if (property == null) {
+            return null;
+        }
+        String name = property.trim();
+        for (TableColumnInfo columnInfo : tableInfo.getColumns()) {
+            if (name.equalsIgnoreCase(columnInfo.getColumn()) || name.equalsIgnoreCase(columnInfo.getActualColumn())
+                    || name.equals(columnInfo.getProperty())) {
+                return Comparable.class.isAssignableFrom(
+                        ClassUtils.resolvePrimitiveIfNecessary(columnInfo.getJavaType())) ? columnInfo : null;
+            }
+        }
+        return null;
+    }
+
+    private static <V> V callOnShard(Callable<V> callable) throws Exception {
+        Boolean previous = IN_SHARD.get();
+        IN_SHARD.set(Boolean.TRUE);
+        try {
+            return callable.call();
+        } finally {
+            if (previous == null) {
+                IN_SHARD.remove();
+            }
+        }
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        if (target instanceof Executor) {
+            return Plugin.wrap(target, this);
+        }
+        return target;
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+
+    private static class ScatterThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "mybatis-sharding-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
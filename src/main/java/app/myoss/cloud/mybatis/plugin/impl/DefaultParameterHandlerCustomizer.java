@@ -17,14 +17,24 @@
 
 package app.myoss.cloud.mybatis.plugin.impl;
 
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.reflection.TypeParameterResolver;
 import org.apache.ibatis.session.defaults.DefaultSqlSession;
 
 import app.myoss.cloud.core.constants.MyossConstants;
@@ -45,12 +55,49 @@ public class DefaultParameterHandlerCustomizer implements ParameterHandlerCustom
      * {@link DefaultSqlSession#update(java.lang.String, java.lang.Object)}
      * 对参数使用了 {@link Map} 进行了包装
      */
-    public static final String COLLECTION = "collection";
+    public static final String                             COLLECTION         = "collection";
     /**
      * 执行 {@link UpdateByConditionMapper#updateByCondition(Object, Object)}
      * 的时候，处理 {@code @Param("record") T record} 参数
      */
-    public static final String RECORD     = "record";
+    public static final String                             RECORD             = "record";
+    private static final DefaultParameterHandlerCustomizer INSTANCE           = new DefaultParameterHandlerCustomizer();
+    /**
+     * sql语句的id => 需要设置审计字段的参数位置
+     */
+    private final Map<String, FillTarget>                  fillTargets        = new ConcurrentHashMap<>();
+    /**
+     * 始终需要拦截的 sql 语句类型，由子类在构造方法中显式指定
+     */
+    private final Set<SqlCommandType>                      requiredCommands;
+    /**
+     * 子类自定义了实体对象的判断规则，根据参数类型判断出来的 {@link FillTarget#NONE} 不再可信，INSERT/UPDATE/DELETE
+     * 语句始终需要处理
+     */
+    private final boolean                                  customFillEntity;
+
+    /**
+     * 创建默认的 Mybatis 参数处理，根据 sql 语句的类型和参数类型判断是否需要拦截
+     */
+    public DefaultParameterHandlerCustomizer() {
+        this(false);
+    }
+
+    /**
+     * 创建 Mybatis 参数处理，子类重写了 handlerXxx 方法或者设置实体对象字段信息的方法时，需要通过此构造方法显式声明，
+     * 否则根据 sql 语句的类型和参数类型判断为不需要处理的 sql 语句不会被拦截
+     *
+     * @param customFillEntity 是否自定义了实体对象的判断规则（重写了 {@link #isFillEntity(Object)}、
+     *            {@link #fillEntity(Object, boolean, Date)}，但是参数类型不能通过
+     *            {@link #isFillEntityType(Class)} 判断）
+     * @param requiredCommands 始终需要拦截的 sql 语句类型（重写了对应的 handlerXxx 方法）
+     */
+    protected DefaultParameterHandlerCustomizer(boolean customFillEntity, SqlCommandType... requiredCommands) {
+        Set<SqlCommandType> commandTypes = EnumSet.noneOf(SqlCommandType.class);
+        Collections.addAll(commandTypes, requiredCommands);
+        this.requiredCommands = commandTypes;
+        this.customFillEntity = customFillEntity;
+    }
 
     /**
      * 设置审计字段信息
@@ -59,6 +106,17 @@ public class DefaultParameterHandlerCustomizer implements ParameterHandlerCustom
      * @param isInsert 是否为插入
      */
     public static void setAuditInfo(Object o, boolean isInsert) {
+        setAuditInfo(o, isInsert, new Date());
+    }
+
+    /**
+     * 设置审计字段信息
+     *
+     * @param o 参数对象
+     * @param isInsert 是否为插入
+     * @param now 当前时间，批量执行时所有的实体对象使用同一个时间
+     */
+    public static void setAuditInfo(Object o, boolean isInsert, Date now) {
         if (o instanceof AuditIdEntity) {
             AuditIdEntity entity = (AuditIdEntity) o;
             if (isInsert) {
@@ -69,13 +127,13 @@ public class DefaultParameterHandlerCustomizer implements ParameterHandlerCustom
                     entity.setCreator(MyossConstants.SYSTEM);
                 }
                 if (entity.getGmtCreated() == null) {
-                    entity.setGmtCreated(new Date());
+                    entity.setGmtCreated(now);
                 }
             }
             if (StringUtils.isBlank(entity.getModifier())) {
                 entity.setModifier(MyossConstants.SYSTEM);
             }
-            entity.setGmtModified(new Date());
+            entity.setGmtModified(now);
         }
     }
 
@@ -86,38 +144,236 @@ public class DefaultParameterHandlerCustomizer implements ParameterHandlerCustom
      * @param isInsert 是否为插入
      */
     public static void setCommonParameter(Object parameterObject, boolean isInsert) {
-        if (parameterObject instanceof AuditIdEntity) {
-            AuditIdEntity entity = (AuditIdEntity) parameterObject;
-            setAuditInfo(entity, isInsert);
-        } else if (parameterObject instanceof Map) {
-            Map map = (Map) parameterObject;
-            if (map.containsKey(COLLECTION)) {
-                Object collection = map.get(COLLECTION);
-                if (collection instanceof Collection) {
-                    Collection value = (Collection) collection;
-                    for (Object entity : value) {
-                        setAuditInfo(entity, isInsert);
+        setCommonParameter(FillTarget.DYNAMIC, parameterObject, isInsert);
+    }
+
+    /**
+     * 设置通用字段信息
+     *
+     * @param fillTarget 需要设置审计字段的参数位置
+     * @param parameterObject 参数对象
+     * @param isInsert 是否为插入
+     */
+    public static void setCommonParameter(FillTarget fillTarget, Object parameterObject, boolean isInsert) {
+        INSTANCE.fillParameter(fillTarget, parameterObject, isInsert);
+    }
+
+    /**
+     * 设置参数对象中实体对象的字段信息
+     *
+     * @param fillTarget 需要设置审计字段的参数位置
+     * @param parameterObject 参数对象
+     * @param isInsert 是否为插入
+     */
+    protected void fillParameter(FillTarget fillTarget, Object parameterObject, boolean isInsert) {
+        switch (fillTarget) {
+            case NONE:
+                break;
+            case ROOT:
+                fillEntity(parameterObject, isInsert, new Date());
+                break;
+            case COLLECTION:
+                if (parameterObject instanceof Map) {
+                    fillCollection(((Map) parameterObject).get(COLLECTION), isInsert);
+                }
+                break;
+            case DYNAMIC:
+            default:
+                if (isFillEntity(parameterObject)) {
+                    fillEntity(parameterObject, isInsert, new Date());
+                } else if (parameterObject instanceof Map) {
+                    Map map = (Map) parameterObject;
+                    if (map.containsKey(COLLECTION)) {
+                        fillCollection(map.get(COLLECTION), isInsert);
+                    } else if (map.containsKey(RECORD)) {
+                        Object record = map.get(RECORD);
+                        fillEntity(record, isInsert, new Date());
                     }
                 }
-            } else if (map.containsKey(RECORD)) {
-                Object record = map.get(RECORD);
-                setAuditInfo(record, isInsert);
+                break;
+        }
+    }
+
+    private void fillCollection(Object collection, boolean isInsert) {
+        if (collection instanceof Collection) {
+            Collection value = (Collection) collection;
+            Date now = new Date();
+            for (Object entity : value) {
+                fillEntity(entity, isInsert, now);
             }
         }
     }
 
+    /**
+     * 参数类型是否为需要设置字段信息的实体类
+     *
+     * @param parameterType 参数类型
+     * @return true: 是
+     */
+    protected boolean isFillEntityType(Class<?> parameterType) {
+        return AuditIdEntity.class.isAssignableFrom(parameterType);
+    }
+
+    /**
+     * 参数类型的对象是否可能是需要设置字段信息的实体对象，比如：{@code Object}、接口
+     *
+     * @param parameterType 参数类型
+     * @return true: 可能是
+     */
+    protected boolean isPossibleFillEntityType(Class<?> parameterType) {
+        return parameterType.isInterface() || parameterType.isAssignableFrom(AuditIdEntity.class);
+    }
+
+    /**
+     * 参数对象是否为需要设置字段信息的实体对象
+     *
+     * @param parameterObject 参数对象
+     * @return true: 是
+     */
+    protected boolean isFillEntity(Object parameterObject) {
+        return parameterObject instanceof AuditIdEntity;
+    }
+
+    /**
+     * 设置实体对象的字段信息
+     *
+     * @param entity 实体对象，可能为 null
+     * @param isInsert 是否为插入
+     * @param now 当前时间，批量执行时所有的实体对象使用同一个时间
+     */
+    protected void fillEntity(Object entity, boolean isInsert, Date now) {
+        setAuditInfo(entity, isInsert, now);
+    }
+
+    /**
+     * 获取需要设置审计字段的参数位置，根据 sql 语句的类型和参数类型计算一次之后缓存起来
+     *
+     * @param mappedStatement Mapped Statement
+     * @return 需要设置审计字段的参数位置
+     */
+    public FillTarget getFillTarget(MappedStatement mappedStatement) {
+        FillTarget fillTarget = fillTargets.get(mappedStatement.getId());
+        if (fillTarget == null) {
+            fillTarget = fillTargets.computeIfAbsent(mappedStatement.getId(), key -> resolveFillTarget(mappedStatement));
+        }
+        return fillTarget;
+    }
+
+    private FillTarget resolveFillTarget(MappedStatement mappedStatement) {
+        SqlCommandType sqlCommandType = mappedStatement.getSqlCommandType();
+        if (sqlCommandType != SqlCommandType.INSERT && sqlCommandType != SqlCommandType.UPDATE
+                && sqlCommandType != SqlCommandType.DELETE) {
+            return FillTarget.NONE;
+        }
+        ParameterMap parameterMap = mappedStatement.getParameterMap();
+        Class<?> parameterType = (parameterMap != null ? parameterMap.getType() : null);
+        if (parameterType == Object.class) {
+            // 通用 Mapper 接口中的泛型参数，如：insert(T record)
+            Type type = resolveMapperParameterType(mappedStatement);
+            if (type instanceof Class) {
+                parameterType = (Class<?>) type;
+            }
+        }
+        if (parameterType == null) {
+            return FillTarget.DYNAMIC;
+        }
+        if (isFillEntityType(parameterType)) {
+            return FillTarget.ROOT;
+        }
+        if (Collection.class.isAssignableFrom(parameterType)) {
+            // 在 DefaultSqlSession 中使用了 Map 进行了包装
+            return FillTarget.COLLECTION;
+        }
+        if (!customFillEntity && !Map.class.isAssignableFrom(parameterType)
+                && !isPossibleFillEntityType(parameterType)) {
+            // 参数不可能是实体对象，比如：基本类型、String、数组
+            return FillTarget.NONE;
+        }
+        return FillTarget.DYNAMIC;
+    }
+
+    /**
+     * 获取 Mapper Interface 方法中唯一参数的实际类型，解析泛型参数
+     *
+     * @param mappedStatement Mapped Statement
+     * @return 参数的实际类型，无法获取则为 null
+     */
+    private static Type resolveMapperParameterType(MappedStatement mappedStatement) {
+        String id = mappedStatement.getId();
+        int index = id.lastIndexOf('.');
+        if (index < 0) {
+            return null;
+        }
+        Class<?> mapperInterface;
+        try {
+            mapperInterface = Resources.classForName(id.substring(0, index));
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+        String methodName = id.substring(index + 1);
+        Method mapperMethod = null;
+        for (Method method : mapperInterface.getMethods()) {
+            if (method.getName().equals(methodName)) {
+                if (mapperMethod != null || method.getParameterCount() != 1) {
+                    // 重载的方法，无法确定是哪一个
+                    return null;
+                }
+                mapperMethod = method;
+            }
+        }
+        return (mapperMethod != null ? TypeParameterResolver.resolveParamTypes(mapperMethod, mapperInterface)[0]
+                : null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * INSERT/UPDATE/DELETE 语句的参数中有需要设置字段信息的实体对象时才需要处理；构造方法中指定的
+     * sql 语句类型始终需要处理
+     */
+    @Override
+    public boolean isRequired(MappedStatement mappedStatement) {
+        SqlCommandType sqlCommandType = mappedStatement.getSqlCommandType();
+        if (requiredCommands.contains(sqlCommandType)) {
+            return true;
+        }
+        return getFillTarget(mappedStatement) != FillTarget.NONE;
+    }
+
     @Override
     public void handlerInsert(MappedStatement mappedStatement, BoundSql boundSql, Object parameterObject) {
-        setCommonParameter(parameterObject, true);
+        fillParameter(getFillTarget(mappedStatement), parameterObject, true);
     }
 
     @Override
     public void handlerUpdate(MappedStatement mappedStatement, BoundSql boundSql, Object parameterObject) {
-        setCommonParameter(parameterObject, false);
+        fillParameter(getFillTarget(mappedStatement), parameterObject, false);
     }
 
     @Override
     public void handlerDelete(MappedStatement mappedStatement, BoundSql boundSql, Object parameterObject) {
-        setCommonParameter(parameterObject, false);
+        fillParameter(getFillTarget(mappedStatement), parameterObject, false);
+    }
+
+    /**
+     * 需要设置审计字段的参数位置
+     */
+    public enum FillTarget {
+        /**
+         * 不需要设置
+         */
+        NONE,
+        /**
+         * 参数对象本身就是实体对象
+         */
+        ROOT,
+        /**
+         * 参数对象中的 {@link #COLLECTION} 集合
+         */
+        COLLECTION,
+        /**
+         * 执行时根据参数对象的类型判断
+         */
+        DYNAMIC
     }
 }
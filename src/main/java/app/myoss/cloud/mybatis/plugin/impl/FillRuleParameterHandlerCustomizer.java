@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.plugin.impl;
+
+import java.util.Date;
+
+import app.myoss.cloud.mybatis.plugin.FillValueRegistry;
+import app.myoss.cloud.mybatis.plugin.FillValueSupplier;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+import app.myoss.cloud.mybatis.table.annotation.Column;
+
+/**
+ * 根据 {@link Column#fillRule()} 自动填充字段值的 Mybatis 参数处理，字段的值由 {@link FillValueRegistry}
+ * 中注册的 {@link FillValueSupplier} 生成，不需要再为每个实体类编写填充代码
+ * <p>
+ * 需要填充的字段在 {@link FillValueRegistry} 注册填充值时编译为 getter/setter 方法的调用列表，之后每个实体对象只需要调用这些方法
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月14日 上午10:21:08
+ */
+public class FillRuleParameterHandlerCustomizer extends DefaultParameterHandlerCustomizer {
+    private final FillValueRegistry fillValueRegistry;
+
+    /**
+     * 创建根据 {@link Column#fillRule()} 自动填充字段值的 Mybatis 参数处理
+     *
+     * @param fillValueRegistry 字段填充值注册器
+     */
+    public FillRuleParameterHandlerCustomizer(FillValueRegistry fillValueRegistry) {
+        this.fillValueRegistry = fillValueRegistry;
+    }
+
+    @Override
+    protected boolean isFillEntityType(Class<?> parameterType) {
+        return !fillValueRegistry.getEntityFiller(parameterType).isEmpty();
+    }
+
+    @Override
+    protected boolean isPossibleFillEntityType(Class<?> parameterType) {
+        if (parameterType.isInterface()) {
+            return true;
+        }
+        for (Class<?> entityClass : TableMetaObject.getTableInfoMap().keySet()) {
+            if (parameterType.isAssignableFrom(entityClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected boolean isFillEntity(Object parameterObject) {
+        return parameterObject != null && !fillValueRegistry.getEntityFiller(parameterObject.getClass()).isEmpty();
+    }
+
+    @Override
+    protected void fillEntity(Object entity, boolean isInsert, Date now) {
+        if (entity != null) {
+            fillValueRegistry.getEntityFiller(entity.getClass()).fill(entity, isInsert, now);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.repository.service;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import app.myoss.cloud.core.lang.dto.Page;
+import app.myoss.cloud.core.lang.dto.Result;
+import app.myoss.cloud.mybatis.criteria.Criteria;
+import app.myoss.cloud.mybatis.repository.utils.AsyncCrudExecutor;
+
+/**
+ * {@link CrudService} 的异步版本，数据库操作在 {@link AsyncCrudExecutor} 中执行，返回 {@link CompletableFuture}，用于同时发起多个查询再合并结果
+ * <p>
+ * 注意：异步执行的数据库操作不会加入调用方线程的事务中
+ *
+ * @param <T> 实体类
+ * @author Jerry.Chen
+ * @since 2019年6月24日 下午3:05:12
+ */
+public interface AsyncCrudService<T> {
+    /**
+     * 异步创建新的记录
+     *
+     * @param record 待保存的实体对象
+     * @param <I> 主键类型
+     * @return 创建结果
+     */
+    <I> CompletableFuture<Result<I>> create(T record);
+
+    /**
+     * 异步批量创建新的记录
+     *
+     * @param records 待保存的实体对象
+     * @return 创建结果
+     */
+    CompletableFuture<Result<Boolean>> createBatch(List<T> records);
+
+    /**
+     * 异步根据主键查询记录
+     *
+     * @param id 主键值
+     * @return 对应的记录
+     */
+    CompletableFuture<Result<T>> findByPrimaryKey(Serializable id);
+
+    /**
+     * 异步根据条件查询匹配的实体对象，只能有一条记录
+     *
+     * @param condition 匹配的条件
+     * @return 对应的记录
+     */
+    CompletableFuture<Result<T>> findOne(T condition);
+
+    /**
+     * 异步根据条件查询匹配的实体对象
+     *
+     * @param condition 匹配的条件
+     * @return 对应的记录
+     */
+    CompletableFuture<Result<List<T>>> findList(T condition);
+
+    /**
+     * 异步根据条件查询匹配的实体对象总数
+     *
+     * @param condition 匹配的条件
+     * @return 记录总数
+     */
+    CompletableFuture<Result<Integer>> findCount(T condition);
+
+    /**
+     * 异步根据条件查询匹配的实体对象，并支持字段排序、分页
+     *
+     * @param condition 匹配的条件和排序字段
+     * @return 对应的记录
+     */
+    CompletableFuture<Page<T>> findPage(Page<T> condition);
+
+    /**
+     * 异步根据类型安全的查询条件查询匹配的实体对象
+     *
+     * @param criteria 查询条件
+     * @return 对应的记录
+     */
+    CompletableFuture<Result<List<T>>> findListByCriteria(Criteria<T> criteria);
+
+    /**
+     * 异步根据类型安全的查询条件查询匹配的实体对象总数
+     *
+     * @param criteria 查询条件
+     * @return 记录总数
+     */
+    CompletableFuture<Result<Integer>> findCountByCriteria(Criteria<T> criteria);
+
+    /**
+     * 异步根据类型安全的查询条件分页查询匹配的实体对象
+     *
+     * @param criteria 查询条件和排序字段
+     * @param pageNum 页码，从1开始
+     * @param pageSize 每页的记录数
+     * @return 对应的记录
+     */
+    CompletableFuture<Page<T>> findPageByCriteria(Criteria<T> criteria, int pageNum, int pageSize);
+
+    /**
+     * 异步执行 {@link CrudService} 的其它方法
+     *
+     * @param action 需要执行的方法，比如：{@code service -> service.findList(condition, projection)}
+     * @param <R> 返回值类型
+     * @return 方法的返回值
+     */
+    <R> CompletableFuture<R> execute(Function<CrudService<T>, R> action);
+}
@@ -18,11 +18,20 @@
 package app.myoss.cloud.mybatis.repository.service;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import app.myoss.cloud.core.lang.dto.Page;
 import app.myoss.cloud.core.lang.dto.Result;
+import app.myoss.cloud.core.lang.dto.Sort;
+import app.myoss.cloud.mybatis.constants.MybatisConstants;
+import app.myoss.cloud.mybatis.criteria.Aggregation;
+import app.myoss.cloud.mybatis.criteria.Aggregation.AggregateRow;
+import app.myoss.cloud.mybatis.criteria.Criteria;
+import app.myoss.cloud.mybatis.criteria.Projection;
+import app.myoss.cloud.mybatis.table.annotation.Column;
 
 /**
  * 封装数据库表增、删、改、查常用操作
@@ -107,7 +116,9 @@ public interface CrudService<T> {
     <I> Result<I> saveOrUpdate(T record, Object optionParam);
 
     /**
-     * 根据主键更新记录
+     * 根据主键更新记录。有乐观锁版本号字段（{@link Column#version()}）时，版本号不匹配返回
+     * {@link MybatisConstants#VERSION_CONFLICT}，记录不存在返回 {@link MybatisConstants#NOT_MATCH_RECORDS}；版本号为
+     * {@code null} 时不做乐观锁校验
      *
      * @param record 待更新的实体对象
      * @param optionParam 可选参数，默认为 {@code null }
@@ -123,6 +134,53 @@ public interface CrudService<T> {
      */
     Result<Boolean> updateByPrimaryKey(T record);
 
+    /**
+     * 根据主键更新记录，使用乐观锁（{@link Column#version()}）：读取最新的记录，使用 {@code updater}
+     * 修改之后更新，版本号不匹配时重新读取并重试，最多执行 {@code maxAttempts} 次。
+     * <p>
+     * 每次重试都需要读取到最新提交的数据，在外层的事务中（比如 REPEATABLE READ 隔离级别）重新读取的还是同一个快照，所以有实际的事务时不会重试，
+     * 只执行一次
+     *
+     * @param id 主键值
+     * @param updater 修改实体对象
+     * @param maxAttempts 最多执行的次数
+     * @return 更新结果，重试之后仍然冲突时错误码为 {@link app.myoss.cloud.mybatis.constants.MybatisConstants#VERSION_CONFLICT}
+     */
+    Result<Boolean> updateByPrimaryKeyWithRetry(Serializable id, Consumer<T> updater, int maxAttempts);
+
+    /**
+     * 根据主键更新记录，只更新查询之后有变化的字段，没有变化时不执行 sql 语句。
+     * <p>
+     * 需要开启字段变更跟踪（{@code setChangeTracking(true)}），实体对象必须是通过本服务的查询方法获取的；没有跟踪的实体对象使用
+     * {@link #updateByPrimaryKey(Object)} 更新
+     *
+     * @param record 待更新的实体对象
+     * @return 更新结果
+     */
+    Result<Boolean> updateChanged(T record);
+
+    /**
+     * 根据主键原子增减字段值，比如：库存、余额、浏览次数，一条 sql 语句完成，不需要先查询再更新
+     *
+     * @param record 实体对象，使用其中的主键值
+     * @param increments 属性名 => 增量，减少时使用负数，只能是可更新的数值类型字段
+     * @param floor 更新之后的值的下限，为 null 时不限制，比如：库存不能小于0
+     * @return 更新结果，记录不存在或者更新之后的值小于下限时错误码为
+     *         {@link app.myoss.cloud.mybatis.constants.MybatisConstants#NOT_MATCH_RECORDS}
+     */
+    Result<Boolean> updateIncrement(T record, Map<String, ? extends Number> increments, Number floor);
+
+    /**
+     * 根据主键批量原子增减字段值，所有记录使用相同的增量
+     *
+     * @param ids 主键值
+     * @param increments 属性名 => 增量，减少时使用负数，只能是可更新的数值类型字段
+     * @param floor 更新之后的值的下限，为 null 时不限制，比如：库存不能小于0
+     * @return 更新成功的记录数，不包括更新之后的值小于下限的记录
+     */
+    Result<Integer> updateIncrementBatch(Collection<? extends Serializable> ids,
+                                         Map<String, ? extends Number> increments, Number floor);
+
     /**
      * 根据条件更新记录
      *
@@ -219,6 +277,31 @@ public interface CrudService<T> {
      */
     Result<T> findOne(T condition);
 
+    /**
+     * 根据条件查询是否存在匹配的记录，匹配到第一条记录就结束查询，不会统计所有匹配的记录数
+     *
+     * @param condition 匹配的条件
+     * @return true: 存在; false: 不存在
+     */
+    Result<Boolean> exists(T condition);
+
+    /**
+     * 根据主键查询是否存在记录
+     *
+     * @param id 主键
+     * @return true: 存在; false: 不存在
+     */
+    Result<Boolean> existsByPrimaryKey(Serializable id);
+
+    /**
+     * 根据条件和排序字段查询匹配的第一条实体对象，只查询一条记录
+     *
+     * @param condition 匹配的条件
+     * @param sort 排序字段
+     * @return 匹配的第一条实体对象，没有则为 null
+     */
+    Result<T> findFirst(T condition, Sort sort);
+
     /**
      * 根据条件查询匹配的实体对象
      *
@@ -227,6 +310,34 @@ public interface CrudService<T> {
      */
     Result<List<T>> findList(T condition);
 
+    /**
+     * 根据条件查询匹配的实体对象，只查询投影中的字段，实体对象中其它的字段为 null
+     *
+     * @param condition 匹配的条件
+     * @param projection 需要查询的字段
+     * @return 匹配的实体对象
+     */
+    Result<List<T>> findList(T condition, Projection<T> projection);
+
+    /**
+     * 根据条件查询匹配的实体对象，只查询投影中的字段，并转换为 DTO 对象
+     *
+     * @param condition 匹配的条件
+     * @param projection 需要查询的字段，不能为 {@code null}
+     * @param dtoClass DTO class，需要有无参的构造方法
+     * @param <DTO> DTO 类型
+     * @return 匹配的 DTO 对象
+     */
+    <DTO> Result<List<DTO>> findList(T condition, Projection<T> projection, Class<DTO> dtoClass);
+
+    /**
+     * 加载实体对象中延迟加载（{@link Column#lazy()}）的字段，根据主键批量查询，主键字段为空的实体对象会被忽略
+     *
+     * @param records 实体对象
+     * @return 执行结果
+     */
+    Result<Boolean> loadLazyColumns(List<T> records);
+
     /**
      * 根据条件查询匹配的实体对象，并支持字段排序
      *
@@ -252,6 +363,15 @@ public interface CrudService<T> {
      */
     Result<Integer> findCount(T condition, Map<String, Object> extraCondition);
 
+    /**
+     * 根据条件聚合查询（sum/min/max/avg/count group by），聚合计算在数据库中执行，会过滤掉已经被标记为逻辑删除的数据
+     *
+     * @param condition 匹配的条件
+     * @param aggregation 聚合查询的字段
+     * @return 聚合查询的结果
+     */
+    Result<List<AggregateRow>> findAggregate(T condition, Aggregation<T> aggregation);
+
     /**
      * 根据条件查询匹配的实体对象，并进行分页
      *
@@ -268,4 +388,39 @@ public interface CrudService<T> {
      * @return 匹配的实体对象
      */
     <DTO> Page<DTO> findPageByHelper(Page<DTO> condition);
+
+    /**
+     * 根据查询条件查询匹配的实体对象
+     *
+     * @param criteria 查询条件
+     * @return 匹配的实体对象
+     */
+    Result<List<T>> findListByCriteria(Criteria<T> criteria);
+
+    /**
+     * 根据查询条件查询匹配的实体对象总记录数
+     *
+     * @param criteria 查询条件
+     * @return 匹配的实体对象总记录数
+     */
+    Result<Integer> findCountByCriteria(Criteria<T> criteria);
+
+    /**
+     * 根据查询条件查询匹配的实体对象，并进行分页
+     *
+     * @param criteria 查询条件
+     * @param pageNum 第几页，从1开始
+     * @param pageSize 每页的条数
+     * @return 匹配的实体对象
+     */
+    Page<T> findPageByCriteria(Criteria<T> criteria, int pageNum, int pageSize);
+
+    /**
+     * 根据查询条件流式查询匹配的实体对象，每读取一条记录就回调一次 consumer，不会一次性加载所有的记录
+     *
+     * @param criteria 查询条件
+     * @param consumer 处理每一条记录
+     * @return 执行结果
+     */
+    Result<Boolean> findStreamByCriteria(Criteria<T> criteria, Consumer<T> consumer);
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.repository.service.impl;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import app.myoss.cloud.core.lang.dto.Page;
+import app.myoss.cloud.core.lang.dto.Result;
+import app.myoss.cloud.mybatis.criteria.Criteria;
+import app.myoss.cloud.mybatis.repository.service.AsyncCrudService;
+import app.myoss.cloud.mybatis.repository.service.CrudService;
+import app.myoss.cloud.mybatis.repository.utils.AsyncCrudExecutor;
+import lombok.Getter;
+
+/**
+ * {@link CrudService} 的异步版本实现，将每个方法提交到 {@link AsyncCrudExecutor} 中执行
+ *
+ * @param <T> 实体类
+ * @author Jerry.Chen
+ * @since 2019年6月24日 下午3:05:12
+ */
+public class AsyncCrudServiceImpl<T> implements AsyncCrudService<T> {
+    /**
+     * 被异步执行的 {@link CrudService}
+     */
+    @Getter
+    private final CrudService<T>    crudService;
+    /**
+     * 异步执行数据库操作的执行器
+     */
+    @Getter
+    private final AsyncCrudExecutor asyncCrudExecutor;
+
+    /**
+     * 创建 {@link CrudService} 的异步版本
+     *
+     * @param crudService 被异步执行的 {@link CrudService}
+     * @param asyncCrudExecutor 异步执行数据库操作的执行器，可以被多个 {@link AsyncCrudService} 共用
+     */
+    public AsyncCrudServiceImpl(CrudService<T> crudService, AsyncCrudExecutor asyncCrudExecutor) {
+        this.crudService = crudService;
+        this.asyncCrudExecutor = asyncCrudExecutor;
+    }
+
+    @Override
+    public <I> CompletableFuture<Result<I>> create(T record) {
+        return asyncCrudExecutor.supplyAsync(() -> crudService.create(record));
+    }
+
+    @Override
+    public CompletableFuture<Result<Boolean>> createBatch(List<T> records) {
+        return asyncCrudExecutor.supplyAsync(() -> crudService.createBatch(records));
+    }
+
+    @Override
+    public CompletableFuture<Result<T>> findByPrimaryKey(Serializable id) {
+        return asyncCrudExecutor.supplyAsync(() -> crudService.findByPrimaryKey(id));
+    }
+
+    @Override
+    public CompletableFuture<Result<T>> findOne(T condition) {
+        return asyncCrudExecutor.supplyAsync(() -> crudService.findOne(condition));
+    }
+
+    @Override
+    public CompletableFuture<Result<List<T>>> findList(T condition) {
+        return asyncCrudExecutor.supplyAsync(() -> crudService.findList(condition));
+    }
+
+    @Override
+    public CompletableFuture<Result<Integer>> findCount(T condition) {
+        return asyncCrudExecutor.supplyAsync(() -> crudService.findCount(condition));
+    }
+
+    @Override
+    public CompletableFuture<Page<T>> findPage(Page<T> condition) {
+        return asyncCrudExecutor.supplyAsync(() -> crudService.findPage(condition));
+    }
+
+    @Override
+    public CompletableFuture<Result<List<T>>> findListByCriteria(Criteria<T> criteria) {
+        return asyncCrudExecutor.supplyAsync(() -> crudService.findListByCriteria(criteria));
+    }
+
+    @Override
+    public CompletableFuture<Result<Integer>> findCountByCriteria(Criteria<T> criteria) {
+        return asyncCrudExecutor.supplyAsync(() -> crudService.findCountByCriteria(criteria));
+    }
+
+    @Override
+    public CompletableFuture<Page<T>> findPageByCriteria(Criteria<T> criteria, int pageNum, int pageSize) {
+        return asyncCrudExecutor.supplyAsync(() -> crudService.findPageByCriteria(criteria, pageNum, pageSize));
+    }
+
+    @Override
+    public <R> CompletableFuture<R> execute(Function<CrudService<T>, R> action) {
+        return asyncCrudExecutor.supplyAsync(() -> action.apply(crudService));
+    }
+}
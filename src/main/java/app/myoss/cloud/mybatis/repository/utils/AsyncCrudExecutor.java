@@ -0,0 +1,304 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.repository.utils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+
+import app.myoss.cloud.mybatis.datasource.ReadWriteRoutingContext;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 异步执行数据库操作的执行器，供 {@link app.myoss.cloud.mybatis.repository.service.AsyncCrudService} 使用
+ * <ul>
+ * <li>同时执行的数据库操作数量不超过 maxConcurrency，建议设置为数据库连接池的大小，防止大量任务排队等待数据库连接</li>
+ * <li>超过 maxConcurrency 的任务在提交时进入等待队列，队列中的任务数量不超过 queueCapacity，队列满了之后提交的任务以
+ * {@link RejectedExecutionException} 结束；不管使用哪种线程池，排队的任务都不会占用线程</li>
+ * <li>JDK 21 及以上版本默认使用虚拟线程，否则使用固定大小的线程池</li>
+ * <li>调用方线程的上下文会传递到执行线程中：日志的 {@link MDC}（比如：traceId）、强制使用主库
+ * {@link ReadWriteRoutingContext#isForcePrimary()}，其它上下文（比如：租户）可以通过 {@link TaskDecorator} 传递</li>
+ * </ul>
+ * 注意：异步执行的数据库操作不会加入调用方线程的事务中
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月24日 下午3:05:12
+ */
+@Slf4j
+public class AsyncCrudExecutor {
+    /**
+     * 默认的任务队列大小
+     */
+    public static final int                 DEFAULT_QUEUE_CAPACITY = 1024;
+    private final Executor                  executor;
+    private final boolean                   ownExecutor;
+    /**
+     * 同时执行的数据库操作最大数量
+     */
+    @Getter
+    private final int                       maxConcurrency;
+    /**
+     * 等待执行的任务最大数量
+     */
+    @Getter
+    private final int                       queueCapacity;
+    private final List<TaskDecorator>       taskDecorators;
+    private final ArrayDeque<DecoratedTask> waitingTasks           = new ArrayDeque<>();
+    private int                             runningCount;
+
+    /**
+     * 创建异步执行数据库操作的执行器，使用 {@link #newExecutor(int)} 创建的线程池
+     *
+     * @param maxConcurrency 同时执行的数据库操作最大数量，建议设置为数据库连接池的大小
+     */
+    public AsyncCrudExecutor(int maxConcurrency) {
+        this(maxConcurrency, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * 创建异步执行数据库操作的执行器，使用 {@link #newExecutor(int)} 创建的线程池
+     *
+     * @param maxConcurrency 同时执行的数据库操作最大数量，建议设置为数据库连接池的大小
+     * @param queueCapacity 等待执行的任务最大数量，队列满了之后提交的任务会失败
+     */
+    public AsyncCrudExecutor(int maxConcurrency, int queueCapacity) {
+        this(maxConcurrency, queueCapacity, Collections.emptyList());
+    }
+
+    /**
+     * 创建异步执行数据库操作的执行器，使用 {@link #newExecutor(int)} 创建的线程池
+     *
+     * @param maxConcurrency 同时执行的数据库操作最大数量，建议设置为数据库连接池的大小
+     * @param queueCapacity 等待执行的任务最大数量，队列满了之后提交的任务会失败
+     * @param taskDecorators 传递调用方线程上下文的装饰器，比如：租户信息
+     */
+    public AsyncCrudExecutor(int maxConcurrency, int queueCapacity, List<TaskDecorator> taskDecorators) {
+        this(newExecutor(maxConcurrency), true, maxConcurrency, queueCapacity, taskDecorators);
+    }
+
+    /**
+     * 创建异步执行数据库操作的执行器，使用自定义的线程池
+     *
+     * @param executor 执行数据库操作的线程池，由调用方负责关闭
+     * @param maxConcurrency 同时执行的数据库操作最大数量，建议设置为数据库连接池的大小
+     * @param taskDecorators 传递调用方线程上下文的装饰器，比如：租户信息
+     */
+    public AsyncCrudExecutor(Executor executor, int maxConcurrency, List<TaskDecorator> taskDecorators) {
+        this(executor, maxConcurrency, DEFAULT_QUEUE_CAPACITY, taskDecorators);
+    }
+
+    /**
+     * 创建异步执行数据库操作的执行器，使用自定义的线程池
+     *
+     * @param executor 执行数据库操作的线程池，由调用方负责关闭
+     * @param maxConcurrency 同时执行的数据库操作最大数量，建议设置为数据库连接池的大小
+     * @param queueCapacity 等待执行的任务最大数量，队列满了之后提交的任务会失败
+     * @param taskDecorators 传递调用方线程上下文的装饰器，比如：租户信息
+     */
+    public AsyncCrudExecutor(Executor executor, int maxConcurrency, int queueCapacity,
+                             List<TaskDecorator> taskDecorators) {
+        this(executor, false, maxConcurrency, queueCapacity, taskDecorators);
+    }
+
+    private AsyncCrudExecutor(Executor executor, boolean ownExecutor, int maxConcurrency, int queueCapacity,
+                              List<TaskDecorator> taskDecorators) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be greater than 0");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("queueCapacity must not be negative");
+        }
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.taskDecorators = new ArrayList<>(taskDecorators);
+    }
+
+    /**
+     * 创建执行数据库操作的线程池，JDK 21 及以上版本使用虚拟线程，否则使用 maxConcurrency 个线程的线程池。并发数量和等待队列的大小由
+     * {@link AsyncCrudExecutor} 在提交任务时控制，提交到线程池的任务不会超过 maxConcurrency 个
+     *
+     * @param maxConcurrency 同时执行的数据库操作最大数量
+     * @return 线程池
+     */
+    public static ExecutorService newExecutor(int maxConcurrency) {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (NoSuchMethodException ex) {
+            // JDK 21 以下的版本，使用固定大小的线程池
+        } catch (ReflectiveOperationException ex) {
+            log.warn("create virtual thread executor failed, use thread pool instead", ex);
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor threadPool = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60L,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "async-crud-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        threadPool.allowCoreThreadTimeOut(true);
+        return threadPool;
+    }
+
+    /**
+     * 异步执行数据库操作
+     *
+     * @param supplier 数据库操作
+     * @param <R> 返回值类型
+     * @return 数据库操作的结果，执行失败或者任务被拒绝时以异常结束
+     */
+    public <R> CompletableFuture<R> supplyAsync(Supplier<R> supplier) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        DecoratedTask task = decorate(() -> {
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            }
+        }, future);
+        synchronized (waitingTasks) {
+            if (runningCount >= maxConcurrency) {
+                if (waitingTasks.size() >= queueCapacity) {
+                    future.completeExceptionally(new RejectedExecutionException(
+                            "async crud queue is full, maxConcurrency: " + maxConcurrency + ", queueCapacity: "
+                                    + queueCapacity));
+                } else {
+                    waitingTasks.add(task);
+                }
+                return future;
+            }
+            runningCount++;
+        }
+        dispatch(task);
+        return future;
+    }
+
+    /**
+     * 提交任务到线程池，任务结束之后继续提交等待队列中的下一个任务
+     */
+    private void dispatch(DecoratedTask task) {
+        DecoratedTask current = task;
+        while (current != null) {
+            DecoratedTask dispatching = current;
+            try {
+                executor.execute(() -> {
+                    try {
+                        dispatching.run();
+                    } finally {
+                        dispatch(pollWaitingTask());
+                    }
+                });
+                return;
+            } catch (RejectedExecutionException ex) {
+                dispatching.future.completeExceptionally(ex);
+                current = pollWaitingTask();
+            }
+        }
+    }
+
+    /**
+     * 获取等待队列中的下一个任务，没有任务时释放占用的并发数量
+     */
+    private DecoratedTask pollWaitingTask() {
+        synchronized (waitingTasks) {
+            DecoratedTask next = waitingTasks.poll();
+            if (next == null) {
+                runningCount--;
+            }
+            return next;
+        }
+    }
+
+    /**
+     * 在调用方线程中获取上下文，包装为在执行线程中恢复上下文的任务
+     */
+    private DecoratedTask decorate(Runnable task, CompletableFuture<?> future) {
+        Runnable decorated = task;
+        for (TaskDecorator taskDecorator : taskDecorators) {
+            decorated = taskDecorator.decorate(decorated);
+        }
+        Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+        boolean forcePrimary = ReadWriteRoutingContext.isForcePrimary();
+        Runnable userTask = decorated;
+        return new DecoratedTask(future, () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            if (mdcContext != null) {
+                MDC.setContextMap(mdcContext);
+            }
+            try {
+                if (forcePrimary) {
+                    ReadWriteRoutingContext.runOnPrimary(userTask);
+                } else {
+                    userTask.run();
+                }
+            } finally {
+                if (previous != null) {
+                    MDC.setContextMap(previous);
+                } else {
+                    MDC.clear();
+                }
+            }
+        });
+    }
+
+    /**
+     * 关闭由当前执行器创建的线程池，自定义的线程池由调用方负责关闭
+     */
+    public void shutdown() {
+        if (ownExecutor) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    /**
+     * 恢复了调用方线程上下文的任务，线程池拒绝时通过 future 通知调用方
+     */
+    private static class DecoratedTask implements Runnable {
+        private final CompletableFuture<?> future;
+        private final Runnable             task;
+
+        DecoratedTask(CompletableFuture<?> future, Runnable task) {
+            this.future = future;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+}
@@ -18,16 +18,17 @@
 package app.myoss.cloud.mybatis.repository.utils;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.util.CollectionUtils;
 
-import app.myoss.cloud.core.lang.bean.BeanUtil;
 import app.myoss.cloud.core.lang.dto.Order;
 import app.myoss.cloud.core.lang.dto.Sort;
 import app.myoss.cloud.mybatis.table.TableColumnInfo;
@@ -42,13 +43,18 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public class CrudServiceUtils {
+    /**
+     * 批量加载延迟加载字段时，每次查询的最大记录数
+     */
+    public static final int LAZY_LOAD_BATCH_SIZE = 500;
+
     public static boolean checkPrimaryKeyIsNull(TableInfo tableInfo, Object record, boolean checkAll) {
         boolean isNull = record == null;
         if (!isNull) {
             int nullCount = 0;
             Set<TableColumnInfo> primaryKeyColumns = tableInfo.getPrimaryKeyColumns();
             for (TableColumnInfo columnInfo : primaryKeyColumns) {
-                Object value = BeanUtil.methodInvoke(columnInfo.getPropertyDescriptor().getReadMethod(), record);
+                Object value = columnInfo.getValue(record);
                 if (value == null) {
                     nullCount++;
                 } else if (value instanceof CharSequence && StringUtils.isBlank((CharSequence) value)) {
@@ -99,4 +105,159 @@ public class CrudServiceUtils {
         }
         return orders;
     }
+
+    public static <T> void loadLazyColumns(TableInfo tableInfo, Collection<T> records,
+                                           Function<Collection<T>, List<T>> selectFunction) {
+        Set<TableColumnInfo> lazyColumns = tableInfo.getLazyColumns();
+        if (CollectionUtils.isEmpty(lazyColumns) || CollectionUtils.isEmpty(records)) {
+            return;
+        }
+        List<T> batch = new ArrayList<>(Math.min(records.size(), LAZY_LOAD_BATCH_SIZE));
+        for (T record : records) {
+            if (record == null || checkPrimaryKeyIsNull(tableInfo, record, false)) {
+                continue;
+            }
+            batch.add(record);
+            if (batch.size() >= LAZY_LOAD_BATCH_SIZE) {
+                mergeLazyColumns(tableInfo, lazyColumns, batch, selectFunction.apply(batch));
+                batch = new ArrayList<>(LAZY_LOAD_BATCH_SIZE);
+            }
+        }
+        if (!batch.isEmpty()) {
+            mergeLazyColumns(tableInfo, lazyColumns, batch, selectFunction.apply(batch));
+        }
+    }
+
+    private static <T> void mergeLazyColumns(TableInfo tableInfo, Set<TableColumnInfo> lazyColumns, List<T> records,
+                                             List<T> lazyRecords) {
+        if (CollectionUtils.isEmpty(lazyRecords)) {
+            return;
+        }
+        Map<Object, T> lazyRecordMap = new HashMap<>(lazyRecords.size() * 4 / 3 + 1);
+        for (T lazyRecord : lazyRecords) {
+            lazyRecordMap.put(getPrimaryKeyValue(tableInfo, lazyRecord), lazyRecord);
+        }
+        for (T record : records) {
+            T lazyRecord = lazyRecordMap.get(getPrimaryKeyValue(tableInfo, record));
+            if (lazyRecord != null) {
+                for (TableColumnInfo columnInfo : lazyColumns) {
+                    columnInfo.getSetter().accept(record, columnInfo.getGetter().apply(lazyRecord));
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取实体对象的主键值，联合主键返回所有主键字段值的 {@link List}
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param record 实体对象
+     * @return 主键值
+     */
+    public static Object getPrimaryKeyValue(TableInfo tableInfo, Object record) {
+        Set<TableColumnInfo> primaryKeyColumns = tableInfo.getPrimaryKeyColumns();
+        if (primaryKeyColumns.size() == 1) {
+            return primaryKeyColumns.iterator().next().getGetter().apply(record);
+        }
+        // 联合主键
+        List<Object> values = new ArrayList<>(primaryKeyColumns.size());
+        for (TableColumnInfo columnInfo : primaryKeyColumns) {
+            values.add(columnInfo.getGetter().apply(record));
+        }
+        return values;
+    }
+
+    /**
+     * 判断实体对象是否携带了乐观锁的版本号
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param record 实体对象
+     * @return true: 数据库表有版本号字段，并且实体对象的版本号不为 {@code null}
+     */
+    public static boolean hasVersion(TableInfo tableInfo, Object record) {
+        TableColumnInfo versionColumn = tableInfo.getVersionColumn();
+        return versionColumn != null && record != null && versionColumn.getGetter().apply(record) != null;
+    }
+
+    /**
+     * 判断实体对象是否缺少乐观锁的版本号，按主键更新的时候会校验版本号，缺少版本号的记录不能更新
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param record 实体对象
+     * @return true: 数据库表有版本号字段，但是实体对象的版本号为 {@code null}
+     */
+    public static boolean isVersionNull(TableInfo tableInfo, Object record) {
+        return tableInfo.getVersionColumn() != null && !hasVersion(tableInfo, record);
+    }
+
+    /**
+     * 插入新记录的时候，初始化乐观锁的版本号为 0，和 insert 语句中的 {@code COALESCE(#{version}, 0)} 保持一致
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param record 实体对象
+     */
+    public static void initVersion(TableInfo tableInfo, Object record) {
+        TableColumnInfo versionColumn = tableInfo.getVersionColumn();
+        if (versionColumn == null || record == null || versionColumn.getGetter().apply(record) != null) {
+            return;
+        }
+        Class<?> javaType = versionColumn.getJavaType();
+        Object value;
+        if (javaType == Long.class || javaType == long.class) {
+            value = 0L;
+        } else if (javaType == Short.class || javaType == short.class) {
+            value = (short) 0;
+        } else {
+            value = 0;
+        }
+        versionColumn.getSetter().accept(record, value);
+    }
+
+    /**
+     * 更新成功之后，实体对象的版本号加 1，和数据库中的 {@code version = COALESCE(version, 0) + 1} 保持一致
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param record 实体对象，版本号为 {@code null} 时不处理
+     */
+    public static void increaseVersion(TableInfo tableInfo, Object record) {
+        if (!hasVersion(tableInfo, record)) {
+            return;
+        }
+        TableColumnInfo versionColumn = tableInfo.getVersionColumn();
+        Number version = (Number) versionColumn.getGetter().apply(record);
+        Object value;
+        if (version instanceof Long) {
+            value = version.longValue() + 1;
+        } else if (version instanceof Short) {
+            value = (short) (version.shortValue() + 1);
+        } else {
+            value = version.intValue() + 1;
+        }
+        versionColumn.getSetter().accept(record, value);
+    }
+
+    /**
+     * 创建判断记录是否存在的查询条件，去掉乐观锁版本号字段，用于区分"版本号不匹配"和"未匹配到相应的记录"
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param record 更新的实体对象或者更新条件
+     * @param primaryKeyOnly true: 只复制主键字段; false: 复制除版本号之外的所有字段
+     * @param <T> 实体类型
+     * @return 查询条件
+     */
+    public static <T> T newExistsCondition(TableInfo tableInfo, T record, boolean primaryKeyOnly) {
+        T condition = newEntity(tableInfo);
+        for (TableColumnInfo columnInfo : tableInfo.getColumns()) {
+            if (columnInfo.isVersion() || (primaryKeyOnly && !columnInfo.isPrimaryKey())) {
+                continue;
+            }
+            columnInfo.getSetter().accept(condition, columnInfo.getGetter().apply(record));
+        }
+        return condition;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> T newEntity(TableInfo tableInfo) {
+        return (T) tableInfo.getConfiguration().getObjectFactory().create(tableInfo.getEntityClass());
+    }
 }
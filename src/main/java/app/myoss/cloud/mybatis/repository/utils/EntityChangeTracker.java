@@ -0,0 +1,253 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.repository.utils;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import app.myoss.cloud.mybatis.table.TableColumnInfo;
+import app.myoss.cloud.mybatis.table.TableInfo;
+import app.myoss.cloud.mybatis.table.annotation.FillRule;
+
+/**
+ * 实体对象的字段变更跟踪器，用于只更新有变化的字段。
+ * <p>
+ * 查询出来的实体对象会保存一份可更新字段值的快照（按对象引用弱引用保存，实体对象被回收之后快照也会被清理），更新时和快照比较，得到有变化的字段位掩码，第
+ * {@code i} 位对应 {@link TableInfo#getColumns()} 中的第 {@code i} 个字段。主键、逻辑删除、乐观锁版本号、更新时自动填充的字段不跟踪，字段数量超过64个时不支持跟踪
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月20日 上午10:36:15
+ */
+public class EntityChangeTracker {
+    private final Class<?>                   entityClass;
+    /**
+     * 需要跟踪的字段在 {@link TableInfo#getColumns()} 中的位置
+     */
+    private final int[]                      indexes;
+    private final Function<Object, Object>[] getters;
+    /**
+     * 需要跟踪的字段是否为延迟加载的字段
+     */
+    private final boolean[]                  lazyColumns;
+    private final boolean                    supported;
+    private final ReferenceQueue<Object>     queue     = new ReferenceQueue<>();
+    /**
+     * 实体对象 => 字段值快照
+     */
+    private final Map<IdentityKey, Object[]> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * 创建实体对象的字段变更跟踪器
+     *
+     * @param tableInfo 数据库表结构信息
+     */
+    @SuppressWarnings("unchecked")
+    public EntityChangeTracker(TableInfo tableInfo) {
+        this.entityClass = tableInfo.getEntityClass();
+        List<Integer> indexList = new ArrayList<>();
+        List<Function<Object, Object>> getterList = new ArrayList<>();
+        List<Boolean> lazyList = new ArrayList<>();
+        int index = 0;
+        for (TableColumnInfo columnInfo : tableInfo.getColumns()) {
+            if (isTrackable(columnInfo)) {
+                indexList.add(index);
+                getterList.add(columnInfo.getGetter());
+                lazyList.add(columnInfo.isLazy());
+            }
+            index++;
+        }
+        this.supported = index <= Long.SIZE;
+        this.indexes = indexList.stream().mapToInt(Integer::intValue).toArray();
+        this.getters = getterList.toArray(new Function[0]);
+        this.lazyColumns = new boolean[lazyList.size()];
+        for (int i = 0; i < lazyColumns.length; i++) {
+            lazyColumns[i] = lazyList.get(i);
+        }
+    }
+
+    /**
+     * 判断字段是否需要跟踪变更
+     *
+     * @param columnInfo 数据库字段信息
+     * @return true: 需要跟踪
+     */
+    public static boolean isTrackable(TableColumnInfo columnInfo) {
+        return columnInfo.isUpdatable() && !columnInfo.isPrimaryKey() && !columnInfo.isLogicDelete()
+                && !columnInfo.isVersion() && !columnInfo.haveFillRule(FillRule.UPDATE);
+    }
+
+    /**
+     * 保存实体对象当前字段值的快照
+     *
+     * @param entity 实体对象
+     */
+    public void track(Object entity) {
+        if (!supported || entity == null || entity.getClass() != entityClass) {
+            return;
+        }
+        expungeStaleEntries();
+        snapshots.put(new IdentityKey(entity, queue), snapshot(entity));
+    }
+
+    /**
+     * 保存实体对象当前字段值的快照
+     *
+     * @param entities 实体对象
+     */
+    public void track(Collection<?> entities) {
+        if (entities != null) {
+            for (Object entity : entities) {
+                track(entity);
+            }
+        }
+    }
+
+    /**
+     * 延迟加载的字段加载之后，更新快照中延迟加载字段的值，否则加载出来的值会被认为是有变化的字段。没有快照的实体对象会被忽略
+     *
+     * @param entities 实体对象
+     */
+    public void trackLazyColumns(Collection<?> entities) {
+        if (!supported || entities == null) {
+            return;
+        }
+        for (Object entity : entities) {
+            if (entity == null) {
+                continue;
+            }
+            Object[] snapshot = snapshots.get(new IdentityKey(entity, null));
+            if (snapshot == null) {
+                continue;
+            }
+            for (int i = 0; i < getters.length; i++) {
+                if (lazyColumns[i]) {
+                    snapshot[i] = copyValue(getters[i].apply(entity));
+                }
+            }
+        }
+    }
+
+    /**
+     * 移除实体对象的快照
+     *
+     * @param entity 实体对象
+     */
+    public void untrack(Object entity) {
+        if (entity != null) {
+            snapshots.remove(new IdentityKey(entity, null));
+        }
+    }
+
+    /**
+     * 获取实体对象有变化的字段
+     *
+     * @param entity 实体对象
+     * @return 有变化的字段位掩码，{@code 0} 表示没有变化；没有快照、字段数量超过64个时返回 null
+     */
+    public Long getChangedColumns(Object entity) {
+        if (!supported || entity == null) {
+            // 字段数量超过64个时位掩码会回绕，不支持跟踪
+            return null;
+        }
+        Object[] snapshot = snapshots.get(new IdentityKey(entity, null));
+        if (snapshot == null) {
+            return null;
+        }
+        long changed = 0;
+        for (int i = 0; i < getters.length; i++) {
+            if (!Objects.deepEquals(snapshot[i], getters[i].apply(entity))) {
+                changed |= 1L << indexes[i];
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 获取当前保存的快照数量
+     *
+     * @return 快照数量
+     */
+    public int size() {
+        expungeStaleEntries();
+        return snapshots.size();
+    }
+
+    private Object[] snapshot(Object entity) {
+        Object[] values = new Object[getters.length];
+        for (int i = 0; i < getters.length; i++) {
+            values[i] = copyValue(getters[i].apply(entity));
+        }
+        return values;
+    }
+
+    /**
+     * 复制可变的字段值，防止直接修改对象内部的值之后检测不到变化
+     */
+    private static Object copyValue(Object value) {
+        if (value instanceof Date) {
+            return ((Date) value).clone();
+        } else if (value instanceof byte[]) {
+            return ((byte[]) value).clone();
+        }
+        return value;
+    }
+
+    private void expungeStaleEntries() {
+        Object reference;
+        while ((reference = queue.poll()) != null) {
+            snapshots.remove(reference);
+        }
+    }
+
+    /**
+     * 按对象引用比较的弱引用，实体类的 equals/hashCode 一般是按字段值比较的，不能直接作为 key
+     */
+    private static class IdentityKey extends WeakReference<Object> {
+        private final int hash;
+
+        IdentityKey(Object referent, ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof IdentityKey)) {
+                return false;
+            }
+            Object referent = get();
+            return referent != null && referent == ((IdentityKey) obj).get();
+        }
+    }
+}
@@ -0,0 +1,457 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.repository.utils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.ibatis.exceptions.TooManyResultsException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import app.myoss.cloud.mybatis.table.TableColumnInfo;
+import app.myoss.cloud.mybatis.table.TableInfo;
+import app.myoss.cloud.mybatis.table.annotation.Table;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 预加载到内存中的整张表，参考：{@link Table#preload()}。
+ * <p>
+ * 整张表（已经过滤掉逻辑删除的记录）加载为不可变的快照，按主键和 {@link Table#preloadIndexes()} 建立哈希索引；重新加载时生成新的快照再替换旧的快照（copy
+ * on write），读取不需要加锁。按实体对象条件查询的语义和 {@code builderWhereConditionSql} 一致：不为 null 的字段都是等值条件。
+ * <p>
+ * 返回的是快照中实体对象的副本，修改返回值不会影响快照。当前事务中通过 {@code CrudService} 写入过这张表之后，剩下的查询都直接访问数据库，事务提交之后重新加载整张表
+ * <p>
+ * 重新加载失败时继续使用旧的快照，并在后台按退避时间（{@link #RETRY_INITIAL_MILLIS} 到 {@link #RETRY_MAX_MILLIS}）重试，不会让每个查询都去重新加载
+ *
+ * @param <T> 实体类
+ * @author Jerry.Chen
+ * @since 2019年6月25日 下午2:16:48
+ */
+@Slf4j
+public class PreloadedTable<T> {
+    /**
+     * 重新加载失败之后第一次重试的等待时间（毫秒），之后每次翻倍
+     */
+    public static final long                         RETRY_INITIAL_MILLIS = 1000L;
+    /**
+     * 重新加载失败之后重试的最大等待时间（毫秒）
+     */
+    public static final long                         RETRY_MAX_MILLIS     = 60000L;
+    private static final ScheduledThreadPoolExecutor REFRESH_EXECUTOR     = new ScheduledThreadPoolExecutor(1,
+            runnable -> {
+                Thread thread = new Thread(runnable, "preloaded-table-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    static {
+        // 取消的定时任务立即从队列中移除，不再引用已经关闭的表
+        REFRESH_EXECUTOR.setRemoveOnCancelPolicy(true);
+    }
+
+    private final TableInfo          tableInfo;
+    private final Supplier<List<T>>  loader;
+    private final TableColumnInfo[]  columns;
+    private final TableColumnInfo[]  indexColumns;
+    private final TableColumnInfo    primaryKeyColumn;
+    private volatile Snapshot<T>     snapshot;
+    private volatile boolean         stale      = true;
+    /**
+     * 事务中是否写入过这张表，绑定在 {@link TransactionSynchronizationManager} 中的 key
+     */
+    private final Object             writtenKey = new Object();
+    /**
+     * 定时重新加载的任务，没有开启则为 null
+     */
+    private final ScheduledFuture<?> refreshFuture;
+    /**
+     * 重新加载失败之后的重试任务，没有等待重试则为 null
+     */
+    private ScheduledFuture<?>       retryFuture;
+    private long                     retryDelayMillis;
+    private boolean                  closed;
+
+    /**
+     * 创建预加载到内存中的整张表，第一次查询时加载
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param loader 查询整张表的方法，需要过滤掉逻辑删除的记录
+     */
+    public PreloadedTable(TableInfo tableInfo, Supplier<List<T>> loader) {
+        this.tableInfo = tableInfo;
+        this.loader = loader;
+        this.columns = tableInfo.getColumns()
+                .stream()
+                .filter(columnInfo -> !columnInfo.isLogicDelete())
+                .toArray(TableColumnInfo[]::new);
+        this.indexColumns = tableInfo.getPreloadIndexColumns().toArray(new TableColumnInfo[0]);
+        this.primaryKeyColumn = (tableInfo.getPrimaryKeyColumns().size() == 1
+                ? tableInfo.getPrimaryKeyColumns().iterator().next() : null);
+        long refreshMillis = tableInfo.getPreloadRefreshMillis();
+        if (refreshMillis > 0) {
+            this.refreshFuture = REFRESH_EXECUTOR.scheduleWithFixedDelay(this::scheduledReload, refreshMillis,
+                    refreshMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.refreshFuture = null;
+        }
+    }
+
+    /**
+     * 是否为单个字段的主键，联合主键不能使用 {@link #findByPrimaryKey(Object)} 查询
+     *
+     * @return true: 单个字段的主键
+     */
+    public boolean isSinglePrimaryKey() {
+        return primaryKeyColumn != null;
+    }
+
+    /**
+     * 当前是否可以从内存中查询：当前事务中通过 {@code CrudService} 写入过这张表之后，需要直接访问数据库才能读到未提交的数据
+     *
+     * @return true: 可以从内存中查询
+     */
+    public boolean isReadable() {
+        return !TransactionSynchronizationManager.hasResource(writtenKey);
+    }
+
+    /**
+     * 记录写入了这张表：在事务中则等事务结束之后重新加载，否则下一次查询时重新加载。挂起事务时（比如：
+     * {@code Propagation.REQUIRES_NEW}）新的事务仍然可以读取内存中的快照
+     */
+    public void markWritten() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stale = true;
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(writtenKey)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(writtenKey, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResourceIfPossible(writtenKey);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(writtenKey, Boolean.TRUE);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(writtenKey);
+                stale = true;
+            }
+        });
+    }
+
+    /**
+     * 按主键查询，只支持单个字段的主键，参考：{@link #isSinglePrimaryKey()}
+     *
+     * @param id 主键值
+     * @return 实体对象的副本，没有则为 null
+     */
+    public T findByPrimaryKey(Object id) {
+        if (primaryKeyColumn == null) {
+            throw new UnsupportedOperationException("composite primary key is not supported, use findList instead");
+        }
+        return copy(getSnapshot().primaryKeyIndex.get(normalize(primaryKeyColumn, id)));
+    }
+
+    /**
+     * 按实体对象中的主键字段查询，支持联合主键
+     *
+     * @param condition 主键字段有值的实体对象
+     * @return 实体对象的副本，没有则为 null
+     */
+    public T findWithPrimaryKey(T condition) {
+        if (primaryKeyColumn != null) {
+            return findByPrimaryKey(primaryKeyColumn.getGetter().apply(condition));
+        }
+        for (T entity : getSnapshot().rows) {
+            boolean match = true;
+            for (TableColumnInfo columnInfo : tableInfo.getPrimaryKeyColumns()) {
+                Object value = columnInfo.getGetter().apply(condition);
+                if (!valueEquals(value, columnInfo.getGetter().apply(entity))) {
+                    match = false;
+                    break;
+                }
+            }
+            if (match) {
+                return copy(entity);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按实体对象条件查询，不为 null 的字段都是等值条件
+     *
+     * @param condition 匹配的条件
+     * @return 实体对象的副本
+     */
+    public List<T> findList(T condition) {
+        List<T> matches = match(condition);
+        List<T> list = new ArrayList<>(matches.size());
+        for (T entity : matches) {
+            list.add(copy(entity));
+        }
+        return list;
+    }
+
+    /**
+     * 按实体对象条件查询，只能有一条记录
+     *
+     * @param condition 匹配的条件
+     * @return 实体对象的副本，没有则为 null
+     */
+    public T findOne(T condition) {
+        List<T> matches = match(condition);
+        if (matches.size() > 1) {
+            throw new TooManyResultsException(
+                    "Expected one result (or null) to be returned by findOne(), but found: " + matches.size());
+        }
+        return (matches.isEmpty() ? null : copy(matches.get(0)));
+    }
+
+    /**
+     * 按实体对象条件查询记录总数
+     *
+     * @param condition 匹配的条件
+     * @return 记录总数
+     */
+    public int findCount(T condition) {
+        return match(condition).size();
+    }
+
+    /**
+     * 立即重新加载整张表
+     */
+    public void refresh() {
+        stale = true;
+        getSnapshot();
+    }
+
+    /**
+     * 停止定时重新加载，不再使用这张表时调用
+     */
+    public void close() {
+        if (refreshFuture != null) {
+            refreshFuture.cancel(false);
+        }
+        synchronized (this) {
+            closed = true;
+            if (retryFuture != null) {
+                retryFuture.cancel(false);
+                retryFuture = null;
+            }
+        }
+    }
+
+    /**
+     * 定时重新加载，还没有加载过或者正在等待重试时跳过
+     */
+    private void scheduledReload() {
+        synchronized (this) {
+            if (snapshot == null || retryFuture != null) {
+                return;
+            }
+            stale = true;
+        }
+        getSnapshot();
+    }
+
+    /**
+     * 重新加载失败之后的重试
+     */
+    private void retryReload() {
+        synchronized (this) {
+            retryFuture = null;
+            if (closed) {
+                return;
+            }
+            stale = true;
+        }
+        getSnapshot();
+    }
+
+    private Snapshot<T> getSnapshot() {
+        Snapshot<T> current = snapshot;
+        if (current != null && !stale) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == null || stale) {
+                // 先清除标记，加载过程中再次写入的数据会在下一次查询时重新加载
+                stale = false;
+                try {
+                    snapshot = new Snapshot<>(loader.get(), primaryKeyColumn, indexColumns);
+                    retryDelayMillis = 0;
+                } catch (RuntimeException ex) {
+                    if (snapshot == null) {
+                        stale = true;
+                        throw ex;
+                    }
+                    // 继续使用旧的快照，在后台按退避时间重试，而不是让每个查询都去重新加载
+                    if (retryFuture == null && !closed) {
+                        retryDelayMillis = (retryDelayMillis == 0 ? RETRY_INITIAL_MILLIS
+                                : Math.min(retryDelayMillis * 2, RETRY_MAX_MILLIS));
+                        retryFuture = REFRESH_EXECUTOR.schedule(this::retryReload, retryDelayMillis,
+                                TimeUnit.MILLISECONDS);
+                    }
+                    log.error("[{}] reload preloaded table failed, use the old snapshot and retry after {} ms",
+                            tableInfo.getEntityClass(), retryDelayMillis, ex);
+                }
+            }
+            return snapshot;
+        }
+    }
+
+    private List<T> match(T condition) {
+        Snapshot<T> current = getSnapshot();
+        List<T> candidates = current.rows;
+        if (condition == null) {
+            return candidates;
+        }
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            values[i] = columns[i].getGetter().apply(condition);
+        }
+        // 使用主键、哈希索引缩小范围
+        if (primaryKeyColumn != null) {
+            Object id = primaryKeyColumn.getGetter().apply(condition);
+            if (id != null) {
+                T entity = current.primaryKeyIndex.get(normalize(primaryKeyColumn, id));
+                candidates = (entity != null ? Collections.singletonList(entity) : Collections.emptyList());
+            }
+        }
+        for (int i = 0; i < indexColumns.length && candidates.size() > 1; i++) {
+            Object value = indexColumns[i].getGetter().apply(condition);
+            if (value != null) {
+                List<T> bucket = current.indexes.get(i).get(normalize(indexColumns[i], value));
+                candidates = (bucket != null ? bucket : Collections.emptyList());
+            }
+        }
+        List<T> list = new ArrayList<>();
+        for (T entity : candidates) {
+            if (matches(entity, values)) {
+                list.add(entity);
+            }
+        }
+        return list;
+    }
+
+    private boolean matches(T entity, Object[] values) {
+        for (int i = 0; i < columns.length; i++) {
+            if (values[i] != null && !valueEquals(values[i], columns[i].getGetter().apply(entity))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 和数据库的等值比较保持一致：数值比较大小，不比较精度和类型
+     */
+    private static boolean valueEquals(Object expected, Object actual) {
+        if (Objects.equals(expected, actual)) {
+            return true;
+        }
+        if (expected instanceof Number && actual instanceof Number) {
+            return new BigDecimal(expected.toString()).compareTo(new BigDecimal(actual.toString())) == 0;
+        }
+        if (expected instanceof Date && actual instanceof Date) {
+            return ((Date) expected).getTime() == ((Date) actual).getTime();
+        }
+        return false;
+    }
+
+    /**
+     * 数值类型的索引 key 统一转换为字段的类型，比如：{@code Integer} 类型的主键值也能查询 {@code Long} 类型的主键
+     */
+    private static Object normalize(TableColumnInfo columnInfo, Object value) {
+        if (!(value instanceof Number) || columnInfo.getJavaType().isInstance(value)) {
+            return value;
+        }
+        Class<?> javaType = columnInfo.getJavaType();
+        Number number = (Number) value;
+        if (javaType == Long.class) {
+            return number.longValue();
+        } else if (javaType == Integer.class) {
+            return number.intValue();
+        } else if (javaType == Short.class) {
+            return number.shortValue();
+        }
+        return value;
+    }
+
+    private T copy(T entity) {
+        if (entity == null) {
+            return null;
+        }
+        T copy = CrudServiceUtils.newEntity(tableInfo);
+        for (TableColumnInfo columnInfo : tableInfo.getColumns()) {
+            columnInfo.getSetter().accept(copy, columnInfo.getGetter().apply(entity));
+        }
+        return copy;
+    }
+
+    /**
+     * 不可变的整表快照
+     */
+    private static class Snapshot<T> {
+        private final List<T>                   rows;
+        private final Map<Object, T>            primaryKeyIndex;
+        private final List<Map<Object, List<T>>> indexes;
+
+        Snapshot(List<T> rows, TableColumnInfo primaryKeyColumn, TableColumnInfo[] indexColumns) {
+            this.rows = Collections.unmodifiableList(new ArrayList<>(rows));
+            Map<Object, T> primaryKeyIndex = new HashMap<>(rows.size() * 4 / 3 + 1);
+            if (primaryKeyColumn != null) {
+                for (T row : rows) {
+                    primaryKeyIndex.put(primaryKeyColumn.getGetter().apply(row), row);
+                }
+            }
+            this.primaryKeyIndex = primaryKeyIndex;
+            List<Map<Object, List<T>>> indexes = new ArrayList<>(indexColumns.length);
+            for (TableColumnInfo indexColumn : indexColumns) {
+                Map<Object, List<T>> index = new HashMap<>();
+                for (T row : rows) {
+                    Object value = indexColumn.getGetter().apply(row);
+                    if (value != null) {
+                        index.computeIfAbsent(value, key -> new ArrayList<>()).add(row);
+                    }
+                }
+                indexes.add(index);
+            }
+            this.indexes = indexes;
+        }
+    }
+}
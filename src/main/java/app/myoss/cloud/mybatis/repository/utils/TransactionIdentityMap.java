@@ -0,0 +1,141 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.repository.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 绑定在 Spring 事务中的实体对象缓存（Identity Map），key 为实体类和主键值。
+ * <p>
+ * 同一个事务中多次按主键查询同一条记录时直接返回缓存的实体对象，不再访问数据库；事务提交或者回滚之后自动清除。没有实际的事务时（比如：
+ * {@code Propagation.SUPPORTS}）不会缓存；{@code Propagation.REQUIRES_NEW} 的新事务不会读取、修改外层事务的缓存。只有通过 {@link app.myoss.cloud.mybatis.repository.service.CrudService}
+ * 执行的写操作会更新缓存，在同一个事务中直接使用 Mapper 修改了记录，需要调用 {@link #evict(Class, Object)} 或者 {@link #evictAll(Class)}
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月25日 上午9:42:31
+ */
+public final class TransactionIdentityMap {
+    /**
+     * 绑定在 {@link TransactionSynchronizationManager} 中的 key
+     */
+    private static final Object RESOURCE_KEY = new Object();
+
+    private TransactionIdentityMap() {
+    }
+
+    /**
+     * 当前是否有可以使用缓存的事务
+     *
+     * @return true: 有实际的事务
+     */
+    public static boolean isActive() {
+        return TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    /**
+     * 获取当前事务中缓存的实体对象
+     *
+     * @param entityClass 实体类
+     * @param id 主键值，联合主键为所有主键字段值的 {@link java.util.List}
+     * @param <T> 实体类
+     * @return 缓存的实体对象，没有缓存则为 null
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T get(Class<?> entityClass, Object id) {
+        if (id == null || !isActive()) {
+            return null;
+        }
+        Map<Class<?>, Map<Object, Object>> entities = getEntities(false);
+        Map<Object, Object> map = (entities != null ? entities.get(entityClass) : null);
+        return (map != null ? (T) map.get(id) : null);
+    }
+
+    /**
+     * 在当前事务中缓存实体对象，没有实际的事务时不缓存
+     *
+     * @param entityClass 实体类
+     * @param id 主键值，联合主键为所有主键字段值的 {@link java.util.List}
+     * @param entity 实体对象
+     */
+    public static void put(Class<?> entityClass, Object id, Object entity) {
+        if (id == null || entity == null || !isActive()) {
+            return;
+        }
+        getEntities(true).computeIfAbsent(entityClass, key -> new HashMap<>()).put(id, entity);
+    }
+
+    /**
+     * 清除当前事务中缓存的实体对象
+     *
+     * @param entityClass 实体类
+     * @param id 主键值，联合主键为所有主键字段值的 {@link java.util.List}
+     */
+    public static void evict(Class<?> entityClass, Object id) {
+        Map<Class<?>, Map<Object, Object>> entities = getEntities(false);
+        Map<Object, Object> map = (entities != null ? entities.get(entityClass) : null);
+        if (map != null) {
+            map.remove(id);
+        }
+    }
+
+    /**
+     * 清除当前事务中缓存的实体类的所有实体对象，用于按条件更新、删除之后
+     *
+     * @param entityClass 实体类
+     */
+    public static void evictAll(Class<?> entityClass) {
+        Map<Class<?>, Map<Object, Object>> entities = getEntities(false);
+        if (entities != null) {
+            entities.remove(entityClass);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Class<?>, Map<Object, Object>> getEntities(boolean create) {
+        Object resource = TransactionSynchronizationManager.getResource(RESOURCE_KEY);
+        Map<Class<?>, Map<Object, Object>> entities = (Map<Class<?>, Map<Object, Object>>) resource;
+        if (entities == null && create) {
+            Map<Class<?>, Map<Object, Object>> newEntities = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(RESOURCE_KEY, newEntities);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void suspend() {
+                    // 挂起事务时（比如：Propagation.REQUIRES_NEW）解除绑定，新的事务使用自己的缓存
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RESOURCE_KEY);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(RESOURCE_KEY, newEntities);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RESOURCE_KEY);
+                }
+            });
+            entities = newEntities;
+        }
+        return entities;
+    }
+}
@@ -20,12 +20,11 @@ package app.myoss.cloud.mybatis.repository.v2.service.impl;
 import static app.myoss.cloud.mybatis.repository.utils.DbUtils.checkDBResult;
 
 import java.io.Serializable;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -33,30 +32,42 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.CollectionUtils;
 
 import app.myoss.cloud.core.constants.MyossConstants;
-import app.myoss.cloud.core.lang.bean.BeanUtil;
+import app.myoss.cloud.core.exception.BizRuntimeException;
 import app.myoss.cloud.core.lang.concurrent.CallableFunc;
 import app.myoss.cloud.core.lang.dto.Order;
 import app.myoss.cloud.core.lang.dto.Page;
 import app.myoss.cloud.core.lang.dto.Sort;
 import app.myoss.cloud.mybatis.constants.MybatisConstants;
+import app.myoss.cloud.mybatis.criteria.Aggregation;
+import app.myoss.cloud.mybatis.criteria.Aggregation.AggregateRow;
+import app.myoss.cloud.mybatis.criteria.Criteria;
+import app.myoss.cloud.mybatis.criteria.Projection;
 import app.myoss.cloud.mybatis.mapper.template.CrudMapper;
 import app.myoss.cloud.mybatis.repository.entity.LogicDeleteEntity;
 import app.myoss.cloud.mybatis.repository.entity.PrimaryKeyEntity;
 import app.myoss.cloud.mybatis.repository.utils.CrudServiceUtils;
+import app.myoss.cloud.mybatis.repository.utils.EntityChangeTracker;
+import app.myoss.cloud.mybatis.repository.utils.PreloadedTable;
+import app.myoss.cloud.mybatis.repository.utils.TransactionIdentityMap;
 import app.myoss.cloud.mybatis.repository.v2.service.CrudService;
 import app.myoss.cloud.mybatis.repository.v2.service.exception.BizServiceException;
 import app.myoss.cloud.mybatis.table.TableColumnInfo;
 import app.myoss.cloud.mybatis.table.TableInfo;
 import app.myoss.cloud.mybatis.table.TableMetaObject;
+import app.myoss.cloud.mybatis.table.annotation.Table;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -68,7 +79,7 @@ import lombok.extern.slf4j.Slf4j;
  * @since 2020年9月6日 下午2:17:20
  */
 @Slf4j
-public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudService<T> {
+public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudService<T>, DisposableBean {
     protected Class<?>            mapperClass;
     protected Class<?>            entityClass;
     protected TableInfo           tableInfo;
@@ -77,6 +88,19 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
      */
     protected Map<String, String> fieldColumns;
     protected M                   crudMapper;
+    /**
+     * 是否开启字段变更跟踪，开启之后查询出来的实体对象可以使用 {@link #updateChanged(Object)} 只更新有变化的字段
+     */
+    protected boolean             changeTracking;
+    protected EntityChangeTracker changeTracker;
+    /**
+     * 是否开启事务内的实体对象缓存，开启之后同一个事务中按主键查询同一条记录只访问一次数据库
+     */
+    protected boolean             identityMap;
+    /**
+     * 预加载到内存中的整张表，实体类没有开启 {@link Table#preload()} 则为 null
+     */
+    protected PreloadedTable<T>   preloadedTable;
 
     /**
      * 初始化实现数据库表增、删、改、查常用操作的基类
@@ -105,6 +129,173 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
         } else {
             log.error("[{}] getTableInfo failed in [{}]", this.entityClass, this.getClass());
         }
+        setChangeTracking(this.changeTracking);
+        if (this.preloadedTable != null) {
+            this.preloadedTable.close();
+            this.preloadedTable = null;
+        }
+        if (this.tableInfo != null && this.tableInfo.isPreload()) {
+            if (hasWhereExtend()) {
+                log.warn("[{}] defines Where_Extend, preload of [{}] is disabled, query the database instead",
+                        this.mapperClass, this.entityClass);
+                return;
+            }
+            Criteria<T> all = Criteria.of((Class<T>) this.entityClass);
+            this.preloadedTable = new PreloadedTable<>(this.tableInfo, () -> {
+                // 快照需要包含延迟加载的字段，从内存中查询时才能返回完整的实体对象
+                List<T> rows = this.crudMapper.selectListByCriteria(all);
+                CrudServiceUtils.loadLazyColumns(this.tableInfo, rows,
+                        this.crudMapper::selectListLazyColumnsWithPrimaryKey);
+                return rows;
+            });
+        }
+    }
+
+    /**
+     * Mapper 中是否定义了"自定义通用SQL查询条件"（{@code <sql id="Where_Extend">}），定义了则按实体对象条件查询时还有实体类字段之外的条件，
+     * 不能使用预加载到内存中的整张表
+     *
+     * @return true: 定义了 {@code Where_Extend}
+     */
+    protected boolean hasWhereExtend() {
+        Configuration configuration = this.tableInfo.getConfiguration();
+        return configuration != null && this.mapperClass != null
+                && configuration.getSqlFragments().containsKey(this.mapperClass.getName() + ".Where_Extend");
+    }
+
+    /**
+     * 停止预加载到内存中的整张表的定时重新加载
+     */
+    @Override
+    public void destroy() {
+        if (this.preloadedTable != null) {
+            this.preloadedTable.close();
+        }
+    }
+
+    /**
+     * 设置是否开启字段变更跟踪，开启之后查询出来的实体对象会保存一份字段值的快照，可以使用 {@link #updateChanged(Object)}
+     * 只更新有变化的字段
+     *
+     * @param changeTracking 是否开启字段变更跟踪
+     */
+    public void setChangeTracking(boolean changeTracking) {
+        this.changeTracking = changeTracking;
+        this.changeTracker = (changeTracking && this.tableInfo != null ? new EntityChangeTracker(this.tableInfo)
+                : null);
+    }
+
+    /**
+     * 设置是否开启事务内的实体对象缓存，开启之后同一个事务中按主键查询同一条记录只访问一次数据库，参考：{@link TransactionIdentityMap}
+     *
+     * @param identityMap 是否开启事务内的实体对象缓存
+     */
+    public void setIdentityMap(boolean identityMap) {
+        this.identityMap = identityMap;
+    }
+
+    /**
+     * 从当前事务的实体对象缓存中获取实体对象，开启事务内的实体对象缓存时才会使用
+     *
+     * @param id 主键值
+     * @return 缓存的实体对象，没有缓存则为 null
+     */
+    protected T getCachedEntity(Object id) {
+        return (identityMap ? TransactionIdentityMap.get(entityClass, id) : null);
+    }
+
+    /**
+     * 将按主键查询出来的实体对象保存到当前事务的实体对象缓存中，开启事务内的实体对象缓存时才会保存
+     *
+     * @param entity 实体对象
+     * @return 实体对象
+     */
+    protected T cacheEntity(T entity) {
+        if (identityMap && entity != null) {
+            TransactionIdentityMap.put(entityClass, CrudServiceUtils.getPrimaryKeyValue(tableInfo, entity), entity);
+        }
+        return entity;
+    }
+
+    /**
+     * 获取当前可以使用的预加载到内存中的整张表，当前事务中通过 {@code CrudService} 写入过这张表之后需要直接访问数据库
+     *
+     * @return 预加载到内存中的整张表，没有开启或者不能使用则为 null
+     */
+    protected PreloadedTable<T> getReadablePreloadedTable() {
+        return (preloadedTable != null && preloadedTable.isReadable() ? preloadedTable : null);
+    }
+
+    /**
+     * 获取当前可以按主键查询的预加载到内存中的整张表，联合主键需要直接访问数据库
+     *
+     * @return 预加载到内存中的整张表，没有开启或者不能使用则为 null
+     */
+    protected PreloadedTable<T> getPrimaryKeyPreloadedTable() {
+        PreloadedTable<T> preloaded = getReadablePreloadedTable();
+        return (preloaded != null && preloaded.isSinglePrimaryKey() ? preloaded : null);
+    }
+
+    /**
+     * 记录写入了预加载到内存中的整张表，写入之后（在事务中则是事务结束之后）重新加载。需要在写入数据库之后调用，否则并发的查询在写入之前重新加载，
+     * 快照会一直停留在旧的数据
+     */
+    protected void markPreloadWritten() {
+        if (preloadedTable != null) {
+            preloadedTable.markWritten();
+        }
+    }
+
+    /**
+     * 清除当前事务的实体对象缓存中主键相同的实体对象，用于按主键更新、删除之前
+     *
+     * @param record 待更新、删除的实体对象
+     * @return 被清除的实体对象，没有缓存则为 null
+     */
+    protected T evictCachedEntity(T record) {
+        if (!identityMap || record == null) {
+            return null;
+        }
+        Object id = CrudServiceUtils.getPrimaryKeyValue(tableInfo, record);
+        T cached = TransactionIdentityMap.get(entityClass, id);
+        TransactionIdentityMap.evict(entityClass, id);
+        return cached;
+    }
+
+    /**
+     * 清除当前事务的实体对象缓存中实体类的所有实体对象，用于按条件更新、删除之后
+     */
+    protected void evictAllCachedEntities() {
+        markPreloadWritten();
+        if (identityMap) {
+            TransactionIdentityMap.evictAll(entityClass);
+        }
+    }
+
+    /**
+     * 保存查询出来的实体对象的快照，开启字段变更跟踪时才会保存
+     *
+     * @param entity 实体对象
+     * @return 实体对象
+     */
+    protected T trackChanges(T entity) {
+        if (changeTracker != null) {
+            changeTracker.track(entity);
+        }
+        return entity;
+    }
+
+    /**
+     * 保存查询出来的实体对象的快照，开启字段变更跟踪时才会保存
+     *
+     * @param entities 实体对象
+     * @return 实体对象
+     */
+    protected List<T> trackChanges(List<T> entities) {
+        if (changeTracker != null) {
+            changeTracker.track(entities);
+        }
+        return entities;
     }
 
     /**
@@ -131,6 +322,18 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
         }
     }
 
+    /**
+     * 检查乐观锁的版本号是否为空，按主键更新的时候总是校验版本号，版本号为空的记录不能更新
+     *
+     * @param sqlCommandType 执行的 SQL 命令类型
+     * @param record 实体对象
+     */
+    protected void checkVersionIsNull(SqlCommandType sqlCommandType, Object record) {
+        if (CrudServiceUtils.isVersionNull(tableInfo, record)) {
+            throw new BizServiceException(MybatisConstants.VALUE_IS_BLANK, "乐观锁的版本号不能为空");
+        }
+    }
+
     /**
      * 检查实体和主键字段是否为空
      *
@@ -168,6 +371,28 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
         checkPrimaryKeyIsNull(sqlCommandType, condition);
     }
 
+    /**
+     * 检查查询条件是否为空，防止全表扫描
+     *
+     * @param criteria 查询条件
+     */
+    protected void checkCriteriaIsEmpty(Criteria<T> criteria) {
+        if (criteria == null || criteria.isEmpty()) {
+            throw new BizServiceException(MybatisConstants.VALUE_IS_BLANK, "查询条件不能为空");
+        }
+    }
+
+    /**
+     * 检查投影是否为空，转换为 DTO 对象的时候需要指定查询的字段
+     *
+     * @param projection 需要查询的字段
+     */
+    protected void checkProjectionIsEmpty(Projection<T> projection) {
+        if (projection == null) {
+            throw new BizServiceException(MybatisConstants.VALUE_IS_BLANK, "查询字段不能为空");
+        }
+    }
+
     /**
      * 校验分页查询条件字段是否有空值，默认不做任何校验，子类去重写
      *
@@ -247,13 +472,34 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
         return null;
     }
 
+    /**
+     * 获取判断记录是否存在的查询条件，用于"检查待保存的实体对象是否已经有存在相同的记录（幂等校验）"。返回的查询条件不为
+     * null 时，使用 {@link CrudMapper#exists(Object)} 判断，只查询一条记录，不再调用
+     * {@link #findExistRecord4CheckRecord(Object)}
+     *
+     * @param record 待保存的实体对象
+     * @return 查询条件，默认为 null
+     * @see #checkRecordIfExist4Create(Object)
+     */
+    protected T getExistCondition4CheckRecord(T record) {
+        return null;
+    }
+
     /**
      * 检查待保存的实体对象是否已经有存在相同的记录（幂等校验）
      *
      * @param record 实体对象
+     * @see #getExistCondition4CheckRecord(Object)
      * @see #findExistRecord4CheckRecord( Object)
      */
     protected void checkRecordIfExist4Create(T record) {
+        T existCondition = getExistCondition4CheckRecord(record);
+        if (existCondition != null) {
+            if (crudMapper.exists(existCondition)) {
+                throw new BizServiceException(MybatisConstants.MORE_RECORDS, "已经存在相同的记录");
+            }
+            return;
+        }
         List<T> exists = findExistRecord4CheckRecord(record);
         if (CollectionUtils.isEmpty(exists)) {
             return;
@@ -264,7 +510,7 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
         boolean hasNext = iterator.hasNext();
         while (hasNext) {
             TableColumnInfo columnInfo = iterator.next();
-            Object value = BeanUtil.methodInvoke(columnInfo.getPropertyDescriptor().getReadMethod(), item);
+            Object value = columnInfo.getValue(item);
             errorMsg.append(columnInfo.getProperty()).append("=").append(value);
             hasNext = iterator.hasNext();
             if (hasNext) {
@@ -311,13 +557,13 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
             // 使用主键字段比较
             List<Object> sourceValues = new ArrayList<>(primaryKeyColumns.size());
             for (TableColumnInfo columnInfo : primaryKeyColumns) {
-                Object value = BeanUtil.methodInvoke(columnInfo.getPropertyDescriptor().getReadMethod(), record);
+                Object value = columnInfo.getValue(record);
                 sourceValues.add(value);
             }
             for (T item : exists) {
                 List<Object> itemValues = new ArrayList<>(primaryKeyColumns.size());
                 for (TableColumnInfo columnInfo : primaryKeyColumns) {
-                    Object value = BeanUtil.methodInvoke(columnInfo.getPropertyDescriptor().getReadMethod(), item);
+                    Object value = columnInfo.getValue(item);
                     itemValues.add(value);
                 }
                 if (!Objects.deepEquals(sourceValues, itemValues)) {
@@ -425,7 +671,9 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
     protected <I> I createInner(T record, Object optionParam) {
         checkRecordIfExist4Create(record);
         setValue4Create(record, optionParam);
+        CrudServiceUtils.initVersion(tableInfo, record);
         boolean flag = checkDBResult(crudMapper.insert(record));
+        markPreloadWritten();
         if (flag) {
             return getPrimaryKeyValue(record);
         } else {
@@ -444,7 +692,7 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
         Object value = (size == 1 ? null : new Object[size]);
         int idx = 0;
         for (TableColumnInfo columnInfo : primaryKeyColumns) {
-            I tmp = BeanUtil.methodInvoke(columnInfo.getPropertyDescriptor().getReadMethod(), record);
+            I tmp = (I) columnInfo.getValue(record);
             if (size > 1) {
                 // 如果有多个主键字段，使用数组返回
                 ((Object[]) value)[idx++] = tmp;
@@ -464,10 +712,9 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
         }
         int idx = 0;
         for (TableColumnInfo columnInfo : primaryKeyColumns) {
-            Method writeMethod = columnInfo.getPropertyDescriptor().getWriteMethod();
             try {
-                writeMethod.invoke(record, value[idx++]);
-            } catch (IllegalAccessException | InvocationTargetException e) {
+                columnInfo.setValue(record, value[idx++]);
+            } catch (BizRuntimeException e) {
                 throw new BizServiceException(MybatisConstants.UPDATE_ENTITY_FIELD_FAILED,
                         "更新Entity主键失败，请检查。[" + record + ", " + Arrays.toString(value) + "]");
             }
@@ -517,7 +764,9 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
         // 先校验完数据格式，再设置字段的值
         for (T record : records) {
             setValue4Create(record, optionParam);
+            CrudServiceUtils.initVersion(tableInfo, record);
             boolean flag = checkDBResult(crudMapper.insert(record));
+            markPreloadWritten();
             if (!flag) {
                 throw new BizServiceException(MybatisConstants.INSERT_DB_FAILED, "插入失败，请检查。[" + record + "]");
             }
@@ -549,7 +798,9 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
         List<T> exists = findExistRecord4CheckRecord(record);
         if (CollectionUtils.isEmpty(exists)) {
             setValue4Create(record, optionParam);
+            CrudServiceUtils.initVersion(tableInfo, record);
             boolean flag = checkDBResult(crudMapper.insert(record));
+            markPreloadWritten();
             if (flag) {
                 return getPrimaryKeyValue(record);
             } else {
@@ -593,11 +844,17 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
     @Override
     public void updateByPrimaryKey(T record, Object optionParam) {
         checkPrimaryKeyIsNull(SqlCommandType.UPDATE, record);
+        checkVersionIsNull(SqlCommandType.UPDATE, record);
         validFieldValue(record, optionParam);
+        T cached = evictCachedEntity(record);
         updateByPrimaryKeyCallable(record, optionParam, () -> {
             updateByPrimaryKeyInner(record, optionParam);
             return true;
         });
+        if (cached == record) {
+            // 更新的就是缓存的实体对象，保留在缓存中
+            cacheEntity(record);
+        }
     }
 
     @Transactional(rollbackFor = Exception.class)
@@ -606,6 +863,115 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
         updateByPrimaryKey(record, null);
     }
 
+    @Override
+    public void updateByPrimaryKeyWithRetry(Serializable id, Consumer<T> updater, int maxAttempts) {
+        // 在外层的事务中重新读取的还是同一个快照（REPEATABLE READ），重试也会冲突，只执行一次
+        int attempts = (TransactionSynchronizationManager.isActualTransactionActive() ? 1 : maxAttempts);
+        for (int attempt = 1;; attempt++) {
+            T record = findByPrimaryKey(id);
+            if (record == null) {
+                throw new BizServiceException(MybatisConstants.NOT_MATCH_RECORDS, "更新失败，未匹配到相应的记录");
+            }
+            updater.accept(record);
+            try {
+                updateByPrimaryKey(record);
+                return;
+            } catch (BizServiceException ex) {
+                if (attempt >= attempts || !MybatisConstants.VERSION_CONFLICT.equals(ex.getErrorCode())) {
+                    throw ex;
+                }
+                log.info("[{}] update version conflict, id: {}, attempt: {}", tableInfo.getEntityClass(), id,
+                        attempt);
+            }
+        }
+    }
+
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public void updateChanged(T record) {
+        checkPrimaryKeyIsNull(SqlCommandType.UPDATE, record);
+        checkVersionIsNull(SqlCommandType.UPDATE, record);
+        Long changedColumns = (changeTracker != null ? changeTracker.getChangedColumns(record) : null);
+        if (changedColumns == null) {
+            // 没有快照，更新所有不为 null 的字段
+            updateByPrimaryKey(record);
+            trackChanges(record);
+            return;
+        }
+        if (changedColumns == 0) {
+            return;
+        }
+        validFieldValue(record, null);
+        T cached = evictCachedEntity(record);
+        updateByPrimaryKeyCallable(record, null, () -> {
+            updateChangedInner(record, changedColumns);
+            return true;
+        });
+        if (cached == record) {
+            // 更新的就是缓存的实体对象，保留在缓存中
+            cacheEntity(record);
+        }
+    }
+
+    /**
+     * 只更新有变化的字段，{@link #updateChanged(Object)} 方法的最后一步调用
+     *
+     * @param record 待更新的实体对象
+     * @param changedColumns 有变化的字段位掩码，参考：{@link EntityChangeTracker#getChangedColumns(Object)}
+     */
+    protected void updateChangedInner(T record, long changedColumns) {
+        checkRecordIfExist4Update(record);
+        setValue4Update(record, null);
+        boolean flag = checkDBResult(crudMapper.updateChangedByPrimaryKey(record, changedColumns));
+        markPreloadWritten();
+        if (!flag && isVersionConflict(record, true)) {
+            throw new BizServiceException(MybatisConstants.VERSION_CONFLICT, "更新失败，记录已经被修改，版本号不匹配");
+        } else if (!flag) {
+            throw new BizServiceException(MybatisConstants.NOT_MATCH_RECORDS, "更新失败，未匹配到相应的记录");
+        }
+        CrudServiceUtils.increaseVersion(tableInfo, record);
+        trackChanges(record);
+    }
+
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public void updateIncrement(T record, Map<String, ? extends Number> increments, Number floor) {
+        checkPrimaryKeyIsNull(SqlCommandType.UPDATE, record);
+        evictCachedEntity(record);
+        setValue4Update(record, null);
+        boolean flag = checkDBResult(crudMapper.updateIncrementByPrimaryKey(record, increments, floor));
+        markPreloadWritten();
+        if (!flag) {
+            throw new BizServiceException(MybatisConstants.NOT_MATCH_RECORDS, "更新失败，未匹配到相应的记录或者更新之后的值小于下限");
+        }
+    }
+
+    @Transactional(rollbackFor = Exception.class)
+    @Override
+    public int updateIncrementBatch(Collection<? extends Serializable> ids, Map<String, ? extends Number> increments,
+                                    Number floor) {
+        if (CollectionUtils.isEmpty(ids)) {
+            throw new BizServiceException(MybatisConstants.VALUE_IS_BLANK, "主键值不能为空");
+        }
+        T record = CrudServiceUtils.newEntity(tableInfo);
+        setValue4Update(record, null);
+        int rows = crudMapper.updateIncrementByListPrimaryKey(ids, record, increments, floor);
+        evictAllCachedEntities();
+        return rows;
+    }
+
+    /**
+     * 更新的记录数为0时，判断是否为乐观锁版本号不匹配：记录存在但是版本号不一致。记录不存在时返回 false，避免无意义的重试
+     *
+     * @param record 待更新的实体对象或者更新条件，版本号为 {@code null} 时不校验版本号，直接返回 false
+     * @param primaryKeyOnly true: 根据主键判断记录是否存在; false: 根据除版本号之外的所有字段判断记录是否存在
+     * @return true: 版本号不匹配; false: 未匹配到相应的记录
+     */
+    protected boolean isVersionConflict(T record, boolean primaryKeyOnly) {
+        return CrudServiceUtils.hasVersion(tableInfo, record)
+                && crudMapper.exists(CrudServiceUtils.newExistsCondition(tableInfo, record, primaryKeyOnly));
+    }
+
     /**
      * 用于重写更新的方法，比如加锁更新
      *
@@ -628,9 +994,13 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
         checkRecordIfExist4Update(record);
         setValue4Update(record, optionParam);
         boolean flag = checkDBResult(crudMapper.updateByPrimaryKey(record));
-        if (!flag) {
+        markPreloadWritten();
+        if (!flag && isVersionConflict(record, true)) {
+            throw new BizServiceException(MybatisConstants.VERSION_CONFLICT, "更新失败，记录已经被修改，版本号不匹配");
+        } else if (!flag) {
             throw new BizServiceException(MybatisConstants.NOT_MATCH_RECORDS, "更新失败，未匹配到相应的记录");
         }
+        CrudServiceUtils.increaseVersion(tableInfo, record);
     }
 
     @Transactional(rollbackFor = Exception.class)
@@ -675,7 +1045,10 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
         checkRecordIfExist4Update(record);
         setValue4Update(record, optionParam);
         boolean flag = checkDBResult(crudMapper.updateByCondition(record, condition));
-        if (!flag) {
+        evictAllCachedEntities();
+        if (!flag && isVersionConflict(condition, false)) {
+            throw new BizServiceException(MybatisConstants.VERSION_CONFLICT, "更新失败，记录已经被修改，版本号不匹配");
+        } else if (!flag) {
             throw new BizServiceException(MybatisConstants.NOT_MATCH_RECORDS, "更新失败，未匹配到相应的记录");
         }
     }
@@ -723,6 +1096,7 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
         setValue4Update(record, optionParam);
         Map<String, Object> updateMap = convertToUpdateUseMap(record);
         boolean flag = checkDBResult(crudMapper.updateUseMapByCondition(updateMap, condition));
+        evictAllCachedEntities();
         if (!flag) {
             throw new BizServiceException(MybatisConstants.NOT_MATCH_RECORDS, "更新失败，未匹配到相应的记录");
         }
@@ -732,7 +1106,9 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
     @Override
     public void deleteByPrimaryKey(T condition, Object optionParam) {
         checkPrimaryKeyIsNull(SqlCommandType.DELETE, condition);
+        evictCachedEntity(condition);
         boolean flag = checkDBResult(crudMapper.deleteWithPrimaryKey(condition));
+        markPreloadWritten();
         if (!flag) {
             throw new BizServiceException(MybatisConstants.NOT_MATCH_RECORDS, "更新失败，未匹配到相应的记录");
         }
@@ -749,6 +1125,7 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
     public void deleteByCondition(T condition, Object optionParam) {
         checkCommonQueryConditionIsAllNull(SqlCommandType.DELETE, condition, null);
         boolean flag = checkDBResult(crudMapper.deleteByCondition(condition));
+        evictAllCachedEntities();
         if (!flag) {
             throw new BizServiceException(MybatisConstants.NOT_MATCH_RECORDS, "更新失败，未匹配到相应的记录");
         }
@@ -763,25 +1140,86 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
     @Override
     public T findByPrimaryKey(Serializable id) {
         checkPrimaryKeyIsNull(SqlCommandType.SELECT, id);
-        return crudMapper.selectByPrimaryKey(id);
+        T cached = getCachedEntity(id);
+        if (cached != null) {
+            return cached;
+        }
+        PreloadedTable<T> preloaded = getPrimaryKeyPreloadedTable();
+        T entity = (preloaded != null ? preloaded.findByPrimaryKey(id) : crudMapper.selectByPrimaryKey(id));
+        return cacheEntity(trackChanges(entity));
     }
 
     @Override
     public T findByPrimaryKey(T condition) {
         checkPrimaryKeyIsNull(SqlCommandType.SELECT, condition);
-        return crudMapper.selectWithPrimaryKey(condition);
+        Object id = (identityMap ? CrudServiceUtils.getPrimaryKeyValue(tableInfo, condition) : null);
+        T cached = getCachedEntity(id);
+        if (cached != null) {
+            return cached;
+        }
+        PreloadedTable<T> preloaded = getReadablePreloadedTable();
+        T entity = (preloaded != null ? preloaded.findWithPrimaryKey(condition)
+                : crudMapper.selectWithPrimaryKey(condition));
+        return cacheEntity(trackChanges(entity));
     }
 
     @Override
     public T findOne(T condition) {
         checkCommonQueryConditionIsAllNull(SqlCommandType.SELECT, condition, null);
-        return crudMapper.selectOne(condition);
+        PreloadedTable<T> preloaded = getReadablePreloadedTable();
+        return trackChanges(preloaded != null ? preloaded.findOne(condition) : crudMapper.selectOne(condition));
+    }
+
+    @Override
+    public boolean exists(T condition) {
+        checkCommonQueryConditionIsAllNull(SqlCommandType.SELECT, condition, null);
+        PreloadedTable<T> preloaded = getReadablePreloadedTable();
+        return (preloaded != null ? preloaded.findCount(condition) > 0 : crudMapper.exists(condition));
+    }
+
+    @Override
+    public boolean existsByPrimaryKey(Serializable id) {
+        checkPrimaryKeyIsNull(SqlCommandType.SELECT, id);
+        if (getCachedEntity(id) != null) {
+            return true;
+        }
+        PreloadedTable<T> preloaded = getPrimaryKeyPreloadedTable();
+        return (preloaded != null ? preloaded.findByPrimaryKey(id) != null : crudMapper.existsByPrimaryKey(id));
+    }
+
+    @Override
+    public T findFirst(T condition, Sort sort) {
+        checkCommonQueryConditionIsAllNull(SqlCommandType.SELECT, condition, null);
+        List<T> list = crudMapper.selectPage(condition, 0, 1, convertToOrders(sort));
+        return trackChanges(list.isEmpty() ? null : list.get(0));
     }
 
     @Override
     public List<T> findList(T condition) {
         checkCommonQueryConditionIsAllNull(SqlCommandType.SELECT, condition, null);
-        return crudMapper.selectList(condition);
+        PreloadedTable<T> preloaded = getReadablePreloadedTable();
+        return trackChanges(preloaded != null ? preloaded.findList(condition) : crudMapper.selectList(condition));
+    }
+
+    @Override
+    public List<T> findList(T condition, Projection<T> projection) {
+        checkCommonQueryConditionIsAllNull(SqlCommandType.SELECT, condition, null);
+        return crudMapper.selectListColumns(condition, projection);
+    }
+
+    @Override
+    public <DTO> List<DTO> findList(T condition, Projection<T> projection, Class<DTO> dtoClass) {
+        checkProjectionIsEmpty(projection);
+        checkCommonQueryConditionIsAllNull(SqlCommandType.SELECT, condition, null);
+        return projection.convert(crudMapper.selectListColumns(condition, projection), dtoClass);
+    }
+
+    @Override
+    public void loadLazyColumns(List<T> records) {
+        CrudServiceUtils.loadLazyColumns(tableInfo, records, crudMapper::selectListLazyColumnsWithPrimaryKey);
+        if (changeTracker != null) {
+            changeTracker.trackLazyColumns(records);
+        }
     }
 
     @Override
@@ -791,13 +1229,14 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
         checkCommonQueryConditionIsAllNull(SqlCommandType.SELECT, param, extraInfo);
         Sort sort = condition.getSort();
         List<Order> orders = convertToOrders(sort);
-        return crudMapper.selectListWithSort2(param, extraInfo, orders);
+        return trackChanges(crudMapper.selectListWithSort2(param, extraInfo, orders));
     }
 
     @Override
     public Integer findCount(T condition) {
         checkCommonQueryConditionIsAllNull(SqlCommandType.SELECT, condition, null);
-        return crudMapper.selectCount(condition);
+        PreloadedTable<T> preloaded = getReadablePreloadedTable();
+        return (preloaded != null ? preloaded.findCount(condition) : crudMapper.selectCount(condition));
     }
 
     @Override
@@ -806,6 +1245,12 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
         return crudMapper.selectCount2(condition, extraCondition);
     }
 
+    @Override
+    public List<AggregateRow> findAggregate(T condition, Aggregation<T> aggregation) {
+        checkCommonQueryConditionIsAllNull(SqlCommandType.SELECT, condition, null);
+        return aggregation.convert(crudMapper.selectAggregate(condition, aggregation));
+    }
+
     @Override
     public Page<T> findPage(Page<T> condition) {
         Page<T> result = new Page<>();
@@ -830,7 +1275,7 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
 
     protected void pageQuery(Page<T> result, T param, Map<String, Object> extraInfo, int pageStart, int pageSize,
                              List<Order> orders) {
-        List<T> details = crudMapper.selectPage2(param, extraInfo, pageStart, pageSize, orders);
+        List<T> details = trackChanges(crudMapper.selectPage2(param, extraInfo, pageStart, pageSize, orders));
         int totalCount = crudMapper.selectCount2(param, extraInfo);
         result.setValue(details).setTotalCount(totalCount).setPageSize(pageSize);
     }
@@ -861,4 +1306,35 @@ public class BaseCrudServiceImpl<M extends CrudMapper<T>, T> implements CrudServ
     protected <DTO> List<DTO> pageHelperQuery(Object param, Page<DTO> condition) {
         return null;
     }
+
+    @Override
+    public List<T> findListByCriteria(Criteria<T> criteria) {
+        checkCriteriaIsEmpty(criteria);
+        return trackChanges(crudMapper.selectListByCriteria(criteria));
+    }
+
+    @Override
+    public Integer findCountByCriteria(Criteria<T> criteria) {
+        checkCriteriaIsEmpty(criteria);
+        return crudMapper.selectCountByCriteria(criteria);
+    }
+
+    @Override
+    public Page<T> findPageByCriteria(Criteria<T> criteria, int pageNum, int pageSize) {
+        checkCriteriaIsEmpty(criteria);
+        Page<T> result = new Page<>();
+        int dbPageNum = Math.max(0, pageNum - 1);
+        int pageStart = dbPageNum * pageSize;
+        List<T> details = trackChanges(crudMapper.selectPageByCriteria(criteria, pageStart, pageSize));
+        int totalCount = crudMapper.selectCountByCriteria(criteria);
+        result.setValue(details).setTotalCount(totalCount).setPageSize(pageSize);
+        result.setPageNum(dbPageNum + 1);
+        return result;
+    }
+
+    @Override
+    public void findStreamByCriteria(Criteria<T> criteria, Consumer<T> consumer) {
+        checkCriteriaIsEmpty(criteria);
+        crudMapper.selectStreamByCriteria(criteria, context -> consumer.accept(context.getResultObject()));
+    }
 }
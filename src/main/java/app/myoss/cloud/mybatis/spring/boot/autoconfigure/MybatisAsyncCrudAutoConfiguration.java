@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.spring.boot.autoconfigure;
+
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+
+import app.myoss.cloud.mybatis.repository.utils.AsyncCrudExecutor;
+
+/**
+ * MyBatis 异步执行数据库操作 Spring Boot项目自动配置，配置 {@code mybatis.async-crud.enabled=true} 时生效，配合
+ * {@link app.myoss.cloud.mybatis.repository.service.AsyncCrudService} 使用
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月24日 下午3:05:12
+ */
+@ConditionalOnProperty(prefix = MybatisProperties.MYBATIS_PREFIX, value = "async-crud.enabled", havingValue = "true")
+@EnableConfigurationProperties({ MybatisProperties.class })
+@Configuration
+public class MybatisAsyncCrudAutoConfiguration {
+    /**
+     * 异步执行数据库操作的执行器，容器中的 {@link TaskDecorator} 用于传递调用方线程的上下文，容器关闭时关闭线程池
+     *
+     * @param properties MyBatis Spring Boot项目配置属性
+     * @param taskDecorators 传递调用方线程上下文的装饰器
+     * @return AsyncCrudExecutor
+     */
+    @ConditionalOnMissingBean(AsyncCrudExecutor.class)
+    @Bean(destroyMethod = "shutdown")
+    public AsyncCrudExecutor asyncCrudExecutor(MybatisProperties properties,
+                                               ObjectProvider<TaskDecorator> taskDecorators) {
+        MybatisProperties.AsyncCrud asyncCrud = properties.getAsyncCrud();
+        return new AsyncCrudExecutor(asyncCrud.getMaxConcurrency(), asyncCrud.getQueueCapacity(),
+                taskDecorators.orderedStream().collect(Collectors.toList()));
+    }
+}
@@ -38,6 +38,7 @@ import org.mybatis.spring.mapper.MapperFactoryBean;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
@@ -67,6 +68,7 @@ import org.springframework.util.StringUtils;
 import app.myoss.cloud.mybatis.mapper.register.MapperInterfaceRegister;
 import app.myoss.cloud.mybatis.plugin.ParameterHandlerCustomizer;
 import app.myoss.cloud.mybatis.plugin.ParameterHandlerInterceptor;
+import app.myoss.cloud.mybatis.spring.boot.autoconfigure.MybatisProperties.MapperRegister;
 import app.myoss.cloud.mybatis.spring.boot.autoconfigure.MybatisProperties.MapperScanner;
 import app.myoss.cloud.mybatis.spring.mapper.ClassPathMapperScanner;
 import app.myoss.cloud.mybatis.spring.mapper.MapperScannerConfigurer;
@@ -310,10 +312,39 @@ public class MybatisAutoConfiguration {
      *
      * @return MapperInterfaceRegister 实例对象
      */
-    @Bean
+    @Bean(destroyMethod = "shutdown")
     @ConditionalOnMissingBean
     public MapperInterfaceRegister mapperInterfaceRegister() {
-        return new MapperInterfaceRegister(this.properties.getTableConfig());
+        MapperInterfaceRegister mapperInterfaceRegister = new MapperInterfaceRegister(
+                this.properties.getTableConfig());
+        MapperRegister mapperRegister = this.properties.getMapperRegister();
+        if (mapperRegister != null) {
+            mapperInterfaceRegister.setParallel(mapperRegister.isParallel());
+            mapperInterfaceRegister.setParallelism(mapperRegister.getParallelism());
+            mapperInterfaceRegister.setLazy(mapperRegister.isLazy());
+            mapperInterfaceRegister.setWarmUpMethods(mapperRegister.getWarmUpMethods());
+        }
+        return mapperInterfaceRegister;
+    }
+
+    /**
+     * 所有的单例 Bean 都初始化完成之后，批量注册开启并行注册时收集的 Mapper Interface，然后在后台预先生成延迟生成的 sql
+     * 语句。只在开启并行注册或者延迟生成时注册
+     *
+     * @param mapperInterfaceRegister 通用 Mapper 接口注册器
+     * @return SmartInitializingSingleton 实例对象
+     * @see MapperInterfaceRegister#executePendingRegister()
+     * @see MapperInterfaceRegister#warmUp()
+     */
+    @ConditionalOnExpression("${" + MybatisProperties.MYBATIS_PREFIX + ".mapper-register.parallel:false} or ${"
+            + MybatisProperties.MYBATIS_PREFIX + ".mapper-register.lazy:false}")
+    @Bean
+    public SmartInitializingSingleton mapperInterfaceRegisterInitializer(
+            MapperInterfaceRegister mapperInterfaceRegister) {
+        return () -> {
+            mapperInterfaceRegister.executePendingRegister();
+            mapperInterfaceRegister.warmUp();
+        };
     }
 
     /**
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.spring.boot.autoconfigure;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import app.myoss.cloud.mybatis.plugin.FillValueRegistry;
+import app.myoss.cloud.mybatis.plugin.ParameterHandlerCustomizer;
+import app.myoss.cloud.mybatis.plugin.impl.FillRuleParameterHandlerCustomizer;
+import app.myoss.cloud.mybatis.table.annotation.Column;
+
+/**
+ * 根据 {@link Column#fillRule()} 自动填充字段值 Spring Boot项目自动配置，配置 {@code mybatis.fill-rule.enabled=true}
+ * 时生效。默认使用 {@link FillValueRegistry#auditFillValueRegistry()}，可以自定义 {@link FillValueRegistry} Bean
+ * 注册其它的填充值
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月14日 上午10:21:08
+ */
+@ConditionalOnProperty(prefix = MybatisProperties.MYBATIS_PREFIX, value = "fill-rule.enabled", havingValue = "true")
+@EnableConfigurationProperties({ MybatisProperties.class })
+@AutoConfigureAfter(MybatisAutoConfiguration.class)
+@Configuration
+public class MybatisFillRuleAutoConfiguration {
+    /**
+     * 字段填充值注册器
+     *
+     * @return FillValueRegistry
+     */
+    @ConditionalOnMissingBean(FillValueRegistry.class)
+    @Bean
+    public FillValueRegistry fillValueRegistry() {
+        return FillValueRegistry.auditFillValueRegistry();
+    }
+
+    /**
+     * 根据 {@link Column#fillRule()} 自动填充字段值的 Mybatis 参数处理
+     *
+     * @param fillValueRegistry 字段填充值注册器
+     * @return FillRuleParameterHandlerCustomizer
+     */
+    @ConditionalOnMissingBean(ParameterHandlerCustomizer.class)
+    @Bean
+    public FillRuleParameterHandlerCustomizer fillRuleParameterHandlerCustomizer(FillValueRegistry fillValueRegistry) {
+        return new FillRuleParameterHandlerCustomizer(fillValueRegistry);
+    }
+
+    /**
+     * 所有的单例 Bean 都初始化完成之后（所有的实体类都已经注册），编译所有实体类需要填充的字段
+     *
+     * @param fillValueRegistry 字段填充值注册器
+     * @return SmartInitializingSingleton 实例对象
+     * @see FillValueRegistry#compileAll()
+     */
+    @Bean
+    public SmartInitializingSingleton fillValueRegistryInitializer(FillValueRegistry fillValueRegistry) {
+        return fillValueRegistry::compileAll;
+    }
+}
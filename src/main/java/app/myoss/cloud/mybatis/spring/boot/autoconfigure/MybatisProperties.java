@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import org.apache.ibatis.session.Configuration;
@@ -31,6 +32,8 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
 
+import app.myoss.cloud.mybatis.mapper.register.MapperInterfaceRegister;
+import app.myoss.cloud.mybatis.repository.utils.AsyncCrudExecutor;
 import app.myoss.cloud.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration.AutoConfiguredMapperScannerRegistrar2;
 import app.myoss.cloud.mybatis.table.TableConfig;
 import app.myoss.cloud.mybatis.table.annotation.Table;
@@ -118,6 +121,34 @@ public class MybatisProperties {
      */
     private MapperScanner                        mapperScanner;
 
+    /**
+     * 通用 Mapper 接口注册器配置
+     *
+     * @see MapperInterfaceRegister
+     */
+    private MapperRegister                       mapperRegister                = new MapperRegister();
+
+    /**
+     * 水平分表配置
+     *
+     * @see MybatisShardingAutoConfiguration
+     */
+    private Sharding                             sharding                      = new Sharding();
+
+    /**
+     * 异步执行数据库操作配置
+     *
+     * @see MybatisAsyncCrudAutoConfiguration
+     */
+    private AsyncCrud                            asyncCrud                     = new AsyncCrud();
+
+    /**
+     * 根据 {@link app.myoss.cloud.mybatis.table.annotation.Column#fillRule()} 自动填充字段值配置
+     *
+     * @see MybatisFillRuleAutoConfiguration
+     */
+    private FillRule                             fillRule                      = new FillRule();
+
     /**
      * 获取 MyBatis xml 文件
      *
@@ -163,4 +194,73 @@ public class MybatisProperties {
          */
         private Class<?>                    markerInterface;
     }
+
+    /**
+     * 通用 Mapper 接口注册器配置
+     */
+    @Data
+    public static class MapperRegister {
+        /**
+         * 是否开启并行注册，实体类的数据库表结构信息和 SqlSource 的生成会分发到 ForkJoinPool 中执行
+         */
+        private boolean     parallel;
+        /**
+         * 并行注册时使用的线程数，默认为 CPU 核数
+         */
+        private int         parallelism = Runtime.getRuntime().availableProcessors();
+        /**
+         * 是否开启延迟生成，注册时不生成 sql 语句，第一次执行时才生成
+         */
+        private boolean     lazy;
+        /**
+         * 开启延迟生成时，应用启动完成后在后台预先生成 sql 语句的模版方法名，如：selectByPrimaryKey
+         */
+        private Set<String> warmUpMethods;
+    }
+
+    /**
+     * 水平分表配置
+     */
+    @Data
+    public static class Sharding {
+        /**
+         * 是否开启水平分表，开启之后自动注册 {@link app.myoss.cloud.mybatis.plugin.ShardingInterceptor}
+         */
+        private boolean enabled;
+        /**
+         * 并行查询所有物理表的最大线程数，默认为 CPU 核数，小于等于0表示依次查询
+         */
+        private int     scatterThreads = Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * 异步执行数据库操作配置
+     */
+    @Data
+    public static class AsyncCrud {
+        /**
+         * 是否开启异步执行，开启之后自动注册 {@link AsyncCrudExecutor}
+         */
+        private boolean enabled;
+        /**
+         * 同时执行的数据库操作最大数量，建议设置为数据库连接池的大小
+         */
+        private int     maxConcurrency = 10;
+        /**
+         * 等待执行的任务最大数量，队列满了之后提交的任务会失败
+         */
+        private int     queueCapacity  = AsyncCrudExecutor.DEFAULT_QUEUE_CAPACITY;
+    }
+
+    /**
+     * 自动填充字段值配置
+     */
+    @Data
+    public static class FillRule {
+        /**
+         * 是否开启自动填充字段值，开启之后自动注册
+         * {@link app.myoss.cloud.mybatis.plugin.impl.FillRuleParameterHandlerCustomizer}
+         */
+        private boolean enabled;
+    }
 }
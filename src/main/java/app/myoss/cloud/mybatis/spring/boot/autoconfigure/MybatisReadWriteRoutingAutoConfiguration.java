@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.spring.boot.autoconfigure;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+import app.myoss.cloud.mybatis.datasource.ForcePrimary;
+import app.myoss.cloud.mybatis.datasource.ForcePrimaryMethodInterceptor;
+import app.myoss.cloud.mybatis.datasource.ReadWriteRoutingDataSource;
+import app.myoss.cloud.mybatis.plugin.ReadWriteRoutingInterceptor;
+
+/**
+ * MyBatis 读写分离 Spring Boot项目自动配置，容器中有 {@link ReadWriteRoutingDataSource} 时生效（{@code @Bean}
+ * 方法的返回值类型需要声明为 {@link ReadWriteRoutingDataSource}）
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月22日 上午11:20:35
+ */
+@ConditionalOnProperty(prefix = MybatisProperties.MYBATIS_PREFIX, value = "enabled", matchIfMissing = true)
+@ConditionalOnBean(ReadWriteRoutingDataSource.class)
+@AutoConfigureBefore(MybatisAutoConfiguration.class)
+@Configuration
+public class MybatisReadWriteRoutingAutoConfiguration {
+    /**
+     * 读写分离的 Executor 拦截器
+     *
+     * @return ReadWriteRoutingInterceptor
+     */
+    @ConditionalOnMissingBean(ReadWriteRoutingInterceptor.class)
+    @Bean
+    public ReadWriteRoutingInterceptor readWriteRoutingInterceptor() {
+        return new ReadWriteRoutingInterceptor();
+    }
+
+    /**
+     * 处理 {@link ForcePrimary} 注解的切面，在事务切面之前执行
+     *
+     * @return Advisor
+     */
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnMissingBean(name = "forcePrimaryAdvisor")
+    @Bean
+    public static Advisor forcePrimaryAdvisor() {
+        ComposablePointcut pointcut = new ComposablePointcut(
+                AnnotationMatchingPointcut.forClassAnnotation(ForcePrimary.class))
+                        .union(AnnotationMatchingPointcut.forMethodAnnotation(ForcePrimary.class));
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, new ForcePrimaryMethodInterceptor());
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.spring.boot.autoconfigure;
+
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import app.myoss.cloud.mybatis.plugin.ShardingInterceptor;
+import app.myoss.cloud.mybatis.table.annotation.Table;
+
+/**
+ * MyBatis 水平分表 Spring Boot项目自动配置，配置 {@code mybatis.sharding.enabled=true} 时生效，配合
+ * {@link Table#shardingKey()} 使用
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月24日 下午7:12:40
+ */
+@ConditionalOnProperty(prefix = MybatisProperties.MYBATIS_PREFIX, value = "sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties({ MybatisProperties.class })
+@AutoConfigureBefore(MybatisAutoConfiguration.class)
+@Configuration
+public class MybatisShardingAutoConfiguration {
+    /**
+     * 水平分表拦截器，容器关闭时关闭并行查询的线程池
+     *
+     * @param properties MyBatis Spring Boot项目配置属性
+     * @return ShardingInterceptor
+     */
+    @ConditionalOnMissingBean(ShardingInterceptor.class)
+    @Bean(destroyMethod = "shutdown")
+    public ShardingInterceptor shardingInterceptor(MybatisProperties properties) {
+        return new ShardingInterceptor(properties.getSharding().getScatterThreads());
+    }
+}
@@ -98,6 +98,11 @@ public class MapperFactoryBean<T> extends org.mybatis.spring.mapper.MapperFactor
             Configuration configuration = getSqlSession().getConfiguration();
             mapperInterfaceRegister.setConfiguration(configuration);
         }
-        mapperInterfaceRegister.executeRegister(getMapperInterface());
+        if (mapperInterfaceRegister.isParallel()) {
+            // 并行注册时先收集起来，在所有的单例 Bean 初始化完成之后，一次性批量注册
+            mapperInterfaceRegister.addPendingRegister(getMapperInterface());
+        } else {
+            mapperInterfaceRegister.executeRegister(getMapperInterface());
+        }
     }
 }
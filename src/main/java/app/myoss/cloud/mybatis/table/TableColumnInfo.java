@@ -19,9 +19,12 @@ package app.myoss.cloud.mybatis.table;
 
 import java.beans.PropertyDescriptor;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 import org.apache.ibatis.type.TypeHandler;
 
+import app.myoss.cloud.mybatis.table.annotation.Column;
 import app.myoss.cloud.mybatis.table.annotation.FillRule;
 import lombok.Data;
 import lombok.ToString;
@@ -32,7 +35,7 @@ import lombok.ToString;
  * @author Jerry.Chen
  * @since 2018年4月26日 上午11:05:13
  */
-@ToString(exclude = "tableInfo")
+@ToString(exclude = { "tableInfo", "tableProperty" })
 @Data
 public class TableColumnInfo {
     /**
@@ -61,9 +64,14 @@ public class TableColumnInfo {
      */
     private Class<?>              javaType;
     /**
-     * 属性getter/setter方法
+     * 属性getter/setter方法，使用编译期生成的 {@link TableDescriptor} 时为 null，请使用
+     * {@link #getValue(Object)}、{@link #setValue(Object, Object)}
      */
     private PropertyDescriptor    propertyDescriptor;
+    /**
+     * 实体类的属性信息，包含预先编译好的 getter/setter 函数
+     */
+    private TableProperty         tableProperty;
 
     /**
      * 是否为主键字段
@@ -95,11 +103,23 @@ public class TableColumnInfo {
      * generated by the persistence provider.
      */
     private boolean               selectable    = true;
+    /**
+     * 字段是否延迟加载，参考 {@link Column#lazy()}
+     */
+    private boolean               lazy;
+    /**
+     * 是否为乐观锁的版本号字段，参考 {@link Column#version()}
+     */
+    private boolean               version;
 
     /**
      * 字段填充规则，用于 SQL 语句在 INSERT/UPDATE 的时候，字段是否需要进行填充，参考 {@link FillRule} 的详细说明
      */
     private Map<FillRule, String> fillRules;
+    /**
+     * 字段填充值的名称，参考 {@link Column#fillValue()}
+     */
+    private String                fillValue;
 
     /**
      * 逻辑删除数据，软删除，用字段标记数据被删除了，不做物理删除
@@ -123,6 +143,44 @@ public class TableColumnInfo {
         return (escapedColumn != null ? escapedColumn : column);
     }
 
+    /**
+     * 获取此字段预先编译好的 getter 函数，批量处理实体对象时可以先取出函数再循环调用
+     *
+     * @return getter 函数
+     */
+    public Function<Object, Object> getGetter() {
+        return tableProperty.getGetter();
+    }
+
+    /**
+     * 获取此字段预先编译好的 setter 函数
+     *
+     * @return setter 函数
+     */
+    public BiConsumer<Object, Object> getSetter() {
+        return tableProperty.getSetter();
+    }
+
+    /**
+     * 读取实体对象中此字段的属性值
+     *
+     * @param entity 实体对象
+     * @return 属性值
+     */
+    public Object getValue(Object entity) {
+        return tableProperty.getGetter().apply(entity);
+    }
+
+    /**
+     * 设置实体对象中此字段的属性值
+     *
+     * @param entity 实体对象
+     * @param value 属性值
+     */
+    public void setValue(Object entity, Object value) {
+        tableProperty.getSetter().accept(entity, value);
+    }
+
     /**
      * 是否包含某种字段填充规则
      *
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.table;
+
+import java.util.List;
+
+import app.myoss.cloud.mybatis.table.annotation.SequenceGenerator;
+import app.myoss.cloud.mybatis.table.annotation.Table;
+import app.myoss.cloud.mybatis.table.processor.TableDescriptorProcessor;
+
+/**
+ * 实体类的描述信息，由 {@link TableDescriptorProcessor} 在编译期为 {@link Table} 实体类生成，类名为：实体类名 +
+ * {@link #CLASS_NAME_SUFFIX}。初始化"数据库表结构信息"时优先使用它，不再通过反射扫描实体类的字段和 getter/setter 方法
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月10日 下午3:12:41
+ * @see TableMetaObject#getTableDescriptor(Class)
+ */
+public interface TableDescriptor {
+    /**
+     * 生成的描述信息类名后缀
+     */
+    String CLASS_NAME_SUFFIX = "_TableDescriptor";
+
+    /**
+     * 获取实体类class
+     *
+     * @return 实体类class
+     */
+    Class<?> getEntityClass();
+
+    /**
+     * 获取实体类上的 {@link Table} 注解
+     *
+     * @return 没有则为 null
+     */
+    Table getTable();
+
+    /**
+     * 获取实体类上的 {@link SequenceGenerator} 注解
+     *
+     * @return 没有则为 null
+     */
+    SequenceGenerator getSequenceGenerator();
+
+    /**
+     * 获取实体类的所有属性信息，排除 static, transient 字段，父类中的字段排在前面
+     *
+     * @return 所有属性信息
+     */
+    List<TableProperty> getProperties();
+}
@@ -25,6 +25,8 @@ import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.session.Configuration;
 
 import app.myoss.cloud.mybatis.table.annotation.Column;
+import app.myoss.cloud.mybatis.table.annotation.Table;
+import app.myoss.cloud.mybatis.table.sharding.ShardingStrategy;
 import lombok.Data;
 import lombok.ToString;
 
@@ -44,7 +46,7 @@ public class TableInfo {
      * <p>
      * Defaults to the default catalog.
      */
-    private String               catalog;
+    private String                catalog;
     /**
      * 数据库中的schema，如果设置了此属性，将在表名前面加上schema指定的值
      * <p>
@@ -52,46 +54,46 @@ public class TableInfo {
      * <p>
      * Defaults to the default schema for user.
      */
-    private String               schema;
+    private String                schema;
     /**
      * 表名称
      */
-    private String               tableName;
+    private String                tableName;
     /**
      * 编码之后的数据库表名，比如：表名是关键字、有空格
      */
-    private String               escapedTableName;
+    private String                escapedTableName;
     /**
      * 实体类class
      */
-    private Class<?>             entityClass;
+    private Class<?>              entityClass;
     /**
      * 关联的 mapper interface class，可能会有多个
      */
-    private List<Class<?>>       mapperInterfaceClass;
+    private List<Class<?>>        mapperInterfaceClass;
 
     /**
      * 表字段信息
      */
-    private Set<TableColumnInfo> columns;
+    private Set<TableColumnInfo>  columns;
 
     /**
      * 表主键ID
      */
-    private Set<TableColumnInfo> primaryKeyColumns;
+    private Set<TableColumnInfo>  primaryKeyColumns;
     /**
      * 数据库表"序列生成器"属性配置
      */
-    private TableSequence        tableSequence;
+    private TableSequence         tableSequence;
 
     /**
      * 逻辑删除数据，软删除，用字段标记数据被删除了，不做物理删除
      */
-    private boolean              logicDelete = false;
+    private boolean               logicDelete = false;
     /**
      * 逻辑删除字段信息
      */
-    private Set<TableColumnInfo> logicDeleteColumns;
+    private Set<TableColumnInfo>  logicDeleteColumns;
 
     /**
      * 自定义枚举字段信息
@@ -99,68 +101,124 @@ public class TableInfo {
      * @see app.myoss.cloud.mybatis.type.EnumValueMappedType
      * @see app.myoss.cloud.mybatis.type.EnumValue
      */
-    private Set<TableColumnInfo> customEnumValueColumns;
+    private Set<TableColumnInfo>  customEnumValueColumns;
+
+    /**
+     * 延迟加载的字段信息，不会包含在默认的 SELECT 语句中
+     *
+     * @see Column#lazy()
+     */
+    private Set<TableColumnInfo>  lazyColumns;
+
+    /**
+     * 乐观锁的版本号字段信息，没有则为 null
+     *
+     * @see Column#version()
+     */
+    private TableColumnInfo       versionColumn;
+
+    /**
+     * 水平分表字段信息，不分表则为 null
+     *
+     * @see Table#shardingKey()
+     */
+    private TableColumnInfo       shardingColumn;
+
+    /**
+     * 水平分表的数量
+     *
+     * @see Table#shardingCount()
+     */
+    private int                   shardingCount;
+
+    /**
+     * 水平分表策略
+     *
+     * @see Table#shardingStrategy()
+     */
+    private ShardingStrategy      shardingStrategy;
+
+    /**
+     * 是否将整张表预加载到内存中
+     *
+     * @see Table#preload()
+     */
+    private boolean               preload;
+
+    /**
+     * 预加载到内存中时，需要建立哈希索引的字段信息
+     *
+     * @see Table#preloadIndexes()
+     */
+    private List<TableColumnInfo> preloadIndexColumns;
+
+    /**
+     * 预加载到内存中时，定时重新加载整张表的间隔（毫秒）
+     *
+     * @see Table#preloadRefreshMillis()
+     */
+    private long                  preloadRefreshMillis;
 
     /**
      * 生成实体的 BaseResultMap 对象，表映射结果集
      *
      * @see TableMetaObject#builderBaseResultMap(TableInfo, Configuration)
      */
-    private ResultMap            baseResultMap;
+    private ResultMap             baseResultMap;
 
     /**
      * 生成 select 查询所有列sql语句
      *
      * @see TableMetaObject#builderSelectAllColumns(TableInfo)
      */
-    private String               selectAllColumnsSql;
+    private String                selectAllColumnsSql;
     /**
      * 生成 where 主键条件sql语句
      *
      * @see TableMetaObject#builderWherePrimaryKeySql(TableInfo, boolean)
      */
-    private StringBuilder        wherePrimaryKeySql;
+    private StringBuilder         wherePrimaryKeySql;
     /**
      * 生成 where 主键条件sql语句，不会过滤掉已经被标记为逻辑删除（{@link Column#logicDelete}）的数据
      *
      * @see TableMetaObject#builderWherePrimaryKeySql(TableInfo, boolean)
      */
-    private StringBuilder        wherePrimaryKeyIncludeLogicDeleteSql;
+    private StringBuilder         wherePrimaryKeyIncludeLogicDeleteSql;
     /**
      * 生成 where 所有条件sql语句
      *
      * @see TableMetaObject#builderWhereConditionSql(TableInfo, boolean)
      */
-    private StringBuilder        whereConditionSql;
+    private StringBuilder         whereConditionSql;
     /**
      * 生成 where 所有条件sql语句，不会过滤掉已经被标记为逻辑删除（{@link Column#logicDelete}）的数据
      *
      * @see TableMetaObject#builderWhereConditionSql(TableInfo, boolean)
      */
-    private StringBuilder        whereConditionIncludeLogicDeleteSql;
+    private StringBuilder         whereConditionIncludeLogicDeleteSql;
     /**
      * 生成 where 所有条件sql语句，带有参数前缀
      *
      * @see TableMetaObject#builderWhereConditionWithParameterSql(TableInfo,
      *      boolean, String)
      */
-    private StringBuilder        whereConditionWithParameterSql;
+    private StringBuilder         whereConditionWithParameterSql;
     /**
      * 生成 where 所有条件sql语句，带有参数前缀，不会过滤掉已经被标记为逻辑删除（{@link Column#logicDelete}）的数据
      *
      * @see TableMetaObject#builderWhereConditionWithParameterSql(TableInfo,
      *      boolean, String)
      */
-    private StringBuilder        whereConditionWithParameterIncludeLogicDeleteSql;
+    private StringBuilder         whereConditionWithParameterIncludeLogicDeleteSql;
 
     /**
      * Table全局配置
      */
-    private TableConfig          tableConfig;
+    private TableConfig           tableConfig;
     /**
      * MyBatis 全局配置
      */
-    private Configuration        configuration;
+    private Configuration         configuration;
 
     /**
      * 获取表名称，优先取 {@link #escapedTableName}，如果没有则取 {@link #tableName}
@@ -171,6 +229,15 @@ public class TableInfo {
         return (escapedTableName != null ? escapedTableName : tableName);
     }
 
+    /**
+     * 是否水平分表
+     *
+     * @return true: 水平分表
+     */
+    public boolean isSharding() {
+        return shardingColumn != null;
+    }
+
     /**
      * 设置关联的 mapper interface class
      *
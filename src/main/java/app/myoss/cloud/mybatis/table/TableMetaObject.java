@@ -22,12 +22,18 @@ import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.lang.annotation.Annotation;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -35,6 +41,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -49,8 +56,10 @@ import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.TypeHandler;
 import org.apache.ibatis.type.TypeHandlerRegistry;
+import org.springframework.beans.BeanUtils;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ReflectionUtils;
 
 import app.myoss.cloud.core.exception.BizRuntimeException;
 import app.myoss.cloud.core.utils.NameStyle;
@@ -228,8 +237,10 @@ public class TableMetaObject {
         tableInfo = new TableInfo();
         tableInfo.setCatalog(config.getCatalog());
         tableInfo.setSchema(config.getSchema());
-        if (entityClass.isAnnotationPresent(Table.class)) {
-            Table table = entityClass.getAnnotation(Table.class);
+        // 优先使用编译期生成的实体类描述信息
+        TableDescriptor tableDescriptor = getTableDescriptor(entityClass);
+        Table table = (tableDescriptor != null ? tableDescriptor.getTable() : entityClass.getAnnotation(Table.class));
+        if (table != null) {
             String catalog = StringUtils.defaultIfBlank(table.catalog(), config.getCatalog());
             String schema = StringUtils.defaultIfBlank(table.schema(), config.getSchema());
             tableInfo.setCatalog(catalog);
@@ -250,7 +261,8 @@ public class TableMetaObject {
             tableInfo.setTableName(tableName);
         }
         tableInfo.setEntityClass(entityClass);
-        initTableSequence(entityClass.getAnnotation(SequenceGenerator.class), tableInfo, null);
+        initTableSequence((tableDescriptor != null ? tableDescriptor.getSequenceGenerator()
+                : entityClass.getAnnotation(SequenceGenerator.class)), tableInfo, null);
         TableSequence tableSequence = tableInfo.getTableSequence();
         String[] keyProperties = (tableSequence != null ? tableSequence.getKeyProperties() : null);
         String[] keyColumns = new String[(keyProperties != null ? keyProperties.length : 0)];
@@ -262,23 +274,20 @@ public class TableMetaObject {
         Set<TableColumnInfo> pkColumns = new LinkedHashSet<>();
         Set<TableColumnInfo> logicDeleteColumns = new LinkedHashSet<>();
         Set<TableColumnInfo> customEnumValueColumns = new LinkedHashSet<>();
+        Set<TableColumnInfo> lazyColumns = new LinkedHashSet<>();
+        TableColumnInfo versionColumn = null;
         TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
-        Map<String, PropertyDescriptor> propertyDescriptorMap = getPropertyDescriptorMap(entityClass);
-        List<Field> fields = getFieldList(entityClass);
-        for (Field field : fields) {
-            String name = field.getName();
+        List<TableProperty> properties = (tableDescriptor != null ? tableDescriptor.getProperties()
+                : getTableProperties(entityClass));
+        for (TableProperty property : properties) {
+            String name = property.getName();
             TableColumnInfo columnInfo = new TableColumnInfo();
             columnInfo.setTableInfo(tableInfo);
             columnInfo.setProperty(name);
-            PropertyDescriptor propertyDescriptor = propertyDescriptorMap.get(name);
-            if (propertyDescriptor == null) {
-                // 举例 field 名称为：xPath，property 名称为：XPath，需要先转换
-                String pascalName = NameStyle.PASCAL_CASE.transform(name);
-                propertyDescriptor = propertyDescriptorMap.get(pascalName);
-            }
-            columnInfo.setJavaType(propertyDescriptor.getPropertyType());
-            columnInfo.setPropertyDescriptor(propertyDescriptor);
-            Column column = field.getAnnotation(Column.class);
+            columnInfo.setJavaType(property.getJavaType());
+            columnInfo.setPropertyDescriptor(property.getPropertyDescriptor());
+            columnInfo.setTableProperty(property);
+            Column column = property.getColumn();
             if (column != null) {
                 if (column.isTransient()) {
                     // 忽略非数据库字段
@@ -294,24 +303,30 @@ public class TableMetaObject {
                     columnInfo.setPrimaryKey(true);
                 }
                 if (column.typeHandler() != UnsupportedTypeHandler.class) {
-                    typeHandlerRegistry.register(columnInfo.getJavaType(), column.typeHandler());
-                    columnInfo.setTypeHandler(typeHandlerRegistry.getTypeHandler(columnInfo.getJavaType()));
+                    synchronized (typeHandlerRegistry) {
+                        typeHandlerRegistry.register(columnInfo.getJavaType(), column.typeHandler());
+                        columnInfo.setTypeHandler(typeHandlerRegistry.getTypeHandler(columnInfo.getJavaType()));
+                    }
                 }
                 columnInfo.setInsertable(column.insertable());
                 columnInfo.setUpdatable(column.updatable());
                 columnInfo.setSelectable(column.selectable());
+                columnInfo.setLazy(column.lazy());
+                columnInfo.setVersion(column.version());
                 Map<FillRule, String> fillRules = Stream.of(column.fillRule())
                         .filter(s -> !FillRule.NONE.equals(s))
                         .collect(Collectors.toMap(Function.identity(), FillRule::getValue));
                 columnInfo.setFillRules(fillRules);
+                if (StringUtils.isNotBlank(column.fillValue())) {
+                    columnInfo.setFillValue(column.fillValue());
+                }
             }
             if (StringUtils.isBlank(columnInfo.getColumn())) {
                 columnInfo.setColumn(columnNameStyle.transform(name));
             }
             initLogicDelete(config, tableInfo, columnInfo, column, logicDeleteColumns);
 
-            if (!columnInfo.isPrimaryKey() && PERSISTENCE_ID_CLASS != null
-                    && field.isAnnotationPresent(PERSISTENCE_ID_CLASS)) {
+            if (!columnInfo.isPrimaryKey() && property.isId()) {
                 columnInfo.setPrimaryKey(true);
             }
             if (columnInfo.isPrimaryKey()) {
@@ -325,17 +340,27 @@ public class TableMetaObject {
                 keyColumns[indexOf] = columnInfo.getColumn();
                 resultTypes[indexOf] = columnInfo.getJavaType();
             }
-            initTableSequence(field.getAnnotation(SequenceGenerator.class), tableInfo, columnInfo);
+            initTableSequence(property.getSequenceGenerator(), tableInfo, columnInfo);
             initTypeHandlerRegistry(typeHandlerRegistry, columnInfo);
             if (columnInfo.getTypeHandler() != null) {
                 customEnumValueColumns.add(columnInfo);
             }
+            if (columnInfo.isLazy() && columnInfo.isSelectable()) {
+                lazyColumns.add(columnInfo);
+            }
+            if (columnInfo.isVersion()) {
+                versionColumn = checkVersionColumn(tableInfo, versionColumn, columnInfo);
+            }
             columns.add(columnInfo);
         }
         tableInfo.setColumns(columns);
         tableInfo.setPrimaryKeyColumns(pkColumns);
         tableInfo.setLogicDeleteColumns(logicDeleteColumns);
         tableInfo.setCustomEnumValueColumns(customEnumValueColumns);
+        tableInfo.setLazyColumns(lazyColumns);
+        tableInfo.setVersionColumn(versionColumn);
+        initSharding(table, tableInfo);
+        initPreload(table, tableInfo);
         tableSequence = tableInfo.getTableSequence();
         if (keyProperties != null && keyColumns.length > 0 && ArrayUtils.isEmpty(tableSequence.getKeyColumns())) {
             // 如果 @SequenceGenerator 注解放在 class 上，并且没有设置 keyColumns 属性，则取相应 keyProperty 中的字段名
@@ -373,6 +398,168 @@ public class TableMetaObject {
         return tableInfo;
     }
 
+    /**
+     * 获取编译期生成的实体类描述信息
+     *
+     * @param entityClass 实体类class
+     * @return 没有生成则为 null
+     * @see TableDescriptor#CLASS_NAME_SUFFIX
+     */
+    public static TableDescriptor getTableDescriptor(Class<?> entityClass) {
+        String className = entityClass.getName() + TableDescriptor.CLASS_NAME_SUFFIX;
+        ClassLoader classLoader = entityClass.getClassLoader();
+        if (!ClassUtils.isPresent(className, classLoader)) {
+            return null;
+        }
+        Class<?> clazz = ClassUtils.resolveClassName(className, classLoader);
+        if (!TableDescriptor.class.isAssignableFrom(clazz)) {
+            throw new BindingException(className + " is not implements " + TableDescriptor.class.getName());
+        }
+        TableDescriptor tableDescriptor = (TableDescriptor) BeanUtils.instantiateClass(clazz);
+        if (tableDescriptor.getEntityClass() != entityClass) {
+            throw new BindingException(className + " is not the table descriptor of " + entityClass.getName());
+        }
+        return tableDescriptor;
+    }
+
+    /**
+     * 通过反射获取实体类的所有属性信息，排除 static, transient 字段，包含父类中的字段
+     *
+     * @param entityClass 实体类class
+     * @return 所有属性信息
+     * @see #getFieldList(Class)
+     * @see #getPropertyDescriptorMap(Class)
+     */
+    public static List<TableProperty> getTableProperties(Class<?> entityClass) {
+        Map<String, PropertyDescriptor> propertyDescriptorMap = getPropertyDescriptorMap(entityClass);
+        List<Field> fields = getFieldList(entityClass);
+        List<TableProperty> properties = new ArrayList<>(fields.size());
+        for (Field field : fields) {
+            String name = field.getName();
+            PropertyDescriptor propertyDescriptor = propertyDescriptorMap.get(name);
+            if (propertyDescriptor == null) {
+                // 举例 field 名称为：xPath，property 名称为：XPath，需要先转换
+                String pascalName = NameStyle.PASCAL_CASE.transform(name);
+                propertyDescriptor = propertyDescriptorMap.get(pascalName);
+            }
+            Method readMethod = propertyDescriptor.getReadMethod();
+            Method writeMethod = propertyDescriptor.getWriteMethod();
+            boolean id = PERSISTENCE_ID_CLASS != null && field.isAnnotationPresent(PERSISTENCE_ID_CLASS);
+            properties.add(new TableProperty(name, propertyDescriptor.getPropertyType(),
+                    field.getAnnotation(Column.class), field.getAnnotation(SequenceGenerator.class), id,
+                    createGetter(entityClass, name, readMethod), createSetter(entityClass, name, writeMethod),
+                    propertyDescriptor));
+        }
+        return properties;
+    }
+
+    /**
+     * 将属性的 getter 方法编译为函数，优先使用 {@link LambdaMetafactory} 生成直接调用 getter
+     * 方法的类，实体类不可访问时（非 public、其它 ClassLoader 加载）退化为 {@link MethodHandle}。getter 方法所在的类不是
+     * public 时（比如继承自非 public 的父类），先设置为可访问再转换为 {@link MethodHandle}
+     *
+     * @param entityClass 实体类class
+     * @param name 属性名
+     * @param readMethod getter 方法
+     * @return getter 函数
+     */
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> createGetter(Class<?> entityClass, String name, Method readMethod) {
+        if (readMethod == null) {
+            return entity -> {
+                throw new BizRuntimeException("[" + entityClass.getName() + "." + name + "] 属性没有 getter 方法");
+            };
+        }
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            MethodHandle methodHandle = unreflect(lookup, readMethod);
+            if (isLambdaAccessible(readMethod)) {
+                CallSite callSite = LambdaMetafactory.metafactory(lookup, "apply",
+                        MethodType.methodType(Function.class), MethodType.methodType(Object.class, Object.class),
+                        methodHandle, MethodType.methodType(ClassUtils.resolvePrimitiveIfNecessary(
+                                readMethod.getReturnType()), readMethod.getDeclaringClass()));
+                return (Function<Object, Object>) callSite.getTarget().invoke();
+            }
+            MethodHandle getter = methodHandle.asType(MethodType.methodType(Object.class, Object.class));
+            return entity -> {
+                try {
+                    return getter.invokeExact(entity);
+                } catch (Throwable ex) {
+                    throw new BizRuntimeException("读取 [" + entityClass.getName() + "." + name + "] 属性值失败", ex);
+                }
+            };
+        } catch (Throwable ex) {
+            throw new BizRuntimeException("编译 [" + entityClass.getName() + "." + name + "] 属性 getter 方法失败", ex);
+        }
+    }
+
+    /**
+     * 将属性的 setter 方法编译为函数，规则同 {@link #createGetter(Class, String, Method)}
+     *
+     * @param entityClass 实体类class
+     * @param name 属性名
+     * @param writeMethod setter 方法
+     * @return setter 函数
+     */
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> createSetter(Class<?> entityClass, String name, Method writeMethod) {
+        if (writeMethod == null) {
+            return (entity, value) -> {
+                throw new BizRuntimeException("[" + entityClass.getName() + "." + name + "] 属性没有 setter 方法");
+            };
+        }
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            MethodHandle methodHandle = unreflect(lookup, writeMethod);
+            if (isLambdaAccessible(writeMethod)) {
+                CallSite callSite = LambdaMetafactory.metafactory(lookup, "accept",
+                        MethodType.methodType(BiConsumer.class),
+                        MethodType.methodType(void.class, Object.class, Object.class), methodHandle,
+                        MethodType.methodType(void.class, writeMethod.getDeclaringClass(),
+                                ClassUtils.resolvePrimitiveIfNecessary(writeMethod.getParameterTypes()[0])));
+                return (BiConsumer<Object, Object>) callSite.getTarget().invoke();
+            }
+            MethodHandle setter = methodHandle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return (entity, value) -> {
+                try {
+                    setter.invokeExact(entity, value);
+                } catch (Throwable ex) {
+                    throw new BizRuntimeException("设置 [" + entityClass.getName() + "." + name + "] 属性值失败", ex);
+                }
+            };
+        } catch (Throwable ex) {
+            throw new BizRuntimeException("编译 [" + entityClass.getName() + "." + name + "] 属性 setter 方法失败", ex);
+        }
+    }
+
+    /**
+     * 将 getter/setter 方法转换为 {@link MethodHandle}，方法或者所在的类不是 public 时，先设置为可访问
+     *
+     * @param lookup 查找 {@link MethodHandle} 的上下文
+     * @param method getter/setter 方法
+     * @return 方法对应的 {@link MethodHandle}
+     * @throws IllegalAccessException 方法不可访问
+     */
+    private static MethodHandle unreflect(MethodHandles.Lookup lookup, Method method) throws IllegalAccessException {
+        if (!isLambdaAccessible(method)) {
+            ReflectionUtils.makeAccessible(method);
+        }
+        return lookup.unreflect(method);
+    }
+
+    /**
+     * 判断 getter/setter 方法能否由 {@link LambdaMetafactory} 生成的类直接调用：方法和所在的类都是 public，并且对当前
+     * ClassLoader 可见
+     *
+     * @param method getter/setter 方法
+     * @return true: 可以直接调用
+     */
+    private static boolean isLambdaAccessible(Method method) {
+        Class<?> declaringClass = method.getDeclaringClass();
+        return Modifier.isPublic(method.getModifiers()) && Modifier.isPublic(declaringClass.getModifiers())
+                && ClassUtils.isVisible(declaringClass, TableMetaObject.class.getClassLoader());
+    }
+
     /**
      * 加载数据库表"序列生成器"属性配置
      *
@@ -476,9 +663,12 @@ public class TableMetaObject {
                 }
             }
             if (typeHandlerClass != null) {
-                typeHandlerRegistry.register(javaType, typeHandlerClass);
-                TypeHandler<?> typeHandler = typeHandlerRegistry.getTypeHandler(javaType);
-                columnInfo.setTypeHandler(typeHandler);
+                // 并行注册 Mapper 时，多个实体类会同时初始化
+                synchronized (typeHandlerRegistry) {
+                    typeHandlerRegistry.register(javaType, typeHandlerClass);
+                    TypeHandler<?> typeHandler = typeHandlerRegistry.getTypeHandler(javaType);
+                    columnInfo.setTypeHandler(typeHandler);
+                }
             }
         }
     }
@@ -519,6 +709,91 @@ public class TableMetaObject {
         }
     }
 
+    /**
+     * 校验乐观锁的版本号字段
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param existsColumn 已经找到的版本号字段
+     * @param columnInfo 版本号字段
+     * @return 版本号字段
+     */
+    private static TableColumnInfo checkVersionColumn(TableInfo tableInfo, TableColumnInfo existsColumn,
+                                                      TableColumnInfo columnInfo) {
+        String name = tableInfo.getEntityClass().getName() + "." + columnInfo.getProperty();
+        if (existsColumn != null) {
+            throw new BindingException("[" + name + "] only one version column is allowed, but found: "
+                    + existsColumn.getProperty());
+        }
+        Class<?> javaType = ClassUtils.resolvePrimitiveIfNecessary(columnInfo.getJavaType());
+        if (javaType != Short.class && javaType != Integer.class && javaType != Long.class) {
+            throw new BindingException("[" + name + "] version column must be Short, Integer or Long");
+        }
+        if (columnInfo.isPrimaryKey() || columnInfo.isLogicDelete() || !columnInfo.isUpdatable()) {
+            throw new BindingException("[" + name + "] version column can not be primary key, logic delete column or"
+                    + " not updatable");
+        }
+        return columnInfo;
+    }
+
+    /**
+     * 初始化水平分表信息
+     *
+     * @param table 实体类上的 {@link Table} 注解
+     * @param tableInfo 数据库表结构信息
+     */
+    private static void initSharding(Table table, TableInfo tableInfo) {
+        if (table == null || StringUtils.isBlank(table.shardingKey())) {
+            return;
+        }
+        String name = tableInfo.getEntityClass().getName() + "." + table.shardingKey();
+        if (table.shardingCount() <= 0) {
+            throw new BindingException("[" + name + "] shardingCount must be greater than 0");
+        }
+        TableColumnInfo shardingColumn = null;
+        for (TableColumnInfo columnInfo : tableInfo.getColumns()) {
+            if (columnInfo.getProperty().equals(table.shardingKey())) {
+                shardingColumn = columnInfo;
+                break;
+            }
+        }
+        if (shardingColumn == null) {
+            throw new BindingException("[" + name + "] sharding key is not a column of the table");
+        }
+        tableInfo.setShardingColumn(shardingColumn);
+        tableInfo.setShardingCount(table.shardingCount());
+        tableInfo.setShardingStrategy(BeanUtils.instantiateClass(table.shardingStrategy()));
+    }
+
+    /**
+     * 初始化整张表预加载到内存中的信息
+     *
+     * @param table 实体类上的 {@link Table} 注解
+     * @param tableInfo 数据库表结构信息
+     */
+    private static void initPreload(Table table, TableInfo tableInfo) {
+        if (table == null || !table.preload()) {
+            return;
+        }
+        List<TableColumnInfo> indexColumns = new ArrayList<>(table.preloadIndexes().length);
+        for (String property : table.preloadIndexes()) {
+            TableColumnInfo indexColumn = null;
+            for (TableColumnInfo columnInfo : tableInfo.getColumns()) {
+                if (columnInfo.getProperty().equals(property)) {
+                    indexColumn = columnInfo;
+                    break;
+                }
+            }
+            if (indexColumn == null) {
+                throw new BindingException("[" + tableInfo.getEntityClass().getName() + "." + property
+                        + "] preload index is not a column of the table");
+            }
+            indexColumns.add(indexColumn);
+        }
+        tableInfo.setPreload(true);
+        tableInfo.setPreloadIndexColumns(Collections.unmodifiableList(indexColumns));
+        tableInfo.setPreloadRefreshMillis(table.preloadRefreshMillis());
+    }
+
     /**
      * 获取 {@code clazz } Class 中的所有字段，排除 static, transient
      * 字段，包含父类中的字段（重写的字段只会保留一个）
@@ -604,6 +879,38 @@ public class TableMetaObject {
                 .collect(Collectors.joining("."));
     }
 
+    /**
+     * 获取水平分表中物理表的数据库表结构信息，复制逻辑表的信息，表名替换为物理表名。通用 Mapper
+     * 的模版方法使用它生成物理表的sql语句，比如：{@code t_order} 替换为 {@code t_order_01}
+     *
+     * @param tableInfo 逻辑表的数据库表结构信息
+     * @param shardIndex 分表的下标
+     * @return 物理表的数据库表结构信息
+     */
+    public static TableInfo getShardTableInfo(TableInfo tableInfo, int shardIndex) {
+        String shardTableName = tableInfo.getShardingStrategy()
+                .getShardTableName(tableInfo.getTableName(), shardIndex, tableInfo.getShardingCount());
+        TableInfo shardTableInfo = new TableInfo();
+        BeanUtils.copyProperties(tableInfo, shardTableInfo);
+        shardTableInfo.setTableName(shardTableName);
+        if (tableInfo.getEscapedTableName() != null) {
+            shardTableInfo.setEscapedTableName(
+                    tableInfo.getEscapedTableName().replace(tableInfo.getTableName(), shardTableName));
+        }
+        return shardTableInfo;
+    }
+
+    /**
+     * 获取水平分表中物理表的sql语句节点id，比如：{@code com.xxx.UserOrderMapper.selectOne#1}
+     *
+     * @param statementId 逻辑表的sql语句节点id
+     * @param shardIndex 分表的下标
+     * @return 物理表的sql语句节点id
+     */
+    public static String getShardStatementId(String statementId, int shardIndex) {
+        return statementId + "#" + shardIndex;
+    }
+
     /**
      * 生成实体的 BaseResultMap 对象，表映射结果集。类似 Mapper XML 中效果：
      *
@@ -638,7 +945,7 @@ public class TableMetaObject {
     }
 
     /**
-     * 生成 select 查询所有列sql语句，示例如下：
+     * 生成 select 查询所有列sql语句，不包含延迟加载（{@link Column#lazy()}）的字段，示例如下：
      *
      * <pre>
      * id, name, code
@@ -650,11 +957,29 @@ public class TableMetaObject {
     public static String builderSelectAllColumns(TableInfo tableInfo) {
         return tableInfo.getColumns()
                 .stream()
-                .filter(TableColumnInfo::isSelectable)
+                .filter(item -> item.isSelectable() && !item.isLazy())
                 .map(TableColumnInfo::getActualColumn)
                 .collect(Collectors.joining(", "));
     }
 
+    /**
+     * 生成逻辑删除字段"未删除"的条件语句，不包含 {@code AND} 前缀，示例如下：
+     *
+     * <pre>
+     * is_deleted = 'N'
+     * </pre>
+     *
+     * @param logicDeleteColumn 逻辑删除字段（{@link Column#logicDelete}）
+     * @return sql语句
+     */
+    public static String builderLogicUnDeleteSql(TableColumnInfo logicDeleteColumn) {
+        String value = logicDeleteColumn.getLogicUnDeleteValue();
+        if (CharSequence.class.isAssignableFrom(logicDeleteColumn.getJavaType())) {
+            value = "'" + value + "'";
+        }
+        return logicDeleteColumn.getActualColumn() + " = " + value;
+    }
+
     /**
      * 生成 where 所有条件sql语句（{@code includeLogicDelete = false}
      * ，如果表是逻辑删除，会添加逻辑删除的字段），示例如下：
@@ -772,22 +1097,38 @@ public class TableMetaObject {
      * @return sql语句
      */
     public static StringBuilder builderWherePrimaryKeySql(TableInfo tableInfo, boolean includeLogicDelete) {
+        return builderWherePrimaryKeyWithParameterSql(tableInfo, includeLogicDelete, null);
+    }
+
+    /**
+     * 生成 where 主键条件sql语句（{@code includeLogicDelete = false}
+     * ，如果表是逻辑删除，会添加逻辑删除的字段），带有参数前缀，示例如下：
+     *
+     * <pre>
+     * &lt;where&gt;
+     *  AND id = #{conditionPrefix.id}
+     *  AND is_deleted = 'N'
+     * &lt;/where&gt;
+     * </pre>
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param includeLogicDelete 是否不过滤掉已经被标记为逻辑删除（{@link Column#logicDelete}）的数据
+     * @param conditionPrefix 参数前缀，为 null 时不加前缀
+     * @return sql语句
+     */
+    public static StringBuilder builderWherePrimaryKeyWithParameterSql(TableInfo tableInfo, boolean includeLogicDelete,
+                                                                       String conditionPrefix) {
+        String prefix = (conditionPrefix != null ? conditionPrefix + "." : "");
         StringBuilder sql = new StringBuilder(128);
         sql.append("<where>\n");
         for (TableColumnInfo columnInfo : tableInfo.getPrimaryKeyColumns()) {
             sql.append("  AND ").append(columnInfo.getActualColumn()).append(" = ");
-            sql.append("#{").append(columnInfo.getProperty());
+            sql.append("#{").append(prefix).append(columnInfo.getProperty());
             sql.append("}\n");
         }
         if (!includeLogicDelete && tableInfo.isLogicDelete()) {
             for (TableColumnInfo item : tableInfo.getLogicDeleteColumns()) {
-                sql.append("  AND ").append(item.getActualColumn()).append(" = ");
-                if (CharSequence.class.isAssignableFrom(item.getJavaType())) {
-                    sql.append("'").append(item.getLogicUnDeleteValue()).append("'");
-                } else {
-                    sql.append(item.getLogicUnDeleteValue());
-                }
-                sql.append("\n");
+                sql.append("  AND ").append(builderLogicUnDeleteSql(item)).append("\n");
             }
         }
         sql.append("</where>");
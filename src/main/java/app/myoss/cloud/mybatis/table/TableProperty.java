@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.table;
+
+import java.beans.PropertyDescriptor;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import app.myoss.cloud.mybatis.table.annotation.Column;
+import app.myoss.cloud.mybatis.table.annotation.SequenceGenerator;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 实体类的属性信息，用于初始化"数据库表结构字段信息"。可以通过反射获取，也可以由编译期生成的
+ * {@link TableDescriptor} 提供
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月10日 下午3:12:41
+ * @see TableMetaObject#getTableProperties(Class)
+ */
+@ToString(of = { "name", "javaType" })
+@Getter
+public class TableProperty {
+    /**
+     * 属性名
+     */
+    private final String                     name;
+    /**
+     * 属性Java类型
+     */
+    private final Class<?>                   javaType;
+    /**
+     * 属性上的 {@link Column} 注解，没有则为 null
+     */
+    private final Column                     column;
+    /**
+     * 属性上的 {@link SequenceGenerator} 注解，没有则为 null
+     */
+    private final SequenceGenerator          sequenceGenerator;
+    /**
+     * 属性上是否有 {@code javax.persistence.Id} 注解
+     */
+    private final boolean                    id;
+    /**
+     * 读取属性值
+     */
+    private final Function<Object, Object>   getter;
+    /**
+     * 设置属性值
+     */
+    private final BiConsumer<Object, Object> setter;
+    /**
+     * 属性getter/setter方法，只有通过反射获取属性信息时才有值
+     */
+    private final PropertyDescriptor         propertyDescriptor;
+
+    /**
+     * 创建实体类的属性信息
+     *
+     * @param name 属性名
+     * @param javaType 属性Java类型
+     * @param column 属性上的 {@link Column} 注解
+     * @param sequenceGenerator 属性上的 {@link SequenceGenerator} 注解
+     * @param id 属性上是否有 {@code javax.persistence.Id} 注解
+     * @param getter 读取属性值
+     * @param setter 设置属性值
+     */
+    public TableProperty(String name, Class<?> javaType, Column column, SequenceGenerator sequenceGenerator,
+                         boolean id, Function<Object, Object> getter, BiConsumer<Object, Object> setter) {
+        this(name, javaType, column, sequenceGenerator, id, getter, setter, null);
+    }
+
+    /**
+     * 创建实体类的属性信息
+     *
+     * @param name 属性名
+     * @param javaType 属性Java类型
+     * @param column 属性上的 {@link Column} 注解
+     * @param sequenceGenerator 属性上的 {@link SequenceGenerator} 注解
+     * @param id 属性上是否有 {@code javax.persistence.Id} 注解
+     * @param getter 读取属性值
+     * @param setter 设置属性值
+     * @param propertyDescriptor 属性getter/setter方法
+     */
+    public TableProperty(String name, Class<?> javaType, Column column, SequenceGenerator sequenceGenerator,
+                         boolean id, Function<Object, Object> getter, BiConsumer<Object, Object> setter,
+                         PropertyDescriptor propertyDescriptor) {
+        this.name = name;
+        this.javaType = javaType;
+        this.column = column;
+        this.sequenceGenerator = sequenceGenerator;
+        this.id = id;
+        this.getter = getter;
+        this.setter = setter;
+        this.propertyDescriptor = propertyDescriptor;
+    }
+}
@@ -27,6 +27,7 @@ import java.lang.annotation.Target;
 
 import org.apache.ibatis.type.TypeHandler;
 
+import app.myoss.cloud.mybatis.plugin.FillValueRegistry;
 import app.myoss.cloud.mybatis.type.UnsupportedTypeHandler;
 
 /**
@@ -111,6 +112,25 @@ public @interface Column {
      */
     boolean selectable() default true;
 
+    /**
+     * 字段是否延迟加载，用于大文本、二进制等很少读取的字段。延迟加载的字段不会包含在默认的 SELECT 语句中，需要时再使用
+     * {@link app.myoss.cloud.mybatis.mapper.template.select.SelectLazyColumnsMapper} 批量加载
+     *
+     * @return 字段是否延迟加载
+     */
+    boolean lazy() default false;
+
+    /**
+     * 是否为乐观锁的版本号字段，只支持整数类型（Short/Integer/Long），一个实体类最多只能有一个。通用的 update
+     * 方法会自动生成：{@code SET version = COALESCE(version, 0) + 1 WHERE ... AND version = #{version}}，版本号不匹配时更新的记录数为0。
+     * <p>
+     * 注意：insert 的时候版本号为 {@code null} 会初始化为 0；按主键更新的时候总是校验版本号，待更新的实体对象中版本号为 {@code null}
+     * 时会被拒绝更新
+     *
+     * @return 字段是否为乐观锁的版本号
+     */
+    boolean version() default false;
+
     /**
      * 用于 SQL 语句在 INSERT/UPDATE 的时候，字段是否需要进行填充，参考 {@link FillRule} 的详细说明
      *
@@ -118,6 +138,14 @@ public @interface Column {
      */
     FillRule[] fillRule() default FillRule.NONE;
 
+    /**
+     * 字段填充值的名称，对应 {@link FillValueRegistry} 中注册的填充值，为空时使用属性名。只有设置了
+     * {@link #fillRule()} 的字段才会进行填充
+     *
+     * @return 字段填充值的名称
+     */
+    String fillValue() default "";
+
     /**
      * 是否为主键字段
      *
@@ -25,6 +25,8 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 
 import app.myoss.cloud.core.utils.NameStyle;
+import app.myoss.cloud.mybatis.table.sharding.ModuloShardingStrategy;
+import app.myoss.cloud.mybatis.table.sharding.ShardingStrategy;
 
 /**
  * This annotation specifies the primary table for the annotated entity.
@@ -92,4 +94,50 @@ public @interface Table {
      * @return 数据库表名、数据库字段命名风格
      */
     NameStyle nameStyle() default NameStyle.SNAKE_CASE;
+
+    /**
+     * (Optional) 水平分表字段的属性名，为空表示不分表。通用 Mapper 生成的 sql 语句会根据参数中此字段的值替换为实际的物理表名，参数中没有此字段的值时，
+     * 查询、更新、删除语句会在所有的物理表中执行，插入语句会抛出异常
+     *
+     * @return 水平分表字段的属性名
+     */
+    String shardingKey() default "";
+
+    /**
+     * (Optional) 水平分表的数量，设置了 {@link #shardingKey()} 时必须大于0
+     *
+     * @return 水平分表的数量
+     */
+    int shardingCount() default 0;
+
+    /**
+     * (Optional) 水平分表策略，默认按分表字段的值取模
+     *
+     * @return 水平分表策略
+     */
+    Class<? extends ShardingStrategy> shardingStrategy() default ModuloShardingStrategy.class;
+
+    /**
+     * (Optional) 是否将整张表预加载到内存中，适用于数据量小、读取频繁的字典表（比如：编码、地区、配置）。开启之后通过 {@code CrudService}
+     * 按主键、按实体对象条件的查询都在内存中执行；通过 {@code CrudService} 写入之后（在事务中则是事务提交之后）、以及每隔
+     * {@link #preloadRefreshMillis()} 毫秒会重新加载整张表。Mapper 中定义了 {@code <sql id="Where_Extend">} 时不会预加载，
+     * 查询直接访问数据库
+     *
+     * @return 是否将整张表预加载到内存中
+     */
+    boolean preload() default false;
+
+    /**
+     * (Optional) 预加载到内存中时，需要建立哈希索引的属性名，主键默认会建立索引
+     *
+     * @return 需要建立哈希索引的属性名
+     */
+    String[] preloadIndexes() default {};
+
+    /**
+     * (Optional) 预加载到内存中时，定时重新加载整张表的间隔（毫秒），小于等于0表示不定时重新加载
+     *
+     * @return 定时重新加载整张表的间隔（毫秒）
+     */
+    long preloadRefreshMillis() default 0;
 }
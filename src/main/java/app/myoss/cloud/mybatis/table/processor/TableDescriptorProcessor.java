@@ -0,0 +1,500 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.table.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.SimpleAnnotationValueVisitor8;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.JavaFileObject;
+
+import app.myoss.cloud.mybatis.table.TableDescriptor;
+import app.myoss.cloud.mybatis.table.TableProperty;
+import app.myoss.cloud.mybatis.table.annotation.Column;
+import app.myoss.cloud.mybatis.table.annotation.SequenceGenerator;
+import app.myoss.cloud.mybatis.table.annotation.Table;
+
+/**
+ * 编译期为 {@link Table} 实体类生成 {@link TableDescriptor}，包含实体类的所有属性信息、注解信息，以及直接调用
+ * getter/setter 方法的属性读写器，运行时不再需要通过反射扫描实体类
+ * <p>
+ * getter/setter 方法名按照 JavaBean 规范（与 lombok 一致）推导。实体类中找不到可以访问的 getter/setter 方法，并且也没有使用
+ * lombok 生成时，跳过这个实体类，运行时仍然通过反射获取属性信息
+ * <p>
+ * 处理器的 SPI 配置没有打包在主 jar 中，需要使用时在编译插件的 annotationProcessorPaths 中同时加入
+ * myoss-mybatis 和它的 {@code processor} classifier jar
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月10日 下午3:12:41
+ */
+@SupportedAnnotationTypes(TableDescriptorProcessor.TABLE_ANNOTATION)
+public class TableDescriptorProcessor extends AbstractProcessor {
+    static final String         TABLE_ANNOTATION  = "app.myoss.cloud.mybatis.table.annotation.Table";
+    private static final String ID_ANNOTATION     = "javax.persistence.Id";
+    private static final String LOMBOK_DATA       = "lombok.Data";
+    private static final String LOMBOK_VALUE      = "lombok.Value";
+    private static final String LOMBOK_GETTER     = "lombok.Getter";
+    private static final String LOMBOK_SETTER     = "lombok.Setter";
+    private static final String LOMBOK_ACCESSORS  = "lombok.experimental.Accessors";
+    private static final String PROPERTY_CLASS    = TableProperty.class.getName();
+    private static final String COLUMN_CLASS      = Column.class.getName();
+    private static final String SEQUENCE_CLASS    = SequenceGenerator.class.getName();
+    private static final String INDENT            = "    ";
+    private final Set<String>   generatedEntities = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement tableAnnotation = processingEnv.getElementUtils().getTypeElement(TABLE_ANNOTATION);
+        if (tableAnnotation == null) {
+            return false;
+        }
+        for (TypeElement entity : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(tableAnnotation))) {
+            if (entity.getKind() != ElementKind.CLASS
+                    || !generatedEntities.add(entity.getQualifiedName().toString())) {
+                continue;
+            }
+            if (!isAccessible(entity)) {
+                processingEnv.getMessager()
+                        .printMessage(Kind.WARNING, "private entity class is not supported, skip generate "
+                                + TableDescriptor.class.getSimpleName(), entity);
+                continue;
+            }
+            try {
+                generate(entity);
+            } catch (IOException ex) {
+                processingEnv.getMessager()
+                        .printMessage(Kind.ERROR, "generate " + TableDescriptor.class.getSimpleName() + " failed: " + ex,
+                                entity);
+            }
+        }
+        return false;
+    }
+
+    private boolean isAccessible(TypeElement entity) {
+        Element element = entity;
+        while (element != null && element.getKind() != ElementKind.PACKAGE) {
+            if (element.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            element = element.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private void generate(TypeElement entity) throws IOException {
+        Elements elements = processingEnv.getElementUtils();
+        PackageElement packageElement = elements.getPackageOf(entity);
+        String packageName = packageElement.getQualifiedName().toString();
+        String binaryName = elements.getBinaryName(entity).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1))
+                + TableDescriptor.CLASS_NAME_SUFFIX;
+        String entityName = typeName(processingEnv.getTypeUtils().erasure(entity.asType()));
+        List<VariableElement> fields = getFieldList(entity);
+        for (VariableElement field : fields) {
+            String unresolved = findUnresolvedAccessor(entity, field);
+            if (unresolved != null) {
+                processingEnv.getMessager()
+                        .printMessage(Kind.NOTE, "can not resolve " + unresolved + " method of property \""
+                                + field.getSimpleName() + "\", skip generate "
+                                + TableDescriptor.class.getSimpleName(), entity);
+                return;
+            }
+        }
+
+        StringBuilder source = new StringBuilder(4096);
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * Generated by ").append(getClass().getName()).append(", do not edit.\n */\n");
+        source.append("@SuppressWarnings({ \"unchecked\", \"rawtypes\" })\n");
+        source.append("public final class ")
+                .append(simpleName)
+                .append(" implements ")
+                .append(TableDescriptor.class.getName())
+                .append(" {\n");
+        source.append(INDENT)
+                .append("private static final ")
+                .append(TABLE_ANNOTATION)
+                .append(" TABLE = ")
+                .append(annotationLiteral(findAnnotation(entity, TABLE_ANNOTATION), 1))
+                .append(";\n");
+        source.append(INDENT)
+                .append("private static final ")
+                .append(SEQUENCE_CLASS)
+                .append(" SEQUENCE_GENERATOR = ")
+                .append(annotationLiteral(findAnnotation(entity, SEQUENCE_CLASS), 1))
+                .append(";\n");
+        source.append(INDENT)
+                .append("private static final java.util.List<")
+                .append(PROPERTY_CLASS)
+                .append("> PROPERTIES = java.util.Collections.unmodifiableList(java.util.Arrays.asList(");
+        for (int i = 0; i < fields.size(); i++) {
+            source.append(i == 0 ? "\n" : ",\n").append(indent(2));
+            appendProperty(source, entity, entityName, fields.get(i));
+        }
+        source.append("));\n\n");
+
+        appendMethod(source, "java.lang.Class<?>", "getEntityClass", entityName + ".class");
+        appendMethod(source, TABLE_ANNOTATION, "getTable", "TABLE");
+        appendMethod(source, SEQUENCE_CLASS, "getSequenceGenerator", "SEQUENCE_GENERATOR");
+        appendMethod(source, "java.util.List<" + PROPERTY_CLASS + ">", "getProperties", "PROPERTIES");
+        source.append("}\n");
+
+        String className = (packageName.isEmpty() ? simpleName : packageName + "." + simpleName);
+        JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(className, entity);
+        try (Writer writer = sourceFile.openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    private void appendMethod(StringBuilder source, String returnType, String methodName, String value) {
+        source.append(INDENT).append("@Override\n");
+        source.append(INDENT).append("public ").append(returnType).append(' ').append(methodName).append("() {\n");
+        source.append(indent(2)).append("return ").append(value).append(";\n");
+        source.append(INDENT).append("}\n\n");
+    }
+
+    private void appendProperty(StringBuilder source, TypeElement entity, String entityName, VariableElement field) {
+        Types types = processingEnv.getTypeUtils();
+        String name = field.getSimpleName().toString();
+        TypeMirror fieldType = types.asMemberOf((DeclaredType) entity.asType(), field);
+        String javaType = typeName(types.erasure(fieldType));
+        AnnotationMirror column = findAnnotation(field, COLUMN_CLASS);
+        source.append("new ")
+                .append(PROPERTY_CLASS)
+                .append("(")
+                .append(processingEnv.getElementUtils().getConstantExpression(name))
+                .append(", ")
+                .append(javaType)
+                .append(".class, ")
+                .append(annotationLiteral(column, 3))
+                .append(", ")
+                .append(annotationLiteral(findAnnotation(field, SEQUENCE_CLASS), 3))
+                .append(", ")
+                .append(findAnnotation(field, ID_ANNOTATION) != null)
+                .append(", ");
+        if (column != null && isTransientColumn(column)) {
+            // 非数据库字段不会用到属性读写器
+            source.append("null, null)");
+            return;
+        }
+        String[] accessorNames = getAccessorNames(field, fieldType);
+        String getterName = accessorNames[0];
+        String setterName = accessorNames[1];
+        source.append("entity -> ((")
+                .append(entityName)
+                .append(") entity).")
+                .append(getterName)
+                .append("(), (entity, value) -> ((")
+                .append(entityName)
+                .append(") entity).")
+                .append(setterName)
+                .append("((")
+                .append(javaType)
+                .append(") value))");
+    }
+
+    /**
+     * 按照 JavaBean 规范（与 lombok 一致）推导属性的 getter/setter 方法名
+     */
+    private String[] getAccessorNames(VariableElement field, TypeMirror fieldType) {
+        String name = field.getSimpleName().toString();
+        String capitalizeName = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        String getterName = (fieldType.getKind() == TypeKind.BOOLEAN ? "is" : "get") + capitalizeName;
+        String setterName = "set" + capitalizeName;
+        if (fieldType.getKind() == TypeKind.BOOLEAN && name.length() > 2 && name.startsWith("is")
+                && Character.isUpperCase(name.charAt(2))) {
+            // 与 lombok 一致，boolean isDeleted => isDeleted()/setDeleted()
+            getterName = name;
+            setterName = "set" + name.substring(2);
+        }
+        return new String[] { getterName, setterName };
+    }
+
+    /**
+     * 检查数据库字段的 getter/setter 方法是否可以在生成的类中直接调用
+     *
+     * @return 找不到的方法名，都能找到则为 null
+     */
+    private String findUnresolvedAccessor(TypeElement entity, VariableElement field) {
+        AnnotationMirror column = findAnnotation(field, COLUMN_CLASS);
+        if (column != null && isTransientColumn(column)) {
+            return null;
+        }
+        Types types = processingEnv.getTypeUtils();
+        TypeMirror fieldType = types.asMemberOf((DeclaredType) entity.asType(), field);
+        String[] accessorNames = getAccessorNames(field, fieldType);
+        if (!hasAccessor(entity, accessorNames[0], 0) && !isLombokAccessor(field, LOMBOK_GETTER)) {
+            return accessorNames[0];
+        }
+        if (!hasAccessor(entity, accessorNames[1], 1) && !isLombokAccessor(field, LOMBOK_SETTER)) {
+            return accessorNames[1];
+        }
+        return null;
+    }
+
+    /**
+     * 在实体类和父类中查找可以访问的方法：public 方法，或者和实体类在同一个包中的非 private 方法
+     */
+    private boolean hasAccessor(TypeElement entity, String methodName, int parameterCount) {
+        Elements elements = processingEnv.getElementUtils();
+        PackageElement entityPackage = elements.getPackageOf(entity);
+        TypeElement current = entity;
+        while (current != null && !current.getQualifiedName().contentEquals(Object.class.getName())) {
+            for (ExecutableElement method : ElementFilter.methodsIn(current.getEnclosedElements())) {
+                Set<Modifier> modifiers = method.getModifiers();
+                if (!method.getSimpleName().contentEquals(methodName)
+                        || method.getParameters().size() != parameterCount || modifiers.contains(Modifier.STATIC)
+                        || modifiers.contains(Modifier.PRIVATE)) {
+                    continue;
+                }
+                if (modifiers.contains(Modifier.PUBLIC) || elements.getPackageOf(current).equals(entityPackage)) {
+                    return true;
+                }
+            }
+            TypeMirror superclass = current.getSuperclass();
+            current = (superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement()
+                    : null);
+        }
+        return false;
+    }
+
+    /**
+     * lombok 在其它注解处理器之后执行时，这里还看不到它生成的方法，根据字段和类上的 lombok 注解判断是否会生成标准的
+     * getter/setter 方法
+     */
+    private boolean isLombokAccessor(VariableElement field, String accessorAnnotation) {
+        Element declaringType = field.getEnclosingElement();
+        if (isNonStandardAccessors(findAnnotation(field, LOMBOK_ACCESSORS))
+                || isNonStandardAccessors(findAnnotation(declaringType, LOMBOK_ACCESSORS))) {
+            return false;
+        }
+        AnnotationMirror fieldAccessor = findAnnotation(field, accessorAnnotation);
+        if (fieldAccessor != null) {
+            return isVisibleAccessLevel(fieldAccessor);
+        }
+        AnnotationMirror typeAccessor = findAnnotation(declaringType, accessorAnnotation);
+        if (typeAccessor != null) {
+            return isVisibleAccessLevel(typeAccessor);
+        }
+        return findAnnotation(declaringType, LOMBOK_DATA) != null
+                || (LOMBOK_GETTER.equals(accessorAnnotation) && findAnnotation(declaringType, LOMBOK_VALUE) != null);
+    }
+
+    private boolean isVisibleAccessLevel(AnnotationMirror accessor) {
+        Object accessLevel = getAnnotationValue(accessor, "value");
+        return accessLevel == null || !("NONE".equals(accessLevel) || "PRIVATE".equals(accessLevel));
+    }
+
+    private boolean isNonStandardAccessors(AnnotationMirror accessors) {
+        if (accessors == null) {
+            return false;
+        }
+        Object prefix = getAnnotationValue(accessors, "prefix");
+        return Boolean.TRUE.equals(getAnnotationValue(accessors, "fluent"))
+                || (prefix instanceof List && !((List<?>) prefix).isEmpty());
+    }
+
+    /**
+     * 获取注解中显式设置的值，枚举返回常量名
+     */
+    private Object getAnnotationValue(AnnotationMirror annotationMirror, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotationMirror
+                .getElementValues()
+                .entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                Object value = entry.getValue().getValue();
+                return (value instanceof VariableElement ? ((VariableElement) value).getSimpleName().toString()
+                        : value);
+            }
+        }
+        return null;
+    }
+
+    private boolean isTransientColumn(AnnotationMirror column) {
+        return Boolean.TRUE.equals(getAnnotationValue(column, "isTransient"));
+    }
+
+    /**
+     * 获取实体类中的所有字段，排除 static, transient 字段，包含父类中的字段（重写的字段只会保留一个），和运行时
+     * {@code TableMetaObject#getFieldList(Class)} 的顺序保持一致
+     */
+    private List<VariableElement> getFieldList(TypeElement entity) {
+        List<VariableElement> allFields = new ArrayList<>();
+        Set<String> allFieldNames = new HashSet<>();
+        boolean isSuper = false;
+        TypeElement current = entity;
+        while (current != null && !current.getQualifiedName().contentEquals(Object.class.getName())) {
+            int idx = 0;
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                String name = field.getSimpleName().toString();
+                if (!allFieldNames.add(name) && isSuper) {
+                    continue;
+                }
+                if (isSuper) {
+                    allFields.add(idx++, field);
+                } else {
+                    allFields.add(field);
+                }
+            }
+            isSuper = true;
+            TypeMirror superclass = current.getSuperclass();
+            current = (superclass.getKind() == TypeKind.DECLARED
+                    ? (TypeElement) ((DeclaredType) superclass).asElement()
+                    : null);
+        }
+        return allFields;
+    }
+
+    private AnnotationMirror findAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) annotationMirror.getAnnotationType().asElement();
+            if (annotationType.getQualifiedName().contentEquals(annotationName)) {
+                return annotationMirror;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 生成注解的匿名实现类，包含所有属性的值（含默认值）
+     */
+    private String annotationLiteral(AnnotationMirror annotationMirror, int level) {
+        if (annotationMirror == null) {
+            return "null";
+        }
+        String annotationName = typeName(annotationMirror.getAnnotationType());
+        StringBuilder literal = new StringBuilder(256);
+        literal.append("new ").append(annotationName).append("() {\n");
+        literal.append(indent(level + 1))
+                .append("public java.lang.Class<? extends java.lang.annotation.Annotation> annotationType() { return ")
+                .append(annotationName)
+                .append(".class; }\n");
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values = processingEnv.getElementUtils()
+                .getElementValuesWithDefaults(annotationMirror);
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            ExecutableElement method = entry.getKey();
+            literal.append(indent(level + 1))
+                    .append("public ")
+                    .append(method.getReturnType())
+                    .append(' ')
+                    .append(method.getSimpleName())
+                    .append("() { return ")
+                    .append(valueLiteral(entry.getValue(), method.getReturnType(), level + 1))
+                    .append("; }\n");
+        }
+        literal.append(indent(level)).append('}');
+        return literal.toString();
+    }
+
+    private String valueLiteral(AnnotationValue annotationValue, TypeMirror valueType, int level) {
+        return annotationValue.accept(new SimpleAnnotationValueVisitor8<String, Void>() {
+            @Override
+            protected String defaultAction(Object value, Void unused) {
+                return processingEnv.getElementUtils().getConstantExpression(value);
+            }
+
+            @Override
+            public String visitType(TypeMirror type, Void unused) {
+                return typeName(processingEnv.getTypeUtils().erasure(type)) + ".class";
+            }
+
+            @Override
+            public String visitEnumConstant(VariableElement constant, Void unused) {
+                return typeName(constant.asType()) + "." + constant.getSimpleName();
+            }
+
+            @Override
+            public String visitAnnotation(AnnotationMirror annotation, Void unused) {
+                return annotationLiteral(annotation, level);
+            }
+
+            @Override
+            public String visitArray(List<? extends AnnotationValue> values, Void unused) {
+                TypeMirror componentType = ((ArrayType) valueType).getComponentType();
+                StringBuilder literal = new StringBuilder("new ");
+                literal.append(typeName(processingEnv.getTypeUtils().erasure(componentType)));
+                if (values.isEmpty()) {
+                    return literal.append("[0]").toString();
+                }
+                literal.append("[] { ");
+                for (int i = 0; i < values.size(); i++) {
+                    if (i > 0) {
+                        literal.append(", ");
+                    }
+                    literal.append(valueLiteral(values.get(i), componentType, level));
+                }
+                return literal.append(" }").toString();
+            }
+        }, null);
+    }
+
+    private String typeName(TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED) {
+            return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+        }
+        if (type.getKind() == TypeKind.ARRAY) {
+            return typeName(((ArrayType) type).getComponentType()) + "[]";
+        }
+        return type.toString();
+    }
+
+    private static String indent(int level) {
+        StringBuilder indent = new StringBuilder(level * INDENT.length());
+        for (int i = 0; i < level; i++) {
+            indent.append(INDENT);
+        }
+        return indent.toString();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.table.sharding;
+
+/**
+ * 取模分表策略：整数类型的值对分表数量取模，其它类型的值使用 {@link Object#hashCode()} 取模
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月23日 上午10:12:36
+ */
+public class ModuloShardingStrategy implements ShardingStrategy {
+    @Override
+    public int getShardIndex(Object shardingValue, int shardingCount) {
+        long value;
+        if (shardingValue instanceof Number) {
+            value = ((Number) shardingValue).longValue();
+        } else if (shardingValue instanceof CharSequence && isDigits((CharSequence) shardingValue)) {
+            value = Long.parseLong(shardingValue.toString());
+        } else {
+            value = shardingValue.hashCode();
+        }
+        return (int) Math.floorMod(value, (long) shardingCount);
+    }
+
+    private static boolean isDigits(CharSequence value) {
+        int length = value.length();
+        if (length == 0 || length > 18) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
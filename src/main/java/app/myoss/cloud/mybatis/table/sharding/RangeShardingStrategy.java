@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.table.sharding;
+
+import org.apache.ibatis.binding.BindingException;
+
+import app.myoss.cloud.mybatis.table.annotation.Table;
+
+/**
+ * 范围分表策略：按分表字段的值所在的区间分表，{@code [0, rangeSize)} 在第0张表，{@code [rangeSize, 2 * rangeSize)}
+ * 在第1张表，以此类推，超过最后一个区间的值都在最后一张表。
+ * <p>
+ * {@link Table#shardingStrategy()} 只能指定无参构造函数的类，使用时继承此类并指定区间大小：
+ *
+ * <pre>
+ * public class OrderShardingStrategy extends RangeShardingStrategy {
+ *     public OrderShardingStrategy() {
+ *         super(10000000L);
+ *     }
+ * }
+ * </pre>
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月23日 上午10:12:36
+ */
+public class RangeShardingStrategy implements ShardingStrategy {
+    private final long rangeSize;
+
+    /**
+     * 创建范围分表策略
+     *
+     * @param rangeSize 每张表的区间大小
+     */
+    public RangeShardingStrategy(long rangeSize) {
+        if (rangeSize <= 0) {
+            throw new IllegalArgumentException("rangeSize must be greater than 0");
+        }
+        this.rangeSize = rangeSize;
+    }
+
+    @Override
+    public int getShardIndex(Object shardingValue, int shardingCount) {
+        if (!(shardingValue instanceof Number)) {
+            throw new BindingException("range sharding value must be a number, but found: " + shardingValue);
+        }
+        long index = ((Number) shardingValue).longValue() / rangeSize;
+        return (int) Math.max(0, Math.min(index, shardingCount - 1));
+    }
+}
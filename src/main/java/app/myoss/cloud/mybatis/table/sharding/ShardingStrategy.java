@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.table.sharding;
+
+import app.myoss.cloud.mybatis.table.annotation.Table;
+
+/**
+ * 水平分表策略，根据分表字段的值计算数据所在的物理表。
+ * <p>
+ * 实现类必须有无参构造函数，每个实体类会创建一个实例，需要线程安全
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月23日 上午10:12:36
+ * @see Table#shardingStrategy()
+ */
+public interface ShardingStrategy {
+    /**
+     * 根据分表字段的值计算分表的下标
+     *
+     * @param shardingValue 分表字段的值，不会为 null
+     * @param shardingCount 分表的数量
+     * @return 分表的下标，范围：[0, shardingCount)
+     */
+    int getShardIndex(Object shardingValue, int shardingCount);
+
+    /**
+     * 获取分表的物理表名，默认为：逻辑表名 + "_" + 补零的下标，比如：{@code t_order_00, t_order_01}，下标的位数至少为2位
+     *
+     * @param tableName 逻辑表名，不包含 catalog、schema
+     * @param shardIndex 分表的下标
+     * @param shardingCount 分表的数量
+     * @return 物理表名
+     */
+    default String getShardTableName(String tableName, int shardIndex, int shardingCount) {
+        int width = Math.max(2, String.valueOf(shardingCount - 1).length());
+        return tableName + "_" + String.format("%0" + width + "d", shardIndex);
+    }
+}
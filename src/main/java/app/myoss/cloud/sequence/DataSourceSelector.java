@@ -0,0 +1,106 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.sequence;
+
+import java.util.List;
+
+import app.myoss.cloud.sequence.impl.PowerOfTwoChoicesDataSourceSelector;
+import app.myoss.cloud.sequence.impl.RandomDataSourceSelector;
+import app.myoss.cloud.sequence.impl.WeightedRandomDataSourceSelector;
+
+/**
+ * 获取序列区间时数据源的选择策略，每次获取序列区间会多次调用 {@link #select(int, long)}，直到成功或者所有的数据源都已经尝试过。
+ * <p>
+ * 每次获取序列区间都会调用，实现时不要创建对象，需要线程安全
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月23日 下午4:40:18
+ * @see RandomDataSourceSelector
+ * @see PowerOfTwoChoicesDataSourceSelector
+ * @see WeightedRandomDataSourceSelector
+ */
+public interface DataSourceSelector {
+    /**
+     * 最多支持的数据源个数
+     */
+    int MAX_DATA_SOURCE_COUNT = Long.SIZE;
+
+    /**
+     * 初始化选择策略
+     *
+     * @param dbGroupKeys 数据源的名字，下标即为 {@link #select(int, long)} 返回的数据源下标
+     */
+    default void init(List<String> dbGroupKeys) {
+    }
+
+    /**
+     * 选择下一个尝试的数据源
+     *
+     * @param count 数据源个数，最多64个
+     * @param excludedMask 需要排除的数据源位掩码，比如：已经尝试过的、已经关闭的数据源，第 i 位为1表示排除下标为 i 的数据源
+     * @return 数据源的下标，-1 表示没有可以选择的数据源
+     */
+    int select(int count, long excludedMask);
+
+    /**
+     * 记录在数据源中获取序列区间成功
+     *
+     * @param index 数据源的下标
+     * @param elapsedNanos 耗时，单位：纳秒
+     */
+    default void recordSuccess(int index, long elapsedNanos) {
+    }
+
+    /**
+     * 记录在数据源中获取序列区间失败
+     *
+     * @param index 数据源的下标
+     */
+    default void recordFailure(int index) {
+    }
+
+    /**
+     * 获取没有被排除的数据源个数
+     *
+     * @param count 数据源个数
+     * @param excludedMask 需要排除的数据源位掩码
+     * @return 没有被排除的数据源个数
+     */
+    static int availableCount(int count, long excludedMask) {
+        long allMask = (count >= Long.SIZE ? -1L : (1L << count) - 1);
+        return Long.bitCount(allMask & ~excludedMask);
+    }
+
+    /**
+     * 获取第 n 个没有被排除的数据源下标
+     *
+     * @param count 数据源个数
+     * @param excludedMask 需要排除的数据源位掩码
+     * @param n 第几个没有被排除的数据源，从0开始
+     * @return 数据源的下标，没有则为 -1
+     */
+    static int nthAvailable(int count, long excludedMask, int n) {
+        int remaining = n;
+        for (int i = 0; i < count; i++) {
+            if ((excludedMask & (1L << i)) == 0 && remaining-- == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.sequence.constants;
+
+import app.myoss.cloud.sequence.DataSourceSelector;
+
+/**
+ * 获取序列区间时数据源的选择策略
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月23日 下午4:40:18
+ * @see DataSourceSelector
+ */
+public enum DataSourceSelectionPolicy {
+    /**
+     * 随机选择
+     */
+    RANDOM,
+    /**
+     * 随机选出两个数据源，使用平均耗时较少的那个
+     */
+    POWER_OF_TWO_CHOICES,
+    /**
+     * 按配置的容量加权随机选择
+     */
+    WEIGHTED_RANDOM
+}
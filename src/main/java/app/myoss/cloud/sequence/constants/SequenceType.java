@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.sequence.constants;
+
+/**
+ * 数据库表主键使用的序列号生成器类型
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月24日 上午10:18:25
+ */
+public enum SequenceType {
+    /**
+     * 从数据库中分段获取序列区间，生成连续递增的序列值，参考：{@link app.myoss.cloud.sequence.impl.DefaultSequenceImpl}
+     */
+    DEFAULT,
+    /**
+     * 按时间排序的序列值，只在启动和续租 workerId 时访问数据库，参考：{@link app.myoss.cloud.sequence.impl.SnowflakeSequenceImpl}
+     */
+    SNOWFLAKE
+}
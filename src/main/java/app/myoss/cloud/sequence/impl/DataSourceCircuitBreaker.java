@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.sequence.impl;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 数据源熔断器，数据源连续失败达到阈值之后熔断，在冷却时间内直接跳过该数据源；冷却时间结束之后只放行一次试探请求，试探成功则恢复，失败则重新熔断。
+ * <p>
+ * 避免部分数据源不可用时，每次获取序列区间都要先等待连接超时再切换到其它数据源
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月23日 下午3:05:12
+ * @see RdsSequenceRepository
+ */
+@Slf4j
+public class DataSourceCircuitBreaker {
+    /**
+     * 数据源的名字
+     */
+    @Getter
+    private final String                 name;
+    /**
+     * 连续失败多少次之后熔断
+     */
+    @Getter
+    private final int                    failureThreshold;
+    /**
+     * 熔断之后的冷却时间（毫秒）
+     */
+    @Getter
+    private final long                   coolDownMillis;
+    private final AtomicReference<State> state                     = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger          consecutiveFailures       = new AtomicInteger();
+    private final AtomicLong             totalFailures             = new AtomicLong();
+    private final AtomicLong             rejectedCount             = new AtomicLong();
+    private final AtomicLong             openCount                 = new AtomicLong();
+    private volatile long                openedTime;
+
+    /**
+     * 创建数据源熔断器
+     *
+     * @param name 数据源的名字
+     * @param failureThreshold 连续失败多少次之后熔断
+     * @param coolDownMillis 熔断之后的冷却时间（毫秒）
+     */
+    public DataSourceCircuitBreaker(String name, int failureThreshold, long coolDownMillis) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.coolDownMillis = Math.max(0, coolDownMillis);
+    }
+
+    /**
+     * 判断是否可以使用该数据源，熔断状态下冷却时间结束之后只有一个调用者能获得试探的机会
+     *
+     * @return true: 可以使用
+     */
+    public boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && System.currentTimeMillis() - openedTime >= coolDownMillis
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            log.info("data source [{}] circuit breaker half open, probing with a single trial", name);
+            return true;
+        }
+        rejectedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 记录一次成功的调用
+     */
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (state.getAndSet(State.CLOSED) != State.CLOSED) {
+            log.info("data source [{}] circuit breaker closed", name);
+        }
+    }
+
+    /**
+     * 记录一次失败的调用
+     */
+    public void recordFailure() {
+        totalFailures.incrementAndGet();
+        int failures = consecutiveFailures.incrementAndGet();
+        State current = state.get();
+        if (current == State.HALF_OPEN || (current == State.CLOSED && failures >= failureThreshold)) {
+            // 先设置熔断时间再切换状态，否则并发的 tryAcquire 可能看到 OPEN 状态和旧的熔断时间，跳过冷却时间直接试探
+            openedTime = System.currentTimeMillis();
+            if (!state.compareAndSet(current, State.OPEN)) {
+                return;
+            }
+            openCount.incrementAndGet();
+            log.warn("data source [{}] circuit breaker opened after {} consecutive failures, cool down {} ms", name,
+                    failures, coolDownMillis);
+        }
+    }
+
+    /**
+     * 获取熔断器当前的状态
+     *
+     * @return 熔断器当前的状态
+     */
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * 获取连续失败的次数
+     *
+     * @return 连续失败的次数
+     */
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    /**
+     * 获取累计失败的次数
+     *
+     * @return 累计失败的次数
+     */
+    public long getTotalFailures() {
+        return totalFailures.get();
+    }
+
+    /**
+     * 获取因为熔断被跳过的次数
+     *
+     * @return 因为熔断被跳过的次数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * 获取累计熔断的次数
+     *
+     * @return 累计熔断的次数
+     */
+    public long getOpenCount() {
+        return openCount.get();
+    }
+
+    /**
+     * 获取最近一次熔断的时间，从未熔断则为0
+     *
+     * @return 最近一次熔断的时间戳（毫秒）
+     */
+    public long getOpenedTime() {
+        return openedTime;
+    }
+
+    @Override
+    public String toString() {
+        return "DataSourceCircuitBreaker{name=" + name + ", state=" + state.get() + ", consecutiveFailures="
+                + consecutiveFailures.get() + ", totalFailures=" + totalFailures.get() + ", rejectedCount="
+                + rejectedCount.get() + ", openCount=" + openCount.get() + "}";
+    }
+
+    /**
+     * 熔断器的状态
+     */
+    public enum State {
+        /**
+         * 正常状态，放行所有的调用
+         */
+        CLOSED,
+        /**
+         * 熔断状态，冷却时间内跳过所有的调用
+         */
+        OPEN,
+        /**
+         * 试探状态，只放行一次试探的调用
+         */
+        HALF_OPEN
+    }
+}
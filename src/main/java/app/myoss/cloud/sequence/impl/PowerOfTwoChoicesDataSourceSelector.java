@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.sequence.impl;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import app.myoss.cloud.sequence.DataSourceSelector;
+
+/**
+ * "两次随机选择"策略：随机选出两个数据源，使用平均耗时较少的那个。耗时使用指数加权移动平均计算，没有获取过序列区间的数据源优先选择。
+ * <p>
+ * 相比总是选择耗时最少的数据源，不会让所有的请求集中到同一个数据源；失败时平均耗时加倍，让出问题的数据源尽快被避开
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月23日 下午4:40:18
+ */
+public class PowerOfTwoChoicesDataSourceSelector implements DataSourceSelector {
+    /**
+     * 失败时平均耗时的最小值：1秒
+     */
+    private static final long        FAILURE_LATENCY = 1000000000L;
+    /**
+     * 新耗时的权重，取值范围：(0, 1]
+     */
+    private final double             weight;
+    private volatile AtomicLongArray latencies       = new AtomicLongArray(0);
+
+    /**
+     * 创建"两次随机选择"策略，新耗时的权重为 0.2
+     */
+    public PowerOfTwoChoicesDataSourceSelector() {
+        this(0.2);
+    }
+
+    /**
+     * 创建"两次随机选择"策略
+     *
+     * @param weight 新耗时的权重，取值范围：(0, 1]，越大越偏向最近的耗时
+     */
+    public PowerOfTwoChoicesDataSourceSelector(double weight) {
+        if (weight <= 0 || weight > 1) {
+            throw new IllegalArgumentException("weight must be in (0, 1], but found: " + weight);
+        }
+        this.weight = weight;
+    }
+
+    @Override
+    public void init(List<String> dbGroupKeys) {
+        latencies = new AtomicLongArray(dbGroupKeys.size());
+    }
+
+    @Override
+    public int select(int count, long excludedMask) {
+        int available = DataSourceSelector.availableCount(count, excludedMask);
+        if (available <= 1) {
+            return (available == 0 ? -1 : DataSourceSelector.nthAvailable(count, excludedMask, 0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(available);
+        int second = random.nextInt(available - 1);
+        if (second >= first) {
+            second++;
+        }
+        int firstIndex = DataSourceSelector.nthAvailable(count, excludedMask, first);
+        int secondIndex = DataSourceSelector.nthAvailable(count, excludedMask, second);
+        return (getLatency(secondIndex) < getLatency(firstIndex) ? secondIndex : firstIndex);
+    }
+
+    @Override
+    public void recordSuccess(int index, long elapsedNanos) {
+        AtomicLongArray array = latencies;
+        if (index >= array.length()) {
+            return;
+        }
+        long previous = array.get(index);
+        long value = (previous == 0 ? elapsedNanos : (long) (previous + weight * (elapsedNanos - previous)));
+        array.set(index, Math.max(1, value));
+    }
+
+    @Override
+    public void recordFailure(int index) {
+        AtomicLongArray array = latencies;
+        if (index >= array.length()) {
+            return;
+        }
+        long previous = array.get(index);
+        array.set(index, Math.max(FAILURE_LATENCY, previous > Long.MAX_VALUE / 2 ? Long.MAX_VALUE : previous * 2));
+    }
+
+    /**
+     * 获取数据源的平均耗时
+     *
+     * @param index 数据源的下标
+     * @return 平均耗时，单位：纳秒，0 表示还没有获取过序列区间
+     */
+    public long getLatency(int index) {
+        AtomicLongArray array = latencies;
+        return (index >= array.length() ? 0 : array.get(index));
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.sequence.impl;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import app.myoss.cloud.sequence.DataSourceSelector;
+
+/**
+ * 随机选择数据源，所有数据源的概率相同
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月23日 下午4:40:18
+ */
+public class RandomDataSourceSelector implements DataSourceSelector {
+    @Override
+    public int select(int count, long excludedMask) {
+        int available = DataSourceSelector.availableCount(count, excludedMask);
+        if (available == 0) {
+            return -1;
+        }
+        int n = (available == 1 ? 0 : ThreadLocalRandom.current().nextInt(available));
+        return DataSourceSelector.nthAvailable(count, excludedMask, n);
+    }
+}
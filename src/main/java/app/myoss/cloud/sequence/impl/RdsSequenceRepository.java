@@ -24,6 +24,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -33,10 +34,10 @@ import javax.sql.DataSource;
 
 import org.springframework.util.CollectionUtils;
 
+import app.myoss.cloud.sequence.DataSourceSelector;
 import app.myoss.cloud.sequence.SequenceRange;
 import app.myoss.cloud.sequence.SequenceRepository;
 import app.myoss.cloud.sequence.exception.SequenceException;
-import app.myoss.cloud.sequence.utils.RandomSequenceUtils;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -88,6 +89,15 @@ public class RdsSequenceRepository implements SequenceRepository {
      */
     public static final Boolean     DEFAULT_ADJUST                   = false;
 
+    /**
+     * 默认数据源连续失败多少次之后熔断
+     */
+    public static final int         DEFAULT_FAILURE_THRESHOLD        = 3;
+    /**
+     * 默认数据源熔断之后的冷却时间（毫秒）
+     */
+    public static final long        DEFAULT_COOL_DOWN_MILLIS         = 10000L;
+
     private static final long       DELTA                            = 100000000L;
 
     /**
@@ -165,6 +175,32 @@ public class RdsSequenceRepository implements SequenceRepository {
     @Setter
     @Getter
     private String                  gmtModifiedColumnName            = DEFAULT_GMT_MODIFIED_COLUMN_NAME;
+    /**
+     * 数据源连续失败多少次之后熔断
+     */
+    @Setter
+    @Getter
+    private int                     failureThreshold                 = DEFAULT_FAILURE_THRESHOLD;
+    /**
+     * 数据源熔断之后的冷却时间（毫秒），冷却时间内获取序列区间会直接跳过该数据源，之后只放行一次试探的请求
+     */
+    @Setter
+    @Getter
+    private long                    coolDownMillis                   = DEFAULT_COOL_DOWN_MILLIS;
+    /**
+     * 每个数据源的熔断器，下标和 dbGroupKeys 相同，关闭的数据源为 null
+     */
+    private DataSourceCircuitBreaker[] circuitBreakers;
+    /**
+     * 获取序列区间时数据源的选择策略，默认随机选择
+     */
+    @Setter
+    @Getter
+    private DataSourceSelector      dataSourceSelector               = new RandomDataSourceSelector();
+    /**
+     * 已经关闭的数据源位掩码
+     */
+    private long                    offStateMask;
 
     private final ReentrantLock     lock                             = new ReentrantLock();
     protected volatile boolean      isInit                           = false;
@@ -203,6 +239,23 @@ public class RdsSequenceRepository implements SequenceRepository {
             }
             // 计算外步长
             outStep = innerStep * dataSourceCount;
+            if (dataSourceCount > DataSourceSelector.MAX_DATA_SOURCE_COUNT) {
+                throw new SequenceException("dataSourceCount must be less than or equal to "
+                        + DataSourceSelector.MAX_DATA_SOURCE_COUNT + ", but found: " + dataSourceCount);
+            }
+            DataSourceCircuitBreaker[] breakers = new DataSourceCircuitBreaker[dataSourceCount];
+            long offMask = 0;
+            for (int i = 0; i < dataSourceCount; i++) {
+                String key = dbGroupKeys.get(i);
+                if (isOffState(key)) {
+                    offMask |= 1L << i;
+                } else {
+                    breakers[i] = new DataSourceCircuitBreaker(key, failureThreshold, coolDownMillis);
+                }
+            }
+            circuitBreakers = breakers;
+            offStateMask = offMask;
+            dataSourceSelector.init(dbGroupKeys);
 
             StringBuilder sb = new StringBuilder();
             sb.append(this.getClass().getSimpleName());
@@ -215,6 +268,10 @@ public class RdsSequenceRepository implements SequenceRepository {
             sb.append(System.lineSeparator());
             sb.append("adjust：").append(adjust).append(System.lineSeparator());
             sb.append("retryTimes: ").append(retryTimes).append(System.lineSeparator());
+            sb.append("failureThreshold: ").append(failureThreshold).append(System.lineSeparator());
+            sb.append("coolDownMillis: ").append(coolDownMillis).append(System.lineSeparator());
+            sb.append("dataSourceSelector: ").append(dataSourceSelector.getClass().getName())
+                    .append(System.lineSeparator());
             sb.append("tableName: ").append(tableName).append(System.lineSeparator());
             sb.append("nameColumnName: ").append(nameColumnName).append(System.lineSeparator());
             sb.append("valueColumnName: ").append(valueColumnName).append(System.lineSeparator());
@@ -227,6 +284,23 @@ public class RdsSequenceRepository implements SequenceRepository {
         }
     }
 
+    /**
+     * 获取每个数据源的熔断器，用来查看数据源的熔断状态、失败次数等指标
+     *
+     * @return dbGroupKey =&gt; 熔断器，不包含关闭的数据源
+     */
+    public Map<String, DataSourceCircuitBreaker> getCircuitBreakers() {
+        Map<String, DataSourceCircuitBreaker> result = new LinkedHashMap<>();
+        if (circuitBreakers != null) {
+            for (DataSourceCircuitBreaker circuitBreaker : circuitBreakers) {
+                if (circuitBreaker != null) {
+                    result.put(circuitBreaker.getName(), circuitBreaker);
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * 检查 groupKey 对象是否已经关闭
      *
@@ -368,21 +442,32 @@ public class RdsSequenceRepository implements SequenceRepository {
         Connection conn = null;
         PreparedStatement stmt = null;
         ResultSet rs = null;
-        int[] randomIntSequence = RandomSequenceUtils.randomIntSequence(dataSourceCount);
         for (int i = 0; i < retryTimes; i++) {
-            for (int j = 0; j < dataSourceCount; j++) {
-                int index = randomIntSequence[j];
+            // 每一轮重试中每个数据源最多尝试一次
+            long excludedMask = offStateMask;
+            for (;;) {
+                int index = dataSourceSelector.select(dataSourceCount, excludedMask);
+                if (index < 0 || (excludedMask & (1L << index)) != 0) {
+                    break;
+                }
+                excludedMask |= 1L << index;
                 String key = dbGroupKeys.get(index);
-                if (isOffState(key)) {
+                DataSourceCircuitBreaker circuitBreaker = circuitBreakers[index];
+                if (!circuitBreaker.tryAcquire()) {
+                    // 数据源已经熔断，直接跳过，不再等待连接超时
                     continue;
                 }
 
+                long start = System.nanoTime();
                 DataSource dataSource = dataSourceMap.get(key);
+                boolean released = false;
                 try {
                     conn = dataSource.getConnection();
                     stmt = conn.prepareStatement(getSelectSql());
                     stmt.setString(1, name);
                     rs = stmt.executeQuery();
+                    circuitBreaker.recordSuccess();
+                    released = true;
                     if (!rs.next()) {
                         throw new SequenceException(
                                 "数据库中找不到对应的 sequence 记录，dbGroupIndex = " + key + ", name = " + name);
@@ -410,8 +495,15 @@ public class RdsSequenceRepository implements SequenceRepository {
                     }
                 } catch (SQLException e) {
                     log.error("取范围过程中--查询出错！" + key + ": " + name, e);
+                    circuitBreaker.recordFailure();
+                    released = true;
+                    dataSourceSelector.recordFailure(index);
                     continue;
                 } finally {
+                    if (!released) {
+                        // 非 SQLException 的异常也记录为失败，释放试探的机会，防止熔断器一直停留在 HALF_OPEN 状态
+                        circuitBreaker.recordFailure();
+                    }
                     closeDbResource(rs, stmt, conn);
                 }
 
@@ -423,26 +515,119 @@ public class RdsSequenceRepository implements SequenceRepository {
                     stmt.setString(3, name);
                     stmt.setLong(4, oldValue);
                     int affectedRows = stmt.executeUpdate();
+                    circuitBreaker.recordSuccess();
                     if (affectedRows == 0) {
                         continue;
                     }
                 } catch (SQLException e) {
                     log.error("取范围过程中--更新出错！" + key + ":" + name, e);
+                    circuitBreaker.recordFailure();
+                    dataSourceSelector.recordFailure(index);
                     continue;
                 } finally {
                     closeDbResource(null, stmt, conn);
                 }
 
+                dataSourceSelector.recordSuccess(index, System.nanoTime() - start);
                 SequenceRange sequenceRange = new SequenceRange(newValue + 1, newValue + innerStep);
                 log.debug("get new range, sequence name is: {}, range info: [{}]", name, sequenceRange);
                 return sequenceRange;
             }
         }
-        log.error("所有数据源都不可用！且重试" + this.retryTimes + "次后，仍然失败!");
+        log.error("所有数据源都不可用！且重试" + this.retryTimes + "次后，仍然失败! 熔断器状态: " + getCircuitBreakers().values());
         throw new SequenceException(
                 "All dataSource failed to get value, retried too many times, retryTimes = " + retryTimes);
     }
 
+    /**
+     * 获取存储租约类数据（比如：{@link SnowflakeSequenceImpl} 的 workerId 租约）的数据源，使用第一个没有关闭的数据源，保证所有节点读写同一个数据源
+     *
+     * @return 数据源
+     */
+    public DataSource getLeaseDataSource() {
+        for (String key : dbGroupKeys) {
+            if (!isOffState(key)) {
+                return dataSourceMap.get(key);
+            }
+        }
+        throw new SequenceException("no available dataSource in dbGroupKeys: " + dbGroupKeys);
+    }
+
+    /**
+     * 查询序列表中 name 对应的值
+     *
+     * @param dataSource 数据源
+     * @param name 序列名称
+     * @return 序列的值，没有记录则为 null
+     * @throws SQLException 数据库异常
+     */
+    public Long queryValue(DataSource dataSource, String name) throws SQLException {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = dataSource.getConnection();
+            stmt = conn.prepareStatement(getSelectSql());
+            stmt.setString(1, name);
+            rs = stmt.executeQuery();
+            return (rs.next() ? rs.getLong(1) : null);
+        } finally {
+            closeDbResource(rs, stmt, conn);
+        }
+    }
+
+    /**
+     * 在序列表中插入一条记录
+     *
+     * @param dataSource 数据源
+     * @param name 序列名称
+     * @param value 序列的值
+     * @throws SQLException 数据库异常
+     */
+    public void insertValue(DataSource dataSource, String name, long value) throws SQLException {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = dataSource.getConnection();
+            stmt = conn.prepareStatement(getInsertSql());
+            stmt.setString(1, name);
+            stmt.setLong(2, value);
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            stmt.setTimestamp(3, now);
+            stmt.setTimestamp(4, now);
+            stmt.executeUpdate();
+        } finally {
+            closeDbResource(null, stmt, conn);
+        }
+    }
+
+    /**
+     * 序列的值等于 expect 时更新为 update
+     *
+     * @param dataSource 数据源
+     * @param name 序列名称
+     * @param expect 期望的旧值
+     * @param update 新值
+     * @return true: 更新成功
+     * @throws SQLException 数据库异常
+     */
+    public boolean compareAndSetValue(DataSource dataSource, String name, long expect, long update)
+            throws SQLException {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = dataSource.getConnection();
+            stmt = conn.prepareStatement(getUpdateSql());
+            stmt.setLong(1, update);
+            stmt.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+            stmt.setString(3, name);
+            stmt.setLong(4, expect);
+            return stmt.executeUpdate() > 0;
+        } finally {
+            closeDbResource(null, stmt, conn);
+        }
+    }
+
     private String getInsertSql() {
         if (insertSql == null) {
             synchronized (this) {
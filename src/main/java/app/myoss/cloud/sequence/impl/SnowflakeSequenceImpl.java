@@ -0,0 +1,327 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.sequence.impl;
+
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import app.myoss.cloud.sequence.Sequence;
+import app.myoss.cloud.sequence.SequenceLifecycle;
+import app.myoss.cloud.sequence.exception.SequenceException;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 按时间排序的序列号生成器（Snowflake 算法），序列值完全在内存中生成，不需要每隔 innerStep 个值访问一次数据库。
+ * <p>
+ * 序列值由以下几部分组成（从高位到低位）：
+ * <ul>
+ * <li>1位符号位，始终为0</li>
+ * <li>41位时间戳，相对 {@link #getEpoch()} 的毫秒数，可以使用69年</li>
+ * <li>10位 workerId，最多1024个节点</li>
+ * <li>12位毫秒内的计数器，每个节点每毫秒最多生成4096个序列值</li>
+ * </ul>
+ * workerId 通过 {@link RdsSequenceRepository} 的序列表租用，每个 workerId 对应一条记录：{@code name + "_worker_" + workerId}，
+ * 记录的值为租约的过期时间，后台线程每 1/3 租期续租一次。只有租约过期之后 workerId 才能被其它节点使用，新节点的时间一定大于旧节点生成的所有序列值的时间，
+ * 所以重启、时钟回拨之后也不会生成重复的序列值。租约过期之后（比如续租失败）生成序列值会抛出异常，租约被其它节点占用时，后台线程会按退避时间重新租用新的
+ * workerId。
+ * <p>
+ * 注意：租约只保存在 {@link RdsSequenceRepository#getLeaseDataSource()} 这一个数据源中，它是单点，不可用的时间超过租期之后，所有节点都会无法生成序列值。
+ * 这里不会自动切换到其它数据源，因为不同节点看到的数据源状态可能不一致，切换之后同一个 workerId 可能被两个节点同时租用，从而生成重复的序列值
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月24日 上午10:18:25
+ */
+@Slf4j
+public class SnowflakeSequenceImpl implements SequenceLifecycle, Sequence {
+    /**
+     * 默认的起始时间：2019-01-01 00:00:00 +08:00
+     */
+    public static final long         DEFAULT_EPOCH                     = 1546272000000L;
+    /**
+     * 默认 workerId 的租期（毫秒）
+     */
+    public static final long         DEFAULT_LEASE_MILLIS              = 60000L;
+    /**
+     * 默认最多容忍的时钟回拨（毫秒），回拨在此范围内会等待时钟追上，超过则抛出异常
+     */
+    public static final long         DEFAULT_MAX_CLOCK_BACKWARD_MILLIS = 5L;
+    /**
+     * workerId 的位数
+     */
+    public static final int          WORKER_ID_BITS                    = 10;
+    /**
+     * 毫秒内计数器的位数
+     */
+    public static final int          COUNTER_BITS                      = 12;
+    private static final int         MAX_WORKER_COUNT                  = 1 << WORKER_ID_BITS;
+    private static final int         MAX_COUNTER                       = (1 << COUNTER_BITS) - 1;
+    private static final int         TIMESTAMP_SHIFT                   = WORKER_ID_BITS + COUNTER_BITS;
+    private static final String      WORKER_ID_INFIX                   = "_worker_";
+
+    /**
+     * 序列名称，用于区分不同序列的 workerId 租约
+     */
+    @Setter
+    @Getter
+    private String                   name;
+    /**
+     * 租用 workerId 的序列存储
+     */
+    @Setter
+    @Getter
+    private RdsSequenceRepository    sequenceRepository;
+    /**
+     * 时间戳的起始时间，所有节点必须相同，设置之后不能修改
+     */
+    @Setter
+    @Getter
+    private long                     epoch                             = DEFAULT_EPOCH;
+    /**
+     * workerId 的租期（毫秒）
+     */
+    @Setter
+    @Getter
+    private long                     leaseMillis                       = DEFAULT_LEASE_MILLIS;
+    /**
+     * 最多容忍的时钟回拨（毫秒）
+     */
+    @Setter
+    @Getter
+    private long                     maxClockBackwardMillis            = DEFAULT_MAX_CLOCK_BACKWARD_MILLIS;
+    /**
+     * 当前节点租用的 workerId，没有租用则为 -1
+     */
+    @Getter
+    private volatile int             workerId                          = -1;
+    /**
+     * 当前租约的过期时间
+     */
+    @Getter
+    private volatile long            leaseExpireTime;
+    private DataSource               leaseDataSource;
+    private ScheduledExecutorService renewExecutor;
+    private long                     lastTimestamp                     = -1L;
+    private int                      counter;
+    private long                     reacquireBackoffMillis;
+    private long                     nextReacquireTime;
+
+    @Override
+    public void init() {
+        if (sequenceRepository == null || name == null) {
+            throw new NullPointerException("sequenceRepository or name is empty");
+        }
+        sequenceRepository.init();
+        leaseDataSource = sequenceRepository.getLeaseDataSource();
+        acquireWorkerId();
+        renewExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snowflake-lease-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, leaseMillis / 3);
+        renewExecutor.scheduleWithFixedDelay(this::renewLease, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (renewExecutor != null) {
+            renewExecutor.shutdownNow();
+        }
+        int currentWorkerId = workerId;
+        if (currentWorkerId < 0) {
+            return;
+        }
+        // 释放租约：过期时间设为已生成的最大时间之后，其它节点马上可以使用此 workerId
+        long releaseTime;
+        synchronized (this) {
+            releaseTime = Math.max(lastTimestamp, System.currentTimeMillis()) + 1;
+        }
+        try {
+            sequenceRepository.compareAndSetValue(leaseDataSource, getWorkerKey(currentWorkerId), leaseExpireTime,
+                    releaseTime);
+        } catch (SQLException ex) {
+            log.warn("release worker id lease failed, name: {}, workerId: {}", name, currentWorkerId, ex);
+        }
+        workerId = -1;
+    }
+
+    @Override
+    public long nextValue(Object... params) throws SequenceException {
+        return nextValue(1);
+    }
+
+    @Override
+    public synchronized long nextValue(int size) throws SequenceException {
+        if (size <= 0 || size > MAX_COUNTER + 1) {
+            throw new SequenceException("batch size must be in [1, " + (MAX_COUNTER + 1) + "], but found: " + size);
+        }
+        long timestamp = System.currentTimeMillis();
+        checkLease(timestamp);
+        if (timestamp < lastTimestamp) {
+            timestamp = waitClockBackward(timestamp);
+        }
+        if (timestamp == lastTimestamp && counter + size - 1 > MAX_COUNTER) {
+            // 当前毫秒的计数器已经用完，等待下一毫秒
+            timestamp = waitNextMillis(lastTimestamp);
+        }
+        // 等待期间租约可能已经过期，使用等待之后的时间再检查一次
+        checkLease(timestamp);
+        if (timestamp != lastTimestamp) {
+            counter = 0;
+            lastTimestamp = timestamp;
+        }
+        long relativeTime = timestamp - epoch;
+        if (relativeTime < 0 || relativeTime >= (1L << (Long.SIZE - 1 - TIMESTAMP_SHIFT))) {
+            throw new SequenceException("current time is out of range of epoch " + epoch + ", time = " + timestamp);
+        }
+        counter += size;
+        return (relativeTime << TIMESTAMP_SHIFT) | ((long) workerId << COUNTER_BITS) | (counter - 1);
+    }
+
+    private void checkLease(long timestamp) {
+        if (workerId < 0 || timestamp >= leaseExpireTime) {
+            throw new SequenceException(
+                    "worker id lease of sequence [" + name + "] is expired, workerId = " + workerId);
+        }
+    }
+
+    private long waitClockBackward(long timestamp) {
+        long offset = lastTimestamp - timestamp;
+        if (offset > maxClockBackwardMillis) {
+            throw new SequenceException("clock moved backwards " + offset + " ms, refusing to generate sequence ["
+                    + name + "]");
+        }
+        try {
+            Thread.sleep(offset);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SequenceException("interrupted while waiting for clock", ex);
+        }
+        long current = System.currentTimeMillis();
+        if (current < lastTimestamp) {
+            throw new SequenceException("clock moved backwards " + (lastTimestamp - current)
+                    + " ms, refusing to generate sequence [" + name + "]");
+        }
+        return current;
+    }
+
+    private static long waitNextMillis(long lastTimestamp) {
+        long timestamp = System.currentTimeMillis();
+        while (timestamp <= lastTimestamp) {
+            Thread.yield();
+            timestamp = System.currentTimeMillis();
+        }
+        return timestamp;
+    }
+
+    /**
+     * 租用一个过期的 workerId，从随机位置开始查找，减少多个节点同时启动时的冲突
+     */
+    private void acquireWorkerId() {
+        int start = ThreadLocalRandom.current().nextInt(MAX_WORKER_COUNT);
+        try {
+            for (int i = 0; i < MAX_WORKER_COUNT; i++) {
+                int id = (start + i) % MAX_WORKER_COUNT;
+                String key = getWorkerKey(id);
+                Long expireTime = sequenceRepository.queryValue(leaseDataSource, key);
+                if (expireTime == null) {
+                    sequenceRepository.insertValue(leaseDataSource, key, 0L);
+                    expireTime = 0L;
+                }
+                long now = System.currentTimeMillis();
+                long newExpireTime = now + leaseMillis;
+                if (expireTime < now
+                        && sequenceRepository.compareAndSetValue(leaseDataSource, key, expireTime, newExpireTime)) {
+                    synchronized (this) {
+                        leaseExpireTime = newExpireTime;
+                        workerId = id;
+                    }
+                    log.info("sequence [{}] leased worker id: {}", name, id);
+                    return;
+                }
+            }
+        } catch (SQLException ex) {
+            throw new SequenceException("lease worker id of sequence [" + name + "] failed", ex);
+        }
+        throw new SequenceException("no available worker id of sequence [" + name + "], all "
+                + MAX_WORKER_COUNT + " worker ids are leased");
+    }
+
+    /**
+     * 续租当前的 workerId，续租出现数据库异常时保留原来的过期时间，下次继续尝试；租约已经被其它节点占用时，清除当前的 workerId 并重新租用
+     */
+    void renewLease() {
+        int currentWorkerId = workerId;
+        if (currentWorkerId < 0) {
+            reacquireWorkerId();
+            return;
+        }
+        long expireTime = leaseExpireTime;
+        long newExpireTime = System.currentTimeMillis() + leaseMillis;
+        try {
+            if (sequenceRepository.compareAndSetValue(leaseDataSource, getWorkerKey(currentWorkerId), expireTime,
+                    newExpireTime)) {
+                leaseExpireTime = newExpireTime;
+                return;
+            }
+        } catch (SQLException ex) {
+            log.warn("renew worker id lease of sequence [{}] failed, workerId: {}", name, currentWorkerId, ex);
+            return;
+        }
+        log.error("worker id lease of sequence [{}] was lost, workerId: {}", name, currentWorkerId);
+        synchronized (this) {
+            workerId = -1;
+        }
+        reacquireBackoffMillis = 0;
+        nextReacquireTime = 0;
+        reacquireWorkerId();
+    }
+
+    /**
+     * 重新租用 workerId，失败之后按指数退避（最长一个租期）等待下次续租任务再重试
+     */
+    private void reacquireWorkerId() {
+        long now = System.currentTimeMillis();
+        if (now < nextReacquireTime) {
+            return;
+        }
+        try {
+            acquireWorkerId();
+            reacquireBackoffMillis = 0;
+            nextReacquireTime = 0;
+        } catch (SequenceException ex) {
+            long period = Math.max(1, leaseMillis / 3);
+            reacquireBackoffMillis = Math.min(leaseMillis,
+                    reacquireBackoffMillis == 0 ? period : reacquireBackoffMillis * 2);
+            nextReacquireTime = now + reacquireBackoffMillis;
+            log.error("re-lease worker id of sequence [{}] failed, retry after {} ms", name, reacquireBackoffMillis,
+                    ex);
+        }
+    }
+
+    private String getWorkerKey(int id) {
+        return name + WORKER_ID_INFIX + id;
+    }
+}
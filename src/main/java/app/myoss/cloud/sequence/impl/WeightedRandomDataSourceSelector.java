@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.sequence.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import app.myoss.cloud.sequence.DataSourceSelector;
+
+/**
+ * 按配置的容量加权随机选择数据源，容量越大的数据源被选中的概率越大，没有配置容量的数据源权重为1，权重为0的数据源只在其它数据源都失败时使用
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月23日 下午4:40:18
+ */
+public class WeightedRandomDataSourceSelector implements DataSourceSelector {
+    private final Map<String, Integer> capacities;
+    private volatile int[]             weights = new int[0];
+
+    /**
+     * 创建按配置的容量加权随机选择数据源的选择策略
+     *
+     * @param capacities dbGroupKey =&gt; 数据源的容量（权重）
+     */
+    public WeightedRandomDataSourceSelector(Map<String, Integer> capacities) {
+        this.capacities = capacities;
+    }
+
+    @Override
+    public void init(List<String> dbGroupKeys) {
+        int[] array = new int[dbGroupKeys.size()];
+        for (int i = 0; i < array.length; i++) {
+            Integer capacity = capacities.get(dbGroupKeys.get(i));
+            array[i] = (capacity != null ? Math.max(0, capacity) : 1);
+        }
+        weights = array;
+    }
+
+    @Override
+    public int select(int count, long excludedMask) {
+        int[] array = weights;
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            if ((excludedMask & (1L << i)) == 0) {
+                total += getWeight(array, i);
+            }
+        }
+        if (total == 0) {
+            // 没有配置权重或者权重都为0，按顺序选择
+            return DataSourceSelector.nthAvailable(count, excludedMask, 0);
+        }
+        long random = ThreadLocalRandom.current().nextLong(total);
+        for (int i = 0; i < count; i++) {
+            if ((excludedMask & (1L << i)) == 0) {
+                random -= getWeight(array, i);
+                if (random < 0) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static int getWeight(int[] array, int index) {
+        return (index < array.length ? array[index] : 1);
+    }
+}
@@ -95,7 +95,7 @@ public class RdsSequenceAutoConfiguration {
     public Optional<DefaultSequenceImpl> initDefaultSequence(SequenceRepository sequenceRepository,
                                                              ApplicationContext applicationContext) {
         DefaultSequenceUtils.initDefaultSequence(TableMetaObject.getSequenceBeanMap().values(), sequenceRepository,
-                applicationContext);
+                applicationContext, properties.getSequenceType(), properties.getWorkerLeaseMillis());
         return Optional.empty();
     }
 }
@@ -25,8 +25,12 @@ import javax.sql.DataSource;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import app.myoss.cloud.sequence.DataSourceSelector;
+import app.myoss.cloud.sequence.constants.DataSourceSelectionPolicy;
 import app.myoss.cloud.sequence.constants.SequenceConstants;
+import app.myoss.cloud.sequence.constants.SequenceType;
 import app.myoss.cloud.sequence.impl.RdsSequenceRepository;
+import app.myoss.cloud.sequence.impl.SnowflakeSequenceImpl;
 import lombok.Data;
 
 /**
@@ -41,54 +45,78 @@ public class RdsSequenceProperties {
     /**
      * 是否启用
      */
-    private boolean                 enabled;
+    private boolean                   enabled;
     /**
      * 自适应调整
      */
-    private boolean                 adjust                = true;
+    private boolean                   adjust                = true;
     /**
      * 重试次数，在多个DataSource的场景下，建议设置成1-2次。默认为2次
      */
-    private int                     retryTimes            = RdsSequenceRepository.DEFAULT_RETRY_TIMES;
+    private int                       retryTimes            = RdsSequenceRepository.DEFAULT_RETRY_TIMES;
     /**
      * 数据库名：从哪些数据库中取ID，如果在末尾插入"-OFF",该源将被关掉，该源占据的SQL段会被保留。如果没有设置，会从
      * dataSourceBeanName 和 dataSourceMap 中取值
      */
-    private List<String>            dbGroupKeys;
+    private List<String>              dbGroupKeys;
     /**
      * 数据源，配置 spring bean name
      */
-    private Set<String>             dataSourceBeanName;
+    private Set<String>               dataSourceBeanName;
     /**
      * 数据源
      */
-    private Map<String, DataSource> dataSourceMap;
+    private Map<String, DataSource>   dataSourceMap;
     /**
      * 数据源的个数
      */
-    private int                     dataSourceCount       = RdsSequenceRepository.DEFAULT_DATA_SOURCE_COUNT;
+    private int                       dataSourceCount       = RdsSequenceRepository.DEFAULT_DATA_SOURCE_COUNT;
     /**
      * 内步长，默认为1000，取值在1-100000之间
      */
-    private int                     innerStep             = RdsSequenceRepository.DEFAULT_INNER_STEP;
+    private int                       innerStep             = RdsSequenceRepository.DEFAULT_INNER_STEP;
     /**
      * 序列数据库表名，默认为sequence
      */
-    private String                  tableName             = RdsSequenceRepository.DEFAULT_TABLE_NAME;
+    private String                    tableName             = RdsSequenceRepository.DEFAULT_TABLE_NAME;
     /**
      * 存储序列名称的列名，默认为name
      */
-    private String                  nameColumnName        = RdsSequenceRepository.DEFAULT_NAME_COLUMN_NAME;
+    private String                    nameColumnName        = RdsSequenceRepository.DEFAULT_NAME_COLUMN_NAME;
     /**
      * 存储序列值的列名，默认为value
      */
-    private String                  valueColumnName       = RdsSequenceRepository.DEFAULT_VALUE_COLUMN_NAME;
+    private String                    valueColumnName       = RdsSequenceRepository.DEFAULT_VALUE_COLUMN_NAME;
     /**
      * 存储序列创建时间的列名，默认为gmt_created
      */
-    private String                  gmtCreatedColumnName  = RdsSequenceRepository.DEFAULT_GMT_CREATED_COLUMN_NAME;
+    private String                    gmtCreatedColumnName  = RdsSequenceRepository.DEFAULT_GMT_CREATED_COLUMN_NAME;
     /**
      * 存储序列最后更新时间的列名，默认为gmt_modified
      */
-    private String                  gmtModifiedColumnName = RdsSequenceRepository.DEFAULT_GMT_MODIFIED_COLUMN_NAME;
+    private String                    gmtModifiedColumnName = RdsSequenceRepository.DEFAULT_GMT_MODIFIED_COLUMN_NAME;
+    /**
+     * 数据源连续失败多少次之后熔断，默认为3次
+     */
+    private int                       failureThreshold      = RdsSequenceRepository.DEFAULT_FAILURE_THRESHOLD;
+    /**
+     * 数据源熔断之后的冷却时间（毫秒），冷却时间内获取序列区间会直接跳过该数据源，默认为10000
+     */
+    private long                      coolDownMillis        = RdsSequenceRepository.DEFAULT_COOL_DOWN_MILLIS;
+    /**
+     * 获取序列区间时数据源的选择策略，默认为随机选择；存在 {@link DataSourceSelector} Spring Bean 时使用该 Bean
+     */
+    private DataSourceSelectionPolicy selectionPolicy       = DataSourceSelectionPolicy.RANDOM;
+    /**
+     * 数据源的容量（权重），选择策略为 {@link DataSourceSelectionPolicy#WEIGHTED_RANDOM} 时使用，key 为 dbGroupKey，没有配置的数据源权重为1
+     */
+    private Map<String, Integer>      capacities;
+    /**
+     * 数据库表主键使用的序列号生成器类型，默认为 {@link SequenceType#DEFAULT}
+     */
+    private SequenceType              sequenceType          = SequenceType.DEFAULT;
+    /**
+     * 序列号生成器类型为 {@link SequenceType#SNOWFLAKE} 时，workerId 的租期（毫秒），默认为60000
+     */
+    private long                      workerLeaseMillis     = SnowflakeSequenceImpl.DEFAULT_LEASE_MILLIS;
 }
@@ -18,6 +18,7 @@
 package app.myoss.cloud.sequence.utils;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
@@ -35,10 +36,17 @@ import org.springframework.util.CollectionUtils;
 
 import app.myoss.cloud.core.exception.BizRuntimeException;
 import app.myoss.cloud.mybatis.table.TableSequence;
+import app.myoss.cloud.sequence.DataSourceSelector;
 import app.myoss.cloud.sequence.Sequence;
 import app.myoss.cloud.sequence.SequenceRepository;
+import app.myoss.cloud.sequence.constants.DataSourceSelectionPolicy;
+import app.myoss.cloud.sequence.constants.SequenceType;
 import app.myoss.cloud.sequence.impl.DefaultSequenceImpl;
+import app.myoss.cloud.sequence.impl.PowerOfTwoChoicesDataSourceSelector;
+import app.myoss.cloud.sequence.impl.RandomDataSourceSelector;
 import app.myoss.cloud.sequence.impl.RdsSequenceRepository;
+import app.myoss.cloud.sequence.impl.SnowflakeSequenceImpl;
+import app.myoss.cloud.sequence.impl.WeightedRandomDataSourceSelector;
 import app.myoss.cloud.sequence.spring.boot.autoconfigure.RdsSequenceProperties;
 import lombok.extern.slf4j.Slf4j;
 
@@ -51,6 +59,23 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class DefaultSequenceUtils {
 
+    /**
+     * 根据配置的选择策略构建获取序列区间时数据源的选择策略
+     *
+     * @param sequenceConfig Rds Sequence 属性配置
+     * @return 数据源的选择策略
+     */
+    public static DataSourceSelector buildDataSourceSelector(RdsSequenceProperties sequenceConfig) {
+        DataSourceSelectionPolicy selectionPolicy = sequenceConfig.getSelectionPolicy();
+        if (selectionPolicy == DataSourceSelectionPolicy.POWER_OF_TWO_CHOICES) {
+            return new PowerOfTwoChoicesDataSourceSelector();
+        } else if (selectionPolicy == DataSourceSelectionPolicy.WEIGHTED_RANDOM) {
+            Map<String, Integer> capacities = sequenceConfig.getCapacities();
+            return new WeightedRandomDataSourceSelector(capacities != null ? capacities : Collections.emptyMap());
+        }
+        return new RandomDataSourceSelector();
+    }
+
     /**
      * 构建 "使用关系数据库生成序列" 实例对象
      *
@@ -86,6 +111,12 @@ public class DefaultSequenceUtils {
         repository.setGmtCreatedColumnName(sequenceConfig.getGmtCreatedColumnName());
         repository.setGmtModifiedColumnName(sequenceConfig.getGmtModifiedColumnName());
         repository.setAdjust(sequenceConfig.isAdjust());
+        repository.setFailureThreshold(sequenceConfig.getFailureThreshold());
+        repository.setCoolDownMillis(sequenceConfig.getCoolDownMillis());
+        DataSourceSelector dataSourceSelector = (applicationContext != null
+                ? applicationContext.getBeanProvider(DataSourceSelector.class).getIfAvailable() : null);
+        repository.setDataSourceSelector(
+                dataSourceSelector != null ? dataSourceSelector : buildDataSourceSelector(sequenceConfig));
         if (init) {
             repository.init();
         }
@@ -102,6 +133,23 @@ public class DefaultSequenceUtils {
     public static void initDefaultSequence(Collection<app.myoss.cloud.mybatis.table.Sequence> sequences,
                                            SequenceRepository sequenceRepository,
                                            ApplicationContext applicationContext) {
+        initDefaultSequence(sequences, sequenceRepository, applicationContext, SequenceType.DEFAULT,
+                SnowflakeSequenceImpl.DEFAULT_LEASE_MILLIS);
+    }
+
+    /**
+     * 按序列号生成器类型初始化数据库表主键使用的序列号生成器，并注册到 Spring Application Context 中
+     *
+     * @param sequences 待初始化的 Sequence 实例集合
+     * @param sequenceRepository SequenceRepository 实例对象
+     * @param applicationContext Spring Application Context
+     * @param sequenceType 序列号生成器类型
+     * @param workerLeaseMillis 序列号生成器类型为 {@link SequenceType#SNOWFLAKE} 时，workerId 的租期（毫秒）
+     */
+    public static void initDefaultSequence(Collection<app.myoss.cloud.mybatis.table.Sequence> sequences,
+                                           SequenceRepository sequenceRepository,
+                                           ApplicationContext applicationContext, SequenceType sequenceType,
+                                           long workerLeaseMillis) {
         Map<String, Sequence> map = new HashMap<>();
         for (app.myoss.cloud.mybatis.table.Sequence itemValue : sequences) {
             Class sequenceDelegateClass = itemValue.getSequenceDelegateClass();
@@ -121,11 +169,12 @@ public class DefaultSequenceUtils {
                 itemValue.setSequenceDelegate(sequence);
                 continue;
             }
-            DefaultSequenceImpl sequence = initDefaultSequence(applicationContext, sequenceName, null,
-                    sequenceRepository);
+            Sequence sequence = (sequenceType == SequenceType.SNOWFLAKE
+                    ? initSnowflakeSequence(applicationContext, sequenceName, sequenceRepository, workerLeaseMillis)
+                    : initDefaultSequence(applicationContext, sequenceName, null, sequenceRepository));
             if (sequence == null) {
-                throw new BizRuntimeException("create DefaultSequenceImpl failed, sequenceName = " + sequenceName
-                        + ", tableName = " + itemValue.getTableInfo().getTableName());
+                throw new BizRuntimeException("create " + sequenceType + " sequence failed, sequenceName = "
+                        + sequenceName + ", tableName = " + itemValue.getTableInfo().getTableName());
             }
             itemValue.setSequenceDelegate(sequence);
             map.put(sequenceName, sequence);
@@ -178,4 +227,46 @@ public class DefaultSequenceUtils {
         }
         return null;
     }
+
+    /**
+     * 初始化 {@link SnowflakeSequenceImpl} 序列生成器，并注册到 Spring Application Context 中
+     *
+     * @param applicationContext Spring Application Context
+     * @param sequenceName 待初始化的 sequence 名称
+     * @param sequenceRepository 租用 workerId 的序列存储，必须是 {@link RdsSequenceRepository}
+     * @param workerLeaseMillis workerId 的租期（毫秒）
+     * @return 生成的 {@link SnowflakeSequenceImpl} 序列生成器
+     */
+    public static SnowflakeSequenceImpl initSnowflakeSequence(ApplicationContext applicationContext,
+                                                              String sequenceName,
+                                                              SequenceRepository sequenceRepository,
+                                                              long workerLeaseMillis) {
+        if (applicationContext.containsBean(sequenceName)) {
+            return applicationContext.getBean(sequenceName, SnowflakeSequenceImpl.class);
+        }
+        if (!(sequenceRepository instanceof RdsSequenceRepository)) {
+            throw new BizRuntimeException("SnowflakeSequenceImpl requires RdsSequenceRepository to lease worker id, "
+                    + "but found: " + sequenceRepository + ", sequenceName = " + sequenceName);
+        }
+        try {
+            // 创建Bean
+            DefaultListableBeanFactory beanFactory = (DefaultListableBeanFactory) applicationContext
+                    .getAutowireCapableBeanFactory();
+            BeanDefinitionBuilder beanDefinitionBuilder = BeanDefinitionBuilder
+                    .genericBeanDefinition(SnowflakeSequenceImpl.class);
+            beanDefinitionBuilder.addPropertyValue("name", sequenceName);
+            beanDefinitionBuilder.addPropertyValue("sequenceRepository", sequenceRepository);
+            beanDefinitionBuilder.addPropertyValue("leaseMillis", workerLeaseMillis);
+            AbstractBeanDefinition beanDefinition = beanDefinitionBuilder.getRawBeanDefinition();
+            beanDefinition.setInitMethodName("init");
+            beanDefinition.setDestroyMethodName("destroy");
+
+            // 注册Bean
+            log.info("register SnowflakeSequenceImpl: {}", sequenceName);
+            beanFactory.registerBeanDefinition(sequenceName, beanDefinition);
+            return applicationContext.getBean(sequenceName, SnowflakeSequenceImpl.class);
+        } catch (Exception ex) {
+            throw new BizRuntimeException("create SnowflakeSequenceImpl failed, sequenceName = " + sequenceName, ex);
+        }
+    }
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.register;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.junit.Test;
+
+import app.myoss.cloud.mybatis.table.TableConfig;
+import app.myoss.cloud.mybatis.test.MybatisTestFixtures;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.mapper.UserMapper;
+
+/**
+ * 测试 {@link LazySqlSource} 第一次使用时才生成真正的 SqlSource，并且只生成一次
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午5:51:16
+ */
+public class LazySqlSourceTests {
+    /**
+     * 第一次调用 getBoundSql 时生成真正的 SqlSource，之后直接使用；MappedStatement 仍然指向占位的 SqlSource
+     */
+    @Test
+    public void initializeTest1() {
+        Configuration configuration = new Configuration();
+        MappedStatement mappedStatement = newMappedStatement(configuration);
+        AtomicInteger initCount = new AtomicInteger();
+        LazySqlSource lazySqlSource = new LazySqlSource(mappedStatement, () -> {
+            initCount.incrementAndGet();
+            replaceSqlSource(mappedStatement, new StaticSqlSource(configuration, "SELECT 1"));
+        });
+        SystemMetaObject.forObject(mappedStatement).setValue("sqlSource", lazySqlSource);
+        assertFalse(lazySqlSource.isInitialized());
+        assertEquals(0, initCount.get());
+
+        assertEquals("SELECT 1", mappedStatement.getBoundSql(null).getSql());
+        assertEquals("SELECT 1", mappedStatement.getBoundSql(null).getSql());
+        SqlSource delegate = lazySqlSource.initialize();
+        assertTrue(delegate instanceof StaticSqlSource);
+        assertTrue(lazySqlSource.isInitialized());
+        assertEquals(1, initCount.get());
+        assertSame(lazySqlSource, mappedStatement.getSqlSource());
+    }
+
+    /**
+     * 多个线程同时第一次调用 getBoundSql，只生成一次真正的 SqlSource
+     */
+    @Test
+    public void initializeTest2() throws Exception {
+        Configuration configuration = new Configuration();
+        MappedStatement mappedStatement = newMappedStatement(configuration);
+        AtomicInteger initCount = new AtomicInteger();
+        LazySqlSource lazySqlSource = new LazySqlSource(mappedStatement, () -> {
+            initCount.incrementAndGet();
+            replaceSqlSource(mappedStatement, new StaticSqlSource(configuration, "SELECT 2"));
+        });
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executorService.submit(() -> {
+                    start.await();
+                    return lazySqlSource.getBoundSql(null).getSql();
+                }));
+            }
+            start.countDown();
+            for (Future<String> future : futures) {
+                assertEquals("SELECT 2", future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        assertEquals(1, initCount.get());
+    }
+
+    /**
+     * 模版方法没有替换 SqlSource 时抛出异常，下一次调用会再次尝试生成
+     */
+    @Test
+    public void initializeTest3() {
+        Configuration configuration = new Configuration();
+        MappedStatement mappedStatement = newMappedStatement(configuration);
+        AtomicInteger initCount = new AtomicInteger();
+        LazySqlSource lazySqlSource = new LazySqlSource(mappedStatement, () -> {
+            if (initCount.incrementAndGet() > 1) {
+                replaceSqlSource(mappedStatement, new StaticSqlSource(configuration, "SELECT 3"));
+            }
+        });
+        SystemMetaObject.forObject(mappedStatement).setValue("sqlSource", lazySqlSource);
+        try {
+            lazySqlSource.getBoundSql(null);
+            fail("sqlSource is not replaced");
+        } catch (BindingException ex) {
+            assertTrue(ex.getMessage().contains("sqlSource is not replaced by mapper template"));
+        }
+        assertFalse(lazySqlSource.isInitialized());
+
+        assertEquals("SELECT 3", lazySqlSource.getBoundSql(null).getSql());
+        assertEquals(2, initCount.get());
+    }
+
+    /**
+     * 开启延迟生成之后，注册 Mapper Interface 时只设置占位的 SqlSource，生成的 sql 语句和立即生成的一致
+     */
+    @Test
+    public void registerTest1() {
+        Configuration configuration = new Configuration();
+        MapperInterfaceRegister mapperInterfaceRegister = new MapperInterfaceRegister(new TableConfig());
+        mapperInterfaceRegister.setConfiguration(configuration);
+        mapperInterfaceRegister.setLazy(true);
+        configuration.addMapper(UserMapper.class);
+        mapperInterfaceRegister.executeRegister(UserMapper.class);
+
+        String id = UserMapper.class.getName() + ".selectByPrimaryKey";
+        MappedStatement mappedStatement = configuration.getMappedStatement(id);
+        assertTrue(mappedStatement.getSqlSource() instanceof LazySqlSource);
+        LazySqlSource lazySqlSource = (LazySqlSource) mappedStatement.getSqlSource();
+        assertFalse(lazySqlSource.isInitialized());
+
+        MappedStatement eagerMappedStatement = MybatisTestFixtures.newConfiguration(UserMapper.class)
+                .getMappedStatement(id);
+        assertEquals(eagerMappedStatement.getBoundSql(1L).getSql(), mappedStatement.getBoundSql(1L).getSql());
+        assertTrue(lazySqlSource.isInitialized());
+        assertEquals(eagerMappedStatement.getResultMaps().get(0).getType(),
+                mappedStatement.getResultMaps().get(0).getType());
+    }
+
+    private static MappedStatement newMappedStatement(Configuration configuration) {
+        SqlSource placeholder = parameterObject -> {
+            throw new IllegalStateException("placeholder sqlSource");
+        };
+        return new MappedStatement.Builder(configuration, "lazySqlSourceTests.select", placeholder,
+                SqlCommandType.SELECT).resultMaps(Collections.emptyList()).build();
+    }
+
+    private static void replaceSqlSource(MappedStatement mappedStatement, SqlSource sqlSource) {
+        SystemMetaObject.forObject(mappedStatement).setValue("sqlSource", sqlSource);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.apache.ibatis.parsing.XPathParser;
+import org.apache.ibatis.session.Configuration;
+import org.junit.Test;
+
+/**
+ * 测试 {@link AbstractMapperTemplate} 缓存 {@code <sql>} 节点的内容
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月12日 上午10:26:14
+ */
+public class AbstractMapperTemplateTests {
+    private static final String WHERE_EXTEND_ID = "app.myoss.cloud.mybatis.test.TestMapper.Where_Extend";
+
+    /**
+     * 同一个 {@link Configuration} 中重复获取同一个 {@code <sql>} 节点的内容，返回缓存的内容
+     */
+    @Test
+    public void getSqlFragmentContentTest1() {
+        AbstractMapperTemplate template = new AbstractMapperTemplate() {
+        };
+        Configuration configuration = newConfiguration();
+        String content = template.getSqlFragmentContent(configuration, WHERE_EXTEND_ID);
+        assertEquals("\n  <if test=\"nameLike != null\">AND name LIKE #{nameLike}</if>\n", content);
+        assertSame(content, template.getSqlFragmentContent(configuration, WHERE_EXTEND_ID));
+        // 缓存在所有的模版之间共享
+        assertSame(content, new AbstractMapperTemplate() {
+        }.getSqlFragmentContent(configuration, WHERE_EXTEND_ID));
+
+        // 不同的 Configuration 分别缓存
+        String otherContent = template.getSqlFragmentContent(newConfiguration(), WHERE_EXTEND_ID);
+        assertEquals(content, otherContent);
+        assertNotSame(content, otherContent);
+    }
+
+    /**
+     * {@code <sql>} 节点不存在时返回 null
+     */
+    @Test
+    public void getSqlFragmentContentTest2() {
+        AbstractMapperTemplate template = new AbstractMapperTemplate() {
+        };
+        Configuration configuration = newConfiguration();
+        assertNull(template.getSqlFragmentContent(configuration, WHERE_EXTEND_ID + "_Condition"));
+    }
+
+    private static Configuration newConfiguration() {
+        Configuration configuration = new Configuration();
+        XPathParser parser = new XPathParser("<sql id=\"Where_Extend\">\n"
+                + "  <if test=\"nameLike != null\">AND name LIKE #{nameLike}</if>\n" + "</sql>");
+        configuration.getSqlFragments().put(WHERE_EXTEND_ID, parser.evalNode("/sql"));
+        return configuration;
+    }
+}
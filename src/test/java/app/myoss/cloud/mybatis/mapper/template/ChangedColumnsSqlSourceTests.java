@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package app.myoss.cloud.mybatis.mapper.template;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.session.Configuration;
+import org.junit.Test;
+
+import app.myoss.cloud.mybatis.table.TableColumnInfo;
+import app.myoss.cloud.mybatis.table.TableInfo;
+
+/**
+ * 测试 {@link ChangedColumnsSqlSource} 按"有变化的字段位掩码"生成 update 语句
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月29日 下午4:18:52
+ */
+public class ChangedColumnsSqlSourceTests {
+    /**
+     * 创建数据库表结构信息，第一个字段是主键，最后一个字段是逻辑删除字段
+     */
+    private static TableInfo newTableInfo(int columnCount, boolean version) {
+        TableInfo tableInfo = new TableInfo();
+        tableInfo.setConfiguration(new Configuration());
+        tableInfo.setTableName("t_changed");
+        Set<TableColumnInfo> columns = new LinkedHashSet<>();
+        Set<TableColumnInfo> primaryKeyColumns = new LinkedHashSet<>();
+        Set<TableColumnInfo> logicDeleteColumns = new LinkedHashSet<>();
+        for (int i = 0; i < columnCount; i++) {
+            TableColumnInfo columnInfo = new TableColumnInfo();
+            columnInfo.setColumn("c" + i);
+            columnInfo.setProperty("p" + i);
+            columnInfo.setJavaType(String.class);
+            if (i == 0) {
+                columnInfo.setPrimaryKey(true);
+                primaryKeyColumns.add(columnInfo);
+            } else if (i == columnCount - 1) {
+                columnInfo.setLogicDelete(true);
+                columnInfo.setLogicUnDeleteValue("N");
+                logicDeleteColumns.add(columnInfo);
+            } else if (version && i == columnCount - 2) {
+                columnInfo.setJavaType(Integer.class);
+                columnInfo.setVersion(true);
+                tableInfo.setVersionColumn(columnInfo);
+            }
+            columns.add(columnInfo);
+        }
+        tableInfo.setColumns(columns);
+        tableInfo.setPrimaryKeyColumns(primaryKeyColumns);
+        tableInfo.setLogicDelete(true);
+        tableInfo.setLogicDeleteColumns(logicDeleteColumns);
+        return tableInfo;
+    }
+
+    private static Map<String, Object> newParameter(long changedColumns) {
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put(ChangedColumnsSqlSource.RECORD_PARAM, new Object());
+        parameter.put(ChangedColumnsSqlSource.CHANGED_COLUMNS_PARAM, changedColumns);
+        return parameter;
+    }
+
+    /**
+     * where 条件使用 TableMetaObject 生成的主键、逻辑删除条件，总是校验乐观锁的版本号
+     */
+    @Test
+    public void whereSqlTest1() {
+        ChangedColumnsSqlSource sqlSource = new ChangedColumnsSqlSource(newTableInfo(5, true));
+        BoundSql boundSql = sqlSource.getBoundSql(newParameter(1L << 1 | 1L << 2));
+        String sql = boundSql.getSql().replaceAll("\\s+", " ");
+        assertEquals("UPDATE t_changed SET c1 = ?, c2 = ?, c3 = COALESCE(c3, 0) + 1"
+                + " WHERE c0 = ? AND c4 = 'N' AND c3 = ?", sql);
+        assertEquals("record.p1,record.p2,record.p0,record.p3",
+                boundSql.getParameterMappings()
+                        .stream()
+                        .map(ParameterMapping::getProperty)
+                        .collect(Collectors.joining(",")));
+    }
+
+    /**
+     * 字段数量超过64个时位掩码会回绕，直接抛出异常
+     */
+    @Test(expected = BindingException.class)
+    public void tooManyColumnsTest1() {
+        ChangedColumnsSqlSource sqlSource = new ChangedColumnsSqlSource(newTableInfo(Long.SIZE + 1, false));
+        sqlSource.getBoundSql(newParameter(1L << 1));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import app.myoss.cloud.mybatis.criteria.Projection;
+import app.myoss.cloud.mybatis.test.MybatisTestFixtures;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.entity.User;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.mapper.UserMapper;
+import app.myoss.cloud.mybatis.test.integration.h2.test10.entity.Region;
+import app.myoss.cloud.mybatis.test.integration.h2.test10.mapper.RegionMapper;
+
+/**
+ * 测试 {@link ProjectionSqlSource} 按"投影字段 + 查询条件非空字段组合"生成 sql 语句
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午5:38:52
+ */
+public class ProjectionSqlSourceTests {
+    private static Configuration configuration;
+
+    @BeforeClass
+    public static void setUp() {
+        configuration = MybatisTestFixtures.newConfiguration(UserMapper.class, RegionMapper.class);
+    }
+
+    /**
+     * 投影字段直接写入 sql 语句，不同的投影生成不同的 sql 语句
+     */
+    @Test
+    public void projectionTest1() {
+        SqlSource sqlSource = getSqlSource();
+        assertTrue(sqlSource instanceof ProjectionSqlSource);
+
+        User condition = new User().setName("jerry");
+        String nameSql = sqlSource.getBoundSql(newParameter(condition, Projection.of(User.class, User::getName)))
+                .getSql();
+        String idSql = sqlSource.getBoundSql(newParameter(condition, Projection.of(User.class, User::getId)))
+                .getSql();
+        String allSql = sqlSource.getBoundSql(newParameter(condition, null)).getSql();
+        assertTrue(nameSql.startsWith("SELECT `name`\n"));
+        assertTrue(idSql.startsWith("SELECT id\n"));
+        assertNotEquals(nameSql, allSql);
+        assertEquals(nameSql, sqlSource
+                .getBoundSql(newParameter(new User().setName("tom"), Projection.of(User.class, User::getName)))
+                .getSql());
+    }
+
+    /**
+     * 投影的实体类和 Mapper 的实体类不一致
+     */
+    @Test(expected = BindingException.class)
+    public void projectionTest2() {
+        getSqlSource().getBoundSql(newParameter(new User(), Projection.of(Region.class, Region::getId)));
+    }
+
+    private static SqlSource getSqlSource() {
+        return configuration.getMappedStatement(UserMapper.class.getName() + ".selectListColumns").getSqlSource();
+    }
+
+    private static Map<String, Object> newParameter(Object condition, Projection<?> projection) {
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put(ProjectionSqlSource.CONDITION_PARAM, condition);
+        parameter.put(ProjectionSqlSource.PROJECTION_PARAM, projection);
+        return parameter;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import app.myoss.cloud.mybatis.table.TableColumnInfo;
+import app.myoss.cloud.mybatis.table.TableInfo;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+import app.myoss.cloud.mybatis.test.MybatisTestFixtures;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.entity.User;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.mapper.UserMapper;
+
+/**
+ * 测试 {@link ShapeCacheSqlSource} 按"非空字段组合"缓存 sql 语句
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午4:21:09
+ */
+public class ShapeCacheSqlSourceTests {
+    private static Configuration         configuration;
+    private static List<TableColumnInfo> stringColumns;
+
+    @BeforeClass
+    public static void setUp() {
+        configuration = MybatisTestFixtures.newConfiguration(UserMapper.class);
+        TableInfo tableInfo = TableMetaObject.getTableInfo(User.class);
+        stringColumns = tableInfo.getColumns()
+                .stream()
+                .filter(item -> item.getJavaType() == String.class && !item.isPrimaryKey())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 不同的非空字段组合生成不同的 sql 语句，相同的组合复用缓存的 sql 语句，参数对象使用当前的对象
+     */
+    @Test
+    public void shapeKeyTest1() {
+        SqlSource sqlSource = configuration.getMappedStatement(UserMapper.class.getName() + ".selectCount")
+                .getSqlSource();
+        assertTrue(sqlSource instanceof ShapeCacheSqlSource);
+        ShapeCacheSqlSource shapeCacheSqlSource = (ShapeCacheSqlSource) sqlSource;
+
+        User byName1 = new User().setName("jerry");
+        User byEmployeeNumber = new User().setEmployeeNumber("10001");
+        User byNameAndEmployeeNumber = new User().setName("jerry").setEmployeeNumber("10001");
+        BoundSql nameSql = sqlSource.getBoundSql(byName1);
+        BoundSql employeeNumberSql = sqlSource.getBoundSql(byEmployeeNumber);
+        BoundSql bothSql = sqlSource.getBoundSql(byNameAndEmployeeNumber);
+        assertNotEquals(nameSql.getSql(), employeeNumberSql.getSql());
+        assertNotEquals(nameSql.getSql(), bothSql.getSql());
+        assertEquals(Collections.singletonList("name"), properties(nameSql));
+        assertEquals(Collections.singletonList("employeeNumber"), properties(employeeNumberSql));
+        assertEquals(2, properties(bothSql).size());
+        assertEquals(3, shapeCacheSqlSource.getShapeCount());
+
+        User byName2 = new User().setName("chen");
+        BoundSql cached = sqlSource.getBoundSql(byName2);
+        assertEquals(nameSql.getSql(), cached.getSql());
+        assertSame(nameSql.getParameterMappings(), cached.getParameterMappings());
+        assertSame(byName2, cached.getParameterObject());
+        assertSame(byName2, cached.getAdditionalParameter("_parameter"));
+        assertEquals(3, shapeCacheSqlSource.getShapeCount());
+
+        // 参数不是实体类本身时，直接使用模版生成的动态 SqlSource
+        User subclass = new User() {
+            private static final long serialVersionUID = 1L;
+        };
+        subclass.setName("jerry");
+        assertEquals(nameSql.getSql(), sqlSource.getBoundSql(subclass).getSql());
+        assertEquals(3, shapeCacheSqlSource.getShapeCount());
+    }
+
+    /**
+     * 参数引用了 {@code <bind>} 生成的临时变量时，sql 不只由非空字段决定，不进行缓存
+     */
+    @Test
+    public void additionalParameterTest1() {
+        String script = "<script>SELECT COUNT(1) FROM t_sys_user <where><if test=\"name != null\">"
+                + "<bind name=\"namePattern\" value=\"'%' + name + '%'\"/>AND name LIKE #{namePattern}</if>"
+                + "</where></script>";
+        SqlSource delegate = new XMLLanguageDriver().createSqlSource(configuration, script, User.class);
+        ShapeCacheSqlSource sqlSource = new ShapeCacheSqlSource(configuration, delegate, User.class,
+                Collections.singletonList(getColumn("name")), SqlShapeCache.DEFAULT_MAX_SHAPES);
+
+        BoundSql first = sqlSource.getBoundSql(new User().setName("jerry"));
+        BoundSql second = sqlSource.getBoundSql(new User().setName("chen"));
+        assertEquals("%jerry%", first.getAdditionalParameter("namePattern"));
+        assertEquals("%chen%", second.getAdditionalParameter("namePattern"));
+        assertEquals(0, sqlSource.getShapeCount());
+
+        sqlSource.getBoundSql(new User());
+        assertEquals(1, sqlSource.getShapeCount());
+    }
+
+    /**
+     * 缓存的 sql 组合数量达到 {@link SqlShapeCache#DEFAULT_MAX_SHAPES}
+     * 之后淘汰旧的组合，缓存数量不再增长，生成的 sql 语句仍然正确
+     */
+    @Test
+    public void evictionTest1() {
+        List<TableColumnInfo> shapeColumns = stringColumns.subList(0, 9);
+        AtomicInteger delegateCalls = new AtomicInteger();
+        SqlSource delegate = parameterObject -> {
+            delegateCalls.incrementAndGet();
+            return new BoundSql(configuration, shapeSql(shapeColumns, parameterObject),
+                    Collections.<ParameterMapping> emptyList(), parameterObject);
+        };
+        ShapeCacheSqlSource sqlSource = (ShapeCacheSqlSource) ShapeCacheSqlSource.wrap(configuration, delegate,
+                User.class, shapeColumns);
+
+        int shapes = 1 << shapeColumns.size();
+        List<User> records = new ArrayList<>(shapes);
+        for (int mask = 0; mask < shapes; mask++) {
+            User record = new User();
+            for (int i = 0; i < shapeColumns.size(); i++) {
+                if ((mask & (1 << i)) != 0) {
+                    shapeColumns.get(i).setValue(record, "v" + i);
+                }
+            }
+            records.add(record);
+        }
+        for (int i = 0; i < SqlShapeCache.DEFAULT_MAX_SHAPES; i++) {
+            sqlSource.getBoundSql(records.get(i));
+        }
+        assertEquals(SqlShapeCache.DEFAULT_MAX_SHAPES, sqlSource.getShapeCount());
+        assertEquals(SqlShapeCache.DEFAULT_MAX_SHAPES, delegateCalls.get());
+
+        for (User record : records) {
+            assertEquals(shapeSql(shapeColumns, record), sqlSource.getBoundSql(record).getSql());
+            assertTrue(sqlSource.getShapeCount() <= SqlShapeCache.DEFAULT_MAX_SHAPES);
+        }
+        assertEquals(SqlShapeCache.DEFAULT_MAX_SHAPES, sqlSource.getShapeCount());
+        assertTrue(delegateCalls.get() >= shapes);
+    }
+
+    private static String shapeSql(List<TableColumnInfo> shapeColumns, Object parameterObject) {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(1) FROM t_sys_user WHERE 1 = 1");
+        for (TableColumnInfo columnInfo : shapeColumns) {
+            if (columnInfo.getValue(parameterObject) != null) {
+                sql.append(" AND ").append(columnInfo.getColumn()).append(" = ?");
+            }
+        }
+        return sql.toString();
+    }
+
+    private static List<String> properties(BoundSql boundSql) {
+        return boundSql.getParameterMappings()
+                .stream()
+                .map(ParameterMapping::getProperty)
+                .collect(Collectors.toList());
+    }
+
+    private static TableColumnInfo getColumn(String property) {
+        return stringColumns.stream().filter(item -> item.getProperty().equals(property)).findFirst().get();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.mapper.template;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * 测试 {@link SqlShapeCache} 淘汰最久没有使用的 sql 组合
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月17日 下午3:05:12
+ */
+public class SqlShapeCacheTests {
+    /**
+     * 超过最大数量之后淘汰最久没有使用的组合，最近读取过的组合保留在缓存中
+     */
+    @Test
+    public void evictionTest1() {
+        SqlShapeCache<Integer, String> cache = new SqlShapeCache<>(3);
+        cache.put(1, "sql-1");
+        cache.put(2, "sql-2");
+        cache.put(3, "sql-3");
+        // 读取之后 1 变为最近使用的组合，淘汰的是 2
+        assertEquals("sql-1", cache.get(1));
+        cache.put(4, "sql-4");
+        assertEquals(3, cache.size());
+        assertEquals("sql-1", cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals("sql-3", cache.get(3));
+        assertEquals("sql-4", cache.get(4));
+    }
+
+    /**
+     * 已经缓存的组合不会重新编译
+     */
+    @Test
+    public void computeIfAbsentTest1() {
+        SqlShapeCache<Integer, String> cache = new SqlShapeCache<>();
+        AtomicInteger compileCount = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            assertEquals("sql-1", cache.computeIfAbsent(1, key -> {
+                compileCount.incrementAndGet();
+                return "sql-" + key;
+            }));
+        }
+        assertEquals(1, compileCount.get());
+        assertEquals(1, cache.size());
+    }
+}
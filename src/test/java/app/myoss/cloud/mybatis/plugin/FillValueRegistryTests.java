@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import app.myoss.cloud.core.constants.MyossConstants;
+import app.myoss.cloud.mybatis.plugin.FillValueRegistry.EntityFiller;
+import app.myoss.cloud.mybatis.plugin.FillValueRegistry.FillValue;
+import app.myoss.cloud.mybatis.plugin.impl.FillRuleParameterHandlerCustomizer;
+import app.myoss.cloud.mybatis.table.TableColumnInfo;
+import app.myoss.cloud.mybatis.test.MybatisTestFixtures;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.entity.User;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.mapper.UserMapper;
+
+/**
+ * 测试 {@link FillValueRegistry}、{@link FillValueSupplier}、{@link FillRuleParameterHandlerCustomizer}
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午4:18:36
+ */
+public class FillValueRegistryTests {
+    private static Configuration configuration;
+
+    @BeforeClass
+    public static void setUp() {
+        configuration = MybatisTestFixtures.newConfiguration(UserMapper.class);
+    }
+
+    /**
+     * 测试字段填充值生成器
+     */
+    @Test
+    public void supplierTest1() {
+        Date now = new Date();
+        assertEquals("system",
+                FillValueSupplier.constant("system").getValue(newColumnInfo("creator", String.class), null, now));
+
+        AtomicInteger operator = new AtomicInteger();
+        FillValueSupplier operatorSupplier = FillValueSupplier.operator(operator::incrementAndGet);
+        assertEquals(1, operatorSupplier.getValue(newColumnInfo("creator", String.class), null, now));
+        assertEquals(2, operatorSupplier.getValue(newColumnInfo("creator", String.class), null, now));
+
+        FillValueSupplier clock = FillValueSupplier.clock();
+        assertSame(now, clock.getValue(newColumnInfo("gmtCreated", Date.class), null, now));
+        assertEquals(new Timestamp(now.getTime()),
+                clock.getValue(newColumnInfo("gmtCreated", Timestamp.class), null, now));
+        assertEquals(LocalDateTime.ofInstant(now.toInstant(), ZoneId.systemDefault()),
+                clock.getValue(newColumnInfo("gmtCreated", LocalDateTime.class), null, now));
+        assertEquals(now.toInstant(), clock.getValue(newColumnInfo("gmtCreated", Instant.class), null, now));
+        assertEquals(now.getTime(), clock.getValue(newColumnInfo("gmtCreated", Long.class), null, now));
+        assertEquals(now.getTime(), clock.getValue(newColumnInfo("gmtCreated", long.class), null, now));
+    }
+
+    /**
+     * 测试字段填充值注册器，优先使用 fillValue 的名称，没有则使用属性名
+     */
+    @Test
+    public void registryTest1() {
+        FillValueSupplier creator = FillValueSupplier.constant("creator");
+        FillValueSupplier operator = FillValueSupplier.constant("operator");
+        FillValueRegistry registry = new FillValueRegistry().register("creator", creator)
+                .register("operator", operator, true);
+
+        FillValue byProperty = registry.getFillValue(newColumnInfo("creator", String.class));
+        assertSame(creator, byProperty.getSupplier());
+        assertFalse(byProperty.isOverwrite());
+
+        TableColumnInfo modifier = newColumnInfo("modifier", String.class);
+        assertNull(registry.getFillValue(modifier));
+        modifier.setFillValue("operator");
+        FillValue byFillValue = registry.getFillValue(modifier);
+        assertSame(operator, byFillValue.getSupplier());
+        assertTrue(byFillValue.isOverwrite());
+
+        FillValueRegistry auditRegistry = FillValueRegistry.auditFillValueRegistry();
+        assertEquals(MyossConstants.N, auditRegistry.getFillValue(newColumnInfo("isDeleted", String.class))
+                .getSupplier()
+                .getValue(null, null, new Date()));
+        assertFalse(auditRegistry.getFillValue(newColumnInfo("gmtCreated", Date.class)).isOverwrite());
+        assertTrue(auditRegistry.getFillValue(newColumnInfo("gmtModified", Date.class)).isOverwrite());
+    }
+
+    /**
+     * 测试注册填充值时编译实体类需要填充的字段，使用时不再编译
+     */
+    @Test
+    public void compileTest1() {
+        FillValueRegistry registry = new FillValueRegistry();
+        assertTrue(registry.getEntityFiller(User.class).isEmpty());
+
+        registry.register("creator", FillValueSupplier.constant("system"));
+        EntityFiller entityFiller = registry.getEntityFiller(User.class);
+        assertFalse(entityFiller.isEmpty());
+        assertSame(entityFiller, registry.getEntityFiller(User.class));
+
+        User user = new User();
+        entityFiller.fill(user, true, new Date());
+        assertEquals("system", user.getCreator());
+        assertNull(user.getModifier());
+    }
+
+    /**
+     * 测试根据 FillRule 填充实体对象的字段值：字段有值时不覆盖，注册时设置了覆盖的字段始终填充
+     */
+    @Test
+    public void fillRuleTest1() {
+        FillRuleParameterHandlerCustomizer customizer = new FillRuleParameterHandlerCustomizer(
+                FillValueRegistry.auditFillValueRegistry());
+        MappedStatement insert = configuration.getMappedStatement(UserMapper.class.getName() + ".insert");
+        MappedStatement update = configuration.getMappedStatement(UserMapper.class.getName() + ".updateByPrimaryKey");
+        assertTrue(customizer.isRequired(insert));
+
+        User user = new User();
+        user.setCreator("jerry");
+        customizer.handlerInsert(insert, null, user);
+        assertEquals(MyossConstants.N, user.getIsDeleted());
+        assertEquals("jerry", user.getCreator());
+        assertEquals(MyossConstants.SYSTEM, user.getModifier());
+        assertEquals(user.getGmtCreated(), user.getGmtModified());
+
+        Date gmtCreated = new Date(0);
+        Date gmtModified = new Date(0);
+        user.setGmtCreated(gmtCreated);
+        user.setGmtModified(gmtModified);
+        user.setModifier(" ");
+        customizer.handlerUpdate(update, null, user);
+        assertSame(gmtCreated, user.getGmtCreated());
+        assertTrue(user.getGmtModified().after(gmtModified));
+        assertEquals(MyossConstants.SYSTEM, user.getModifier());
+    }
+
+    private static TableColumnInfo newColumnInfo(String property, Class<?> javaType) {
+        TableColumnInfo columnInfo = new TableColumnInfo();
+        columnInfo.setProperty(property);
+        columnInfo.setJavaType(javaType);
+        return columnInfo;
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.Configuration;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import app.myoss.cloud.mybatis.plugin.impl.DefaultParameterHandlerCustomizer;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+import app.myoss.cloud.mybatis.test.MybatisTestFixtures;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.entity.User;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.mapper.UserMapper;
+import app.myoss.cloud.mybatis.test.integration.h2.test3.UserLogControllerIntTests.SequenceCustomizer;
+import app.myoss.cloud.mybatis.test.integration.h2.test3.entity.UserLog;
+import app.myoss.cloud.mybatis.test.integration.h2.test3.mapper.UserLogMapper;
+
+/**
+ * 测试 {@link ParameterHandlerInterceptor} 跳过不需要处理参数的 sql 语句
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午3:12:40
+ */
+public class ParameterHandlerInterceptorTests {
+    private static Configuration configuration;
+
+    @BeforeClass
+    public static void setUp() {
+        if (TableMetaObject.getSequenceBean("seqUserLog") == null) {
+            TableMetaObject.addSequenceBean("seqUserLog", new SequenceCustomizer() {
+                @Override
+                public Object nextValue(Object parameter) {
+                    return 1L;
+                }
+            });
+        }
+        configuration = MybatisTestFixtures.newConfiguration(UserMapper.class, UserLogMapper.class);
+    }
+
+    /**
+     * 默认的实现：SELECT 语句、参数不是审计实体的 INSERT 语句不进行拦截；参数是审计实体的 INSERT 语句进行拦截
+     */
+    @Test
+    public void skipTest1() throws SQLException {
+        ParameterHandlerInterceptor interceptor = new ParameterHandlerInterceptor(
+                new DefaultParameterHandlerCustomizer());
+
+        ParameterHandler select = newParameterHandler(UserMapper.class, "selectByPrimaryKey", 1L);
+        ParameterHandler insertUser = newParameterHandler(UserMapper.class, "insert", new User());
+        assertSame(select, interceptor.plugin(select));
+        assertSame(insertUser, interceptor.plugin(insertUser));
+
+        UserLog userLog = new UserLog();
+        ParameterHandler insertUserLog = newParameterHandler(UserLogMapper.class, "insert", userLog);
+        ParameterHandler plugin = (ParameterHandler) interceptor.plugin(insertUserLog);
+        assertNotSame(insertUserLog, plugin);
+        plugin.setParameters(MybatisTestFixtures.noOpPreparedStatement());
+        assertEquals("N", userLog.getIsDeleted());
+        assertTrue(userLog.getGmtModified() != null);
+    }
+
+    /**
+     * 子类重写了 handlerSelect 方法，并显式声明 SELECT 语句需要拦截，调用子类的方法
+     */
+    @Test
+    public void passThroughTest1() throws SQLException {
+        List<Object> selectParameters = new ArrayList<>();
+        ParameterHandlerInterceptor interceptor = new ParameterHandlerInterceptor(
+                new DefaultParameterHandlerCustomizer(false, SqlCommandType.SELECT) {
+                    @Override
+                    public void handlerSelect(MappedStatement mappedStatement, BoundSql boundSql,
+                                              Object parameterObject) {
+                        selectParameters.add(parameterObject);
+                    }
+                });
+
+        ParameterHandler select = newParameterHandler(UserMapper.class, "selectByPrimaryKey", 1L);
+        ParameterHandler plugin = (ParameterHandler) interceptor.plugin(select);
+        assertNotSame(select, plugin);
+        plugin.setParameters(MybatisTestFixtures.noOpPreparedStatement());
+        assertEquals(1, selectParameters.size());
+        assertEquals(1L, selectParameters.get(0));
+
+        ParameterHandler insertUser = newParameterHandler(UserMapper.class, "insert", new User());
+        assertSame(insertUser, interceptor.plugin(insertUser));
+    }
+
+    /**
+     * 子类重写了设置实体对象字段信息的方法，但是没有重写 isFillEntityType 方法，显式声明自定义了实体对象的判断规则后，参数不是审计实体的
+     * INSERT 语句也需要拦截，并调用子类的方法
+     */
+    @Test
+    public void passThroughTest2() throws SQLException {
+        ParameterHandlerInterceptor interceptor = new ParameterHandlerInterceptor(
+                new DefaultParameterHandlerCustomizer(true) {
+                    @Override
+                    protected boolean isFillEntity(Object parameterObject) {
+                        return parameterObject instanceof User || super.isFillEntity(parameterObject);
+                    }
+
+                    @Override
+                    protected void fillEntity(Object entity, boolean isInsert, Date now) {
+                        if (entity instanceof User) {
+                            ((User) entity).setGmtCreated(now);
+                        }
+                        super.fillEntity(entity, isInsert, now);
+                    }
+                });
+
+        User user = new User();
+        ParameterHandler insertUser = newParameterHandler(UserMapper.class, "insert", user);
+        ParameterHandler plugin = (ParameterHandler) interceptor.plugin(insertUser);
+        assertNotSame(insertUser, plugin);
+        plugin.setParameters(MybatisTestFixtures.noOpPreparedStatement());
+        assertTrue(user.getGmtCreated() != null);
+
+        ParameterHandler select = newParameterHandler(UserMapper.class, "selectByPrimaryKey", 1L);
+        assertSame(select, interceptor.plugin(select));
+    }
+
+    /**
+     * 子类重写了 handlerSelect 方法，但是没有显式声明 SELECT 语句需要拦截，SELECT 语句不进行拦截
+     */
+    @Test
+    public void skipTest2() {
+        ParameterHandlerInterceptor interceptor = new ParameterHandlerInterceptor(
+                new DefaultParameterHandlerCustomizer() {
+                    @Override
+                    public void handlerSelect(MappedStatement mappedStatement, BoundSql boundSql,
+                                              Object parameterObject) {
+                        throw new IllegalStateException("should not be invoked");
+                    }
+                });
+
+        ParameterHandler select = newParameterHandler(UserMapper.class, "selectByPrimaryKey", 1L);
+        assertSame(select, interceptor.plugin(select));
+    }
+
+    private static ParameterHandler newParameterHandler(Class<?> mapperInterface, String methodName,
+                                                        Object parameterObject) {
+        MappedStatement mappedStatement = configuration
+                .getMappedStatement(mapperInterface.getName() + "." + methodName);
+        return new DefaultParameterHandler(mappedStatement, parameterObject,
+                mappedStatement.getBoundSql(parameterObject));
+    }
+}
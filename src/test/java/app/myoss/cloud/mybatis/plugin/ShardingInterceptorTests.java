@@ -0,0 +1,194 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package app.myoss.cloud.mybatis.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.junit.Test;
+
+import app.myoss.cloud.core.exception.BizRuntimeException;
+import app.myoss.cloud.core.lang.dto.Direction;
+import app.myoss.cloud.core.lang.dto.Order;
+import app.myoss.cloud.mybatis.table.TableInfo;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+import app.myoss.cloud.mybatis.test.MybatisTestFixtures;
+import app.myoss.cloud.mybatis.test.integration.h2.test7.entity.UserOrder;
+import app.myoss.cloud.mybatis.test.integration.h2.test7.mapper.UserOrderMapper;
+
+/**
+ * 测试 {@link ShardingInterceptor} 改写物理表的sql语句节点、合并所有物理表的查询结果
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 上午10:26:41
+ */
+public class ShardingInterceptorTests {
+    private static final String NAMESPACE     = "app.myoss.cloud.mybatis.test.OrderMapper";
+    private final Configuration configuration = new Configuration();
+    private final TableInfo     tableInfo     = new TableInfo();
+
+    private MappedStatement newMappedStatement(String methodName, Class<?> resultType) {
+        ResultMap resultMap = new ResultMap.Builder(configuration, NAMESPACE + "." + methodName + "-Inline",
+                resultType, Collections.emptyList()).build();
+        return new MappedStatement.Builder(configuration, NAMESPACE + "." + methodName,
+                new StaticSqlSource(configuration, "SELECT 1"), SqlCommandType.SELECT)
+                        .resultMaps(Collections.singletonList(resultMap))
+                        .build();
+    }
+
+    private static List<List<Object>> results(Object... values) {
+        List<List<Object>> results = new ArrayList<>(values.length);
+        for (Object value : values) {
+            results.add(Collections.singletonList(value));
+        }
+        return results;
+    }
+
+    /**
+     * 通用 Mapper 中查询记录数的方法，累加每张物理表的结果
+     */
+    @Test
+    public void mergeCountTest1() {
+        ShardingInterceptor interceptor = new ShardingInterceptor(0);
+        List<Object> merged = interceptor.mergeResults(tableInfo, newMappedStatement("selectCount", int.class), null,
+                results(2, 3), 0, Integer.MAX_VALUE);
+        assertEquals(Collections.singletonList(5), merged);
+    }
+
+    /**
+     * 每张物理表返回一个数值的手写sql语句，没有标记为查询记录数时拼接所有物理表的结果，标记之后累加
+     */
+    @Test
+    public void mergeNumberTest1() {
+        ShardingInterceptor interceptor = new ShardingInterceptor(0);
+        MappedStatement ms = newMappedStatement("selectIdsByOrderNo", Long.class);
+        List<Object> merged = interceptor.mergeResults(tableInfo, ms, null, results(11L, 12L), 0, Integer.MAX_VALUE);
+        assertEquals(Arrays.asList(11L, 12L), merged);
+
+        interceptor.addCountStatement(ms.getId());
+        merged = interceptor.mergeResults(tableInfo, ms, null, results(11L, 12L), 0, Integer.MAX_VALUE);
+        assertEquals(Collections.singletonList(23L), merged);
+    }
+
+    /**
+     * 通用 Mapper 中判断记录是否存在的方法，任意一张物理表存在即可
+     */
+    @Test
+    public void mergeExistsTest1() {
+        ShardingInterceptor interceptor = new ShardingInterceptor(0);
+        MappedStatement ms = newMappedStatement("existsByPrimaryKey", boolean.class);
+        assertEquals(Collections.singletonList(true),
+                interceptor.mergeResults(tableInfo, ms, null, results(false, true), 0, Integer.MAX_VALUE));
+        assertEquals(Collections.singletonList(false),
+                interceptor.mergeResults(tableInfo, ms, null, results(false, false), 0, Integer.MAX_VALUE));
+    }
+
+    /**
+     * 其它的查询拼接所有物理表的结果之后，按排序字段重新排序，再分页
+     */
+    @Test
+    public void mergeSortedPageTest1() {
+        ShardingInterceptor interceptor = new ShardingInterceptor(0);
+        Configuration userOrderConfiguration = MybatisTestFixtures.newConfiguration(UserOrderMapper.class);
+        TableInfo userOrderTableInfo = TableMetaObject.getTableInfo(UserOrder.class);
+        MappedStatement ms = userOrderConfiguration.getMappedStatement(UserOrderMapper.class.getName() + ".selectPage");
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("orders", Collections.singletonList(new Order(Direction.DESC, "amount")));
+        List<List<Object>> results = Arrays.asList(
+                Arrays.asList(new UserOrder().setId(2L).setAmount(20L), new UserOrder().setId(4L).setAmount(40L)),
+                Arrays.asList(new UserOrder().setId(1L).setAmount(10L), new UserOrder().setId(3L).setAmount(30L)));
+        List<Object> merged = interceptor.mergeResults(userOrderTableInfo, ms, parameter, results, 1, 2);
+        assertEquals(2, merged.size());
+        assertEquals(Long.valueOf(3L), ((UserOrder) merged.get(0)).getId());
+        assertEquals(Long.valueOf(2L), ((UserOrder) merged.get(1)).getId());
+    }
+
+    /**
+     * 通用 Mapper 的sql语句节点改写为物理表的sql语句节点，sql 语句使用物理表名；其它的sql语句节点不能改写
+     */
+    @Test
+    public void rewriteTest1() {
+        ShardingInterceptor interceptor = new ShardingInterceptor(0);
+        Configuration userOrderConfiguration = MybatisTestFixtures.newConfiguration(UserOrderMapper.class);
+        MappedStatement ms = userOrderConfiguration.getMappedStatement(UserOrderMapper.class.getName() + ".selectList");
+        MappedStatement shard0 = interceptor.getShardMappedStatement(ms, 0);
+        MappedStatement shard1 = interceptor.getShardMappedStatement(ms, 1);
+        assertEquals(TableMetaObject.getShardStatementId(ms.getId(), 1), shard1.getId());
+        assertSame(shard1, interceptor.getShardMappedStatement(ms, 1));
+        String sql0 = shard0.getBoundSql(new UserOrder().setOrderNo("t_user_order")).getSql();
+        String sql1 = shard1.getBoundSql(new UserOrder().setOrderNo("t_user_order")).getSql();
+        assertTrue(sql0.contains("FROM t_user_order_00"));
+        assertTrue(sql1.contains("FROM t_user_order_01"));
+        assertFalse(sql1.contains("FROM t_user_order\n"));
+
+        try {
+            interceptor.getShardMappedStatement(newMappedStatement("selectByOrderNo", UserOrder.class), 0);
+            fail("hand-written statement can not be rewritten");
+        } catch (BizRuntimeException ex) {
+            assertTrue(ex.getMessage().contains("is not a generic mapper statement"));
+        }
+    }
+
+    /**
+     * 从实体对象、查询条件、实体对象集合中解析分表的下标；缺少分表字段的值时需要在所有的物理表中执行
+     */
+    @Test
+    public void shardIndexTest1() {
+        ShardingInterceptor interceptor = new ShardingInterceptor(0);
+        Configuration userOrderConfiguration = MybatisTestFixtures.newConfiguration(UserOrderMapper.class);
+        TableInfo userOrderTableInfo = TableMetaObject.getTableInfo(UserOrder.class);
+        MappedStatement ms = userOrderConfiguration.getMappedStatement(UserOrderMapper.class.getName() + ".selectList");
+
+        Set<Integer> entityIndexes = new TreeSet<>();
+        assertTrue(interceptor.resolveShardIndexes(userOrderTableInfo, ms, new UserOrder().setUserId(3L),
+                entityIndexes));
+        assertEquals(Collections.singleton(1), entityIndexes);
+
+        Set<Integer> conditionIndexes = new TreeSet<>();
+        Map<String, Object> condition = new HashMap<>();
+        condition.put("condition", new UserOrder().setUserId(4L));
+        assertTrue(interceptor.resolveShardIndexes(userOrderTableInfo, ms, condition, conditionIndexes));
+        assertEquals(Collections.singleton(0), conditionIndexes);
+
+        Set<Integer> listIndexes = new TreeSet<>();
+        assertTrue(interceptor.resolveShardIndexes(userOrderTableInfo, ms,
+                Arrays.asList(new UserOrder().setUserId(5L), new UserOrder().setUserId(6L)), listIndexes));
+        assertEquals(new TreeSet<>(Arrays.asList(0, 1)), listIndexes);
+
+        Set<Integer> missingIndexes = new TreeSet<>();
+        assertFalse(interceptor.resolveShardIndexes(userOrderTableInfo, ms,
+                Arrays.asList(new UserOrder().setUserId(5L), new UserOrder()), missingIndexes));
+        assertTrue(missingIndexes.isEmpty());
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.table.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import app.myoss.cloud.mybatis.table.TableDescriptor;
+import app.myoss.cloud.mybatis.table.TableProperty;
+
+/**
+ * 测试 {@link TableDescriptorProcessor}，在内存中编译实体类源码，检查生成的 {@link TableDescriptor}
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月10日 下午5:18:46
+ */
+public class TableDescriptorProcessorTests {
+    private static final String                 PACKAGE_NAME = "app.myoss.cloud.mybatis.table.processor.sample";
+    private Path                                outputDir;
+    private DiagnosticCollector<JavaFileObject> diagnostics;
+
+    @Before
+    public void setUp() throws IOException {
+        outputDir = Files.createTempDirectory("table-descriptor");
+        diagnostics = new DiagnosticCollector<>();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(outputDir)) {
+            paths.sorted(Collections.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * 实体类有标准的 getter/setter 方法，生成的 TableDescriptor 直接调用这些方法
+     */
+    @Test
+    public void standardAccessorTest1() throws Exception {
+        String source = "package " + PACKAGE_NAME + ";\n"
+                + "@app.myoss.cloud.mybatis.table.annotation.Table(name = \"t_sample\")\n"
+                + "public class Sample {\n"
+                + "    private Long id;\n"
+                + "    private boolean isEnabled;\n"
+                + "    @app.myoss.cloud.mybatis.table.annotation.Column(isTransient = true)\n"
+                + "    private String remark;\n"
+                + "    public Long getId() { return id; }\n"
+                + "    public void setId(Long id) { this.id = id; }\n"
+                + "    public boolean isEnabled() { return isEnabled; }\n"
+                + "    public void setEnabled(boolean enabled) { this.isEnabled = enabled; }\n"
+                + "}\n";
+        assertTrue(compile("Sample", source, TableDescriptorProcessor.class.getName()));
+
+        try (URLClassLoader classLoader = newClassLoader()) {
+            Class<?> entityClass = classLoader.loadClass(PACKAGE_NAME + ".Sample");
+            TableDescriptor descriptor = (TableDescriptor) classLoader
+                    .loadClass(entityClass.getName() + TableDescriptor.CLASS_NAME_SUFFIX)
+                    .getConstructor()
+                    .newInstance();
+            List<TableProperty> properties = descriptor.getProperties();
+            assertEquals(entityClass, descriptor.getEntityClass());
+            assertEquals("t_sample", descriptor.getTable().name());
+            assertEquals(Arrays.asList("id", "isEnabled", "remark"),
+                    properties.stream().map(TableProperty::getName).collect(Collectors.toList()));
+
+            Object entity = entityClass.getConstructor().newInstance();
+            properties.get(0).getSetter().accept(entity, 10L);
+            properties.get(1).getSetter().accept(entity, true);
+            assertEquals(10L, properties.get(0).getGetter().apply(entity));
+            assertEquals(true, properties.get(1).getGetter().apply(entity));
+            assertNull(properties.get(2).getGetter());
+        }
+    }
+
+    /**
+     * 实体类缺少 setter 方法，跳过生成 TableDescriptor，编译不会失败，运行时仍然通过反射获取属性信息
+     */
+    @Test
+    public void missingAccessorTest1() throws Exception {
+        String source = "package " + PACKAGE_NAME + ";\n"
+                + "@app.myoss.cloud.mybatis.table.annotation.Table(name = \"t_sample\")\n"
+                + "public class FieldOnlySample {\n"
+                + "    private Long id;\n"
+                + "    public Long getId() { return id; }\n"
+                + "}\n";
+        assertTrue(compile("FieldOnlySample", source, TableDescriptorProcessor.class.getName()));
+
+        assertTrue(Files.exists(classFile("FieldOnlySample")));
+        assertFalse(Files.exists(classFile("FieldOnlySample" + TableDescriptor.CLASS_NAME_SUFFIX)));
+        assertTrue(diagnostics.getDiagnostics()
+                .stream()
+                .anyMatch(item -> item.getKind() == Diagnostic.Kind.NOTE
+                        && item.getMessage(null).contains("setId")));
+    }
+
+    /**
+     * 实体类使用 lombok 生成 getter/setter 方法，lombok 在 TableDescriptorProcessor 之后执行也能生成
+     */
+    @Test
+    public void lombokAccessorTest1() throws Exception {
+        String source = "package " + PACKAGE_NAME + ";\n"
+                + "@lombok.Data\n"
+                + "@app.myoss.cloud.mybatis.table.annotation.Table(name = \"t_sample\")\n"
+                + "public class LombokSample {\n"
+                + "    private Long id;\n"
+                + "    private String name;\n"
+                + "}\n";
+        assertTrue(compile("LombokSample", source, TableDescriptorProcessor.class.getName(),
+                "lombok.launch.AnnotationProcessorHider$AnnotationProcessor"));
+
+        assertTrue(Files.exists(classFile("LombokSample" + TableDescriptor.CLASS_NAME_SUFFIX)));
+    }
+
+    /**
+     * 实体类使用 lombok 的 fluent 风格方法名，推导不出 getter/setter 方法，跳过生成 TableDescriptor
+     */
+    @Test
+    public void lombokAccessorTest2() throws Exception {
+        String source = "package " + PACKAGE_NAME + ";\n"
+                + "@lombok.Data\n"
+                + "@lombok.experimental.Accessors(fluent = true)\n"
+                + "@app.myoss.cloud.mybatis.table.annotation.Table(name = \"t_sample\")\n"
+                + "public class FluentSample {\n"
+                + "    private Long id;\n"
+                + "}\n";
+        assertTrue(compile("FluentSample", source, TableDescriptorProcessor.class.getName(),
+                "lombok.launch.AnnotationProcessorHider$AnnotationProcessor"));
+
+        assertTrue(Files.exists(classFile("FluentSample")));
+        assertFalse(Files.exists(classFile("FluentSample" + TableDescriptor.CLASS_NAME_SUFFIX)));
+    }
+
+    private boolean compile(String simpleName, String source, String... processors) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        JavaFileObject sourceFile = new SimpleJavaFileObject(
+                URI.create("string:///" + PACKAGE_NAME.replace('.', '/') + "/" + simpleName + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"), "-d",
+                outputDir.toString(), "-processor", String.join(",", processors));
+        boolean success = compiler
+                .getTask(null, null, diagnostics, options, null, Collections.singletonList(sourceFile))
+                .call();
+        if (!success) {
+            diagnostics.getDiagnostics().forEach(System.err::println);
+        }
+        return success;
+    }
+
+    private Path classFile(String simpleName) {
+        return outputDir.resolve(PACKAGE_NAME.replace('.', File.separatorChar)).resolve(simpleName + ".class");
+    }
+
+    private URLClassLoader newClassLoader() throws IOException {
+        return new URLClassLoader(new URL[] { outputDir.toUri().toURL() }, getClass().getClassLoader());
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.table.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+import app.myoss.cloud.mybatis.table.TableProperty;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 测试 {@link TableMetaObject#getTableProperties(Class)} 生成的属性 getter/setter 函数
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月14日 下午8:12:37
+ */
+public class TableMetaObjectTests {
+    /**
+     * 实体类和父类都不是 public，getter/setter 方法继承自父类，也能读取、设置属性值
+     */
+    @Test
+    public void getTablePropertiesTest1() {
+        List<TableProperty> properties = TableMetaObject.getTableProperties(PackagePrivateEntity.class);
+        Map<String, TableProperty> propertyMap = properties.stream()
+                .collect(Collectors.toMap(TableProperty::getName, Function.identity()));
+        assertEquals(2, propertyMap.size());
+
+        PackagePrivateEntity entity = new PackagePrivateEntity();
+        propertyMap.get("id").getSetter().accept(entity, 1000L);
+        propertyMap.get("userName").getSetter().accept(entity, "jerry");
+        assertEquals(Long.valueOf(1000L), entity.getId());
+        assertEquals("jerry", entity.getUserName());
+        assertEquals(1000L, propertyMap.get("id").getGetter().apply(entity));
+        assertEquals("jerry", propertyMap.get("userName").getGetter().apply(entity));
+    }
+
+    @Data
+    static class PackagePrivateBaseEntity {
+        private Long id;
+    }
+
+    @EqualsAndHashCode(callSuper = true)
+    @Data
+    static class PackagePrivateEntity extends PackagePrivateBaseEntity {
+        private String userName;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+
+import org.apache.ibatis.session.Configuration;
+
+import app.myoss.cloud.mybatis.mapper.register.MapperInterfaceRegister;
+import app.myoss.cloud.mybatis.table.TableConfig;
+
+/**
+ * 单元测试的公共数据，不依赖 Spring 容器，直接构建 MyBatis {@link Configuration}
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午4:05:22
+ */
+public final class MybatisTestFixtures {
+    private MybatisTestFixtures() {
+    }
+
+    /**
+     * 创建 MyBatis 配置，并为 Mapper Interface 注册通用 SQL 操作方法
+     *
+     * @param mapperInterfaces mapper interface class
+     * @return MyBatis 配置
+     */
+    public static Configuration newConfiguration(Class<?>... mapperInterfaces) {
+        Configuration configuration = new Configuration();
+        MapperInterfaceRegister mapperInterfaceRegister = new MapperInterfaceRegister(new TableConfig());
+        mapperInterfaceRegister.setConfiguration(configuration);
+        for (Class<?> mapperInterface : mapperInterfaces) {
+            configuration.addMapper(mapperInterface);
+            mapperInterfaceRegister.executeRegister(mapperInterface);
+        }
+        return configuration;
+    }
+
+    /**
+     * 创建一个什么都不做的 {@link PreparedStatement}，只用于触发参数的设置
+     *
+     * @return PreparedStatement 代理对象
+     */
+    public static PreparedStatement noOpPreparedStatement() {
+        return (PreparedStatement) Proxy.newProxyInstance(MybatisTestFixtures.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+                    Class<?> returnType = method.getReturnType();
+                    if (returnType == boolean.class) {
+                        return false;
+                    }
+                    if (returnType == int.class) {
+                        return 0;
+                    }
+                    return null;
+                });
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.benchmark;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import app.myoss.cloud.core.lang.dto.Direction;
+import app.myoss.cloud.core.lang.dto.Order;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.constants.UserStatusEnum;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.entity.User;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.mapper.UserMapper;
+
+/**
+ * 通用 Mapper 模版生成的动态 SQL JMH 基准测试，衡量 OGNL 表达式求值生成 {@link BoundSql} 的开销
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月3日 下午2:39:12
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoundSqlBenchmark {
+    private MappedStatement     insert;
+    private MappedStatement     updateByPrimaryKey;
+    private MappedStatement     selectPage2;
+    private User                record;
+    private Map<String, Object> pageParameter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Configuration configuration = MybatisBenchmarkSupport.newConfiguration(UserMapper.class);
+        String namespace = UserMapper.class.getName();
+        insert = configuration.getMappedStatement(namespace + ".insert");
+        updateByPrimaryKey = configuration.getMappedStatement(namespace + ".updateByPrimaryKey");
+        selectPage2 = configuration.getMappedStatement(namespace + ".selectPage2");
+
+        record = new User();
+        record.setId(1L);
+        record.setEmployeeNumber("10000");
+        record.setAccount("jerry");
+        record.setName("Jerry");
+        record.setEmail("jerry@myoss.app");
+        record.setStatus(UserStatusEnum.NORMAL);
+
+        User condition = new User();
+        condition.setName("Jerry");
+        condition.setStatus(UserStatusEnum.NORMAL);
+        Map<String, Object> extraCondition = new HashMap<>();
+        extraCondition.put("nameLike", "Jer");
+        pageParameter = new HashMap<>();
+        pageParameter.put("condition", condition);
+        pageParameter.put("extraCondition", extraCondition);
+        pageParameter.put("offset", 0);
+        pageParameter.put("pageSize", 20);
+        pageParameter.put("orders", Collections.singletonList(new Order(Direction.DESC, "id")));
+    }
+
+    @Benchmark
+    public BoundSql insert() {
+        return insert.getBoundSql(record);
+    }
+
+    @Benchmark
+    public BoundSql updateByPrimaryKey() {
+        return updateByPrimaryKey.getBoundSql(record);
+    }
+
+    @Benchmark
+    public BoundSql selectPage2() {
+        return selectPage2.getBoundSql(pageParameter);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BoundSqlBenchmark.class.getSimpleName()).build()).run();
+    }
+}
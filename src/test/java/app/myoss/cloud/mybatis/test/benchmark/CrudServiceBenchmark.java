@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.benchmark;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.MetaObject;
+import org.mybatis.spring.annotation.MapperScan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import app.myoss.cloud.core.constants.MyossConstants;
+import app.myoss.cloud.core.lang.dto.Page;
+import app.myoss.cloud.core.lang.dto.Result;
+import app.myoss.cloud.mybatis.mapper.template.CrudMapper;
+import app.myoss.cloud.mybatis.plugin.ParameterHandlerCustomizer;
+import app.myoss.cloud.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import app.myoss.cloud.mybatis.spring.mapper.MapperFactoryBean;
+import app.myoss.cloud.mybatis.test.integration.h2.H2DataBaseIntTest.IntAutoConfig;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.constants.UserStatusEnum;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.entity.User;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.mapper.UserMapper;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.service.UserService;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.service.impl.UserServiceImpl;
+
+/**
+ * {@link UserService} 端到端 JMH 基准测试，使用H2内存数据库，衡量一次完整的创建、查询、分页查询的开销
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月3日 下午2:43:50
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CrudServiceBenchmark {
+    private ConfigurableApplicationContext context;
+    private UserService                    userService;
+    private Long                           existId;
+    private Page<User>                     pageCondition;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(DataSourceAutoConfiguration.class, IntAutoConfig.class,
+                MybatisAutoConfiguration.class, BenchmarkConfig.class).web(WebApplicationType.NONE)
+                        .profiles("h2-test1")
+                        .properties("logging.level.app.myoss.cloud=WARN")
+                        .run();
+        userService = context.getBean(UserService.class);
+
+        User record = newUser();
+        Result<Long> createResult = userService.create(record);
+        existId = createResult.getValue();
+
+        User condition = new User();
+        condition.setStatus(UserStatusEnum.NORMAL);
+        pageCondition = new Page<>();
+        pageCondition.setParam(condition);
+        pageCondition.setPageNum(1);
+        pageCondition.setPageSize(20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private static User newUser() {
+        User record = new User();
+        record.setEmployeeNumber("10000");
+        record.setName("Jerry");
+        record.setStatus(UserStatusEnum.NORMAL);
+        return record;
+    }
+
+    @Benchmark
+    public Result<Long> create() {
+        return userService.create(newUser());
+    }
+
+    @Benchmark
+    public Result<User> findByPrimaryKey() {
+        return userService.findByPrimaryKey(existId);
+    }
+
+    @Benchmark
+    public Page<User> findPage() {
+        return userService.findPage(pageCondition);
+    }
+
+    @MapperScan(basePackageClasses = UserMapper.class, factoryBean = MapperFactoryBean.class, markerInterface = CrudMapper.class)
+    @Configuration
+    public static class BenchmarkConfig {
+        @Bean
+        public UserService userService() {
+            return new UserServiceImpl();
+        }
+
+        @Bean
+        public ParameterHandlerCustomizer persistenceParameterHandler() {
+            return new ParameterHandlerCustomizer() {
+                @Override
+                public void handlerInsert(MappedStatement mappedStatement, BoundSql boundSql, Object parameterObject) {
+                    MetaObject metaObject = mappedStatement.getConfiguration().newMetaObject(parameterObject);
+                    metaObject.setValue("isDeleted", MyossConstants.N);
+                    metaObject.setValue("creator", "system");
+                    metaObject.setValue("modifier", "system");
+                    metaObject.setValue("gmtCreated", new Date());
+                    metaObject.setValue("gmtModified", new Date());
+                }
+            };
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CrudServiceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
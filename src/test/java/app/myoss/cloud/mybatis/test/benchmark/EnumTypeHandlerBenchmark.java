@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.benchmark;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.type.EnumTypeHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import app.myoss.cloud.mybatis.test.integration.h2.test1.constants.UserStatusEnum;
+import app.myoss.cloud.mybatis.test.integration.h2.test2.constants.AccountStatusEnum;
+import app.myoss.cloud.mybatis.type.EnumValue;
+import app.myoss.cloud.mybatis.type.EnumValueAnnotationTypeHandler;
+import app.myoss.cloud.mybatis.type.EnumValueTypeHandler;
+
+/**
+ * 枚举类型转换器 JMH 基准测试，衡量从 {@link ResultSet} 中读取数据库字段值并转换为枚举的开销
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月3日 下午2:41:26
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EnumTypeHandlerBenchmark {
+    private EnumValueAnnotationTypeHandler<UserStatusEnum> annotationTypeHandler;
+    private EnumValueTypeHandler<AccountStatusEnum>        enumValueTypeHandler;
+    private EnumTypeHandler<UserStatusEnum>                enumTypeHandler;
+    private ResultSet                                      dbValueResultSet;
+    private ResultSet                                      nameResultSet;
+
+    @Setup(Level.Trial)
+    public void setup() throws NoSuchFieldException {
+        EnumValueAnnotationTypeHandler.registryEnumField(UserStatusEnum.class,
+                UserStatusEnum.class.getDeclaredField("code"));
+        annotationTypeHandler = new EnumValueAnnotationTypeHandler<>(UserStatusEnum.class);
+        enumValueTypeHandler = new EnumValueTypeHandler<>(AccountStatusEnum.class);
+        enumTypeHandler = new EnumTypeHandler<>(UserStatusEnum.class);
+        // 取最后一个枚举值，覆盖遍历所有枚举常量的最坏情况
+        dbValueResultSet = MybatisBenchmarkSupport.singleValueResultSet("L");
+        nameResultSet = MybatisBenchmarkSupport.singleValueResultSet(UserStatusEnum.LOCKED.name());
+    }
+
+    @Benchmark
+    public UserStatusEnum enumValueAnnotationTypeHandler() throws SQLException {
+        return annotationTypeHandler.getResult(dbValueResultSet, "status");
+    }
+
+    @Benchmark
+    public EnumValue enumValueTypeHandler() throws SQLException {
+        return enumValueTypeHandler.getResult(dbValueResultSet, "status");
+    }
+
+    /**
+     * 基准线：MyBatis 默认的按枚举名称转换
+     *
+     * @return 枚举值
+     * @throws SQLException 读取字段值异常
+     */
+    @Benchmark
+    public UserStatusEnum mybatisEnumTypeHandler() throws SQLException {
+        return enumTypeHandler.getResult(nameResultSet, "status");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(EnumTypeHandlerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.benchmark;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import org.apache.ibatis.session.Configuration;
+
+import app.myoss.cloud.mybatis.mapper.register.MapperInterfaceRegister;
+import app.myoss.cloud.mybatis.table.TableConfig;
+
+/**
+ * JMH 基准测试的公共方法，不依赖 Spring 容器，直接构建 MyBatis {@link Configuration}
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月3日 下午2:31:08
+ */
+public final class MybatisBenchmarkSupport {
+    private MybatisBenchmarkSupport() {
+    }
+
+    /**
+     * 创建 MyBatis 配置，并为 Mapper Interface 注册通用 SQL 操作方法
+     *
+     * @param mapperInterfaces mapper interface class
+     * @return MyBatis 配置
+     */
+    public static Configuration newConfiguration(Class<?>... mapperInterfaces) {
+        Configuration configuration = new Configuration();
+        MapperInterfaceRegister mapperInterfaceRegister = new MapperInterfaceRegister(new TableConfig());
+        mapperInterfaceRegister.setConfiguration(configuration);
+        for (Class<?> mapperInterface : mapperInterfaces) {
+            configuration.addMapper(mapperInterface);
+            mapperInterfaceRegister.executeRegister(mapperInterface);
+        }
+        return configuration;
+    }
+
+    /**
+     * 创建一个什么都不做的 {@link PreparedStatement}，用于衡量参数设置本身的开销
+     *
+     * @return PreparedStatement 代理对象
+     */
+    public static PreparedStatement noOpPreparedStatement() {
+        return (PreparedStatement) Proxy.newProxyInstance(MybatisBenchmarkSupport.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> defaultValue(method));
+    }
+
+    /**
+     * 创建一个 {@link ResultSet}，读取字段值的方法（如 {@code getObject}、{@code getString}）始终返回同一个值
+     *
+     * @param value 字段的值
+     * @return ResultSet 代理对象
+     */
+    public static ResultSet singleValueResultSet(Object value) {
+        return (ResultSet) Proxy.newProxyInstance(MybatisBenchmarkSupport.class.getClassLoader(),
+                new Class<?>[] { ResultSet.class }, (proxy, method, args) -> {
+                    if (method.getName().startsWith("get") && method.getReturnType().isInstance(value)) {
+                        return value;
+                    }
+                    return defaultValue(method);
+                });
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> returnType = method.getReturnType();
+        if (!returnType.isPrimitive() || returnType == void.class) {
+            return null;
+        }
+        if (returnType == boolean.class) {
+            return false;
+        }
+        if (returnType == long.class) {
+            return 0L;
+        }
+        if (returnType == float.class) {
+            return 0F;
+        }
+        if (returnType == double.class) {
+            return 0D;
+        }
+        if (returnType == byte.class) {
+            return (byte) 0;
+        }
+        if (returnType == short.class) {
+            return (short) 0;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.benchmark;
+
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import app.myoss.cloud.mybatis.executor.keygen.SequenceKeyGenerator;
+import app.myoss.cloud.mybatis.plugin.ParameterHandlerInterceptor;
+import app.myoss.cloud.mybatis.plugin.impl.DefaultParameterHandlerCustomizer;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+import app.myoss.cloud.mybatis.test.integration.h2.test3.UserLogControllerIntTests.SequenceCustomizer;
+import app.myoss.cloud.mybatis.test.integration.h2.test3.entity.UserLog;
+import app.myoss.cloud.mybatis.test.integration.h2.test3.mapper.UserLogMapper;
+
+/**
+ * 执行 SQL 之前的参数处理 JMH 基准测试，包括 {@link ParameterHandlerInterceptor} 填充审计字段和
+ * {@link SequenceKeyGenerator} 生成主键
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月3日 下午2:36:57
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParameterHandlerBenchmark {
+    private static final int            BATCH_SIZE = 20;
+    private Configuration               configuration;
+    private MappedStatement             insert;
+    private MappedStatement             updateByPrimaryKey;
+    private MappedStatement             insertBatch;
+    private KeyGenerator                keyGenerator;
+    private ParameterHandlerInterceptor interceptor;
+    private Method                      setParameters;
+    private PreparedStatement           preparedStatement;
+    private UserLog                     record;
+    private Object                      batchParameter;
+
+    @Setup(Level.Trial)
+    public void setup() throws NoSuchMethodException {
+        if (TableMetaObject.getSequenceBean("seqUserLog") == null) {
+            AtomicLong value = new AtomicLong();
+            TableMetaObject.addSequenceBean("seqUserLog", new SequenceCustomizer() {
+                @Override
+                public Object nextValue(Object parameter) {
+                    return value.incrementAndGet();
+                }
+            });
+        }
+        configuration = MybatisBenchmarkSupport.newConfiguration(UserLogMapper.class);
+        String namespace = UserLogMapper.class.getName();
+        insert = configuration.getMappedStatement(namespace + ".insert");
+        updateByPrimaryKey = configuration.getMappedStatement(namespace + ".updateByPrimaryKey");
+        insertBatch = configuration.getMappedStatement(namespace + ".insertBatch");
+        keyGenerator = insert.getKeyGenerator();
+
+        interceptor = new ParameterHandlerInterceptor(new DefaultParameterHandlerCustomizer());
+        setParameters = ParameterHandler.class.getMethod("setParameters", PreparedStatement.class);
+        preparedStatement = MybatisBenchmarkSupport.noOpPreparedStatement();
+
+        record = new UserLog();
+        record.setId(1L);
+        record.setEmployeeNumber("10000");
+        List<UserLog> records = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            UserLog item = new UserLog();
+            item.setEmployeeNumber("1000" + i);
+            records.add(item);
+        }
+        batchParameter = ParamNameResolver.wrapToMapIfCollection(records, null);
+    }
+
+    @Benchmark
+    public Object sequenceKeyGenerator() {
+        record.setId(null);
+        keyGenerator.processBefore(null, insert, null, record);
+        return record.getId();
+    }
+
+    /**
+     * 基准线：不经过拦截器，直接设置参数
+     *
+     * @return BoundSql
+     * @throws SQLException 设置参数异常
+     */
+    @Benchmark
+    public BoundSql setParametersWithoutInterceptor() throws SQLException {
+        BoundSql boundSql = updateByPrimaryKey.getBoundSql(record);
+        configuration.newParameterHandler(updateByPrimaryKey, record, boundSql).setParameters(preparedStatement);
+        return boundSql;
+    }
+
+    @Benchmark
+    public Object interceptInsert() throws Throwable {
+        return intercept(insert, record);
+    }
+
+    @Benchmark
+    public Object interceptUpdate() throws Throwable {
+        return intercept(updateByPrimaryKey, record);
+    }
+
+    @Benchmark
+    public Object interceptInsertBatch() throws Throwable {
+        return intercept(insertBatch, batchParameter);
+    }
+
+    private Object intercept(MappedStatement ms, Object parameter) throws Throwable {
+        BoundSql boundSql = ms.getBoundSql(parameter);
+        ParameterHandler parameterHandler = configuration.newParameterHandler(ms, parameter, boundSql);
+        interceptor.intercept(new Invocation(parameterHandler, setParameters, new Object[] { preparedStatement }));
+        return boundSql;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ParameterHandlerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.integration.h2.test1;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import app.myoss.cloud.core.lang.dto.Result;
+import app.myoss.cloud.mybatis.criteria.Criteria;
+import app.myoss.cloud.mybatis.datasource.ReadWriteRoutingContext;
+import app.myoss.cloud.mybatis.mapper.template.CrudMapper;
+import app.myoss.cloud.mybatis.repository.service.AsyncCrudService;
+import app.myoss.cloud.mybatis.repository.service.impl.AsyncCrudServiceImpl;
+import app.myoss.cloud.mybatis.repository.utils.AsyncCrudExecutor;
+import app.myoss.cloud.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import app.myoss.cloud.mybatis.spring.mapper.MapperFactoryBean;
+import app.myoss.cloud.mybatis.test.integration.h2.H2DataBaseIntTest.IntAutoConfig;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.UserControllerIntTests.MyConfig1;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.entity.User;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.service.UserService;
+
+/**
+ * 异步执行 CrudService（{@link app.myoss.cloud.mybatis.repository.service.AsyncCrudService}）集成测试，使用H2内存数据库
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午5:30:18
+ */
+@MapperScan(basePackageClasses = UserControllerIntTests.class, factoryBean = MapperFactoryBean.class, markerInterface = CrudMapper.class)
+@ActiveProfiles({ "h2-test1", "UserControllerIntTests" })
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = { DataSourceAutoConfiguration.class, IntAutoConfig.class, MybatisAutoConfiguration.class,
+        MyConfig1.class })
+public class UserAsyncCrudServiceIntTests {
+    @Autowired
+    private UserService userService;
+
+    /**
+     * 异步执行 CrudService 测试案例，同时发起多个查询，并限制同时执行的数量、传递调用方线程的上下文
+     */
+    @Test
+    public void asyncCrudServiceTest1() throws Exception {
+        ThreadLocal<String> tenant = new ThreadLocal<>();
+        ExecutorService threadPool = Executors.newFixedThreadPool(4);
+        AsyncCrudExecutor asyncCrudExecutor = new AsyncCrudExecutor(threadPool, 2,
+                Collections.singletonList(task -> {
+                    String value = tenant.get();
+                    return () -> {
+                        tenant.set(value);
+                        try {
+                            task.run();
+                        } finally {
+                            tenant.remove();
+                        }
+                    };
+                }));
+        AsyncCrudService<User> asyncUserService = new AsyncCrudServiceImpl<>(userService, asyncCrudExecutor);
+        try {
+            List<CompletableFuture<Result<Long>>> creates = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                User record = new User();
+                record.setEmployeeNumber("90001");
+                record.setName("Async_" + i);
+                creates.add(asyncUserService.create(record));
+            }
+            CompletableFuture.allOf(creates.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+            Long id = creates.get(0).get().getValue();
+
+            Criteria<User> criteria = Criteria.of(User.class).eq(User::getEmployeeNumber, "90001");
+            CompletableFuture<Result<List<User>>> listFuture = asyncUserService.findListByCriteria(criteria);
+            CompletableFuture<Result<Integer>> countFuture = asyncUserService.findCountByCriteria(criteria);
+            CompletableFuture<Result<User>> userFuture = asyncUserService.findByPrimaryKey(id);
+
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            tenant.set("tenant-1");
+            List<CompletableFuture<String>> contexts = new ArrayList<>();
+            try {
+                ReadWriteRoutingContext.runOnPrimary(() -> {
+                    for (int i = 0; i < 6; i++) {
+                        contexts.add(asyncUserService.execute(service -> {
+                            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                            try {
+                                Thread.sleep(20);
+                            } catch (InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                            }
+                            running.decrementAndGet();
+                            return tenant.get() + "/" + ReadWriteRoutingContext.isForcePrimary();
+                        }));
+                    }
+                });
+            } finally {
+                tenant.remove();
+            }
+            CompletableFuture.allOf(contexts.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+            SoftAssertions.assertSoftly(softly -> {
+                softly.assertThat(listFuture.join().getValue()).hasSize(5);
+                softly.assertThat(countFuture.join().getValue()).isEqualTo(5);
+                softly.assertThat(userFuture.join().getValue().getName()).isEqualTo("Async_0");
+                softly.assertThat(contexts).allSatisfy(
+                        future -> Assertions.assertThat(future.join()).isEqualTo("tenant-1/true"));
+                softly.assertThat(maxRunning.get()).isBetween(1, 2);
+            });
+        } finally {
+            threadPool.shutdown();
+        }
+    }
+
+    /**
+     * 异步执行 CrudService 测试案例，同时执行的数量和等待队列都满了之后，提交的任务以 RejectedExecutionException 结束
+     */
+    @Test
+    public void asyncCrudServiceTest2() throws Exception {
+        ExecutorService threadPool = Executors.newFixedThreadPool(4);
+        AsyncCrudExecutor asyncCrudExecutor = new AsyncCrudExecutor(threadPool, 1, 1, Collections.emptyList());
+        AsyncCrudService<User> asyncUserService = new AsyncCrudServiceImpl<>(userService, asyncCrudExecutor);
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            CompletableFuture<Boolean> running = asyncUserService.execute(service -> {
+                try {
+                    return latch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            });
+            CompletableFuture<Result<Integer>> waiting = asyncUserService
+                    .findCountByCriteria(Criteria.of(User.class).eq(User::getEmployeeNumber, "90002"));
+            CompletableFuture<Result<Integer>> rejected = asyncUserService
+                    .findCountByCriteria(Criteria.of(User.class).eq(User::getEmployeeNumber, "90002"));
+            Assertions.assertThat(rejected).isCompletedExceptionally();
+            Assertions.assertThatThrownBy(rejected::join).hasCauseInstanceOf(RejectedExecutionException.class);
+            Assertions.assertThat(waiting).isNotDone();
+
+            latch.countDown();
+            Assertions.assertThat(running.get(10, TimeUnit.SECONDS)).isTrue();
+            Assertions.assertThat(waiting.get(10, TimeUnit.SECONDS).getValue()).isEqualTo(0);
+        } finally {
+            latch.countDown();
+            threadPool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.integration.h2.test1;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import app.myoss.cloud.core.exception.BizRuntimeException;
+import app.myoss.cloud.core.lang.dto.Page;
+import app.myoss.cloud.core.lang.dto.Result;
+import app.myoss.cloud.mybatis.constants.MybatisConstants;
+import app.myoss.cloud.mybatis.criteria.Criteria;
+import app.myoss.cloud.mybatis.mapper.template.CrudMapper;
+import app.myoss.cloud.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import app.myoss.cloud.mybatis.spring.mapper.MapperFactoryBean;
+import app.myoss.cloud.mybatis.test.integration.h2.H2DataBaseIntTest.IntAutoConfig;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.UserControllerIntTests.MyConfig1;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.constants.UserStatusEnum;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.entity.User;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.service.UserService;
+
+/**
+ * 类型安全的查询条件（{@link app.myoss.cloud.mybatis.criteria.Criteria}）集成测试，使用H2内存数据库
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午5:12:31
+ */
+@MapperScan(basePackageClasses = UserControllerIntTests.class, factoryBean = MapperFactoryBean.class, markerInterface = CrudMapper.class)
+@ActiveProfiles({ "h2-test1", "UserControllerIntTests" })
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = { DataSourceAutoConfiguration.class, IntAutoConfig.class, MybatisAutoConfiguration.class,
+        MyConfig1.class })
+public class UserCriteriaIntTests {
+    @Autowired
+    private UserService userService;
+
+    /**
+     * 类型安全的 {@link Criteria} 查询测试案例
+     */
+    @Test
+    public void criteriaQueryTest1() {
+        List<User> records = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User record = new User();
+            record.setEmployeeNumber("2000" + i);
+            record.setName(i % 2 == 0 ? "Criteria-" + i : "Other-" + i);
+            record.setStatus(i < 3 ? UserStatusEnum.NORMAL : UserStatusEnum.LOCKED);
+            records.add(record);
+        }
+        Result<Boolean> createResult = userService.createBatch(records);
+        Assertions.assertThat(createResult.isSuccess()).isTrue();
+
+        Criteria<User> criteria = Criteria.of(User.class)
+                .like(User::getEmployeeNumber, "2000%")
+                .or(or -> or.like(User::getName, "Criteria-%").in(User::getStatus,
+                        Collections.singletonList(UserStatusEnum.LOCKED)))
+                .orderByDesc(User::getEmployeeNumber);
+        Result<List<User>> listResult = userService.findListByCriteria(criteria);
+        Result<Integer> countResult = userService.findCountByCriteria(criteria);
+        Page<User> pageResult = userService.findPageByCriteria(criteria, 2, 2);
+        List<User> streamResult = new ArrayList<>();
+        Result<Boolean> streamStatus = userService.findStreamByCriteria(criteria, streamResult::add);
+        // 相同结构的查询条件会复用已编译的 sql 语句
+        Result<List<User>> betweenResult = userService.findListByCriteria(Criteria.of(User.class)
+                .between(User::getEmployeeNumber, "20001", "20003")
+                .orderByAsc(User::getEmployeeNumber));
+        Result<List<User>> emptyResult = userService.findListByCriteria(Criteria.of(User.class));
+        Page<User> emptyPageResult = userService.findPageByCriteria(Criteria.of(User.class), 1, 2);
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(listResult.isSuccess()).isTrue();
+            softly.assertThat(listResult.getValue())
+                    .extracting(User::getEmployeeNumber)
+                    .containsExactly("20004", "20003", "20002", "20000");
+            softly.assertThat(countResult.getValue()).isEqualTo(4);
+            softly.assertThat(pageResult.getTotalCount()).isEqualTo(4);
+            softly.assertThat(pageResult.getValue())
+                    .extracting(User::getEmployeeNumber)
+                    .containsExactly("20002", "20000");
+            softly.assertThat(streamStatus.getValue()).isTrue();
+            softly.assertThat(streamResult).isEqualTo(listResult.getValue());
+            softly.assertThat(betweenResult.getValue())
+                    .extracting(User::getEmployeeNumber)
+                    .containsExactly("20001", "20002", "20003");
+            softly.assertThat(emptyResult.isSuccess()).isFalse();
+            softly.assertThat(emptyResult.getErrorCode()).isEqualTo(MybatisConstants.VALUE_IS_BLANK);
+            softly.assertThat(emptyPageResult.isSuccess()).isFalse();
+            softly.assertThat(emptyPageResult.getErrorCode()).isEqualTo(MybatisConstants.VALUE_IS_BLANK);
+            softly.assertThat(emptyPageResult.getValue()).isNull();
+        });
+        Assertions.assertThatThrownBy(() -> Criteria.of(User.class).eq(User::getName, null))
+                .isInstanceOf(BizRuntimeException.class);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.integration.h2.test1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import app.myoss.cloud.core.lang.dto.Direction;
+import app.myoss.cloud.core.lang.dto.Result;
+import app.myoss.cloud.core.lang.dto.Sort;
+import app.myoss.cloud.mybatis.mapper.template.CrudMapper;
+import app.myoss.cloud.mybatis.repository.service.impl.BaseCrudServiceImpl;
+import app.myoss.cloud.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import app.myoss.cloud.mybatis.spring.mapper.MapperFactoryBean;
+import app.myoss.cloud.mybatis.test.integration.h2.H2DataBaseIntTest.IntAutoConfig;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.UserControllerIntTests.MyConfig1;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.entity.User;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.mapper.UserMapper;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.service.UserService;
+
+/**
+ * 判断记录是否存在（{@link app.myoss.cloud.mybatis.mapper.template.select.SelectExistsMapper}）集成测试，使用H2内存数据库
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午5:16:05
+ */
+@MapperScan(basePackageClasses = UserControllerIntTests.class, factoryBean = MapperFactoryBean.class, markerInterface = CrudMapper.class)
+@ActiveProfiles({ "h2-test1", "UserControllerIntTests" })
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = { DataSourceAutoConfiguration.class, IntAutoConfig.class, MybatisAutoConfiguration.class,
+        MyConfig1.class })
+public class UserExistsIntTests {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserMapper  userMapper;
+
+    /**
+     * 判断记录是否存在、查询第一条记录测试案例
+     */
+    @Test
+    public void existsTest1() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            User record = new User();
+            record.setEmployeeNumber("62001");
+            record.setName("Exists-" + i);
+            Result<Long> createResult = userService.create(record);
+            ids.add(createResult.getValue());
+        }
+        BaseCrudServiceImpl<UserMapper, User> service = new BaseCrudServiceImpl<UserMapper, User>() {
+            @Override
+            protected boolean checkCommonQueryConditionIsAllNull(SqlCommandType sqlCommandType, Result<?> result,
+                                                                 User condition, Map<String, Object> extraCondition) {
+                return result.isSuccess();
+            }
+        };
+        service.setCrudMapper(userMapper);
+
+        User condition = new User().setEmployeeNumber("62001");
+        Result<User> first = service.findFirst(condition, new Sort(Direction.DESC, "id"));
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(userMapper.exists(condition)).isTrue();
+            softly.assertThat(userMapper.exists(new User().setEmployeeNumber("62999"))).isFalse();
+            softly.assertThat(userMapper.existsByPrimaryKey(ids.get(0))).isTrue();
+            softly.assertThat(userMapper.existsByPrimaryKey(-1L)).isFalse();
+            softly.assertThat(userMapper.existsIncludeLogicDelete(condition)).isTrue();
+            softly.assertThat(service.exists(condition).getValue()).isTrue();
+            softly.assertThat(userService.existsByPrimaryKey(ids.get(1)).getValue()).isTrue();
+            softly.assertThat(first.getValue().getId()).isEqualTo(ids.get(2));
+            // 最多只查询2条记录
+            softly.assertThatThrownBy(() -> userMapper.selectOne(condition))
+                    .hasMessageContaining("but found: 2");
+        });
+    }
+}
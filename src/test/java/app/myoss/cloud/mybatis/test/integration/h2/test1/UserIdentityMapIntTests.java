@@ -0,0 +1,147 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.integration.h2.test1;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.assertj.core.api.SoftAssertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import app.myoss.cloud.core.constants.MyossConstants;
+import app.myoss.cloud.core.lang.dto.Result;
+import app.myoss.cloud.mybatis.mapper.template.CrudMapper;
+import app.myoss.cloud.mybatis.repository.service.impl.BaseCrudServiceImpl;
+import app.myoss.cloud.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import app.myoss.cloud.mybatis.spring.mapper.MapperFactoryBean;
+import app.myoss.cloud.mybatis.test.integration.h2.H2DataBaseIntTest.IntAutoConfig;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.UserControllerIntTests.MyConfig1;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.entity.User;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.service.UserService;
+
+/**
+ * 事务内的实体对象缓存（{@link app.myoss.cloud.mybatis.repository.utils.TransactionIdentityMap}）集成测试，使用H2内存数据库
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午5:19:47
+ */
+@MapperScan(basePackageClasses = UserControllerIntTests.class, factoryBean = MapperFactoryBean.class, markerInterface = CrudMapper.class)
+@ActiveProfiles({ "h2-test1", "UserControllerIntTests" })
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = { DataSourceAutoConfiguration.class, IntAutoConfig.class, MybatisAutoConfiguration.class,
+        MyConfig1.class })
+public class UserIdentityMapIntTests {
+    @Autowired
+    private UserService                userService;
+    @Autowired
+    private JdbcTemplate               jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 事务内的实体对象缓存测试案例，同一个事务中按主键查询同一条记录只访问一次数据库
+     */
+    @Test
+    public void identityMapTest1() {
+        BaseCrudServiceImpl<?, User> service = (BaseCrudServiceImpl<?, User>) userService;
+        service.setIdentityMap(true);
+        try {
+            User record = new User();
+            record.setEmployeeNumber("61001");
+            record.setName("Identity");
+            Result<Long> createResult = userService.create(record);
+            Long id = createResult.getValue();
+
+            List<User> users = new TransactionTemplate(transactionManager).execute(status -> {
+                List<User> list = new ArrayList<>();
+                list.add(userService.findByPrimaryKey(id).getValue());
+                // REQUIRES_NEW 的新事务使用自己的缓存，不会读取外层事务缓存的实体对象；新事务结束之后外层事务的缓存恢复
+                TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+                requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+                List<User> innerUsers = requiresNew.execute(innerStatus -> {
+                    List<User> innerList = new ArrayList<>();
+                    innerList.add(userService.findByPrimaryKey(id).getValue());
+                    innerList.add(userService.findByPrimaryKey(id).getValue());
+                    return innerList;
+                });
+                // 直接修改数据库，返回的还是缓存的实体对象，说明没有再访问数据库
+                jdbcTemplate.update("update t_sys_user set name = 'Identity-jdbc' where id = ?", id);
+                list.add(userService.findByPrimaryKey(id).getValue());
+                list.add(userService.findByPrimaryKey(new User().setId(id)).getValue());
+
+                // 更新的是缓存的实体对象，保留在缓存中
+                User cached = list.get(0);
+                cached.setName("Identity-1");
+                userService.updateByPrimaryKey(cached);
+                list.add(userService.findByPrimaryKey(id).getValue());
+
+                // 使用其它实体对象更新之后，清除缓存，重新查询数据库
+                User update = fillAuditInfo(new User().setId(id));
+                update.setName("Identity-2");
+                userService.updateByPrimaryKey(update);
+                list.add(userService.findByPrimaryKey(id).getValue());
+                list.addAll(innerUsers);
+                return list;
+            });
+            // 事务结束之后缓存被清除
+            User afterCommit = userService.findByPrimaryKey(id).getValue();
+            SoftAssertions.assertSoftly(softly -> {
+                softly.assertThat(users.get(1)).isSameAs(users.get(0));
+                softly.assertThat(users.get(2)).isSameAs(users.get(0));
+                softly.assertThat(users.get(3)).isSameAs(users.get(0));
+                softly.assertThat(users.get(4)).isNotSameAs(users.get(0));
+                softly.assertThat(users.get(4).getName()).isEqualTo("Identity-2");
+                softly.assertThat(afterCommit).isNotSameAs(users.get(4));
+                softly.assertThat(afterCommit.getName()).isEqualTo("Identity-2");
+                softly.assertThat(users.get(5)).isNotSameAs(users.get(0));
+                softly.assertThat(users.get(6)).isSameAs(users.get(5));
+            });
+        } finally {
+            service.setIdentityMap(false);
+        }
+    }
+
+    /**
+     * 设置更新需要的审计字段。FillRule.UPDATE 的字段总会出现在更新语句中，测试配置的
+     * {@link UserControllerIntTests.MyConfig1} 只在插入时设置这些字段，这里手动设置
+     *
+     * @param record 待更新的实体对象
+     * @return 待更新的实体对象
+     */
+    private static User fillAuditInfo(User record) {
+        Date now = new Date();
+        record.setIsDeleted(MyossConstants.N);
+        record.setCreator("system");
+        record.setModifier("system");
+        record.setGmtCreated(now);
+        record.setGmtModified(now);
+        return record;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.integration.h2.test1;
+
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import app.myoss.cloud.core.exception.BizRuntimeException;
+import app.myoss.cloud.core.lang.dto.Result;
+import app.myoss.cloud.mybatis.constants.MybatisConstants;
+import app.myoss.cloud.mybatis.criteria.Projection;
+import app.myoss.cloud.mybatis.mapper.template.CrudMapper;
+import app.myoss.cloud.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import app.myoss.cloud.mybatis.spring.mapper.MapperFactoryBean;
+import app.myoss.cloud.mybatis.test.integration.h2.H2DataBaseIntTest.IntAutoConfig;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.UserControllerIntTests.MyConfig1;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.constants.UserStatusEnum;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.entity.User;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.service.UserService;
+import lombok.Data;
+
+/**
+ * 查询指定字段（{@link Projection}）集成测试，使用H2内存数据库
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午5:14:22
+ */
+@MapperScan(basePackageClasses = UserControllerIntTests.class, factoryBean = MapperFactoryBean.class, markerInterface = CrudMapper.class)
+@ActiveProfiles({ "h2-test1", "UserControllerIntTests" })
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = { DataSourceAutoConfiguration.class, IntAutoConfig.class, MybatisAutoConfiguration.class,
+        MyConfig1.class })
+public class UserProjectionIntTests {
+    @Autowired
+    private UserService userService;
+
+    /**
+     * 查询指定字段（投影）测试案例
+     */
+    @Test
+    public void projectionQueryTest1() {
+        User record = new User();
+        record.setEmployeeNumber("30001");
+        record.setName("Projection");
+        record.setAccount("projection");
+        record.setStatus(UserStatusEnum.NORMAL);
+        Result<Long> createResult = userService.create(record);
+        Assertions.assertThat(createResult.isSuccess()).isTrue();
+
+        User condition = new User();
+        condition.setId(createResult.getValue());
+        condition.setEmployeeNumber("30001");
+        Projection<User> projection = Projection.of(User.class, User::getId, User::getName, User::getStatus);
+        Result<List<User>> listResult = userService.findList(condition, projection);
+        Result<List<UserNameDto>> dtoResult = userService.findList(condition, projection, UserNameDto.class);
+        Result<List<UserNameDto>> nullProjectionResult = userService.findList(condition, null, UserNameDto.class);
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(projection).isSameAs(Projection.ofProperties(User.class, "id", "name", "status"));
+            softly.assertThat(projection.getSelectSql()).isEqualTo("id, `name`, `status`");
+            softly.assertThat(listResult.getValue()).hasSize(1);
+            User user = listResult.getValue().get(0);
+            softly.assertThat(user.getId()).isEqualTo(createResult.getValue());
+            softly.assertThat(user.getName()).isEqualTo("Projection");
+            softly.assertThat(user.getStatus()).isEqualTo(UserStatusEnum.NORMAL);
+            softly.assertThat(user.getEmployeeNumber()).isNull();
+            softly.assertThat(user.getAccount()).isNull();
+            softly.assertThat(dtoResult.getValue()).hasSize(1);
+            UserNameDto dto = dtoResult.getValue().get(0);
+            softly.assertThat(dto.getId()).isEqualTo(createResult.getValue());
+            softly.assertThat(dto.getName()).isEqualTo("Projection");
+            softly.assertThat(dto.getAccount()).isNull();
+            softly.assertThat(nullProjectionResult.isSuccess()).isFalse();
+            softly.assertThat(nullProjectionResult.getErrorCode()).isEqualTo(MybatisConstants.VALUE_IS_BLANK);
+        });
+        Assertions.assertThatThrownBy(() -> Projection.ofProperties(User.class, "id", "id; drop table t_sys_user"))
+                .isInstanceOf(BizRuntimeException.class);
+    }
+
+    @Data
+    public static class UserNameDto {
+        private Long   id;
+        private String name;
+        private String account;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.integration.h2.test1;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.assertj.core.api.Assertions;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.mybatis.spring.annotation.MapperScan;
+import org.mybatis.spring.transaction.SpringManagedTransactionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import app.myoss.cloud.core.constants.MyossConstants;
+import app.myoss.cloud.core.lang.dto.Result;
+import app.myoss.cloud.mybatis.datasource.LeastLatencyReplicaSelector;
+import app.myoss.cloud.mybatis.datasource.ReadWriteRoutingContext;
+import app.myoss.cloud.mybatis.datasource.ReadWriteRoutingDataSource;
+import app.myoss.cloud.mybatis.mapper.template.CrudMapper;
+import app.myoss.cloud.mybatis.plugin.ReadWriteRoutingInterceptor;
+import app.myoss.cloud.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import app.myoss.cloud.mybatis.spring.mapper.MapperFactoryBean;
+import app.myoss.cloud.mybatis.test.MybatisTestFixtures;
+import app.myoss.cloud.mybatis.test.integration.h2.H2DataBaseIntTest.IntAutoConfig;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.UserControllerIntTests.MyConfig1;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.entity.User;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.mapper.UserMapper;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.service.UserService;
+
+/**
+ * 读写分离（{@link app.myoss.cloud.mybatis.datasource.ReadWriteRoutingDataSource}）集成测试，使用H2内存数据库
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午5:26:40
+ */
+@MapperScan(basePackageClasses = UserControllerIntTests.class, factoryBean = MapperFactoryBean.class, markerInterface = CrudMapper.class)
+@ActiveProfiles({ "h2-test1", "UserControllerIntTests" })
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = { DataSourceAutoConfiguration.class, IntAutoConfig.class, MybatisAutoConfiguration.class,
+        MyConfig1.class })
+public class UserReadWriteRoutingIntTests {
+    @Autowired
+    private UserService  userService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private DataSource   dataSource;
+
+    /**
+     * 读写分离测试案例，使用另外一个H2内存数据库作为从库，通过 {@link SqlSessionTemplate} 执行 sql 语句
+     */
+    @Test
+    public void readWriteRoutingTest1() throws SQLException {
+        User record = new User();
+        record.setEmployeeNumber("80001");
+        record.setName("Primary");
+        Result<Long> createResult = userService.create(record);
+        Long id = createResult.getValue();
+        DriverManagerDataSource replica = new DriverManagerDataSource("jdbc:h2:mem:db_replica_test1;DB_CLOSE_DELAY=-1;"
+                + "INIT=RUNSCRIPT FROM 'classpath:scripts/h2/1-init-schema.sql'");
+        JdbcTemplate replicaJdbcTemplate = new JdbcTemplate(replica);
+        replicaJdbcTemplate.update("insert into t_sys_user (id, name, creator, modifier, gmt_created, "
+                + "gmt_modified) values (?, 'Replica', 'test', 'test', now(), now())", id);
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(dataSource,
+                Collections.singletonList(replica), new LeastLatencyReplicaSelector());
+        org.apache.ibatis.session.Configuration configuration = MybatisTestFixtures
+                .newConfiguration(UserMapper.class);
+        configuration.setEnvironment(new Environment("readWriteRouting", new SpringManagedTransactionFactory(),
+                routingDataSource));
+        configuration.addInterceptor(new ReadWriteRoutingInterceptor());
+        UserMapper routingMapper = new SqlSessionTemplate(new DefaultSqlSessionFactory(configuration))
+                .getMapper(UserMapper.class);
+        DataSourceTransactionManager routingTransactionManager = new DataSourceTransactionManager(routingDataSource);
+
+        String outsideTransaction = routingMapper.selectByPrimaryKey(id).getName();
+        String forcePrimary = ReadWriteRoutingContext
+                .runOnPrimary(() -> routingMapper.selectByPrimaryKey(id).getName());
+        String inTransaction = new TransactionTemplate(routingTransactionManager)
+                .execute(status -> routingMapper.selectByPrimaryKey(id).getName());
+        // 事务同步范围内第一条查询语句绑定了从库的连接，之后的写操作需要切换到主库执行
+        TransactionTemplate supportsTemplate = new TransactionTemplate(routingTransactionManager);
+        supportsTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_SUPPORTS);
+        List<String> stickyNames = supportsTemplate.execute(status -> {
+            List<String> names = new ArrayList<>();
+            names.add(routingMapper.selectByPrimaryKey(id).getName());
+            User update = fillAuditInfo(new User().setId(id));
+            update.setName("Primary-1");
+            routingMapper.updateByPrimaryKey(update);
+            names.add(routingMapper.selectByPrimaryKey(id).getName());
+            return names;
+        });
+        String replicaName = replicaJdbcTemplate.queryForObject("select name from t_sys_user where id = ?",
+                String.class, id);
+        String primaryName = jdbcTemplate.queryForObject("select name from t_sys_user where id = ?", String.class,
+                id);
+
+        // 事务中的从库连接不能切换，执行写操作直接报错
+        ReadWriteRoutingContext.setReadRoute(true);
+        Connection replicaConnection;
+        try {
+            replicaConnection = routingDataSource.getConnection();
+        } finally {
+            ReadWriteRoutingContext.setReadRoute(null);
+        }
+        try {
+            replicaConnection.setAutoCommit(false);
+            Assertions.assertThatThrownBy(
+                    () -> replicaConnection.prepareStatement("update t_sys_user set name = 'x' where id = 0"))
+                    .isInstanceOf(SQLException.class)
+                    .hasMessageContaining("replica connection in transaction");
+        } finally {
+            replicaConnection.close();
+        }
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(outsideTransaction).isEqualTo("Replica");
+            softly.assertThat(forcePrimary).isEqualTo("Primary");
+            softly.assertThat(inTransaction).isEqualTo("Primary");
+            softly.assertThat(stickyNames).containsExactly("Replica", "Primary-1");
+            softly.assertThat(replicaName).isEqualTo("Replica");
+            softly.assertThat(primaryName).isEqualTo("Primary-1");
+            softly.assertThat(((LeastLatencyReplicaSelector) routingDataSource.getReplicaSelector()).getLatency(0))
+                    .isGreaterThan(0);
+        });
+    }
+
+    /**
+     * 设置更新需要的审计字段。FillRule.UPDATE 的字段总会出现在更新语句中，测试配置的
+     * {@link UserControllerIntTests.MyConfig1} 只在插入时设置这些字段，这里手动设置
+     *
+     * @param record 待更新的实体对象
+     * @return 待更新的实体对象
+     */
+    private static User fillAuditInfo(User record) {
+        Date now = new Date();
+        record.setIsDeleted(MyossConstants.N);
+        record.setCreator("system");
+        record.setModifier("system");
+        record.setGmtCreated(now);
+        record.setGmtModified(now);
+        return record;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.integration.h2.test1;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.assertj.core.api.SoftAssertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import app.myoss.cloud.core.constants.MyossConstants;
+import app.myoss.cloud.core.lang.dto.Result;
+import app.myoss.cloud.mybatis.constants.MybatisConstants;
+import app.myoss.cloud.mybatis.mapper.template.CrudMapper;
+import app.myoss.cloud.mybatis.repository.service.impl.BaseCrudServiceImpl;
+import app.myoss.cloud.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import app.myoss.cloud.mybatis.spring.mapper.MapperFactoryBean;
+import app.myoss.cloud.mybatis.test.integration.h2.H2DataBaseIntTest.IntAutoConfig;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.UserControllerIntTests.MyConfig1;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.entity.User;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.mapper.UserMapper;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.service.UserService;
+
+/**
+ * 原子增减字段值（{@link app.myoss.cloud.mybatis.repository.service.CrudService#updateIncrement}）集成测试，使用H2内存数据库
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午5:23:12
+ */
+@MapperScan(basePackageClasses = UserControllerIntTests.class, factoryBean = MapperFactoryBean.class, markerInterface = CrudMapper.class)
+@ActiveProfiles({ "h2-test1", "UserControllerIntTests" })
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = { DataSourceAutoConfiguration.class, IntAutoConfig.class, MybatisAutoConfiguration.class,
+        MyConfig1.class })
+public class UserUpdateIncrementIntTests {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserMapper  userMapper;
+
+    /**
+     * 原子增减字段值测试案例
+     */
+    @Test
+    public void updateIncrementTest1() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            User record = new User();
+            record.setEmployeeNumber("70001");
+            record.setName("Increment_" + i);
+            record.setCompanyId(10L);
+            Result<Long> createResult = userService.create(record);
+            ids.add(createResult.getValue());
+        }
+
+        BaseCrudServiceImpl<UserMapper, User> service = new BaseCrudServiceImpl<UserMapper, User>() {
+            @Override
+            protected void setValue4Update(User record, Object optionParam) {
+                fillAuditInfo(record);
+            }
+        };
+        service.setCrudMapper(userMapper);
+        User record = new User().setId(ids.get(0));
+        Result<Boolean> decreaseResult = service.updateIncrement(record, Collections.singletonMap("companyId", -3), 0);
+        Result<Boolean> floorResult = service.updateIncrement(record, Collections.singletonMap("companyId", -8), 0);
+        Result<Integer> batchResult = service.updateIncrementBatch(ids, Collections.singletonMap("companyId", 5L),
+                null);
+        List<User> users = userMapper.selectListByPrimaryKey(ids);
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(decreaseResult.isSuccess()).isTrue();
+            softly.assertThat(floorResult.isSuccess()).isFalse();
+            softly.assertThat(floorResult.getErrorCode()).isEqualTo(MybatisConstants.NOT_MATCH_RECORDS);
+            softly.assertThat(batchResult.getValue()).isEqualTo(2);
+            softly.assertThat(users).extracting(User::getCompanyId).containsExactlyInAnyOrder(12L, 15L);
+            softly.assertThatThrownBy(
+                    () -> service.updateIncrement(record, Collections.singletonMap("name", 1), null))
+                    .hasStackTraceContaining("is not an updatable numeric column");
+        });
+    }
+
+    /**
+     * 设置更新需要的审计字段。FillRule.UPDATE 的字段总会出现在更新语句中，测试配置的
+     * {@link UserControllerIntTests.MyConfig1} 只在插入时设置这些字段，这里手动设置
+     *
+     * @param record 待更新的实体对象
+     * @return 待更新的实体对象
+     */
+    private static User fillAuditInfo(User record) {
+        Date now = new Date();
+        record.setIsDeleted(MyossConstants.N);
+        record.setCreator("system");
+        record.setModifier("system");
+        record.setGmtCreated(now);
+        record.setGmtModified(now);
+        return record;
+    }
+}
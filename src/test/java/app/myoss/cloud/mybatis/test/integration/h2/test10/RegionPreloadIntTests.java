@@ -0,0 +1,193 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.integration.h2.test10;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import app.myoss.cloud.core.lang.dto.Result;
+import app.myoss.cloud.mybatis.mapper.template.CrudMapper;
+import app.myoss.cloud.mybatis.repository.service.impl.BaseCrudServiceImpl;
+import app.myoss.cloud.mybatis.repository.utils.PreloadedTable;
+import app.myoss.cloud.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import app.myoss.cloud.mybatis.spring.mapper.MapperFactoryBean;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+import app.myoss.cloud.mybatis.test.integration.h2.H2DataBaseIntTest.IntAutoConfig;
+import app.myoss.cloud.mybatis.test.integration.h2.test10.RegionPreloadIntTests.MyConfig10;
+import app.myoss.cloud.mybatis.test.integration.h2.test10.entity.Region;
+import app.myoss.cloud.mybatis.test.integration.h2.test10.mapper.RegionMapper;
+
+/**
+ * 整张表预加载到内存中（{@link app.myoss.cloud.mybatis.table.annotation.Table#preload()}）集成测试，使用H2内存数据库
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午5:06:44
+ */
+@MapperScan(basePackageClasses = RegionPreloadIntTests.class, factoryBean = MapperFactoryBean.class, markerInterface = CrudMapper.class)
+@ActiveProfiles({ "h2-test10", "RegionPreloadIntTests" })
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = { DataSourceAutoConfiguration.class, IntAutoConfig.class, MybatisAutoConfiguration.class,
+        MyConfig10.class })
+public class RegionPreloadIntTests {
+    @Autowired
+    private RegionMapper               regionMapper;
+    @Autowired
+    private JdbcTemplate               jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 整张表预加载到内存中测试案例
+     */
+    @Test
+    public void preloadTest1() {
+        BaseCrudServiceImpl<RegionMapper, Region> service = new BaseCrudServiceImpl<RegionMapper, Region>() {
+            @Override
+            protected boolean checkCommonQueryConditionIsAllNull(SqlCommandType sqlCommandType, Result<?> result,
+                                                                 Region condition,
+                                                                 Map<String, Object> extraCondition) {
+                return result.isSuccess();
+            }
+        };
+        service.setCrudMapper(regionMapper);
+        jdbcTemplate.update("insert into t_sys_region(id, code, name, is_deleted) values (1, '330000', '浙江省', 'N')");
+        jdbcTemplate.update("insert into t_sys_region(id, code, name, is_deleted) values (2, '330100', '杭州市', 'N')");
+        jdbcTemplate.update("insert into t_sys_region(id, code, name, is_deleted) values (3, '330200', '宁波市', 'Y')");
+
+        // 第一次查询时加载整张表，逻辑删除的数据不会被加载
+        Region first = service.findByPrimaryKey(1L).getValue();
+        Region deleted = service.findByPrimaryKey(3L).getValue();
+        List<Region> byCode = service.findList(new Region().setCode("330100")).getValue();
+        Integer count = service.findCount(new Region()).getValue();
+
+        // 直接修改数据库，查询的还是内存中的数据；返回的是副本，修改返回的对象不影响内存中的数据
+        jdbcTemplate.update("update t_sys_region set name = '浙江' where id = 1");
+        first.setName("changed");
+        Region cached = service.findByPrimaryKey(1L).getValue();
+
+        // 事务中写入之后，当前事务的查询直接访问数据库，事务结束之后重新加载
+        String inTransaction = new TransactionTemplate(transactionManager).execute(status -> {
+            service.create(new Region().setId(4L).setCode("330300").setName("温州市").setIsDeleted("N"));
+            return service.findByPrimaryKey(1L).getValue().getName();
+        });
+        Region reloaded = service.findOne(new Region().setCode("330300")).getValue();
+        Region reloadedFirst = service.findByPrimaryKey(1L).getValue();
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(deleted).isNull();
+            softly.assertThat(byCode).extracting(Region::getName).containsExactly("杭州市");
+            softly.assertThat(count).isEqualTo(2);
+            softly.assertThat(cached.getName()).isEqualTo("浙江省");
+            softly.assertThat(inTransaction).isEqualTo("浙江");
+            softly.assertThat(reloaded.getName()).isEqualTo("温州市");
+            softly.assertThat(reloadedFirst.getName()).isEqualTo("浙江");
+        });
+    }
+
+    /**
+     * 整张表预加载到内存中，写入数据库之前并发的查询重新加载了整张表，写入之后还需要再次重新加载测试案例
+     */
+    @Test
+    public void preloadTest2() {
+        BaseCrudServiceImpl<RegionMapper, Region> service = new BaseCrudServiceImpl<RegionMapper, Region>() {
+            @Override
+            protected void setValue4Update(Region record, Object optionParam) {
+                // 模拟写入数据库之前，并发的查询重新加载了整张表
+                findByPrimaryKey(record.getId());
+            }
+        };
+        service.setCrudMapper(regionMapper);
+        jdbcTemplate.update("insert into t_sys_region(id, code, name, is_deleted) values (11, '320000', '江苏省', 'N')");
+        Region loaded = service.findByPrimaryKey(11L).getValue();
+
+        // 不在事务中更新，更新之后的查询需要读到新的数据
+        service.updateByPrimaryKey(new Region().setId(11L).setName("江苏"));
+        Region updated = service.findByPrimaryKey(11L).getValue();
+        service.destroy();
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(loaded.getName()).isEqualTo("江苏省");
+            softly.assertThat(updated.getName()).isEqualTo("江苏");
+        });
+    }
+
+    /**
+     * 整张表预加载到内存中，重新加载失败之后继续使用旧的快照，并在后台按退避时间重试测试案例
+     */
+    @Test
+    public void preloadTest3() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger();
+        AtomicBoolean failing = new AtomicBoolean();
+        PreloadedTable<Region> table = new PreloadedTable<>(TableMetaObject.getTableInfo(Region.class), () -> {
+            loads.incrementAndGet();
+            if (failing.get()) {
+                throw new IllegalStateException("database is unavailable");
+            }
+            return Collections.singletonList(new Region().setId(21L).setCode("310000").setName("上海市"));
+        });
+        try {
+            Region first = table.findByPrimaryKey(21L);
+            failing.set(true);
+            table.refresh();
+            // 重新加载失败之后，查询使用旧的快照，不会再次重新加载
+            Region old = table.findByPrimaryKey(21L);
+            int count = table.findCount(new Region());
+            int loadsAfterFailure = loads.get();
+
+            failing.set(false);
+            long deadline = System.currentTimeMillis() + PreloadedTable.RETRY_INITIAL_MILLIS + 5000;
+            while (loads.get() == loadsAfterFailure && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            SoftAssertions.assertSoftly(softly -> {
+                softly.assertThat(first.getName()).isEqualTo("上海市");
+                softly.assertThat(old.getName()).isEqualTo("上海市");
+                softly.assertThat(count).isEqualTo(1);
+                softly.assertThat(loadsAfterFailure).isEqualTo(2);
+                softly.assertThat(loads.get()).isEqualTo(3);
+            });
+        } finally {
+            table.close();
+        }
+    }
+
+
+    @ComponentScan(basePackageClasses = RegionPreloadIntTests.class)
+    @Profile("RegionPreloadIntTests")
+    @Configuration
+    public static class MyConfig10 {
+    }
+}
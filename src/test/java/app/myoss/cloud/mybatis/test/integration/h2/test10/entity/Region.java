@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.integration.h2.test10.entity;
+
+import java.io.Serializable;
+
+import app.myoss.cloud.mybatis.table.annotation.Column;
+import app.myoss.cloud.mybatis.table.annotation.Table;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * This class corresponds to the database table t_sys_region, 数据量小、很少修改，整张表预加载到内存中
+ * <p>
+ * Database Table Remarks: 行政区域表
+ * </p>
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月26日 上午10:32:15
+ */
+@Accessors(chain = true)
+@Data
+@Table(name = "t_sys_region", preload = true, preloadIndexes = "code")
+public class Region implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Database Column Name: t_sys_region.id
+     * <p>
+     * Database Column Remarks: 主键id
+     * </p>
+     */
+    @Column(name = "id", nullable = false, primaryKey = true)
+    private Long              id;
+
+    /**
+     * Database Column Name: t_sys_region.code
+     * <p>
+     * Database Column Remarks: 区域编码
+     * </p>
+     */
+    @Column(name = "code")
+    private String            code;
+
+    /**
+     * Database Column Name: t_sys_region.name
+     * <p>
+     * Database Column Remarks: 区域名称
+     * </p>
+     */
+    @Column(name = "name")
+    private String            name;
+
+    /**
+     * Database Column Name: t_sys_region.is_deleted
+     * <p>
+     * Database Column Remarks: 是否删除
+     * </p>
+     */
+    @Column(name = "is_deleted", logicDelete = true, logicDeleteValue = "Y", logicUnDeleteValue = "N")
+    private String            isDeleted;
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.integration.h2.test10.mapper;
+
+import org.springframework.stereotype.Repository;
+
+import app.myoss.cloud.mybatis.mapper.template.CrudMapper;
+import app.myoss.cloud.mybatis.test.integration.h2.test10.entity.Region;
+
+/**
+ * This mapper interface access the database table t_sys_region
+ * <p>
+ * Database Table Remarks: 行政区域表
+ * </p>
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月26日 上午10:32:15
+ */
+@Repository
+public interface RegionMapper extends CrudMapper<Region> {
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package app.myoss.cloud.mybatis.test.integration.h2.test6;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.assertj.core.api.SoftAssertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import app.myoss.cloud.mybatis.mapper.template.CrudMapper;
+import app.myoss.cloud.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import app.myoss.cloud.mybatis.spring.mapper.MapperFactoryBean;
+import app.myoss.cloud.mybatis.test.integration.h2.H2DataBaseIntTest.IntAutoConfig;
+import app.myoss.cloud.mybatis.test.integration.h2.test6.UserAccountVersionIntTests.MyConfig6;
+import app.myoss.cloud.mybatis.test.integration.h2.test6.entity.UserAccount;
+import app.myoss.cloud.mybatis.test.integration.h2.test6.mapper.UserAccountMapper;
+
+/**
+ * 原子增减字段值（{@link app.myoss.cloud.mybatis.mapper.template.update.UpdateIncrementMapper}）集成测试，使用H2内存数据库
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月29日 下午2:05:18
+ */
+@MapperScan(basePackageClasses = UserAccountVersionIntTests.class, factoryBean = MapperFactoryBean.class, markerInterface = CrudMapper.class)
+@ActiveProfiles({ "h2-test6", "UserAccountVersionIntTests" })
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = { DataSourceAutoConfiguration.class, IntAutoConfig.class, MybatisAutoConfiguration.class,
+        MyConfig6.class })
+public class UserAccountIncrementIntTests {
+    @Autowired
+    private UserAccountMapper userAccountMapper;
+    @Autowired
+    private JdbcTemplate      jdbcTemplate;
+
+    private Long insertAccount(long userId, Long balance) {
+        jdbcTemplate.update("insert into t_user_account(user_id, balance, version) values (?, ?, null)", userId,
+                balance);
+        return jdbcTemplate.queryForObject("select id from t_user_account where user_id = ?", Long.class, userId);
+    }
+
+    /**
+     * 字段值为 null 时当做 0 处理，版本号为 null 时从 1 开始计数
+     */
+    @Test
+    public void incrementNullValueTest1() {
+        Long id = insertAccount(101L, null);
+        UserAccount record = new UserAccount().setId(id);
+        int increaseCount = userAccountMapper.updateIncrementByPrimaryKey(record,
+                Collections.singletonMap("balance", 5L), null);
+        UserAccount increased = userAccountMapper.selectByPrimaryKey(id);
+
+        Long floorId = insertAccount(102L, null);
+        UserAccount floorRecord = new UserAccount().setId(floorId);
+        // null 当做 0，减少之后小于下限，不会更新
+        int floorCount = userAccountMapper.updateIncrementByPrimaryKey(floorRecord,
+                Collections.singletonMap("balance", -1L), 0L);
+        int floorPassCount = userAccountMapper.updateIncrementByPrimaryKey(floorRecord,
+                Collections.singletonMap("balance", 3L), 0L);
+        UserAccount floorUpdated = userAccountMapper.selectByPrimaryKey(floorId);
+
+        Long batchId = insertAccount(103L, null);
+        int batchCount = userAccountMapper.updateIncrementByListPrimaryKey(Arrays.asList(id, batchId),
+                new UserAccount(), Collections.singletonMap("balance", 2L), null);
+        UserAccount batchFirst = userAccountMapper.selectByPrimaryKey(id);
+        UserAccount batchSecond = userAccountMapper.selectByPrimaryKey(batchId);
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(increaseCount).isEqualTo(1);
+            softly.assertThat(increased.getBalance()).isEqualTo(5L);
+            softly.assertThat(increased.getVersion()).isEqualTo(1);
+            softly.assertThat(floorCount).isEqualTo(0);
+            softly.assertThat(floorPassCount).isEqualTo(1);
+            softly.assertThat(floorUpdated.getBalance()).isEqualTo(3L);
+            softly.assertThat(batchCount).isEqualTo(2);
+            softly.assertThat(batchFirst.getBalance()).isEqualTo(7L);
+            softly.assertThat(batchFirst.getVersion()).isEqualTo(2);
+            softly.assertThat(batchSecond.getBalance()).isEqualTo(2L);
+            softly.assertThat(batchSecond.getVersion()).isEqualTo(1);
+        });
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package app.myoss.cloud.mybatis.test.integration.h2.test6;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import app.myoss.cloud.core.lang.dto.Result;
+import app.myoss.cloud.mybatis.constants.MybatisConstants;
+import app.myoss.cloud.mybatis.mapper.template.CrudMapper;
+import app.myoss.cloud.mybatis.repository.service.impl.BaseCrudServiceImpl;
+import app.myoss.cloud.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import app.myoss.cloud.mybatis.spring.mapper.MapperFactoryBean;
+import app.myoss.cloud.mybatis.test.integration.h2.H2DataBaseIntTest.IntAutoConfig;
+import app.myoss.cloud.mybatis.test.integration.h2.test6.UserAccountVersionIntTests.MyConfig6;
+import app.myoss.cloud.mybatis.test.integration.h2.test6.entity.UserAccount;
+import app.myoss.cloud.mybatis.test.integration.h2.test6.mapper.UserAccountMapper;
+
+/**
+ * 乐观锁版本号（{@link app.myoss.cloud.mybatis.table.annotation.Column#version()}）集成测试，使用H2内存数据库
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月29日 上午10:12:36
+ */
+@MapperScan(basePackageClasses = UserAccountVersionIntTests.class, factoryBean = MapperFactoryBean.class, markerInterface = CrudMapper.class)
+@ActiveProfiles({ "h2-test6", "UserAccountVersionIntTests" })
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = { DataSourceAutoConfiguration.class, IntAutoConfig.class, MybatisAutoConfiguration.class,
+        MyConfig6.class })
+public class UserAccountVersionIntTests {
+    @Autowired
+    private UserAccountMapper userAccountMapper;
+    @Autowired
+    private JdbcTemplate      jdbcTemplate;
+
+    private UserAccountService newService() {
+        UserAccountService service = new UserAccountService();
+        service.setCrudMapper(userAccountMapper);
+        return service;
+    }
+
+    private Integer queryVersion(Long id) {
+        return jdbcTemplate.queryForObject("select version from t_user_account where id = ?", Integer.class, id);
+    }
+
+    /**
+     * 创建记录时没有设置版本号，初始化为 0，之后并发更新同一条记录，只有一个能更新成功
+     */
+    @Test
+    public void createThenConcurrentUpdateTest1() throws Exception {
+        UserAccountService service = newService();
+        UserAccount record = new UserAccount().setUserId(1L).setBalance(100L);
+        Result<Long> createResult = service.create(record);
+        Assertions.assertThat(createResult.isSuccess()).isTrue();
+        Long id = createResult.getValue();
+        Integer createdVersion = queryVersion(id);
+
+        List<UserAccount> copies = new ArrayList<>();
+        copies.add(service.findByPrimaryKey(id).getValue().setBalance(110L));
+        copies.add(service.findByPrimaryKey(id).getValue().setBalance(120L));
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<CompletableFuture<Result<Boolean>>> futures = copies.stream()
+                .map(copy -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        startLatch.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return service.updateByPrimaryKey(copy);
+                }))
+                .collect(Collectors.toList());
+        startLatch.countDown();
+        List<Result<Boolean>> results = new ArrayList<>();
+        for (CompletableFuture<Result<Boolean>> future : futures) {
+            results.add(future.get());
+        }
+        UserAccount latest = service.findByPrimaryKey(id).getValue();
+        UserAccount winner = copies.get(results.get(0).isSuccess() ? 0 : 1);
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(record.getVersion()).isEqualTo(0);
+            softly.assertThat(createdVersion).isEqualTo(0);
+            softly.assertThat(results).filteredOn(Result::isSuccess).hasSize(1);
+            softly.assertThat(results)
+                    .filteredOn(item -> !item.isSuccess())
+                    .extracting(Result::getErrorCode)
+                    .containsExactly(MybatisConstants.VERSION_CONFLICT);
+            softly.assertThat(winner.getVersion()).isEqualTo(1);
+            softly.assertThat(latest.getVersion()).isEqualTo(1);
+            softly.assertThat(latest.getBalance()).isEqualTo(winner.getBalance());
+        });
+    }
+
+    /**
+     * 版本号不匹配、重试更新、记录不存在的测试案例
+     */
+    @Test
+    public void versionUpdateTest1() {
+        UserAccountService service = newService();
+        UserAccount record = new UserAccount().setUserId(2L).setBalance(100L).setVersion(1);
+        Result<Long> createResult = service.create(record);
+        Assertions.assertThat(createResult.isSuccess()).isTrue();
+        Long id = createResult.getValue();
+
+        UserAccount first = service.findByPrimaryKey(id).getValue();
+        UserAccount stale = service.findByPrimaryKey(id).getValue();
+        first.setBalance(110L);
+        Result<Boolean> updateResult = service.updateByPrimaryKey(first);
+        stale.setBalance(120L);
+        Result<Boolean> staleResult = service.updateByPrimaryKey(stale);
+        Result<Boolean> retryResult = service.updateByPrimaryKeyWithRetry(id,
+                item -> item.setBalance(item.getBalance() + 5), 3);
+        UserAccount latest = service.findByPrimaryKey(id).getValue();
+        // 记录不存在时，不是版本号不匹配
+        UserAccount missing = new UserAccount().setId(id + 100000).setBalance(1L).setVersion(1);
+        Result<Boolean> missingResult = service.updateByPrimaryKey(missing);
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(updateResult.isSuccess()).isTrue();
+            softly.assertThat(first.getVersion()).isEqualTo(2);
+            softly.assertThat(staleResult.isSuccess()).isFalse();
+            softly.assertThat(staleResult.getErrorCode()).isEqualTo(MybatisConstants.VERSION_CONFLICT);
+            softly.assertThat(retryResult.isSuccess()).isTrue();
+            softly.assertThat(latest.getBalance()).isEqualTo(115L);
+            softly.assertThat(latest.getVersion()).isEqualTo(3);
+            softly.assertThat(missingResult.isSuccess()).isFalse();
+            softly.assertThat(missingResult.getErrorCode()).isEqualTo(MybatisConstants.NOT_MATCH_RECORDS);
+        });
+    }
+
+    /**
+     * 版本号为 null 的测试案例：直接使用 Mapper 插入的记录初始化为 0；按主键更新时总是校验版本号，版本号为 null
+     * 的实体对象被拒绝更新；数据库中版本号为 null 的历史数据，按条件更新之后从 1 开始计数
+     */
+    @Test
+    public void nullVersionTest1() {
+        UserAccountService service = newService();
+        UserAccount inserted = new UserAccount().setUserId(3L).setBalance(100L);
+        int insertCount = userAccountMapper.insert(inserted);
+        Integer insertedVersion = queryVersion(inserted.getId());
+
+        jdbcTemplate.update("insert into t_user_account(user_id, balance, version) values (4, 100, null)");
+        Long legacyId = jdbcTemplate.queryForObject("select id from t_user_account where user_id = 4", Long.class);
+        UserAccount legacy = service.findByPrimaryKey(legacyId).getValue().setBalance(110L);
+        int mapperUpdateCount = userAccountMapper.updateByPrimaryKey(legacy);
+        Result<Boolean> serviceResult = service.updateByPrimaryKey(legacy);
+        int conditionUpdateCount = userAccountMapper.updateByCondition(new UserAccount().setBalance(120L),
+                new UserAccount().setId(legacyId));
+        Integer legacyVersion = queryVersion(legacyId);
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(insertCount).isEqualTo(1);
+            softly.assertThat(insertedVersion).isEqualTo(0);
+            softly.assertThat(mapperUpdateCount).isEqualTo(0);
+            softly.assertThat(serviceResult.isSuccess()).isFalse();
+            softly.assertThat(serviceResult.getErrorCode()).isEqualTo(MybatisConstants.VALUE_IS_BLANK);
+            softly.assertThat(conditionUpdateCount).isEqualTo(1);
+            softly.assertThat(legacyVersion).isEqualTo(1);
+        });
+    }
+
+    /**
+     * 字段变更跟踪，只更新有变化的字段时也会校验、自增版本号
+     */
+    @Test
+    public void updateChangedVersionTest1() {
+        UserAccountService service = newService();
+        service.setChangeTracking(true);
+        Result<Long> createResult = service.create(new UserAccount().setUserId(5L).setBalance(100L));
+        Long id = createResult.getValue();
+
+        UserAccount account = service.findByPrimaryKey(id).getValue();
+        UserAccount stale = service.findByPrimaryKey(id).getValue();
+        // 没有变化，不执行 sql 语句，版本号不变
+        Result<Boolean> unchangedResult = service.updateChanged(account);
+        Integer unchangedVersion = queryVersion(id);
+        account.setBalance(110L);
+        Result<Boolean> changedResult = service.updateChanged(account);
+        stale.setBalance(120L);
+        Result<Boolean> staleResult = service.updateChanged(stale);
+        UserAccount latest = service.findByPrimaryKey(id).getValue();
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(unchangedResult.isSuccess()).isTrue();
+            softly.assertThat(unchangedVersion).isEqualTo(0);
+            softly.assertThat(changedResult.isSuccess()).isTrue();
+            softly.assertThat(account.getVersion()).isEqualTo(1);
+            softly.assertThat(staleResult.getErrorCode()).isEqualTo(MybatisConstants.VERSION_CONFLICT);
+            softly.assertThat(latest.getBalance()).isEqualTo(110L);
+            softly.assertThat(latest.getVersion()).isEqualTo(1);
+        });
+    }
+
+    /**
+     * 用户账户的通用 CRUD 服务
+     */
+    public static class UserAccountService extends BaseCrudServiceImpl<UserAccountMapper, UserAccount> {
+    }
+
+    @ComponentScan(basePackageClasses = UserAccountVersionIntTests.class)
+    @Profile("UserAccountVersionIntTests")
+    @Configuration
+    public static class MyConfig6 {
+    }
+}
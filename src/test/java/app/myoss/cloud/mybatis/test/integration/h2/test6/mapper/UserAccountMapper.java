@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package app.myoss.cloud.mybatis.test.integration.h2.test6.mapper;
+
+import org.springframework.stereotype.Repository;
+
+import app.myoss.cloud.mybatis.mapper.template.CrudMapper;
+import app.myoss.cloud.mybatis.test.integration.h2.test6.entity.UserAccount;
+
+/**
+ * This mapper interface access the database table t_user_account
+ * <p>
+ * Database Table Remarks: 用户账户表
+ * </p>
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月29日 上午10:12:36
+ */
+@Repository
+public interface UserAccountMapper extends CrudMapper<UserAccount> {
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package app.myoss.cloud.mybatis.test.integration.h2.test7;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.assertj.core.api.Assertions;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import app.myoss.cloud.core.exception.BizRuntimeException;
+import app.myoss.cloud.core.lang.dto.Direction;
+import app.myoss.cloud.core.lang.dto.Order;
+import app.myoss.cloud.mybatis.criteria.Aggregation;
+import app.myoss.cloud.mybatis.criteria.Aggregation.AggregateRow;
+import app.myoss.cloud.mybatis.mapper.template.CrudMapper;
+import app.myoss.cloud.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import app.myoss.cloud.mybatis.spring.mapper.MapperFactoryBean;
+import app.myoss.cloud.mybatis.table.TableMetaObject;
+import app.myoss.cloud.mybatis.test.integration.h2.H2DataBaseIntTest.IntAutoConfig;
+import app.myoss.cloud.mybatis.test.integration.h2.test7.ShardingIntTests.MyConfig7;
+import app.myoss.cloud.mybatis.test.integration.h2.test7.entity.UserOrder;
+import app.myoss.cloud.mybatis.test.integration.h2.test7.mapper.UserOrderMapper;
+
+/**
+ * 水平分表（{@link app.myoss.cloud.mybatis.plugin.ShardingInterceptor}）集成测试，使用H2内存数据库
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 上午11:05:18
+ */
+@MapperScan(basePackageClasses = ShardingIntTests.class, factoryBean = MapperFactoryBean.class, markerInterface = CrudMapper.class)
+@ActiveProfiles({ "h2-test7", "ShardingIntTests" })
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = { DataSourceAutoConfiguration.class, IntAutoConfig.class, MybatisAutoConfiguration.class,
+        MyConfig7.class })
+public class ShardingIntTests {
+    @Autowired
+    private UserOrderMapper            userOrderMapper;
+    @Autowired
+    private JdbcTemplate               jdbcTemplate;
+    @Autowired
+    private SqlSessionFactory          sqlSessionFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * "水平分表"测试案例1
+     */
+    @Test
+    public void shardingTest1() {
+        for (long i = 1; i <= 6; i++) {
+            userOrderMapper.insert(new UserOrder().setId(i).setUserId(i).setOrderNo("NO-" + i).setAmount(i * 10));
+        }
+        // 按 userId 取模分表：偶数在 t_user_order_00，奇数在 t_user_order_01
+        Assertions.assertThat(jdbcTemplate.queryForList("select id from t_user_order_00 order by id", Long.class))
+                .containsExactly(2L, 4L, 6L);
+        Assertions.assertThat(jdbcTemplate.queryForList("select id from t_user_order_01 order by id", Long.class))
+                .containsExactly(1L, 3L, 5L);
+
+        UserOrder order = userOrderMapper.selectOne(new UserOrder().setUserId(3L));
+        Assertions.assertThat(order.getOrderNo()).isEqualTo("NO-3");
+        Assertions.assertThat(userOrderMapper.selectCount(new UserOrder())).isEqualTo(6);
+
+        // 没有分表字段的值，查询所有的物理表之后合并排序、分页
+        List<UserOrder> page = userOrderMapper.selectPage(new UserOrder(), 1, 3,
+                Collections.singletonList(new Order(Direction.DESC, "amount")));
+        Assertions.assertThat(page).extracting(UserOrder::getId).containsExactly(5L, 4L, 3L);
+
+        int rows = userOrderMapper.updateByCondition(new UserOrder().setAmount(0L), new UserOrder().setOrderNo("NO-2"));
+        Assertions.assertThat(rows).isEqualTo(1);
+        Assertions.assertThat(userOrderMapper.deleteByCondition(new UserOrder().setAmount(0L))).isEqualTo(1);
+        Assertions.assertThat(userOrderMapper.selectCount(new UserOrder())).isEqualTo(5);
+
+        Assertions.assertThatThrownBy(() -> userOrderMapper.insert(new UserOrder().setId(7L).setOrderNo("NO-7")))
+                .hasStackTraceContaining("sharding key [userId] is required for insert");
+
+        // 物理表的 sql 语句由模版方法按物理表名生成，参数的值和逻辑表名相同时不会被替换
+        MappedStatement shardStatement = sqlSessionFactory.getConfiguration()
+                .getMappedStatement(
+                        TableMetaObject.getShardStatementId(UserOrderMapper.class.getName() + ".selectList", 1));
+        Assertions.assertThat(shardStatement.getBoundSql(new UserOrder().setOrderNo("t_user_order")).getSql())
+                .contains("FROM t_user_order_01")
+                .doesNotContain("FROM t_user_order\n");
+        Assertions.assertThat(userOrderMapper.selectList(new UserOrder().setUserId(9L).setOrderNo("t_user_order")))
+                .isEmpty();
+    }
+
+    /**
+     * "水平分表"测试案例2，{@link ExecutorType#BATCH}、{@link ExecutorType#REUSE} 按 sql 语句合并、缓存
+     * {@link java.sql.Statement}，不同的物理表不能共用
+     */
+    @Test
+    public void shardingTest2() {
+        UserOrderMapper batchMapper = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH)
+                .getMapper(UserOrderMapper.class);
+        new TransactionTemplate(transactionManager).execute(status -> {
+            for (long i = 201; i <= 204; i++) {
+                batchMapper.insert(new UserOrder().setId(i).setUserId(i).setOrderNo("BATCH-" + i).setAmount(i));
+            }
+            return null;
+        });
+        UserOrderMapper reuseMapper = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.REUSE)
+                .getMapper(UserOrderMapper.class);
+        List<String> orderNos = new TransactionTemplate(transactionManager).execute(status -> {
+            List<String> list = new ArrayList<>();
+            for (long i = 201; i <= 204; i++) {
+                list.add(reuseMapper.selectOne(new UserOrder().setUserId(i)).getOrderNo());
+            }
+            return list;
+        });
+        try {
+            SoftAssertions.assertSoftly(softly -> {
+                softly.assertThat(jdbcTemplate.queryForList(
+                        "select id from t_user_order_00 where id between 201 and 204 order by id", Long.class))
+                        .containsExactly(202L, 204L);
+                softly.assertThat(jdbcTemplate.queryForList(
+                        "select id from t_user_order_01 where id between 201 and 204 order by id", Long.class))
+                        .containsExactly(201L, 203L);
+                softly.assertThat(orderNos).containsExactly("BATCH-201", "BATCH-202", "BATCH-203", "BATCH-204");
+            });
+        } finally {
+            jdbcTemplate.update("delete from t_user_order_00 where id between 201 and 204");
+            jdbcTemplate.update("delete from t_user_order_01 where id between 201 and 204");
+        }
+    }
+
+    /**
+     * 聚合查询测试案例，分表的聚合结果按分组字段合并
+     */
+    @Test
+    public void aggregateTest1() {
+        userOrderMapper.insert(new UserOrder().setId(101L).setUserId(101L).setOrderNo("AGG").setAmount(10L));
+        userOrderMapper.insert(new UserOrder().setId(102L).setUserId(101L).setOrderNo("AGG").setAmount(30L));
+        userOrderMapper.insert(new UserOrder().setId(103L).setUserId(102L).setOrderNo("AGG").setAmount(20L));
+        userOrderMapper.insert(new UserOrder().setId(104L).setUserId(103L).setOrderNo("AGG").setAmount(40L));
+        try {
+            UserOrder condition = new UserOrder().setOrderNo("AGG");
+            Aggregation<UserOrder> aggregation = Aggregation.of(UserOrder.class)
+                    .groupBy(UserOrder::getUserId)
+                    .count("orderCount")
+                    .sum(UserOrder::getAmount, "totalAmount")
+                    .avg(UserOrder::getAmount, "avgAmount")
+                    .min(UserOrder::getAmount, "minAmount")
+                    .max(UserOrder::getAmount, "maxAmount");
+            List<AggregateRow> rows = aggregation.convert(userOrderMapper.selectAggregate(condition, aggregation))
+                    .stream()
+                    .sorted(Comparator.comparing(row -> row.getLong("userId")))
+                    .collect(Collectors.toList());
+
+            Aggregation<UserOrder> total = Aggregation.of(UserOrder.class)
+                    .count("orderCount")
+                    .sum(UserOrder::getAmount, "totalAmount")
+                    .avg(UserOrder::getAmount, "avgAmount")
+                    .max(UserOrder::getAmount, "maxAmount");
+            AggregateRow totalRow = total.convert(userOrderMapper.selectAggregate(condition, total)).get(0);
+
+            Aggregation<UserOrder> distinct = Aggregation.of(UserOrder.class)
+                    .countDistinct(UserOrder::getOrderNo, "orderNoCount");
+            List<AggregateRow> distinctRows = distinct.convert(
+                    userOrderMapper.selectAggregate(new UserOrder().setUserId(101L), distinct));
+            SoftAssertions.assertSoftly(softly -> {
+                softly.assertThat(rows).hasSize(3);
+                softly.assertThat(rows.get(0).get("userId")).isEqualTo(101L);
+                softly.assertThat(rows.get(0).getLong("orderCount")).isEqualTo(2L);
+                softly.assertThat(rows.get(0).getBigDecimal("totalAmount")).isEqualByComparingTo("40");
+                softly.assertThat(rows.get(0).getBigDecimal("avgAmount")).isEqualByComparingTo("20");
+                softly.assertThat(rows.get(0).get("minAmount")).isEqualTo(10L);
+                softly.assertThat(rows.get(0).get("maxAmount")).isEqualTo(30L);
+                softly.assertThat(rows.get(2).getBigDecimal("totalAmount")).isEqualByComparingTo("40");
+
+                softly.assertThat(totalRow.getLong("orderCount")).isEqualTo(4L);
+                softly.assertThat(totalRow.getBigDecimal("totalAmount")).isEqualByComparingTo("100");
+                softly.assertThat(totalRow.getBigDecimal("avgAmount")).isEqualByComparingTo("25");
+                softly.assertThat(totalRow.get("maxAmount")).isEqualTo(40L);
+
+                softly.assertThat(distinctRows.get(0).getLong("orderNoCount")).isEqualTo(1L);
+                // 不重复值的数量不能按分表合并
+                softly.assertThatThrownBy(() -> userOrderMapper.selectAggregate(condition, distinct))
+                        .hasStackTraceContaining("count distinct can not be merged");
+                softly.assertThatThrownBy(() -> Aggregation.of(UserOrder.class).sum(null, "amount"))
+                        .isInstanceOf(RuntimeException.class);
+                softly.assertThatThrownBy(() -> Aggregation.of(UserOrder.class).count("amount; drop"))
+                        .isInstanceOf(BizRuntimeException.class);
+            });
+        } finally {
+            jdbcTemplate.update("delete from t_user_order_00 where order_no = 'AGG'");
+            jdbcTemplate.update("delete from t_user_order_01 where order_no = 'AGG'");
+        }
+    }
+
+    @ComponentScan(basePackageClasses = ShardingIntTests.class)
+    @Profile("ShardingIntTests")
+    @Configuration
+    public static class MyConfig7 {
+    }
+}
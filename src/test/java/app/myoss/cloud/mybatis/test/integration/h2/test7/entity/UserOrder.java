@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.integration.h2.test7.entity;
+
+import java.io.Serializable;
+
+import app.myoss.cloud.mybatis.table.annotation.Column;
+import app.myoss.cloud.mybatis.table.annotation.Table;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * This class corresponds to the database table t_user_order, 按 user_id 水平分为2张表：t_user_order_00、t_user_order_01
+ * <p>
+ * Database Table Remarks: 用户订单表
+ * </p>
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月23日 上午10:12:36
+ */
+@Accessors(chain = true)
+@Data
+@Table(name = "t_user_order", shardingKey = "userId", shardingCount = 2)
+public class UserOrder implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Database Column Name: t_user_order.id
+     * <p>
+     * Database Column Remarks: 主键id
+     * </p>
+     */
+    @Column(name = "id", nullable = false, primaryKey = true)
+    private Long              id;
+
+    /**
+     * Database Column Name: t_user_order.user_id
+     * <p>
+     * Database Column Remarks: 用户id
+     * </p>
+     */
+    @Column(name = "user_id")
+    private Long              userId;
+
+    /**
+     * Database Column Name: t_user_order.order_no
+     * <p>
+     * Database Column Remarks: 订单编号
+     * </p>
+     */
+    @Column(name = "order_no")
+    private String            orderNo;
+
+    /**
+     * Database Column Name: t_user_order.amount
+     * <p>
+     * Database Column Remarks: 订单金额
+     * </p>
+     */
+    @Column(name = "amount")
+    private Long              amount;
+}
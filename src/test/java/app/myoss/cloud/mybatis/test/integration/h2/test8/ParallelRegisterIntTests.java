@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.integration.h2.test8;
+
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import org.apache.ibatis.builder.annotation.ProviderSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import app.myoss.cloud.mybatis.mapper.register.MapperInterfaceRegister;
+import app.myoss.cloud.mybatis.mapper.template.CrudMapper;
+import app.myoss.cloud.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import app.myoss.cloud.mybatis.spring.mapper.MapperFactoryBean;
+import app.myoss.cloud.mybatis.table.TableConfig;
+import app.myoss.cloud.mybatis.test.integration.h2.H2DataBaseIntTest.IntAutoConfig;
+import app.myoss.cloud.mybatis.test.integration.h2.test1.mapper.UserMapper;
+import app.myoss.cloud.mybatis.test.integration.h2.test8.ParallelRegisterIntTests.MyConfig8;
+import app.myoss.cloud.mybatis.test.integration.h2.test8.mapper.ParallelRegisterMapperTemplate;
+import app.myoss.cloud.mybatis.test.integration.h2.test8.mapper.UserParallelRegisterMapper;
+
+/**
+ * 通用 Mapper 接口并行注册（{@code mybatis.mapper-register.parallel=true}）集成测试，使用H2内存数据库
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午2:20:41
+ */
+@MapperScan(basePackageClasses = UserMapper.class, factoryBean = MapperFactoryBean.class, markerInterface = CrudMapper.class)
+@ActiveProfiles({ "h2-test8", "ParallelRegisterIntTests" })
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = { DataSourceAutoConfiguration.class, IntAutoConfig.class, MybatisAutoConfiguration.class,
+        MyConfig8.class })
+public class ParallelRegisterIntTests {
+    @Autowired
+    private SqlSessionFactory       sqlSessionFactory;
+    @Autowired
+    private MapperInterfaceRegister mapperInterfaceRegister;
+    @Autowired
+    private ApplicationContext      applicationContext;
+
+    /**
+     * 并行注册测试案例：Spring 容器中收集的 Mapper Interface 会在所有的单例 Bean 初始化完成之后被批量注册
+     */
+    @Test
+    public void parallelRegisterTest1() {
+        MappedStatement statement = sqlSessionFactory.getConfiguration()
+                .getMappedStatement(UserMapper.class.getName() + ".selectByPrimaryKey");
+        Assertions.assertThat(mapperInterfaceRegister.isParallel()).isTrue();
+        Assertions.assertThat(applicationContext.containsBean("mapperInterfaceRegisterInitializer")).isTrue();
+        Assertions.assertThat(statement.getSqlSource()).isNotInstanceOf(ProviderSqlSource.class);
+    }
+
+    /**
+     * 并行注册测试案例：两个方法的 sql 语句在不同的线程中同时生成
+     */
+    @Test
+    public void parallelRegisterTest2() {
+        org.apache.ibatis.session.Configuration configuration = new org.apache.ibatis.session.Configuration();
+        configuration.addMapper(UserParallelRegisterMapper.class);
+        MapperInterfaceRegister register = new MapperInterfaceRegister(new TableConfig());
+        register.setConfiguration(configuration);
+        register.setParallel(true);
+        register.setParallelism(2);
+        ParallelRegisterMapperTemplate.reset();
+        try {
+            register.addPendingRegister(UserParallelRegisterMapper.class);
+            register.executePendingRegister();
+        } finally {
+            register.shutdown();
+        }
+        Assertions.assertThat(ParallelRegisterMapperTemplate.THREADS)
+                .hasSize(2)
+                .allMatch(ForkJoinWorkerThread.class::isInstance);
+    }
+
+    @Profile("ParallelRegisterIntTests")
+    @Configuration
+    public static class MyConfig8 {
+    }
+}
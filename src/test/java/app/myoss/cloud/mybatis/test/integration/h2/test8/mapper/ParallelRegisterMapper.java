@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.integration.h2.test8.mapper;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.SelectProvider;
+
+import app.myoss.cloud.mybatis.mapper.annotation.RegisterMapper;
+
+/**
+ * 验证并行注册的通用 Mapper 接口，每个方法的 sql 语句生成时都会等待其它方法一起生成
+ *
+ * @param <T> 实体类
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午2:16:12
+ * @see ParallelRegisterMapperTemplate
+ */
+@RegisterMapper
+public interface ParallelRegisterMapper<T> {
+    /**
+     * 第一个需要生成 sql 语句的方法
+     *
+     * @param condition 匹配的条件
+     * @return 匹配的记录
+     */
+    @SelectProvider(type = ParallelRegisterMapperTemplate.class, method = "dynamicSql")
+    List<T> selectParallel1(T condition);
+
+    /**
+     * 第二个需要生成 sql 语句的方法
+     *
+     * @param condition 匹配的条件
+     * @return 匹配的记录
+     */
+    @SelectProvider(type = ParallelRegisterMapperTemplate.class, method = "dynamicSql")
+    List<T> selectParallel2(T condition);
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.integration.h2.test8.mapper;
+
+import java.util.Set;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.ibatis.mapping.MappedStatement;
+
+import app.myoss.cloud.mybatis.mapper.template.AbstractMapperTemplate;
+import app.myoss.cloud.mybatis.table.TableInfo;
+
+/**
+ * {@link ParallelRegisterMapper} 的模版：两个方法必须在不同的线程中同时生成 sql 语句才能通过
+ * {@link CyclicBarrier}，串行注册时会等待超时并抛出异常
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午2:17:38
+ */
+public class ParallelRegisterMapperTemplate extends AbstractMapperTemplate {
+    /**
+     * 生成 sql 语句时所在的线程
+     */
+    public static final Set<Thread> THREADS = ConcurrentHashMap.newKeySet();
+    private static CyclicBarrier    barrier = new CyclicBarrier(2);
+
+    /**
+     * 重置记录的线程和 {@link CyclicBarrier}
+     */
+    public static void reset() {
+        THREADS.clear();
+        barrier = new CyclicBarrier(2);
+    }
+
+    /**
+     * 生成第一个方法的 sql 语句
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息
+     */
+    public void selectParallel1(TableInfo tableInfo, MappedStatement ms) {
+        awaitOther();
+    }
+
+    /**
+     * 生成第二个方法的 sql 语句
+     *
+     * @param tableInfo 数据库表结构信息
+     * @param ms sql语句节点信息
+     */
+    public void selectParallel2(TableInfo tableInfo, MappedStatement ms) {
+        awaitOther();
+    }
+
+    private void awaitOther() {
+        THREADS.add(Thread.currentThread());
+        try {
+            barrier.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (BrokenBarrierException | TimeoutException e) {
+            throw new IllegalStateException("sql source is not generated in parallel", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.integration.h2.test8.mapper;
+
+import app.myoss.cloud.mybatis.test.integration.h2.test1.entity.User;
+
+/**
+ * 验证并行注册的 Mapper Interface，没有继承 CrudMapper，不会被 Spring 扫描
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午2:18:05
+ */
+public interface UserParallelRegisterMapper extends ParallelRegisterMapper<User> {
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.integration.h2.test9;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.api.SoftAssertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import app.myoss.cloud.core.lang.dto.Result;
+import app.myoss.cloud.mybatis.mapper.template.CrudMapper;
+import app.myoss.cloud.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import app.myoss.cloud.mybatis.spring.mapper.MapperFactoryBean;
+import app.myoss.cloud.mybatis.test.integration.h2.H2DataBaseIntTest.IntAutoConfig;
+import app.myoss.cloud.mybatis.test.integration.h2.test9.UserArticleLazyColumnIntTests.MyConfig9;
+import app.myoss.cloud.mybatis.test.integration.h2.test9.entity.UserArticle;
+import app.myoss.cloud.mybatis.test.integration.h2.test9.mapper.UserArticleMapper;
+import app.myoss.cloud.mybatis.test.integration.h2.test9.service.UserArticleService;
+
+/**
+ * 延迟加载字段（{@link app.myoss.cloud.mybatis.table.annotation.Column#lazy()}）集成测试，使用H2内存数据库
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午4:40:26
+ */
+@MapperScan(basePackageClasses = UserArticleLazyColumnIntTests.class, factoryBean = MapperFactoryBean.class, markerInterface = CrudMapper.class)
+@ActiveProfiles({ "h2-test9", "UserArticleLazyColumnIntTests" })
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = { DataSourceAutoConfiguration.class, IntAutoConfig.class, MybatisAutoConfiguration.class,
+        MyConfig9.class })
+public class UserArticleLazyColumnIntTests {
+    @Autowired
+    private UserArticleService userArticleService;
+    @Autowired
+    private UserArticleMapper  userArticleMapper;
+
+    /**
+     * 查询时不加载延迟加载字段，调用 loadLazyColumns 之后批量加载
+     */
+    @Test
+    public void lazyColumnTest1() {
+        List<UserArticle> records = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            UserArticle record = new UserArticle();
+            record.setUserId(401L);
+            record.setTitle("Lazy-" + i);
+            record.setContent(i < 2 ? "content-" + i : null);
+            records.add(record);
+        }
+        Result<Boolean> createResult = userArticleService.createBatch(records);
+        Assertions.assertThat(createResult.isSuccess()).isTrue();
+
+        List<Long> ids = records.stream().map(UserArticle::getId).collect(Collectors.toList());
+        List<UserArticle> articles = userArticleMapper.selectListByPrimaryKey(ids);
+        List<String> beforeContents = articles.stream().map(UserArticle::getContent).collect(Collectors.toList());
+        Result<Boolean> loadResult = userArticleService.loadLazyColumns(articles);
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(articles).hasSize(3);
+            softly.assertThat(beforeContents).containsOnlyNulls();
+            softly.assertThat(loadResult.getValue()).isTrue();
+            softly.assertThat(articles)
+                    .extracting(UserArticle::getTitle, UserArticle::getContent)
+                    .containsExactlyInAnyOrder(Assertions.tuple("Lazy-0", "content-0"),
+                            Assertions.tuple("Lazy-1", "content-1"), Assertions.tuple("Lazy-2", null));
+        });
+    }
+
+    /**
+     * 更新所有字段时，未加载的延迟加载字段不会被覆盖为 null
+     */
+    @Test
+    public void lazyColumnTest2() {
+        UserArticle record = new UserArticle();
+        record.setUserId(402L);
+        record.setTitle("Lazy-Update");
+        record.setContent("lazy-content");
+        Result<Long> createResult = userArticleService.create(record);
+        Assertions.assertThat(createResult.isSuccess()).isTrue();
+        Long id = createResult.getValue();
+
+        UserArticle article = userArticleMapper.selectByPrimaryKey(id);
+        String beforeContent = article.getContent();
+        article.setTitle("Lazy-Update-1");
+        int updateCount = userArticleMapper.updateByPrimaryKeyAllColumn(article);
+        UserArticle updated = userArticleMapper.selectByPrimaryKey(id);
+        userArticleService.loadLazyColumns(Collections.singletonList(updated));
+
+        UserArticle loaded = userArticleMapper.selectByPrimaryKey(id);
+        userArticleService.loadLazyColumns(Collections.singletonList(loaded));
+        loaded.setContent("lazy-content-1");
+        int updateCount2 = userArticleMapper.updateByPrimaryKeyAllColumn(loaded);
+        UserArticle updated2 = userArticleMapper.selectByPrimaryKey(id);
+        userArticleService.loadLazyColumns(Collections.singletonList(updated2));
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(beforeContent).isNull();
+            softly.assertThat(updateCount).isEqualTo(1);
+            softly.assertThat(updated.getTitle()).isEqualTo("Lazy-Update-1");
+            softly.assertThat(updated.getContent()).isEqualTo("lazy-content");
+            softly.assertThat(updateCount2).isEqualTo(1);
+            softly.assertThat(updated2.getContent()).isEqualTo("lazy-content-1");
+        });
+    }
+
+    @ComponentScan(basePackageClasses = UserArticleLazyColumnIntTests.class)
+    @Profile("UserArticleLazyColumnIntTests")
+    @Configuration
+    public static class MyConfig9 {
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.integration.h2.test9;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.SoftAssertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import app.myoss.cloud.core.lang.concurrent.CallableFunc;
+import app.myoss.cloud.core.lang.dto.Result;
+import app.myoss.cloud.mybatis.mapper.template.CrudMapper;
+import app.myoss.cloud.mybatis.repository.service.impl.BaseCrudServiceImpl;
+import app.myoss.cloud.mybatis.spring.boot.autoconfigure.MybatisAutoConfiguration;
+import app.myoss.cloud.mybatis.spring.mapper.MapperFactoryBean;
+import app.myoss.cloud.mybatis.test.integration.h2.H2DataBaseIntTest.IntAutoConfig;
+import app.myoss.cloud.mybatis.test.integration.h2.test9.UserArticleLazyColumnIntTests.MyConfig9;
+import app.myoss.cloud.mybatis.test.integration.h2.test9.entity.UserArticle;
+import app.myoss.cloud.mybatis.test.integration.h2.test9.mapper.UserArticleMapper;
+
+/**
+ * 字段变更跟踪，只更新有变化的字段（updateChanged）集成测试，使用H2内存数据库
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午4:52:09
+ */
+@MapperScan(basePackageClasses = UserArticleLazyColumnIntTests.class, factoryBean = MapperFactoryBean.class, markerInterface = CrudMapper.class)
+@ActiveProfiles({ "h2-test9", "UserArticleLazyColumnIntTests" })
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = { DataSourceAutoConfiguration.class, IntAutoConfig.class, MybatisAutoConfiguration.class,
+        MyConfig9.class })
+public class UserArticleUpdateChangedIntTests {
+    @Autowired
+    private UserArticleMapper userArticleMapper;
+    @Autowired
+    private JdbcTemplate      jdbcTemplate;
+
+    /**
+     * 没有变化的时候不执行 sql 语句，只更新有变化的字段，其它地方修改了没有变化的字段不会被覆盖
+     */
+    @Test
+    public void updateChangedTest1() {
+        UpdateHookUserArticleService service = new UpdateHookUserArticleService();
+        service.setCrudMapper(userArticleMapper);
+        service.setChangeTracking(true);
+        UserArticle record = new UserArticle();
+        record.setUserId(501L);
+        record.setTitle("Changed");
+        Result<Long> createResult = service.create(record);
+        Long id = createResult.getValue();
+
+        UserArticle article = service.findByPrimaryKey(id).getValue();
+        Result<Boolean> unchangedResult = service.updateChanged(article);
+
+        jdbcTemplate.update("update t_user_article set user_id = 502 where id = ?", id);
+        article.setTitle("Changed-1");
+        Result<Boolean> changedResult = service.updateChanged(article);
+        UserArticle latest = service.findByPrimaryKey(id).getValue();
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(unchangedResult.isSuccess()).isTrue();
+            softly.assertThat(changedResult.isSuccess()).isTrue();
+            softly.assertThat(latest.getTitle()).isEqualTo("Changed-1");
+            softly.assertThat(latest.getUserId()).isEqualTo(502L);
+        });
+    }
+
+    /**
+     * 只更新有变化的字段时，和 updateByPrimaryKey 一样会经过更新的扩展方法，延迟加载的字段加载之后不会被认为有变化
+     */
+    @Test
+    public void updateChangedTest2() {
+        UpdateHookUserArticleService service = new UpdateHookUserArticleService();
+        service.setCrudMapper(userArticleMapper);
+        service.setChangeTracking(true);
+        UserArticle record = new UserArticle();
+        record.setUserId(511L);
+        record.setTitle("Changed-Hook");
+        record.setContent("changed-content");
+        Result<Long> createResult = service.create(record);
+        Long id = createResult.getValue();
+
+        UserArticle article = service.findByPrimaryKey(id).getValue();
+        service.loadLazyColumns(Collections.singletonList(article));
+        String lazyContent = article.getContent();
+        // 延迟加载的字段加载之后没有修改，不执行 sql 语句
+        Result<Boolean> unchangedResult = service.updateChanged(article);
+        int unchangedCallableCount = service.callableCount.get();
+        article.setContent("changed-content-1");
+        Result<Boolean> changedResult = service.updateChanged(article);
+        UserArticle latest = userArticleMapper.selectByPrimaryKey(id);
+        service.loadLazyColumns(Collections.singletonList(latest));
+        SoftAssertions.assertSoftly(softly -> {
+            softly.assertThat(lazyContent).isEqualTo("changed-content");
+            softly.assertThat(unchangedResult.isSuccess()).isTrue();
+            softly.assertThat(unchangedCallableCount).isEqualTo(0);
+            softly.assertThat(changedResult.isSuccess()).isTrue();
+            softly.assertThat(service.callableCount.get()).isEqualTo(1);
+            softly.assertThat(service.existCheckCount.get()).isEqualTo(1);
+            softly.assertThat(latest.getContent()).isEqualTo("changed-content-1");
+            softly.assertThat(latest.getTitle()).isEqualTo("Changed-Hook");
+        });
+    }
+
+    /**
+     * 记录更新的扩展方法调用次数
+     */
+    static class UpdateHookUserArticleService extends BaseCrudServiceImpl<UserArticleMapper, UserArticle> {
+        private final AtomicInteger callableCount   = new AtomicInteger();
+        private final AtomicInteger existCheckCount = new AtomicInteger();
+
+        @Override
+        protected Result<Boolean> updateByPrimaryKeyCallable(Result<Boolean> result, UserArticle record,
+                                                             Object optionParam,
+                                                             CallableFunc<Result<Boolean>> updateCallFunc) {
+            callableCount.incrementAndGet();
+            return updateCallFunc.call();
+        }
+
+        @Override
+        protected boolean checkRecordIfExist4Update(Result<?> result, UserArticle record) {
+            existCheckCount.incrementAndGet();
+            return super.checkRecordIfExist4Update(result, record);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.integration.h2.test9.entity;
+
+import java.io.Serializable;
+
+import app.myoss.cloud.mybatis.table.annotation.Column;
+import app.myoss.cloud.mybatis.table.annotation.GenerationType;
+import app.myoss.cloud.mybatis.table.annotation.SequenceGenerator;
+import app.myoss.cloud.mybatis.table.annotation.Table;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * This class corresponds to the database table t_user_article, 文章内容比较大，延迟加载
+ * <p>
+ * Database Table Remarks: 用户文章表
+ * </p>
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午4:32:18
+ */
+@Accessors(chain = true)
+@Data
+@SequenceGenerator(strategy = GenerationType.USE_GENERATED_KEYS)
+@Table(name = "t_user_article")
+public class UserArticle implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Database Column Name: t_user_article.id
+     * <p>
+     * Database Column Remarks: 主键id
+     * </p>
+     */
+    @Column(name = "id", nullable = false, primaryKey = true)
+    private Long              id;
+
+    /**
+     * Database Column Name: t_user_article.user_id
+     * <p>
+     * Database Column Remarks: 用户id
+     * </p>
+     */
+    @Column(name = "user_id")
+    private Long              userId;
+
+    /**
+     * Database Column Name: t_user_article.title
+     * <p>
+     * Database Column Remarks: 文章标题
+     * </p>
+     */
+    @Column(name = "title")
+    private String            title;
+
+    /**
+     * Database Column Name: t_user_article.content
+     * <p>
+     * Database Column Remarks: 文章内容
+     * </p>
+     */
+    @Column(name = "content", lazy = true)
+    private String            content;
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.mybatis.test.integration.h2.test9.service.impl;
+
+import org.springframework.stereotype.Service;
+
+import app.myoss.cloud.mybatis.repository.service.impl.BaseCrudServiceImpl;
+import app.myoss.cloud.mybatis.test.integration.h2.test9.entity.UserArticle;
+import app.myoss.cloud.mybatis.test.integration.h2.test9.mapper.UserArticleMapper;
+import app.myoss.cloud.mybatis.test.integration.h2.test9.service.UserArticleService;
+
+/**
+ * This service implement access the database table t_user_article
+ * <p>
+ * Database Table Remarks: 用户文章表
+ * </p>
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月30日 下午4:32:18
+ */
+@Service
+public class UserArticleServiceImpl extends BaseCrudServiceImpl<UserArticleMapper, UserArticle>
+        implements UserArticleService {
+
+}
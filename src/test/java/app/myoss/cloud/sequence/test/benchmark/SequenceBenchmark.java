@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018-2018 https://github.com/myoss
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package app.myoss.cloud.sequence.test.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import app.myoss.cloud.sequence.SequenceRange;
+import app.myoss.cloud.sequence.SequenceRepository;
+import app.myoss.cloud.sequence.exception.SequenceException;
+import app.myoss.cloud.sequence.impl.DefaultSequenceImpl;
+
+/**
+ * 序列生成器 JMH 基准测试，使用内存中的 {@link SequenceRepository} 替代数据库，只衡量
+ * {@link DefaultSequenceImpl} 和 {@link SequenceRange} 本身的开销
+ *
+ * @author Jerry.Chen
+ * @since 2019年6月3日 下午2:33:41
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SequenceBenchmark {
+    /**
+     * 内存中的序列区间仓库，每次分配 {@link #INNER_STEP} 个序列值
+     */
+    public static class StubSequenceRepository implements SequenceRepository {
+        public static final int INNER_STEP = 1000;
+        private final AtomicLong value     = new AtomicLong();
+
+        @Override
+        public void adjust(String name) throws SequenceException {
+            // do nothing
+        }
+
+        @Override
+        public SequenceRange nextRange(String name) throws SequenceException {
+            long max = value.addAndGet(INNER_STEP);
+            return new SequenceRange(max - INNER_STEP + 1, max);
+        }
+
+        @Override
+        public int getInnerStep() {
+            return INNER_STEP;
+        }
+    }
+
+    /**
+     * 所有线程共享同一个序列生成器
+     */
+    @State(Scope.Benchmark)
+    public static class SequenceState {
+        DefaultSequenceImpl sequence;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            sequence = new DefaultSequenceImpl();
+            sequence.setName("seq_benchmark");
+            sequence.setSequenceRepository(new StubSequenceRepository());
+            sequence.init();
+        }
+    }
+
+    /**
+     * 每个线程使用一个独立的序列区间，区间用完之后重新创建
+     */
+    @State(Scope.Thread)
+    public static class RangeState {
+        SequenceRange sequenceRange;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            sequenceRange = new SequenceRange(1, Long.MAX_VALUE - 1);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long nextValueUncontended(SequenceState state) {
+        return state.sequence.nextValue();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long nextValueContended(SequenceState state) {
+        return state.sequence.nextValue();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long nextValueBatchContended(SequenceState state) {
+        return state.sequence.nextValue(50);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long rangeGetAndIncrement(RangeState state) {
+        return state.sequenceRange.getAndIncrement();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long rangeGetBatch(RangeState state) {
+        return state.sequenceRange.getBatch(50);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SequenceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
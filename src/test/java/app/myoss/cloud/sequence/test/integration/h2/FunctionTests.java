@@ -18,9 +18,18 @@
 package app.myoss.cloud.sequence.test.integration.h2;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.sql.DataSource;
 
@@ -31,12 +40,20 @@ import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import com.zaxxer.hikari.HikariDataSource;
 
+import app.myoss.cloud.sequence.exception.SequenceException;
+import app.myoss.cloud.sequence.impl.DataSourceCircuitBreaker;
+import app.myoss.cloud.sequence.impl.DataSourceCircuitBreaker.State;
 import app.myoss.cloud.sequence.impl.DefaultSequenceImpl;
+import app.myoss.cloud.sequence.impl.PowerOfTwoChoicesDataSourceSelector;
+import app.myoss.cloud.sequence.impl.RandomDataSourceSelector;
 import app.myoss.cloud.sequence.impl.RdsSequenceRepository;
+import app.myoss.cloud.sequence.impl.SnowflakeSequenceImpl;
+import app.myoss.cloud.sequence.impl.WeightedRandomDataSourceSelector;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -115,4 +132,193 @@ public class FunctionTests {
         log.info("sequence table data: {}{}", System.lineSeparator(), sequenceTableData);
         assertEquals(sequenceTableData.get("value"), 4000L);
     }
+
+    @Test
+    public void circuitBreakerTest1() {
+        AtomicInteger failedConnections = new AtomicInteger();
+        DataSource failedDataSource = new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                failedConnections.incrementAndGet();
+                throw new SQLException("connect timed out");
+            }
+        };
+        RdsSequenceRepository sequenceRepository = new RdsSequenceRepository();
+        Map<String, DataSource> dataSourceMap = new LinkedHashMap<>();
+        dataSourceMap.put("ds0", failedDataSource);
+        dataSourceMap.put("ds1", dataSource);
+        sequenceRepository.setDataSourceMap(dataSourceMap);
+        sequenceRepository.setFailureThreshold(2);
+        sequenceRepository.setCoolDownMillis(60000L);
+        sequenceRepository.init();
+        jdbcTemplate.update("insert into `sequence` (`name`, `value`, `gmt_created`, `gmt_modified`) "
+                + "values ('seq_circuit_breaker_test1', 1000, now(), now())");
+
+        for (int i = 0; i < 50; i++) {
+            sequenceRepository.nextRange("seq_circuit_breaker_test1");
+        }
+        // 连续失败2次之后熔断，冷却时间内不再尝试获取 ds0 的连接
+        assertEquals(2, failedConnections.get());
+        Map<String, DataSourceCircuitBreaker> circuitBreakers = sequenceRepository.getCircuitBreakers();
+        assertEquals(State.OPEN, circuitBreakers.get("ds0").getState());
+        assertEquals(2, circuitBreakers.get("ds0").getTotalFailures());
+        assertEquals(State.CLOSED, circuitBreakers.get("ds1").getState());
+
+        // 冷却时间结束之后只放行一次试探的请求
+        DataSourceCircuitBreaker circuitBreaker = new DataSourceCircuitBreaker("ds", 1, 0);
+        circuitBreaker.recordFailure();
+        assertEquals(State.OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+        assertFalse(circuitBreaker.tryAcquire());
+        circuitBreaker.recordFailure();
+        assertEquals(State.OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.recordSuccess();
+        assertEquals(State.CLOSED, circuitBreaker.getState());
+        assertEquals(1, circuitBreaker.getRejectedCount());
+    }
+
+    @Test
+    public void circuitBreakerTest2() {
+        // 0: 连接超时; 1: 连接池已经关闭; 2: 正常
+        AtomicInteger mode = new AtomicInteger();
+        DataSource unstableDataSource = new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                if (mode.get() == 0) {
+                    throw new SQLException("connect timed out");
+                } else if (mode.get() == 1) {
+                    throw new IllegalStateException("data source has been closed");
+                }
+                return super.getConnection();
+            }
+        };
+        RdsSequenceRepository sequenceRepository = new RdsSequenceRepository();
+        Map<String, DataSource> dataSourceMap = new LinkedHashMap<>();
+        dataSourceMap.put("ds0", unstableDataSource);
+        sequenceRepository.setDataSourceMap(dataSourceMap);
+        sequenceRepository.setFailureThreshold(1);
+        sequenceRepository.setCoolDownMillis(0L);
+        sequenceRepository.init();
+        jdbcTemplate.update("insert into `sequence` (`name`, `value`, `gmt_created`, `gmt_modified`) "
+                + "values ('seq_circuit_breaker_test2', 2000, now(), now())");
+        DataSourceCircuitBreaker circuitBreaker = sequenceRepository.getCircuitBreakers().get("ds0");
+
+        assertThrows(SequenceException.class, () -> sequenceRepository.nextRange("seq_circuit_breaker_test2"));
+        assertEquals(State.OPEN, circuitBreaker.getState());
+        // 试探的请求抛出了非 SQLException 的异常，熔断器重新熔断，不会一直停留在 HALF_OPEN 状态
+        mode.set(1);
+        assertThrows(IllegalStateException.class, () -> sequenceRepository.nextRange("seq_circuit_breaker_test2"));
+        assertEquals(State.OPEN, circuitBreaker.getState());
+        mode.set(2);
+        assertTrue(sequenceRepository.nextRange("seq_circuit_breaker_test2") != null);
+        assertEquals(State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void dataSourceSelectorTest1() {
+        List<String> dbGroupKeys = Arrays.asList("ds0", "ds1", "ds2");
+        RandomDataSourceSelector randomSelector = new RandomDataSourceSelector();
+        assertEquals(2, randomSelector.select(3, 0b011));
+        assertEquals(-1, randomSelector.select(3, 0b111));
+
+        // 两次随机选择：3个数据源中总是选出两个，耗时最多的 ds2 永远不会被选中
+        PowerOfTwoChoicesDataSourceSelector powerOfTwoSelector = new PowerOfTwoChoicesDataSourceSelector();
+        powerOfTwoSelector.init(dbGroupKeys);
+        powerOfTwoSelector.recordSuccess(0, 1000L);
+        powerOfTwoSelector.recordSuccess(1, 2000L);
+        powerOfTwoSelector.recordSuccess(2, 3000L);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(powerOfTwoSelector.select(3, 0) != 2);
+        }
+        powerOfTwoSelector.recordFailure(0);
+        assertEquals(1, powerOfTwoSelector.select(3, 0b100));
+
+        Map<String, Integer> capacities = new HashMap<>();
+        capacities.put("ds0", 0);
+        capacities.put("ds2", 3);
+        WeightedRandomDataSourceSelector weightedSelector = new WeightedRandomDataSourceSelector(capacities);
+        weightedSelector.init(dbGroupKeys);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(weightedSelector.select(3, 0) != 0);
+        }
+        assertEquals(0, weightedSelector.select(3, 0b110));
+    }
+
+    @Test
+    public void snowflakeTest1() {
+        RdsSequenceRepository sequenceRepository = new RdsSequenceRepository();
+        HashMap<String, DataSource> dataSourceMap = new HashMap<>();
+        dataSourceMap.put("defaultDataSource", dataSource);
+        sequenceRepository.setDataSourceMap(dataSourceMap);
+        sequenceRepository.setDataSourceCount(1);
+
+        SnowflakeSequenceImpl sequence1 = new SnowflakeSequenceImpl();
+        sequence1.setName("seq_snowflake_test1");
+        sequence1.setSequenceRepository(sequenceRepository);
+        sequence1.init();
+        SnowflakeSequenceImpl sequence2 = new SnowflakeSequenceImpl();
+        sequence2.setName("seq_snowflake_test1");
+        sequence2.setSequenceRepository(sequenceRepository);
+        sequence2.init();
+        assertTrue(sequence1.getWorkerId() >= 0);
+        assertTrue(sequence1.getWorkerId() != sequence2.getWorkerId());
+
+        long last = 0;
+        for (int i = 0; i < 10000; i++) {
+            long nextId = sequence1.nextValue();
+            assertTrue(nextId > last);
+            last = nextId;
+        }
+        // 批量获取：返回值为区间的最后一个值，区间内的值都属于同一毫秒、同一个 workerId
+        long batchEnd = sequence1.nextValue(500);
+        assertTrue(batchEnd > last);
+        assertTrue((batchEnd & ((1 << SnowflakeSequenceImpl.COUNTER_BITS) - 1)) >= 499);
+        assertEquals(sequence1.getWorkerId(), (batchEnd >> SnowflakeSequenceImpl.COUNTER_BITS)
+                & ((1 << SnowflakeSequenceImpl.WORKER_ID_BITS) - 1));
+
+        Long leaseExpireTime = jdbcTemplate.queryForObject("select `value` from `sequence` where `name` = ?",
+                Long.class, "seq_snowflake_test1_worker_" + sequence1.getWorkerId());
+        assertEquals(Long.valueOf(sequence1.getLeaseExpireTime()), leaseExpireTime);
+
+        // 释放之后 workerId 可以被新的节点租用
+        int workerId = sequence1.getWorkerId();
+        sequence1.destroy();
+        sequence2.destroy();
+        leaseExpireTime = jdbcTemplate.queryForObject("select `value` from `sequence` where `name` = ?", Long.class,
+                "seq_snowflake_test1_worker_" + workerId);
+        assertTrue(leaseExpireTime <= System.currentTimeMillis() + 1);
+    }
+
+    @Test
+    public void snowflakeTest2() throws InterruptedException {
+        RdsSequenceRepository sequenceRepository = new RdsSequenceRepository();
+        HashMap<String, DataSource> dataSourceMap = new HashMap<>();
+        dataSourceMap.put("defaultDataSource", dataSource);
+        sequenceRepository.setDataSourceMap(dataSourceMap);
+        sequenceRepository.setDataSourceCount(1);
+
+        SnowflakeSequenceImpl sequence = new SnowflakeSequenceImpl();
+        sequence.setName("seq_snowflake_test2");
+        sequence.setSequenceRepository(sequenceRepository);
+        sequence.setLeaseMillis(300);
+        sequence.init();
+        int workerId = sequence.getWorkerId();
+        assertTrue(workerId >= 0);
+
+        // 模拟租约被其它节点占用：续租失败之后会清除 workerId，并重新租用一个新的 workerId
+        jdbcTemplate.update("update `sequence` set `value` = ? where `name` = ?",
+                System.currentTimeMillis() + 3600000L, "seq_snowflake_test2_worker_" + workerId);
+        long deadline = System.currentTimeMillis() + 3000;
+        while ((sequence.getWorkerId() == workerId || sequence.getWorkerId() < 0)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        int newWorkerId = sequence.getWorkerId();
+        assertTrue(newWorkerId >= 0 && newWorkerId != workerId);
+        long nextId = sequence.nextValue();
+        assertEquals(newWorkerId,
+                (nextId >> SnowflakeSequenceImpl.COUNTER_BITS) & ((1 << SnowflakeSequenceImpl.WORKER_ID_BITS) - 1));
+        sequence.destroy();
+    }
 }
@@ -94,3 +94,53 @@ CREATE TABLE IF NOT EXISTS `t_sys_menu` (
 );
 
 COMMENT ON TABLE `t_sys_menu` IS '系统菜单表';
+
+CREATE TABLE IF NOT EXISTS `t_user_order_00` (
+  `id` bigint(20) NOT NULL COMMENT '主键id',
+  `user_id` bigint(20) DEFAULT NULL COMMENT '用户id',
+  `order_no` varchar(32) DEFAULT NULL COMMENT '订单编号',
+  `amount` bigint(20) DEFAULT NULL COMMENT '订单金额',
+  PRIMARY KEY (`id`)
+);
+
+COMMENT ON TABLE `t_user_order_00` IS '用户订单表';
+
+CREATE TABLE IF NOT EXISTS `t_user_order_01` (
+  `id` bigint(20) NOT NULL COMMENT '主键id',
+  `user_id` bigint(20) DEFAULT NULL COMMENT '用户id',
+  `order_no` varchar(32) DEFAULT NULL COMMENT '订单编号',
+  `amount` bigint(20) DEFAULT NULL COMMENT '订单金额',
+  PRIMARY KEY (`id`)
+);
+
+COMMENT ON TABLE `t_user_order_01` IS '用户订单表';
+
+CREATE TABLE IF NOT EXISTS `t_sys_region` (
+  `id` bigint(20) NOT NULL COMMENT '主键id',
+  `code` varchar(32) DEFAULT NULL COMMENT '区域编码',
+  `name` varchar(64) DEFAULT NULL COMMENT '区域名称',
+  `is_deleted` varchar(1) DEFAULT 'N' COMMENT '是否删除',
+  PRIMARY KEY (`id`)
+);
+
+COMMENT ON TABLE `t_sys_region` IS '行政区域表';
+
+CREATE TABLE IF NOT EXISTS `t_user_account` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT '主键id',
+  `user_id` bigint(20) DEFAULT NULL COMMENT '用户id',
+  `balance` bigint(20) DEFAULT NULL COMMENT '账户余额',
+  `version` int(11) DEFAULT NULL COMMENT '乐观锁版本号',
+  PRIMARY KEY (`id`)
+);
+
+COMMENT ON TABLE `t_user_account` IS '用户账户表';
+
+CREATE TABLE IF NOT EXISTS `t_user_article` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT '主键id',
+  `user_id` bigint(20) DEFAULT NULL COMMENT '用户id',
+  `title` varchar(64) DEFAULT NULL COMMENT '文章标题',
+  `content` text DEFAULT NULL COMMENT '文章内容',
+  PRIMARY KEY (`id`)
+);
+
+COMMENT ON TABLE `t_user_article` IS '用户文章表';